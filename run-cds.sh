@@ -0,0 +1,27 @@
+#!/bin/bash
+
+# run-cds.sh
+
+# Executa una classe principal amb l'arxiu CDS generat per "mvn -Pcds package".
+# El classpath ha de ser el mateix amb què es va generar l'arxiu (target/pr13.jar i target/classpath.txt).
+# Les classes de l'aplicació i de les dependències es carreguen ja verificades des de l'arxiu.
+# En mode lot (PR13Lot), que són execucions curtes, el compilador es limita a C1; les classes
+# interactives mantenen la compilació per nivells completa.
+
+mainClass=$1
+shift
+
+arxiu=target/pr13.jsa
+jar="$PWD"/target/pr13.jar
+if [ ! -f "$arxiu" ] || [ ! -f target/classpath.txt ] || [ ! -f "$jar" ]; then
+    echo "No s'ha trobat $arxiu. Genera'l amb: mvn -Pcds package"
+    exit 1
+fi
+
+opcionsJit=()
+if [ "$mainClass" = "com.project.pr13.PR13Lot" ]; then
+    opcionsJit=(-XX:TieredStopAtLevel=1)
+fi
+
+java -XX:SharedArchiveFile=$arxiu -Xshare:auto "${opcionsJit[@]}" \
+    -cp "$jar:$(cat target/classpath.txt)" "$mainClass" "$@"
@@ -1,15 +1,30 @@
 package com.project.pr13;
 
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
 import com.project.pr13.format.PersonaFormatter;
+import com.project.pr13.metriques.Metriques;
+import com.project.pr13.model.Persona;
+import com.project.pr13.xml.FactoriesXML;
+import com.project.pr13.xml.VinculadorXML;
+import com.project.utilitats.UtilsFitxers;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Classe principal que gestiona la lectura i el processament de fitxers XML per obtenir dades de persones.
@@ -19,6 +34,32 @@ import java.io.InputStream;
  */
 public class PR130Main {
 
+    private static final int MIDA_BLOC_SORTIDA = 8 * 1024;
+
+    /**
+     * Patró per defecte dels fitxers del mode directori (p. ex. persones-nord.xml o persones-sud.xml.gz).
+     */
+    public static final String PATRO_PER_DEFECTE = "persones*.{xml,xml.gz,xml.deflate}";
+
+    /**
+     * Resultat del processament d'un directori.
+     *
+     * @param fitxers Fitxers processats correctament.
+     * @param errors Fitxers que no s'han pogut llegir.
+     * @param persones Persones impreses.
+     * @param segons Temps total.
+     */
+    public record ResumDirectori(int fitxers, int errors, long persones, double segons) {
+
+        public double fitxersPerSegon() {
+            return (fitxers + errors) / Math.max(segons, 1e-9);
+        }
+
+        public double registresPerSegon() {
+            return persones / Math.max(segons, 1e-9);
+        }
+    }
+
     private final File dataDir;
 
     /**
@@ -33,52 +74,129 @@ public class PR130Main {
     /**
      * Mètode principal que inicia l'execució del programa.
      * 
-     * @param args Arguments passats a la línia de comandament (no s'utilitzen en aquest programa).
+     * Sense arguments mostra el fitxer persones.xml. Amb arguments processa tots els fitxers del directori
+     * de dades que coincideixen amb el patró indicat (p. ex. "persones-*.xml"), amb el nombre de
+     * lectures simultànies opcional com a segon argument.
+     *
+     * @param args Arguments passats a la línia de comandament.
      */
     public static void main(String[] args) {
         String userDir = System.getProperty("user.dir");
         File dataDir = new File(userDir, "data" + File.separator + "pr13");
 
         PR130Main app = new PR130Main(dataDir);
-        app.processarFitxerXML("persones.xml");
+        if (args.length == 0) {
+            app.processarFitxerXML("persones.xml");
+            return;
+        }
+        int lectures = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        app.processarDirectori(args[0], lectures);
     }
 
     /**
      * Processa un fitxer XML per obtenir la informació de les persones i imprimir-la.
+     * Si el fitxer no existeix però sí la seva variant comprimida (p. ex. persones.xml.gz), es llegeix aquesta.
      * 
      * @param filename Nom del fitxer XML a processar.
      */
     public void processarFitxerXML(String filename) {
-        File inputFile = new File(dataDir, filename);
-        Document doc = parseXML(inputFile);
-        if (doc != null) {
-            NodeList persones = doc.getElementsByTagName("persona");
+        Path inputFile = UtilsFitxers.variantExistent(new File(dataDir, filename).toPath());
+        try {
+            List<Persona> persones = VinculadorXML.llegirPersones(inputFile);
             imprimirCapçaleres();
             imprimirDadesPersones(persones);
+            Metriques.comptador(Metriques.REGISTRES_PROCESSATS).afegir(persones.size());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
         }
     }
 
-    // Imprime los datos de persones
-    private void imprimirDadesPersones(NodeList persones) {
-        for (int i = 0; i < persones.getLength(); i++) {
-            Element persona = (Element) persones.item(i);
-
-            // Aqui se obtiene los datos de cada elemento
-            String nom = persona.getElementsByTagName("nom").item(0).getTextContent();
-            String cognom = persona.getElementsByTagName("cognom").item(0).getTextContent();
-            String edat = persona.getElementsByTagName("edat").item(0).getTextContent();
-            String ciutat = persona.getElementsByTagName("ciutat").item(0).getTextContent();
-
-            System.out.printf("%-8s %-14s %-5s %-10s%n", nom, cognom, edat, ciutat);
+    /**
+     * Processa tots els fitxers del directori de dades que coincideixen amb el patró. Els fitxers es
+     * llegeixen en paral·lel (fils virtuals), però les persones s'imprimeixen sota una sola capçalera en
+     * l'ordre alfabètic dels noms de fitxer, de manera que la sortida no depèn de quin acaba primer. Mai no
+     * hi ha més de {@code lectures} fitxers llegits o pendents d'imprimir alhora: si el primer de la cua encara
+     * no ha acabat, no se'n comença cap altre. Els fitxers que fallen es notifiquen i es continua amb la resta.
+     * El resum amb fitxers/s i registres/s s'escriu per la sortida d'error.
+     *
+     * @param patro Patró glob dels noms de fitxer (p. ex. {@link #PATRO_PER_DEFECTE}).
+     * @param lectures Nombre màxim de fitxers en memòria alhora (com a mínim 1).
+     * @return Resum del processament.
+     */
+    public ResumDirectori processarDirectori(String patro, int lectures) {
+        long inici = System.nanoTime();
+        List<Path> fitxers = new ArrayList<>();
+        try (DirectoryStream<Path> directori = Files.newDirectoryStream(dataDir.toPath(), patro)) {
+            directori.forEach(fitxers::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error en llistar el directori " + dataDir, e);
+        }
+        fitxers.sort(null);
+
+        int[] comptadors = new int[2];
+        long persones = 0;
+        imprimirCapçaleres();
+        Deque<Future<List<Persona>>> pendents = new ArrayDeque<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            int seguent = 0;
+            while (seguent < fitxers.size() || !pendents.isEmpty()) {
+                if (seguent < fitxers.size() && pendents.size() < Math.max(1, lectures)) {
+                    Path fitxer = fitxers.get(seguent++);
+                    pendents.addLast(executor.submit(() -> VinculadorXML.llegirPersones(fitxer)));
+                    continue;
+                }
+                Path fitxer = fitxers.get(seguent - pendents.size());
+                List<Persona> llegides = esperar(pendents.removeFirst(), fitxer, comptadors);
+                imprimirDadesPersones(llegides);
+                persones += llegides.size();
+            }
         }
+        Metriques.comptador(Metriques.REGISTRES_PROCESSATS).afegir(persones);
+
+        ResumDirectori resum = new ResumDirectori(comptadors[0], comptadors[1], persones, (System.nanoTime() - inici) / 1e9);
+        System.out.flush();
+        System.err.printf("%d fitxers (%d erronis), %d persones en %.3f s (%.1f fitxers/s, %.0f registres/s)%n",
+                resum.fitxers(), resum.errors(), resum.persones(), resum.segons(),
+                resum.fitxersPerSegon(), resum.registresPerSegon());
+        return resum;
     }
 
+    /**
+     * Espera la lectura d'un fitxer i en compta el resultat (correctes a la posició 0, errors a la 1).
+     */
+    private static List<Persona> esperar(Future<List<Persona>> lectura, Path fitxer, int[] comptadors) {
+        try {
+            List<Persona> persones = lectura.get();
+            comptadors[0]++;
+            return persones;
+        } catch (ExecutionException e) {
+            comptadors[1]++;
+            System.err.println("Error en llegir " + fitxer.getFileName() + ": " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Processament del directori interromput", e);
+        }
+        return List.of();
+    }
 
+    // Imprime los datos de persones
+    private void imprimirDadesPersones(List<Persona> persones) {
+        // Les files es formaten sobre un únic buffer que s'envia a la consola per blocs
+        StringBuilder sortida = new StringBuilder(MIDA_BLOC_SORTIDA + PersonaFormatter.LONGITUD_FILA);
+        for (Persona persona : persones) {
+            PersonaFormatter.formatarPersona(sortida, persona);
+            sortida.append(System.lineSeparator());
+            if (sortida.length() >= MIDA_BLOC_SORTIDA) {
+                System.out.print(sortida);
+                sortida.setLength(0);
+            }
+        }
+        System.out.print(sortida);
+    }
 
     // Imprime la cabecera
     private void imprimirCapçaleres() {
-        System.out.printf("%-8s %-14s %-5s %-10s%n", "Nom", "Cognom", "Edat", "Ciutat");
-        System.out.printf("%-8s %-14s %-5s %-10s%n", "--------", "--------------", "-----", "---------");
+        System.out.println(PersonaFormatter.getCapçaleres());
     }
 
 
@@ -90,11 +208,16 @@ public class PR130Main {
      */
     public static Document parseXML(File inputFile) {
         try {
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.parse(inputFile);
-            doc.getDocumentElement().normalize();
-            return doc;
+            return Metriques.temporitzador(Metriques.XML_PARSEIG).mesurar(() -> {
+                DocumentBuilder dBuilder = FactoriesXML.nouDocumentBuilder();
+                Document doc;
+                try (InputStream entrada = UtilsFitxers.obrirEntrada(inputFile.toPath())) {
+                    doc = dBuilder.parse(entrada, inputFile.toURI().toString());
+                }
+                doc.getDocumentElement().normalize();
+                Metriques.comptador(Metriques.BYTES_LLEGITS).afegir(inputFile.length());
+                return doc;
+            });
         } catch (Exception e) {
             e.printStackTrace();
         }
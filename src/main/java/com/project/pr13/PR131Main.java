@@ -4,8 +4,11 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Text;
 
+import com.project.pr13.metriques.Metriques;
+import com.project.pr13.xml.FactoriesXML;
+import com.project.utilitats.UtilsFitxers;
+
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.*;
 import org.w3c.dom.Attr;
@@ -13,6 +16,7 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Classe principal que crea un document XML amb informació de llibres i el guarda en un fitxer.
@@ -66,13 +70,14 @@ public class PR131Main {
 
     /**
      * Processa el document XML creant-lo, guardant-lo en un fitxer i comprovant el directori de sortida.
+     * Si ja existeix la variant comprimida del fitxer (p. ex. biblioteca.xml.gz) i no la normal, es guarda comprimit.
      *
      * @param filename Nom del fitxer XML a guardar.
      */
     public void processarFitxerXML(String filename) {
         if (comprovarIDirCrearDirectori(dataDir)) {
             Document doc = construirDocument();
-            File fitxerSortida = new File(dataDir, filename);
+            File fitxerSortida = UtilsFitxers.variantExistent(new File(dataDir, filename).toPath()).toFile();
             guardarDocument(doc, fitxerSortida);
         }
     }
@@ -96,12 +101,10 @@ public class PR131Main {
      * @return Document XML creat o null en cas d'error.
      */
     private static Document construirDocument() {
-        // Crea una factoria de constructors de documents
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
         // Crea un constructor de documents
         DocumentBuilder db = null;
         try {
-            db = dbf.newDocumentBuilder();
+            db = FactoriesXML.nouDocumentBuilder();
         } catch (ParserConfigurationException e) {
             throw new RuntimeException(e);
         }
@@ -177,22 +180,22 @@ public class PR131Main {
                 throw new RuntimeException(e);
             }
         }
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
         Transformer transformer = null;
         try {
-            transformer = transformerFactory.newTransformer();
+            transformer = FactoriesXML.nouTransformer();
         } catch (TransformerConfigurationException e) {
             throw new RuntimeException(e);
         }
         transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
         transformer.setOutputProperty(OutputKeys.INDENT, "yes");
         DOMSource source = new DOMSource(doc);
-        StreamResult result = new StreamResult(new File(String.valueOf(fitxerSortida)));
-        try {
-            transformer.transform(source, result);
-        } catch (TransformerException e) {
+        Transformer serialitzador = transformer;
+        try (OutputStream sortida = UtilsFitxers.obrirSortida(fitxerSortida.toPath())) {
+            Metriques.temporitzador(Metriques.XML_SERIALITZACIO).mesurar(() ->
+                    serialitzador.transform(source, new StreamResult(sortida)));
+        } catch (TransformerException | IOException e) {
             throw new RuntimeException(e);
         }
-
+        Metriques.comptador(Metriques.BYTES_ESCRITS).afegir(fitxerSortida.length());
     }
 }
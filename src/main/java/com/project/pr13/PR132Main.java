@@ -5,24 +5,62 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import com.project.pr13.cerca.Coincidencia;
+import com.project.pr13.cerca.IndexCerca;
+import com.project.pr13.cursos.CursosMandrosos;
+import com.project.pr13.cursos.EscanerCursos;
+import com.project.pr13.cursos.MagatzemShards;
+import com.project.pr13.cursos.MagatzemVersionat;
+import com.project.pr13.cursos.ModelCursos;
+import com.project.pr13.cursos.ObservadorCursos;
+import com.project.pr13.cursos.OrdreAlumnes;
+import com.project.pr13.cursos.Pagina;
+import com.project.pr13.cursos.Paginador;
+import com.project.pr13.cursos.TransaccioCursos;
+import com.project.pr13.dades.CacheDocuments;
+import com.project.pr13.dades.CacheResultats;
+import com.project.pr13.dades.ObservadorDades;
 import com.project.pr13.format.AsciiTablePrinter;
+import com.project.pr13.metriques.Metriques;
+import com.project.pr13.model.Curs;
+import com.project.pr13.xml.FactoriesXML;
+import com.project.pr13.xml.VinculadorXML;
+import com.project.utilitats.UtilsFitxers;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import org.w3c.dom.Document;
 
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import javax.xml.namespace.QName;
 import javax.xml.transform.*;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Classe principal que permet gestionar un fitxer XML de cursos amb opcions per llistar, afegir i eliminar alumnes, 
@@ -30,19 +68,137 @@ import java.util.Scanner;
  * 
  * Aquesta classe inclou funcionalitats per interactuar amb un fitxer XML, executar operacions de consulta,
  * i realitzar modificacions en el contingut del fitxer.
+ *
+ * Les llistes que retornen les consultes es comparteixen entre crides a través de la memòria cau de resultats
+ * i són només de lectura: modificar-les llança {@link UnsupportedOperationException}, i qui les hagi de
+ * modificar n'ha de fer una còpia. Si una consulta falla, l'excepció es propaga i no es guarda cap resultat.
  */
 public class PR132Main {
 
     private final Path xmlFilePath;
+    private final CacheDocuments cache;
+    // Magatzem amb un fitxer per curs (null si tots els cursos són al fitxer XML)
+    private final MagatzemShards shards;
     private static final Scanner scanner = new Scanner(System.in);
 
+    /**
+     * Nombre de files per pàgina als llistats del menú.
+     */
+    public static final int MIDA_PAGINA = 20;
+
+    // Resultat de comprovar si un element <alumnes> està ordenat; només evita repetir la comprovació
+    // (si es torna a carregar el document es perd i es torna a comprovar)
+    private static final String CLAU_ORDENAT = "pr13.alumnesOrdenats";
+
+    /**
+     * Nombre de canvis pendents per defecte a partir del qual l'escriptura diferida guarda sense esperar l'interval.
+     */
+    public static final int MAX_CANVIS_PER_DEFECTE = 100;
+
+    // Document compartit entre operacions en mode lot (null fora d'aquest mode)
+    private Document documentEnMemoria;
+    private boolean canvisPendents;
+
+    // Escriptura diferida: fil que guarda periòdicament el document en memòria (null si no està activa)
+    private ScheduledExecutorService escriptorDiferit;
+    private int maxCanvisPendents;
+    private int canvisSenseGuardar;
+    // Garanteix que les escriptures diferides arriben al disc en ordre
+    private final Object bloqueigEscriptura = new Object();
+
+    // Posicions de les seccions de cada curs per a les consultes que no necessiten tot el document
+    private CursosMandrosos seccions;
+
+    private final List<ObservadorCursos> observadors = new CopyOnWriteArrayList<>();
+    // Model incremental dels cursos amb memòria cau de documents: decideix quins cursos han canviat
+    // quan el fitxer canvia fora de l'aplicació (null fins al primer accés)
+    private ModelCursos model;
+    // Índex de cerca, construït a la primera cerca i mantingut al dia amb les modificacions
+    private IndexCerca index;
+    // Resultats de les consultes repetides, invalidats amb les modificacions de cada curs
+    private final CacheResultats resultats;
+    // Estat del fitxer quan se'n van calcular els resultats (només sense document en memòria)
+    private EstatFitxer estatFitxer;
+
+    private record EstatFitxer(FileTime modificacio, long mida, Object clau) {
+    }
+
+    // Si ja s'ha subscrit als canvis de la memòria cau de documents (es fa al primer accés, no al constructor)
+    private boolean subscrit;
+    // Canvis que l'última actualització incremental del document ha aplicat i encara no s'han notificat
+    private ModelCursos.ResultatRecarrega canvisAplicats;
+
+    // Historial de versions dels cursos modificats: enregistra les modificacions i els canvis externs notificats
+    private final MagatzemVersionat versions;
+    // Modificacions de l'aplicació que es poden desfer, de la més recent a la més antiga
+    private final Deque<PuntDesfer> puntsDesfer = new ArrayDeque<>();
+
+    // Versions de l'historial just abans i just després d'una modificació
+    private record PuntDesfer(long abans, long despres) {
+    }
+
     /**
      * Constructor de la classe PR132Main.
      * 
      * @param xmlFilePath Ruta al fitxer XML que conté la informació dels cursos.
      */
     public PR132Main(Path xmlFilePath) {
+        this(xmlFilePath, null);
+    }
+
+    /**
+     * Constructor de la classe PR132Main que obté el document d'una memòria cau compartida
+     * en lloc de llegir el fitxer a cada operació.
+     *
+     * @param xmlFilePath Ruta al fitxer XML que conté la informació dels cursos.
+     * @param cache Memòria cau de documents (o null per llegir sempre el fitxer).
+     */
+    public PR132Main(Path xmlFilePath, CacheDocuments cache) {
+        this(xmlFilePath, cache, CacheResultats.PES_MAXIM_PER_DEFECTE);
+    }
+
+    /**
+     * Constructor de la classe PR132Main amb una mida concreta de la memòria cau de resultats.
+     *
+     * @param xmlFilePath Ruta al fitxer XML que conté la informació dels cursos.
+     * @param cache Memòria cau de documents (o null per llegir sempre el fitxer).
+     * @param pesMaximResultats Pes màxim estimat, en bytes, dels resultats de consultes que es guarden (0 per no guardar-ne).
+     */
+    public PR132Main(Path xmlFilePath, CacheDocuments cache, long pesMaximResultats) {
+        this(xmlFilePath, cache, null, pesMaximResultats);
+    }
+
+    /**
+     * Constructor de la classe PR132Main que treballa sobre un magatzem amb un fitxer per curs: cada
+     * modificació només reescriu el fragment del curs afectat i les consultes només llegeixen els
+     * fragments que necessiten. Els canvis fets als fragments fora de l'aplicació no es detecten.
+     *
+     * @param shards Magatzem de cursos.
+     */
+    public PR132Main(MagatzemShards shards) {
+        this(shards, CacheResultats.PES_MAXIM_PER_DEFECTE);
+    }
+
+    /**
+     * Constructor de la classe PR132Main sobre un magatzem amb un fitxer per curs i amb una mida concreta
+     * de la memòria cau de resultats.
+     *
+     * @param shards Magatzem de cursos.
+     * @param pesMaximResultats Pes màxim estimat, en bytes, dels resultats de consultes que es guarden (0 per no guardar-ne).
+     */
+    public PR132Main(MagatzemShards shards, long pesMaximResultats) {
+        this(shards.rutaManifest(), null, shards, pesMaximResultats);
+    }
+
+    private PR132Main(Path xmlFilePath, CacheDocuments cache, MagatzemShards shards, long pesMaximResultats) {
         this.xmlFilePath = xmlFilePath;
+        this.cache = cache;
+        this.shards = shards;
+        this.resultats = new CacheResultats(pesMaximResultats);
+        observadors.add(resultats);
+        // L'historial només conté els cursos modificats: cadascun s'hi incorpora just abans de modificar-lo
+        this.versions = new MagatzemVersionat(List.of(), MagatzemVersionat.MAX_VERSIONS_PER_DEFECTE);
+        observadors.add(versions);
     }
 
     /**
@@ -52,10 +208,54 @@ public class PR132Main {
      */
     public static void main(String[] args) {
         String userDir = System.getProperty("user.dir");
-        Path xmlFilePath = Paths.get(userDir, "data", "pr13", "cursos.xml");
+        // Si només hi ha la variant comprimida (cursos.xml.gz), es llegeix i es guarda comprimida
+        Path xmlFilePath = UtilsFitxers.variantExistent(Paths.get(userDir, "data", "pr13", "cursos.xml"));
+
+        // La memòria cau es manté al dia amb els canvis externs al directori de dades
+        CacheDocuments cache = new CacheDocuments();
+        try {
+            ObservadorDades observador = new ObservadorDades(xmlFilePath.getParent(), cache);
+            try {
+                // Mida de la memòria cau de resultats en bytes amb -Dpr13.cacheResultats.pesMaxim (0 la desactiva)
+                long pesMaximResultats = Long.getLong("pr13.cacheResultats.pesMaxim", CacheResultats.PES_MAXIM_PER_DEFECTE);
+                // Un fitxer per curs si s'indica el directori del magatzem amb -Dpr13.fragments
+                String directoriFragments = System.getProperty("pr13.fragments");
+                PR132Main app = directoriFragments == null
+                        ? new PR132Main(xmlFilePath, cache, pesMaximResultats)
+                        : new PR132Main(obrirFragments(xmlFilePath, Paths.get(directoriFragments)), pesMaximResultats);
+                // Escriptura diferida si s'indica l'interval (en segons) amb -Dpr13.escripturaDiferida.interval
+                String intervalEscriptura = System.getProperty("pr13.escripturaDiferida.interval");
+                if (intervalEscriptura != null) {
+                    int maxCanvis = Integer.getInteger("pr13.escripturaDiferida.maxCanvis", MAX_CANVIS_PER_DEFECTE);
+                    app.iniciarEscripturaDiferida(Duration.ofSeconds(Long.parseLong(intervalEscriptura)), maxCanvis);
+                    // Els canvis pendents es guarden també si el procés s'atura sense passar pel menú
+                    Runtime.getRuntime().addShutdownHook(new Thread(app::finalitzarEscripturaDiferida));
+                }
+                try {
+                    app.executar();
+                } finally {
+                    app.finalitzarEscripturaDiferida();
+                }
+            } finally {
+                observador.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error en observar el directori de dades.", e);
+        }
+    }
 
-        PR132Main app = new PR132Main(xmlFilePath);
-        app.executar();
+    /**
+     * Obre el magatzem per cursos d'un directori. Si encara no en té, primer s'hi importa el fitxer XML de cursos.
+     *
+     * @param cursosXml Fitxer XML de cursos a importar si el magatzem no existeix.
+     * @param directori Directori del magatzem.
+     * @return Magatzem obert.
+     */
+    private static MagatzemShards obrirFragments(Path cursosXml, Path directori) {
+        if (Files.exists(directori.resolve(MagatzemShards.MANIFEST))) {
+            return new MagatzemShards(directori);
+        }
+        return MagatzemShards.importar(cursosXml, directori);
     }
 
     /**
@@ -68,7 +268,12 @@ public class PR132Main {
             System.out.print("Escull una opció: ");
             int opcio = scanner.nextInt();
             scanner.nextLine(); // Netegem el buffer del scanner
-            exit = processarOpcio(opcio);
+            try {
+                exit = processarOpcio(opcio);
+            } catch (RuntimeException e) {
+                // Una consulta fallida no atura el menú (i el seu resultat no s'ha guardat a la memòria cau)
+                System.err.println("Error en executar l'opció " + opcio + ": " + e.getMessage());
+            }
         }
     }
 
@@ -83,8 +288,7 @@ public class PR132Main {
         String nomAlumne;
         switch (opcio) {
             case 1:
-                List<List<String>> cursos = llistarCursos();
-                imprimirTaulaCursos(cursos);
+                mostrarPerPagines(cursor -> llistarCursos(MIDA_PAGINA, cursor), this::imprimirTaulaCursos);
                 return false;
             case 2:
                 System.out.print("Introdueix l'ID del curs per veure els seus mòduls: ");
@@ -95,8 +299,8 @@ public class PR132Main {
             case 3:
                 System.out.print("Introdueix l'ID del curs per veure la llista d'alumnes: ");
                 cursId = scanner.nextLine();
-                List<String> alumnes = llistarAlumnes(cursId);
-                imprimirLlistaAlumnes(alumnes);
+                String idAlumnes = cursId;
+                mostrarPerPagines(cursor -> llistarAlumnes(idAlumnes, MIDA_PAGINA, cursor), this::imprimirLlistaAlumnes);
                 return false;
             case 4:
                 System.out.print("Introdueix l'ID del curs on vols afegir l'alumne: ");
@@ -115,12 +319,66 @@ public class PR132Main {
             case 6:
                 System.out.println("Sortint del programa...");
                 return true;
+            case 7:
+                System.out.print("Introdueix el text a cercar: ");
+                String consulta = scanner.nextLine();
+                imprimirTaulaCoincidencies(cercar(consulta));
+                return false;
+            case 8:
+                System.out.print("Introdueix l'ID del curs: ");
+                cursId = scanner.nextLine();
+                System.out.print("Introdueix l'inici del rang (p. ex. D): ");
+                String desde = scanner.nextLine();
+                System.out.print("Introdueix el final del rang (p. ex. F): ");
+                String fins = scanner.nextLine();
+                imprimirLlistaAlumnes(llistarAlumnesEntre(cursId, desde, fins));
+                return false;
+            case 9:
+                System.out.print("Introdueix el nom complet de l'alumne a moure: ");
+                nomAlumne = scanner.nextLine();
+                System.out.print("Introdueix l'ID del curs on és ara: ");
+                cursId = scanner.nextLine();
+                System.out.print("Introdueix l'ID del curs on ha d'anar: ");
+                String cursDesti = scanner.nextLine();
+                try {
+                    moureAlumne(nomAlumne, cursId, cursDesti);
+                } catch (IllegalArgumentException e) {
+                    System.out.println(e.getMessage());
+                }
+                return false;
+            case 10:
+                try {
+                    System.out.println(desfer() ? "S'ha desfet l'última modificació." : "No hi ha cap modificació per desfer.");
+                } catch (IllegalArgumentException e) {
+                    System.out.println("No es pot desfer: " + e.getMessage());
+                }
+                return false;
             default:
                 System.out.println("Opció no reconeguda. Si us plau, prova de nou.");
                 return false;
         }
     }
 
+    /**
+     * Mostra una consulta paginada per consola, demanant confirmació abans de cada pàgina nova.
+     *
+     * @param consulta Funció que obté la pàgina corresponent a un cursor.
+     * @param impressio Funció que imprimeix els elements d'una pàgina.
+     */
+    private <T> void mostrarPerPagines(Function<String, Pagina<T>> consulta, Consumer<List<T>> impressio) {
+        String cursor = null;
+        do {
+            Pagina<T> pagina = consulta.apply(cursor);
+            impressio.accept(pagina.elements());
+            cursor = pagina.seguentCursor();
+        } while (cursor != null && continuarPaginacio());
+    }
+
+    private boolean continuarPaginacio() {
+        System.out.print("Prem Enter per veure més resultats o escriu 'q' per tornar al menú: ");
+        return !scanner.nextLine().trim().equalsIgnoreCase("q");
+    }
+
     /**
      * Mostra el menú principal amb les opcions disponibles.
      */
@@ -132,22 +390,41 @@ public class PR132Main {
         System.out.println("4. Afegir un alumne a un curs");
         System.out.println("5. Eliminar un alumne d'un curs");
         System.out.println("6. Sortir");
+        System.out.println("7. Cercar alumnes i mòduls");
+        System.out.println("8. Llistar alumnes d'un curs per rang alfabètic");
+        System.out.println("9. Moure un alumne a un altre curs");
+        System.out.println("10. Desfer l'última modificació");
     }
 
     /**
      * Llegeix el fitxer XML i llista tots els cursos amb el seu tutor i nombre d'alumnes.
+     * El resultat es reutilitza fins que canvia algun curs.
      * 
-     * @return Llista amb la informació dels cursos (ID, tutor, nombre d'alumnes).
+     * @return Llista amb la informació dels cursos (ID, tutor, nombre d'alumnes), només de lectura.
      */
-    public List<List<String>> llistarCursos() {
+    public synchronized List<List<String>> llistarCursos() {
+        comprovarFitxer();
+        return resultats.obtenir("cursos", null, CacheResultats.Dependencia.ALUMNES_DE_TOTS,
+                () -> nomesLectura(consultarCursos()));
+    }
+
+    private List<List<String>> consultarCursos() {
+        if (shards != null) {
+            List<List<String>> llistaCursos = shards.carregarTots().stream().map(PR132Main::filaCurs).toList();
+            Metriques.comptador(Metriques.REGISTRES_PROCESSATS).afegir(llistaCursos.size());
+            return llistaCursos;
+        }
+        if (documentEnMemoria == null && cache == null) {
+            return llistarCursosSenseDocument();
+        }
         List<List<String>> llistaCursos = new ArrayList<>();
         try {
             // Cargar documento
-            Document doc = carregarDocumentXML(xmlFilePath);
-            XPath xPath = XPathFactory.newInstance().newXPath();
+            Document doc = obtenirDocument();
+            XPath xPath = FactoriesXML.novaXPath();
 
             // Obtener los elementos <curs>
-            NodeList nodeListCursos = (NodeList) xPath.evaluate("/cursos/curs", doc, XPathConstants.NODESET);
+            NodeList nodeListCursos = (NodeList) avaluarXPath(xPath, "/cursos/curs", doc, XPathConstants.NODESET);
 
             // Iterar sobre los cursos
             for (int i = 0; i < nodeListCursos.getLength(); i++) {
@@ -166,15 +443,83 @@ public class PR132Main {
                 cursInfo.add(String.valueOf(totalAlumnes));
                 llistaCursos.add(cursInfo);
             }
+            Metriques.comptador(Metriques.REGISTRES_PROCESSATS).afegir(llistaCursos.size());
 
-        } catch (Exception e) {
-            e.printStackTrace();
+        } catch (XPathExpressionException e) {
+            throw new RuntimeException(e);
         }
 
         return llistaCursos;
     }
 
 
+    /**
+     * Obté la llista de cursos vinculant el fitxer directament als registres del model,
+     * sense construir el document DOM.
+     *
+     * @return Llista amb la informació dels cursos (ID, tutor, nombre d'alumnes).
+     */
+    private List<List<String>> llistarCursosSenseDocument() {
+        List<List<String>> llistaCursos = new ArrayList<>();
+        VinculadorXML.recorrerCursos(xmlFilePath, id -> true, curs -> llistaCursos.add(filaCurs(curs)));
+        Metriques.comptador(Metriques.REGISTRES_PROCESSATS).afegir(llistaCursos.size());
+        return llistaCursos;
+    }
+
+    /**
+     * Llista una pàgina de cursos amb el seu tutor i nombre d'alumnes, en l'ordre del document.
+     * Només es retenen en memòria els cursos de la pàgina.
+     *
+     * @param limit Nombre màxim de cursos de la pàgina.
+     * @param cursor Cursor retornat per la pàgina anterior, o null per obtenir la primera.
+     * @return Pàgina amb la informació dels cursos (ID, tutor, nombre d'alumnes).
+     * @throws IllegalArgumentException Si el límit no és positiu o el cursor no és vàlid.
+     */
+    public synchronized Pagina<List<String>> llistarCursos(int limit, String cursor) {
+        comprovarFitxer();
+        return resultats.obtenir("cursos:" + limit + ":" + cursor, null, CacheResultats.Dependencia.ALUMNES_DE_TOTS,
+                () -> consultarCursos(limit, cursor));
+    }
+
+    private Pagina<List<String>> consultarCursos(int limit, String cursor) {
+        Paginador<List<String>> paginador = new Paginador<>(cursor, limit, fila -> fila.get(0));
+        if (shards != null) {
+            // Els fragments posteriors a la pàgina no es carreguen
+            for (String idCurs : shards.ids()) {
+                if (paginador.complet()) {
+                    break;
+                }
+                Curs curs = shards.curs(idCurs);
+                if (curs != null) {
+                    paginador.afegir(filaCurs(curs));
+                }
+            }
+        } else if (documentEnMemoria == null && cache == null) {
+            // Els cursos posteriors a la pàgina se salten sense materialitzar-los
+            VinculadorXML.recorrerCursos(xmlFilePath, id -> !paginador.complet(), curs -> paginador.afegir(filaCurs(curs)));
+        } else {
+            try {
+                Document doc = obtenirDocument();
+                NodeList nodeListCursos = (NodeList) avaluarXPath(FactoriesXML.novaXPath(), "/cursos/curs", doc, XPathConstants.NODESET);
+                for (int i = 0; i < nodeListCursos.getLength() && !paginador.complet(); i++) {
+                    Element cursElement = (Element) nodeListCursos.item(i);
+                    paginador.afegir(List.of(cursElement.getAttribute("id"),
+                            cursElement.getElementsByTagName("tutor").item(0).getTextContent(),
+                            String.valueOf(cursElement.getElementsByTagName("alumne").getLength())));
+                }
+            } catch (XPathExpressionException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        Pagina<List<String>> pagina = paginador.pagina();
+        Metriques.comptador(Metriques.REGISTRES_PROCESSATS).afegir(pagina.elements().size());
+        return pagina;
+    }
+
+    private static List<String> filaCurs(Curs curs) {
+        return List.of(curs.id(), curs.tutor(), String.valueOf(curs.alumnes().size()));
+    }
+
     /**
      * Imprimeix per consola una taula amb la informació dels cursos.
      * 
@@ -182,24 +527,42 @@ public class PR132Main {
      */
     public void imprimirTaulaCursos(List<List<String>> cursos) {
         List<String> capçaleres = List.of("ID", "Tutor", "Total Alumnes");
-        AsciiTablePrinter.imprimirTaula(capçaleres, cursos);
+        System.out.print(resultats.taula(cursos, () -> AsciiTablePrinter.formatarTaula(capçaleres, cursos)));
     }
 
     /**
      * Mostra els mòduls d'un curs especificat pel seu ID.
      * 
+     * Els mòduls no canvien amb les altes i baixes d'alumnes: el resultat es reutilitza fins que canvia el fitxer.
+     *
      * @param idCurs ID del curs del qual es volen veure els mòduls.
-     * @return Llista amb la informació dels mòduls (ID, títol).
+     * @return Llista amb la informació dels mòduls (ID, títol), només de lectura.
      */
-    public List<List<String>> mostrarModuls(String idCurs) {
+    public synchronized List<List<String>> mostrarModuls(String idCurs) {
+        comprovarFitxer();
+        return resultats.obtenir("moduls", idCurs, CacheResultats.Dependencia.FITXER,
+                () -> nomesLectura(consultarModuls(idCurs)));
+    }
+
+    private List<List<String>> consultarModuls(String idCurs) {
+        if (shards != null) {
+            Curs curs = shards.curs(idCurs);
+            return curs == null ? List.of() : curs.moduls().stream().map(modul -> List.of(modul.id(), modul.titol())).toList();
+        }
+        // Si el document no és ja en memòria, només es parseja la secció de mòduls del curs. La lectura per
+        // seccions necessita accés directe a posicions del fitxer en UTF-8: no és possible si és comprimit
+        // o té una altra codificació
+        if (!documentCarregat() && CursosMandrosos.admet(xmlFilePath)) {
+            return mostrarModulsSenseDocument(idCurs);
+        }
         List<List<String>> llistaCursos = new ArrayList<>();
         try {
             // Cargar documento
-            Document doc = carregarDocumentXML(xmlFilePath);
-            XPath xPath = XPathFactory.newInstance().newXPath();
+            Document doc = obtenirDocument();
+            XPath xPath = FactoriesXML.novaXPath();
 
             // Obtener los elementos del curso especifico
-            NodeList nodeListModulos = (NodeList) xPath.evaluate("/cursos/curs[@id='" + idCurs + "']", doc, XPathConstants.NODESET);
+            NodeList nodeListModulos = (NodeList) avaluarXPath(xPath, "/cursos/curs[@id='" + idCurs + "']", doc, XPathConstants.NODESET);
 
             // Iterar sobre los elementos
             for (int i = 0; i < nodeListModulos.getLength(); i++) {
@@ -217,12 +580,32 @@ public class PR132Main {
                     llistaCursos.add(modulsInfo);
                 }
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+        } catch (XPathExpressionException e) {
+            throw new RuntimeException(e);
         }
         return llistaCursos;
     }
 
+    /**
+     * Obté els mòduls d'un curs parsejant només la seva secció {@code <moduls>} del fitxer,
+     * sense carregar el document sencer ni les llistes d'alumnes.
+     *
+     * @param idCurs ID del curs del qual es volen veure els mòduls.
+     * @return Llista amb la informació dels mòduls (ID, títol).
+     */
+    private List<List<String>> mostrarModulsSenseDocument(String idCurs) {
+        List<List<String>> llistaModuls = new ArrayList<>();
+        if (seccions == null) {
+            seccions = new CursosMandrosos(xmlFilePath);
+        } else {
+            seccions.actualitzarSiCal();
+        }
+        for (CursosMandrosos.CursMandros curs : seccions.cursos(idCurs)) {
+            curs.moduls().forEach(modul -> llistaModuls.add(List.of(modul.id(), modul.titol())));
+        }
+        return llistaModuls;
+    }
+
     /**
      * Imprimeix per consola una taula amb la informació dels mòduls.
      * 
@@ -230,24 +613,41 @@ public class PR132Main {
      */
     public void imprimirTaulaModuls(List<List<String>> moduls) {
         List<String> capçaleres = List.of("ID Mòdul", "Títol");
-        AsciiTablePrinter.imprimirTaula(capçaleres, moduls);
+        System.out.print(resultats.taula(moduls, () -> AsciiTablePrinter.formatarTaula(capçaleres, moduls)));
     }
 
     /**
      * Llista els alumnes inscrits en un curs especificat pel seu ID.
      * 
+     * El resultat es reutilitza fins que canvien els alumnes del curs.
+     *
      * @param idCurs ID del curs del qual es volen veure els alumnes.
-     * @return Llista amb els noms dels alumnes.
+     * @return Llista amb els noms dels alumnes, només de lectura.
      */
-    public List<String> llistarAlumnes(String idCurs) {
+    public synchronized List<String> llistarAlumnes(String idCurs) {
+        comprovarFitxer();
+        return resultats.obtenir("alumnes", idCurs, CacheResultats.Dependencia.ALUMNES_DEL_CURS,
+                () -> List.copyOf(consultarAlumnes(idCurs)));
+    }
+
+    private List<String> consultarAlumnes(String idCurs) {
+        if (shards != null) {
+            Curs curs = shards.curs(idCurs);
+            List<String> llistaAlumnes = curs == null ? List.of() : curs.alumnes();
+            Metriques.comptador(Metriques.REGISTRES_PROCESSATS).afegir(llistaAlumnes.size());
+            return llistaAlumnes;
+        }
+        if (documentEnMemoria == null && cache == null) {
+            return llistarAlumnesSenseDocument(idCurs);
+        }
         List<String> llistaAlumnes = new ArrayList<>();
         try {
             // Cargar el documento XML
-            Document doc = carregarDocumentXML(xmlFilePath);
-            XPath xPath = XPathFactory.newInstance().newXPath();
+            Document doc = obtenirDocument();
+            XPath xPath = FactoriesXML.novaXPath();
 
             // Obtener los elementos del curso especifico
-            NodeList nodeListCursos = (NodeList) xPath.evaluate("/cursos/curs[@id='" + idCurs + "']", doc, XPathConstants.NODESET);
+            NodeList nodeListCursos = (NodeList) avaluarXPath(xPath, "/cursos/curs[@id='" + idCurs + "']", doc, XPathConstants.NODESET);
 
             for (int i = 0; i < nodeListCursos.getLength(); i++) {
                 Element cursElement = (Element) nodeListCursos.item(i);
@@ -259,13 +659,123 @@ public class PR132Main {
                     llistaAlumnes.add(alumne);
                 }
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+            Metriques.comptador(Metriques.REGISTRES_PROCESSATS).afegir(llistaAlumnes.size());
+        } catch (XPathExpressionException e) {
+            throw new RuntimeException(e);
         }
         return llistaAlumnes;
     }
 
 
+    /**
+     * Obté els alumnes d'un curs vinculant només aquest curs del fitxer; la resta se salten
+     * sense materialitzar-los.
+     *
+     * @param idCurs ID del curs del qual es volen veure els alumnes.
+     * @return Llista amb els noms dels alumnes.
+     */
+    private List<String> llistarAlumnesSenseDocument(String idCurs) {
+        List<String> llistaAlumnes = new ArrayList<>();
+        VinculadorXML.recorrerCursos(xmlFilePath, idCurs::equals, curs -> llistaAlumnes.addAll(curs.alumnes()));
+        Metriques.comptador(Metriques.REGISTRES_PROCESSATS).afegir(llistaAlumnes.size());
+        return llistaAlumnes;
+    }
+
+    /**
+     * Llista una pàgina d'alumnes d'un curs, en l'ordre del document. Sense document en memòria,
+     * la lectura del fitxer s'atura en completar la pàgina.
+     *
+     * @param idCurs ID del curs del qual es volen veure els alumnes.
+     * @param limit Nombre màxim d'alumnes de la pàgina.
+     * @param cursor Cursor retornat per la pàgina anterior, o null per obtenir la primera.
+     * @return Pàgina amb els noms dels alumnes.
+     * @throws IllegalArgumentException Si el límit no és positiu o el cursor no és vàlid.
+     */
+    public synchronized Pagina<String> llistarAlumnes(String idCurs, int limit, String cursor) {
+        comprovarFitxer();
+        return resultats.obtenir("alumnes:" + limit + ":" + cursor, idCurs, CacheResultats.Dependencia.ALUMNES_DEL_CURS,
+                () -> consultarAlumnes(idCurs, limit, cursor));
+    }
+
+    private Pagina<String> consultarAlumnes(String idCurs, int limit, String cursor) {
+        Paginador<String> paginador = new Paginador<>(cursor, limit, Function.identity());
+        if (shards != null) {
+            Curs curs = shards.curs(idCurs);
+            List<String> alumnes = curs == null ? List.of() : curs.alumnes();
+            for (int i = 0; i < alumnes.size() && !paginador.complet(); i++) {
+                paginador.afegir(alumnes.get(i));
+            }
+        } else if (documentEnMemoria == null && cache == null) {
+            Metriques.temporitzador(Metriques.XML_PARSEIG).mesurar(() ->
+                    EscanerCursos.recorrerAlumnes(xmlFilePath, idCurs, alumne -> {
+                        paginador.afegir(alumne);
+                        return !paginador.complet();
+                    }));
+        } else {
+            try {
+                Document doc = obtenirDocument();
+                NodeList nodeListCursos = (NodeList) avaluarXPath(FactoriesXML.novaXPath(),
+                        "/cursos/curs[@id='" + idCurs + "']", doc, XPathConstants.NODESET);
+                for (int i = 0; i < nodeListCursos.getLength(); i++) {
+                    NodeList alumnesList = ((Element) nodeListCursos.item(i)).getElementsByTagName("alumne");
+                    for (int j = 0; j < alumnesList.getLength() && !paginador.complet(); j++) {
+                        paginador.afegir(alumnesList.item(j).getTextContent());
+                    }
+                }
+            } catch (XPathExpressionException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        Pagina<String> pagina = paginador.pagina();
+        Metriques.comptador(Metriques.REGISTRES_PROCESSATS).afegir(pagina.elements().size());
+        return pagina;
+    }
+
+    /**
+     * Llista els alumnes d'un curs el nom dels quals està en un rang alfabètic (p. ex. cognoms de la D a la F),
+     * en ordre alfabètic. Els extrems s'inclouen i es comparen sense tenir en compte majúscules ni accents.
+     *
+     * @param idCurs ID del curs.
+     * @param desde Inici del rang.
+     * @param fins Final del rang (s'inclouen tots els noms que hi comencen).
+     * @return Alumnes del rang, ordenats.
+     */
+    public synchronized List<String> llistarAlumnesEntre(String idCurs, String desde, String fins) {
+        List<String> resultat = new ArrayList<>();
+        if (shards != null) {
+            Curs curs = shards.curs(idCurs);
+            if (curs != null) {
+                List<String> noms = curs.alumnes();
+                if (!OrdreAlumnes.esOrdenada(noms)) {
+                    noms = new ArrayList<>(noms);
+                    noms.sort(OrdreAlumnes.COMPARADOR);
+                }
+                resultat.addAll(OrdreAlumnes.rang(noms, desde, fins));
+            }
+        } else if (documentEnMemoria == null && cache == null) {
+            // Només es retenen els alumnes del rang
+            Metriques.temporitzador(Metriques.XML_PARSEIG).mesurar(() ->
+                    EscanerCursos.recorrerAlumnes(xmlFilePath, idCurs, alumne -> {
+                        if (!OrdreAlumnes.abansDelRang(alumne, desde) && !OrdreAlumnes.despresDelRang(alumne, fins)) {
+                            resultat.add(alumne);
+                        }
+                        return true;
+                    }));
+            resultat.sort(OrdreAlumnes.COMPARADOR);
+        } else {
+            try {
+                Element alumnesElement = alumnesDelCurs(obtenirDocument(), idCurs);
+                if (alumnesElement != null) {
+                    resultat.addAll(OrdreAlumnes.rang(nomsOrdenats(alumnesElement, elementsAlumne(alumnesElement)), desde, fins));
+                }
+            } catch (XPathExpressionException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        Metriques.comptador(Metriques.REGISTRES_PROCESSATS).afegir(resultat.size());
+        return resultat;
+    }
+
     /**
      * Imprimeix per consola la llista d'alumnes d'un curs.
      * 
@@ -277,24 +787,37 @@ public class PR132Main {
     }
 
     /**
-     * Afegeix un alumne a un curs especificat pel seu ID.
+     * Afegeix un alumne a un curs especificat pel seu ID. L'alumne s'insereix en ordre alfabètic
+     * (vegeu {@link OrdreAlumnes}); si la llista del curs no estava ordenada, primer s'ordena i es guarda ordenada.
      * 
      * @param idCurs ID del curs on es vol afegir l'alumne.
-     * @param nomAlumne Nom de l'alumne a afegir.
+     * @param nomAlumne Nom de l'alumne a afegir (es treuen els espais dels extrems).
      */
-    public void afegirAlumne(String idCurs, String nomAlumne) {
+    public synchronized void afegirAlumne(String idCurs, String nomAlumne) {
+        String nom = nomAlumne.trim();
+        comprovarFitxer();
+        if (shards != null) {
+            long versio = incorporarFragments(Set.of(idCurs));
+            if (shards.afegirAlumne(idCurs, nom)) {
+                observadors.forEach(observador -> observador.alumneAfegit(idCurs, nom));
+                registrarDesfer(versio);
+            }
+            return;
+        }
         try {
-            Document doc = carregarDocumentXML(xmlFilePath);
-            XPath xPath = XPathFactory.newInstance().newXPath();
-            Node cursNode = (Node) xPath.evaluate("/cursos/curs[@id='" + idCurs + "']", doc, XPathConstants.NODE);
+            Document doc = obtenirDocument();
+            Element alumnesElement = alumnesDelCurs(doc, idCurs);
 
-            if (cursNode != null) {
+            if (alumnesElement != null) {
+                long versio = versions.incorporar(List.of(EscanerCursos.llegirCurs((Element) alumnesElement.getParentNode())));
                 Element nouAlumne = doc.createElement("alumne");
-                nouAlumne.setTextContent(nomAlumne);
-                // esto es para poner el alumno en alumnes
-                Node alumnesNode = cursNode.getChildNodes().item(1);
-                alumnesNode.appendChild(nouAlumne);
+                nouAlumne.setTextContent(nom);
+                List<Element> alumnes = elementsAlumne(alumnesElement);
+                ordenarAlumnes(alumnesElement, alumnes);
+                inserirAlumne(alumnesElement, alumnes, OrdreAlumnes.posicioInsercio(noms(alumnes), nom), nouAlumne);
                 guardarDocumentXML(doc);
+                observadors.forEach(observador -> observador.alumneAfegit(idCurs, nom));
+                registrarDesfer(versio);
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -305,36 +828,837 @@ public class PR132Main {
      * Elimina un alumne d'un curs especificat pel seu ID.
      * 
      * @param idCurs ID del curs d'on es vol eliminar l'alumne.
-     * @param nomAlumne Nom de l'alumne a eliminar.
+     * @param nomAlumne Nom de l'alumne a eliminar (sense tenir en compte els espais dels extrems).
      */
-    public void eliminarAlumne(String idCurs, String nomAlumne) {
+    public synchronized void eliminarAlumne(String idCurs, String nomAlumne) {
+        String nom = nomAlumne.trim();
+        comprovarFitxer();
+        if (shards != null) {
+            long versio = incorporarFragments(Set.of(idCurs));
+            if (shards.eliminarAlumne(idCurs, nom)) {
+                observadors.forEach(observador -> observador.alumneEliminat(idCurs, nom));
+                registrarDesfer(versio);
+            }
+            return;
+        }
         try {
-            Document doc = carregarDocumentXML(xmlFilePath);
-            XPath xPath = XPathFactory.newInstance().newXPath();
-            Node cursNode = (Node) xPath.evaluate("/cursos/curs[@id='" + idCurs + "']", doc, XPathConstants.NODE);
-            if (cursNode != null && cursNode.getNodeType() == Node.ELEMENT_NODE) {
-                Element cursElement = (Element) cursNode;
-                Node alumnesNode = cursElement.getElementsByTagName("alumnes").item(0);
-                NodeList alumnesList = alumnesNode.getChildNodes();
-
-                for (int i = 0; i < alumnesList.getLength(); i++) {
-                    Node alumneNode = alumnesList.item(i);
-                    if (alumneNode.getNodeType() == Node.ELEMENT_NODE) {
-                        String alumneName = alumneNode.getTextContent().trim();
-                        if (alumneName.equals(nomAlumne)) {
-                            alumnesNode.removeChild(alumneNode);
-                            break;
-                        }
-                    }
+            Document doc = obtenirDocument();
+            Element alumnesElement = alumnesDelCurs(doc, idCurs);
+            if (alumnesElement != null) {
+                long versio = versions.incorporar(List.of(EscanerCursos.llegirCurs((Element) alumnesElement.getParentNode())));
+                List<Element> alumnes = elementsAlumne(alumnesElement);
+                ordenarAlumnes(alumnesElement, alumnes);
+                int posicio = OrdreAlumnes.posicio(noms(alumnes), nom);
+                boolean eliminat = posicio >= 0;
+                if (eliminat) {
+                    treureAlumne(alumnesElement, alumnes.get(posicio));
                 }
                 guardarDocumentXML(doc);
+                if (eliminat) {
+                    observadors.forEach(observador -> observador.alumneEliminat(idCurs, nom));
+                    registrarDesfer(versio);
+                }
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Trasllada un alumne d'un curs a un altre en una sola transacció: l'alumne no pot quedar
+     * als dos cursos ni en cap.
+     *
+     * @param nomAlumne Nom complet de l'alumne.
+     * @param idOrigen ID del curs on és l'alumne.
+     * @param idDesti ID del curs on ha d'anar.
+     * @throws IllegalArgumentException Si algun curs no existeix, l'alumne no és a l'origen o ja és al destí.
+     */
+    public void moureAlumne(String nomAlumne, String idOrigen, String idDesti) {
+        confirmar(new TransaccioCursos().moure(nomAlumne, idOrigen, idDesti));
+    }
+
+    /**
+     * Aplica totes les operacions d'una transacció o cap.
+     *
+     * Els cursos afectats es localitzen amb un sol recorregut del document i les operacions es validen
+     * sobre les seves llistes ordenades abans de modificar res; si alguna no és vàlida, el document no
+     * canvia. Com amb {@link #afegirAlumne(String, String)}, les llistes que no estaven ordenades s'ordenen.
+     * Després s'apliquen al document i es guarden en un únic pas: fora del mode lot, amb una
+     * escriptura atòmica del fitxer; en mode lot o d'escriptura diferida, com un sol canvi pendent.
+     * Si la persistència falla, es desfan els canvis aplicats i el document queda com abans.
+     * Amb el magatzem per cursos, en canvi, es reescriu el fragment de cada curs afectat (vegeu
+     * {@link #confirmarAlsFragments(TransaccioCursos)}).
+     * Els observadors només reben les operacions un cop la transacció s'ha confirmat.
+     *
+     * @param transaccio Transacció a confirmar.
+     * @throws IllegalArgumentException Si alguna operació no és vàlida.
+     */
+    public synchronized void confirmar(TransaccioCursos transaccio) {
+        if (transaccio.esBuida()) {
+            return;
+        }
+        comprovarFitxer();
+        registrarDesfer(aplicar(transaccio));
+    }
+
+    /**
+     * Confirma una transacció sense registrar-la per desfer-la.
+     *
+     * @return Versió de l'historial just abans de confirmar-la.
+     */
+    private long aplicar(TransaccioCursos transaccio) {
+        if (shards != null) {
+            long versio = incorporarFragments(transaccio.cursosAfectats());
+            confirmarAlsFragments(transaccio);
+            notificar(transaccio);
+            return versio;
+        }
+        Document doc = obtenirDocument();
+        Map<String, Element> alumnesPerCurs = alumnesDelsCursos(doc, transaccio);
+        List<Curs> afectats = new ArrayList<>();
+        alumnesPerCurs.values().forEach(alumnesElement -> afectats.add(EscanerCursos.llegirCurs((Element) alumnesElement.getParentNode())));
+        long versio = versions.incorporar(afectats);
+        Map<String, List<Element>> llistes = new HashMap<>();
+        alumnesPerCurs.forEach((idCurs, alumnesElement) -> llistes.put(idCurs, elementsAlumne(alumnesElement)));
+        transaccio.validar(idCurs -> llistes.containsKey(idCurs) ? nomsOrdenats(alumnesPerCurs.get(idCurs), llistes.get(idCurs)) : null);
+
+        // Accions per desfer les operacions aplicades, de la darrera a la primera
+        Deque<Runnable> desfer = new ArrayDeque<>();
+        try {
+            llistes.forEach((idCurs, alumnes) -> {
+                Runnable desordenar = ordenarAlumnes(alumnesPerCurs.get(idCurs), alumnes);
+                if (desordenar != null) {
+                    desfer.push(desordenar);
+                }
+            });
+            for (TransaccioCursos.Operacio operacio : transaccio.operacions()) {
+                Element alumnesElement = alumnesPerCurs.get(operacio.idCurs());
+                List<Element> alumnes = llistes.get(operacio.idCurs());
+                if (operacio.tipus() == TransaccioCursos.Tipus.AFEGIR) {
+                    Element nouAlumne = doc.createElement("alumne");
+                    nouAlumne.setTextContent(operacio.nomAlumne());
+                    int posicio = OrdreAlumnes.posicioInsercio(noms(alumnes), operacio.nomAlumne());
+                    Node sagnat = inserirAlumne(alumnesElement, alumnes, posicio, nouAlumne);
+                    alumnes.add(posicio, nouAlumne);
+                    desfer.push(() -> {
+                        if (sagnat != null) {
+                            alumnesElement.removeChild(sagnat);
+                        }
+                        alumnesElement.removeChild(nouAlumne);
+                    });
+                } else {
+                    int posicio = OrdreAlumnes.posicio(noms(alumnes), operacio.nomAlumne());
+                    desfer.push(treureAlumne(alumnesElement, alumnes.remove(posicio)));
+                }
+            }
+            guardarTransaccio(doc);
+        } catch (RuntimeException e) {
+            desfer.forEach(Runnable::run);
+            throw e;
+        }
+        notificar(transaccio);
+        return versio;
+    }
+
+    /**
+     * Desfà l'última modificació feta amb l'aplicació que encara no s'ha desfet (una alta, una baixa o
+     * una transacció sencera). Les seves operacions s'inverteixen i es confirmen com una transacció,
+     * de manera que es guarden al fitxer (o als fragments) com qualsevol altra modificació. Els canvis
+     * fets fora de l'aplicació després de la modificació es conserven.
+     *
+     * @return True si s'ha desfet una modificació; false si no n'hi ha cap a l'historial.
+     * @throws IllegalArgumentException Si els cursos han canviat de manera que ja no es pot desfer.
+     */
+    public synchronized boolean desfer() {
+        PuntDesfer punt = puntsDesfer.peek();
+        if (punt != null && versions.versio(punt.abans()) == null) {
+            // Les modificacions més antigues ja no són a l'historial
+            puntsDesfer.clear();
+            punt = null;
+        }
+        if (punt == null) {
+            return false;
+        }
+        comprovarFitxer();
+        // Canvis de la modificació: cursos tal com eren després (anteriors) i abans (actuals)
+        ModelCursos.ResultatRecarrega canvis = versions.diferencies(punt.despres(), punt.abans());
+        TransaccioCursos inversa = new TransaccioCursos();
+        List<TransaccioCursos.Operacio> altes = new ArrayList<>();
+        for (String idCurs : canvis.modificats()) {
+            List<String> sobrants = new ArrayList<>(canvis.anteriors().get(idCurs).alumnes());
+            for (String alumne : canvis.actuals().get(idCurs).alumnes()) {
+                if (!sobrants.remove(alumne)) {
+                    altes.add(new TransaccioCursos.Operacio(TransaccioCursos.Tipus.AFEGIR, idCurs, alumne));
+                }
+            }
+            sobrants.forEach(alumne -> inversa.eliminar(idCurs, alumne));
+        }
+        altes.forEach(operacio -> inversa.afegir(operacio.idCurs(), operacio.nomAlumne()));
+        try {
+            if (!inversa.esBuida()) {
+                aplicar(inversa);
+            }
+        } catch (IllegalArgumentException e) {
+            // Ja no es pot desfer: es descarta perquè no impedeixi desfer les anteriors
+            puntsDesfer.pop();
+            throw e;
+        }
+        puntsDesfer.pop();
+        return true;
+    }
+
+    // Incorpora a l'historial l'estat actual d'uns cursos del magatzem per cursos i en retorna la versió
+    private long incorporarFragments(Set<String> idsCursos) {
+        List<Curs> cursos = new ArrayList<>();
+        for (String idCurs : idsCursos) {
+            Curs curs = shards.curs(idCurs);
+            if (curs != null) {
+                cursos.add(curs);
+            }
+        }
+        return versions.incorporar(cursos);
+    }
+
+    // Guarda la modificació que acaba de fer l'aplicació per poder-la desfer
+    private void registrarDesfer(long versioAbans) {
+        long versioDespres = versions.instantania().versio();
+        if (versioDespres == versioAbans) {
+            return;
+        }
+        puntsDesfer.push(new PuntDesfer(versioAbans, versioDespres));
+        if (puntsDesfer.size() > MagatzemVersionat.MAX_VERSIONS_PER_DEFECTE) {
+            puntsDesfer.removeLast();
+        }
+    }
+
+    /**
+     * Confirma una transacció al magatzem per cursos. Les operacions es validen i s'apliquen sobre les
+     * llistes ordenades dels cursos afectats (les que no ho estaven queden ordenades) i després es
+     * reescriu el fragment de cada un, atòmicament. Si una escriptura falla, els fragments ja reescrits
+     * es tornen a escriure com eren abans de llançar l'error.
+     */
+    private void confirmarAlsFragments(TransaccioCursos transaccio) {
+        Map<String, Curs> anteriors = new HashMap<>();
+        for (String idCurs : transaccio.cursosAfectats()) {
+            Curs curs = shards.curs(idCurs);
+            if (curs != null) {
+                anteriors.put(idCurs, curs);
+            }
+        }
+        Map<String, List<String>> resultat = transaccio.validar(idCurs -> {
+            Curs curs = anteriors.get(idCurs);
+            if (curs == null) {
+                return null;
+            }
+            List<String> alumnes = new ArrayList<>(curs.alumnes());
+            OrdreAlumnes.ordenar(alumnes);
+            return alumnes;
+        });
+
+        // Cursos ja reescrits, per tornar-los a l'estat anterior si falla una escriptura
+        Deque<Curs> desfer = new ArrayDeque<>();
+        try {
+            for (Map.Entry<String, List<String>> alumnes : resultat.entrySet()) {
+                Curs anterior = anteriors.get(alumnes.getKey());
+                shards.guardar(new Curs(anterior.id(), anterior.tutor(), alumnes.getValue(), anterior.moduls()));
+                desfer.push(anterior);
+            }
+        } catch (RuntimeException e) {
+            desfer.forEach(shards::guardar);
+            throw e;
+        }
+    }
+
+    /**
+     * Envia als observadors les operacions d'una transacció confirmada.
+     */
+    private void notificar(TransaccioCursos transaccio) {
+        for (TransaccioCursos.Operacio operacio : transaccio.operacions()) {
+            if (operacio.tipus() == TransaccioCursos.Tipus.AFEGIR) {
+                observadors.forEach(observador -> observador.alumneAfegit(operacio.idCurs(), operacio.nomAlumne()));
+            } else {
+                observadors.forEach(observador -> observador.alumneEliminat(operacio.idCurs(), operacio.nomAlumne()));
+            }
+        }
+    }
+
+    /**
+     * Retorna l'element {@code <alumnes>} de cada curs afectat per la transacció que existeix al document.
+     */
+    private static Map<String, Element> alumnesDelsCursos(Document doc, TransaccioCursos transaccio) {
+        Set<String> afectats = transaccio.cursosAfectats();
+        Map<String, Element> alumnesPerCurs = new HashMap<>();
+        for (Node fill = doc.getDocumentElement().getFirstChild(); fill != null; fill = fill.getNextSibling()) {
+            if (fill.getNodeType() == Node.ELEMENT_NODE && fill.getNodeName().equals("curs")) {
+                Element cursElement = (Element) fill;
+                String idCurs = cursElement.getAttribute("id");
+                if (afectats.contains(idCurs) && !alumnesPerCurs.containsKey(idCurs)) {
+                    Node alumnesElement = cursElement.getElementsByTagName("alumnes").item(0);
+                    if (alumnesElement != null) {
+                        alumnesPerCurs.put(idCurs, (Element) alumnesElement);
+                    }
+                }
+            }
+        }
+        return alumnesPerCurs;
+    }
+
+    /**
+     * Guarda el document d'una transacció. Fora del mode lot el fitxer se substitueix atòmicament,
+     * de manera que un error deixa el fitxer anterior intacte.
+     */
+    private void guardarTransaccio(Document doc) {
+        if (doc == documentEnMemoria) {
+            guardarDocumentXML(doc);
+            return;
+        }
+        try {
+            byte[] contingut = serialitzar(doc);
+            UtilsFitxers.escriureAtomicament(xmlFilePath, sortida -> sortida.write(contingut));
+            Metriques.comptador(Metriques.BYTES_ESCRITS).afegir(contingut.length);
+            estatFitxer = llegirEstatFitxer();
+        } catch (TransformerException | IOException e) {
+            throw new RuntimeException("Error en guardar la transacció al fitxer XML.", e);
+        }
+    }
+
+    /**
+     * Cerca alumnes i mòduls de tots els cursos per paraules o prefixos, sense distingir majúscules
+     * ni accents. Si no hi ha cap coincidència exacta, es fa una cerca aproximada.
+     *
+     * @param consulta Text a cercar.
+     * @return Coincidències trobades, ordenades per curs.
+     */
+    public synchronized List<Coincidencia> cercar(String consulta) {
+        comprovarFitxer();
+        IndexCerca indexCerca = obtenirIndex();
+        List<Coincidencia> coincidencies = indexCerca.cercar(consulta);
+        if (coincidencies.isEmpty()) {
+            coincidencies = indexCerca.cercarAproximat(consulta, IndexCerca.DISTANCIA_PER_DEFECTE);
+        }
+        return coincidencies;
+    }
+
+    /**
+     * Imprimeix per consola una taula amb el resultat d'una cerca.
+     *
+     * @param coincidencies Coincidències a imprimir.
+     */
+    public void imprimirTaulaCoincidencies(List<Coincidencia> coincidencies) {
+        List<String> capçaleres = List.of("Curs", "Tipus", "Mòdul", "Text");
+        List<List<String>> files = new ArrayList<>();
+        for (Coincidencia coincidencia : coincidencies) {
+            String idModul = coincidencia.idModul() == null ? "" : coincidencia.idModul();
+            files.add(List.of(coincidencia.idCurs(), coincidencia.tipus().name(), idModul, coincidencia.text()));
+        }
+        AsciiTablePrinter.imprimirTaula(capçaleres, files);
+    }
+
+    /**
+     * Retorna l'element {@code <alumnes>} d'un curs, o null si el curs no existeix.
+     */
+    private Element alumnesDelCurs(Document doc, String idCurs) throws XPathExpressionException {
+        Node cursNode = (Node) avaluarXPath(FactoriesXML.novaXPath(), "/cursos/curs[@id='" + idCurs + "']", doc, XPathConstants.NODE);
+        if (cursNode == null || cursNode.getNodeType() != Node.ELEMENT_NODE) {
+            return null;
+        }
+        return (Element) ((Element) cursNode).getElementsByTagName("alumnes").item(0);
+    }
+
+    private static List<Element> elementsAlumne(Element alumnesElement) {
+        List<Element> alumnes = new ArrayList<>();
+        for (Node fill = alumnesElement.getFirstChild(); fill != null; fill = fill.getNextSibling()) {
+            if (fill.getNodeType() == Node.ELEMENT_NODE && fill.getNodeName().equals("alumne")) {
+                alumnes.add((Element) fill);
+            }
+        }
+        return alumnes;
+    }
+
+    /**
+     * Indica si els alumnes d'una llista estan en ordre alfabètic. El resultat es guarda a l'element perquè
+     * les operacions següents sobre el mateix document no l'hagin de tornar a comprovar (si es torna a
+     * carregar el document es perd i es torna a comprovar).
+     */
+    private static boolean esOrdenat(Element alumnesElement, List<Element> alumnes) {
+        Object ordenat = alumnesElement.getUserData(CLAU_ORDENAT);
+        if (ordenat == null) {
+            ordenat = OrdreAlumnes.esOrdenada(noms(alumnes));
+            alumnesElement.setUserData(CLAU_ORDENAT, ordenat, null);
+        }
+        return (Boolean) ordenat;
+    }
+
+    /**
+     * Ordena alfabèticament els alumnes d'una llista que encara no ho està (p. ex. un fitxer editat a mà).
+     * Es fa a la primera escriptura sobre el curs, de manera que el fitxer es guarda ordenat i a partir de
+     * llavors les altes i baixes només fan cerques binàries. Els noms es reassignen als mateixos elements
+     * per conservar el format.
+     *
+     * @return Acció que torna els noms a l'ordre anterior, o null si la llista ja estava ordenada.
+     */
+    private static Runnable ordenarAlumnes(Element alumnesElement, List<Element> alumnes) {
+        if (esOrdenat(alumnesElement, alumnes)) {
+            return null;
+        }
+        List<String> anteriors = new ArrayList<>(noms(alumnes));
+        List<String> ordenats = new ArrayList<>(anteriors);
+        ordenats.sort(OrdreAlumnes.COMPARADOR);
+        for (int i = 0; i < alumnes.size(); i++) {
+            alumnes.get(i).setTextContent(ordenats.get(i));
+        }
+        alumnesElement.setUserData(CLAU_ORDENAT, Boolean.TRUE, null);
+        return () -> {
+            for (int i = 0; i < alumnes.size(); i++) {
+                alumnes.get(i).setTextContent(anteriors.get(i));
+            }
+            alumnesElement.setUserData(CLAU_ORDENAT, null, null);
+        };
+    }
+
+    // Noms de la llista en ordre alfabètic, sense modificar el document
+    private static List<String> nomsOrdenats(Element alumnesElement, List<Element> alumnes) {
+        if (esOrdenat(alumnesElement, alumnes)) {
+            return noms(alumnes);
+        }
+        List<String> noms = new ArrayList<>(noms(alumnes));
+        noms.sort(OrdreAlumnes.COMPARADOR);
+        return noms;
+    }
+
+    /**
+     * Vista dels noms dels alumnes: cada nom només es llegeix del DOM quan la cerca binària el compara.
+     */
+    private static List<String> noms(List<Element> alumnes) {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return alumnes.get(index).getTextContent().trim();
+            }
+
+            @Override
+            public int size() {
+                return alumnes.size();
+            }
+        };
+    }
+
+    /**
+     * Insereix un alumne a la posició indicada, copiant el sagnat dels altres alumnes perquè el fitxer
+     * mantingui el format.
+     *
+     * @return Node de sagnat afegit, o null si no se n'ha afegit cap.
+     */
+    private static Node inserirAlumne(Element alumnesElement, List<Element> alumnes, int posicio, Element nouAlumne) {
+        if (alumnes.isEmpty()) {
+            alumnesElement.appendChild(nouAlumne);
+            return null;
+        }
+        Node sagnat = alumnes.get(0).getPreviousSibling();
+        Node copiaSagnat = esSagnat(sagnat) ? sagnat.cloneNode(false) : null;
+        if (posicio < alumnes.size()) {
+            Node referencia = alumnes.get(posicio);
+            alumnesElement.insertBefore(nouAlumne, referencia);
+            if (copiaSagnat != null) {
+                alumnesElement.insertBefore(copiaSagnat, referencia);
+            }
+        } else {
+            Node referencia = alumnes.get(alumnes.size() - 1).getNextSibling();
+            if (copiaSagnat != null) {
+                alumnesElement.insertBefore(copiaSagnat, referencia);
+            }
+            alumnesElement.insertBefore(nouAlumne, referencia);
+        }
+        return copiaSagnat;
+    }
+
+    /**
+     * Treu un alumne i el seu sagnat, perquè no quedin línies buides.
+     *
+     * @return Acció que torna a posar l'alumne i el sagnat on eren.
+     */
+    private static Runnable treureAlumne(Element alumnesElement, Element alumne) {
+        Node sagnat = esSagnat(alumne.getPreviousSibling()) ? alumne.getPreviousSibling() : null;
+        Node seguent = alumne.getNextSibling();
+        if (sagnat != null) {
+            alumnesElement.removeChild(sagnat);
+        }
+        alumnesElement.removeChild(alumne);
+        return () -> {
+            alumnesElement.insertBefore(alumne, seguent);
+            if (sagnat != null) {
+                alumnesElement.insertBefore(sagnat, alumne);
+            }
+        };
+    }
+
+    private static boolean esSagnat(Node node) {
+        return node != null && node.getNodeType() == Node.TEXT_NODE && node.getNodeValue().isBlank();
+    }
+
+    /**
+     * Registra un observador que rebrà les altes i baixes d'alumnes.
+     *
+     * @param observador Observador a registrar.
+     */
+    public void afegirObservador(ObservadorCursos observador) {
+        observadors.add(observador);
+    }
+
+    /**
+     * Dona de baixa un observador.
+     *
+     * @param observador Observador registrat prèviament.
+     */
+    public void eliminarObservador(ObservadorCursos observador) {
+        observadors.remove(observador);
+    }
 
+    /**
+     * Retorna l'índex de cerca, construint-lo si encara no existeix. Un cop construït es registra
+     * com a observador perquè s'actualitzi amb cada alta o baixa d'alumne.
+     */
+    private synchronized IndexCerca obtenirIndex() {
+        if (index == null) {
+            List<Curs> cursos;
+            if (shards != null) {
+                cursos = shards.carregarTots();
+            } else if (documentEnMemoria != null) {
+                cursos = cursosDelDocument(documentEnMemoria);
+            } else if (cache != null) {
+                cursos = obtenirModel().cursos();
+            } else {
+                cursos = VinculadorXML.llegirCursos(xmlFilePath);
+            }
+            index = IndexCerca.construir(cursos);
+            afegirObservador(index);
+        }
+        return index;
+    }
+
+    /**
+     * Posa al dia el document de la memòria cau quan el fitxer canvia: el model compara les empremtes de
+     * cada curs i només es tornen a llegir i se substitueixen al document els cursos que han canviat. Si el
+     * canvi és una escriptura de l'aplicació, el document ja està al dia.
+     *
+     * @return False si el document s'ha de tornar a carregar sencer.
+     */
+    private synchronized boolean actualitzarDocument(Document document) {
+        if (documentEnMemoria != null) {
+            // El document de la memòria cau no és el que es modifica en mode lot
+            return false;
+        }
+        if (llegirEstatFitxer().equals(estatFitxer)) {
+            return true;
+        }
+        if (model == null) {
+            return false;
+        }
+        try {
+            canvisAplicats = model.recarregar(document);
+            return true;
+        } catch (RuntimeException e) {
+            // Fitxer a mig escriure o document que no es pot posar al dia: es torna a carregar sencer
+            descartarDerivats();
+            return false;
+        }
+    }
+
+    /**
+     * La memòria cau ha tornat a carregar o posat al dia un fitxer. Si és el de cursos, els observadors
+     * reben només els cursos que han canviat.
+     */
+    private synchronized void fitxerRecarregat(Path canviat) {
+        if (!canviat.toAbsolutePath().normalize().equals(xmlFilePath.toAbsolutePath().normalize())
+                || documentEnMemoria != null) {
+            // Amb el document en memòria els canvis externs es perden (vegeu iniciarEscripturaDiferida)
+            return;
+        }
+        if (canvisAplicats != null) {
+            ModelCursos.ResultatRecarrega canvis = canvisAplicats;
+            canvisAplicats = null;
+            observadors.forEach(canvis::notificar);
+            return;
+        }
+        if (llegirEstatFitxer().equals(estatFitxer)) {
+            // És l'última escriptura de l'aplicació: els observadors ja n'han rebut els canvis
+            return;
+        }
+        if (model == null) {
+            descartarDerivats();
+            return;
+        }
+        try {
+            ModelCursos.ResultatRecarrega canvis = model.recarregar();
+            observadors.forEach(canvis::notificar);
+        } catch (RuntimeException e) {
+            // Fitxer eliminat o a mig escriure: es torna a començar de zero al següent accés
+            descartarDerivats();
+        }
+    }
+
+    /**
+     * Descarta el model, l'índex de cerca i els resultats guardats: es tornaran a construir a partir del
+     * fitxer al següent accés.
+     */
+    private synchronized void descartarDerivats() {
+        if (model != null) {
+            observadors.remove(model);
+            model = null;
+        }
+        invalidarIndex();
+        resultats.invalidarTot();
+    }
+
+    /**
+     * Retorna el model de cursos, carregant-lo si encara no existeix. Es registra com a observador
+     * perquè les modificacions de l'aplicació no es tornin a detectar com a canvis del fitxer.
+     */
+    private synchronized ModelCursos obtenirModel() {
+        if (model == null) {
+            model = new ModelCursos(xmlFilePath);
+            afegirObservador(model);
+        }
+        return model;
+    }
+
+    private synchronized void invalidarIndex() {
+        if (index != null) {
+            eliminarObservador(index);
+            index = null;
+        }
+    }
+
+    /**
+     * Converteix els cursos d'un document carregat en registres del model.
+     */
+    private static List<Curs> cursosDelDocument(Document doc) {
+        List<Curs> cursos = new ArrayList<>();
+        NodeList nodesCursos = doc.getElementsByTagName("curs");
+        for (int i = 0; i < nodesCursos.getLength(); i++) {
+            cursos.add(EscanerCursos.llegirCurs((Element) nodesCursos.item(i)));
+        }
+        return cursos;
+    }
+
+    /**
+     * Inicia el mode lot: el document es carrega una sola vegada i totes les operacions
+     * posteriors treballen sobre la mateixa còpia en memòria. Les modificacions no s'escriuen
+     * al fitxer fins que es crida {@link #finalitzarLot()}.
+     *
+     * @throws IllegalStateException Si es treballa sobre un magatzem per cursos, on cada modificació ja
+     *                               només reescriu el fragment del curs afectat.
+     */
+    public synchronized void iniciarLot() {
+        if (shards != null) {
+            throw new IllegalStateException("El mode lot no està disponible amb el magatzem per cursos.");
+        }
+        if (documentEnMemoria == null) {
+            comprovarFitxer();
+            documentEnMemoria = carregarDocumentXML(xmlFilePath);
+            canvisPendents = false;
+        }
+    }
+
+    /**
+     * Finalitza el mode lot guardant el document una sola vegada si hi ha hagut modificacions.
+     */
+    public void finalitzarLot() {
+        if (escriptorDiferit != null) {
+            // Amb l'escriptura diferida activa, el document es continua mantenint en memòria
+            buidarCanvis();
+            return;
+        }
+        synchronized (this) {
+            finalitzarDocumentEnMemoria();
+        }
+    }
+
+    /**
+     * Inicia el mode d'escriptura diferida: les modificacions s'apliquen al document en memòria i
+     * el mètode retorna de seguida; un fil de fons agrupa els canvis pendents i els guarda al fitxer
+     * cada {@code interval}, o abans si s'acumulen {@code maxCanvis} modificacions. Cada escriptura
+     * és atòmica i sincronitzada a disc. Els canvis externs al fitxer mentre el mode és actiu es perden.
+     *
+     * @param interval Temps màxim que un canvi pot estar només en memòria.
+     * @param maxCanvis Nombre de modificacions pendents que provoca una escriptura immediata.
+     * @throws IllegalStateException Si es treballa sobre un magatzem per cursos.
+     */
+    public synchronized void iniciarEscripturaDiferida(Duration interval, int maxCanvis) {
+        if (escriptorDiferit != null) {
+            return;
+        }
+        iniciarLot();
+        maxCanvisPendents = Math.max(1, maxCanvis);
+        canvisSenseGuardar = 0;
+        escriptorDiferit = Executors.newSingleThreadScheduledExecutor(tasca -> {
+            Thread fil = new Thread(tasca, "pr13-escriptura-diferida");
+            fil.setDaemon(true);
+            return fil;
+        });
+        long millis = Math.max(1, interval.toMillis());
+        escriptorDiferit.scheduleWithFixedDelay(this::buidarCanvis, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Atura l'escriptura diferida i guarda els canvis pendents abans de retornar.
+     */
+    public void finalitzarEscripturaDiferida() {
+        ScheduledExecutorService escriptor;
+        synchronized (this) {
+            escriptor = escriptorDiferit;
+            if (escriptor == null) {
+                return;
+            }
+            escriptorDiferit = null;
+        }
+        escriptor.shutdown();
+        try {
+            escriptor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        buidarCanvis();
+        synchronized (this) {
+            finalitzarDocumentEnMemoria();
+        }
+    }
+
+    /**
+     * Guarda al fitxer els canvis pendents del document en memòria, si n'hi ha. El document se
+     * serialitza amb el monitor adquirit, però l'escriptura a disc es fa sense bloquejar les operacions.
+     */
+    public void buidarCanvis() {
+        synchronized (bloqueigEscriptura) {
+            byte[] contingut;
+            synchronized (this) {
+                if (documentEnMemoria == null || !canvisPendents) {
+                    return;
+                }
+                try {
+                    contingut = serialitzar(documentEnMemoria);
+                } catch (TransformerException e) {
+                    System.out.println("Error en guardar el fitxer XML.");
+                    e.printStackTrace();
+                    return;
+                }
+                canvisPendents = false;
+                canvisSenseGuardar = 0;
+            }
+            try {
+                UtilsFitxers.escriureAtomicament(xmlFilePath, sortida -> sortida.write(contingut));
+                Metriques.comptador(Metriques.BYTES_ESCRITS).afegir(contingut.length);
+                synchronized (this) {
+                    estatFitxer = llegirEstatFitxer();
+                }
+            } catch (IOException e) {
+                // Es tornarà a intentar a la propera escriptura
+                synchronized (this) {
+                    canvisPendents = true;
+                }
+                System.out.println("Error en guardar el fitxer XML.");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // S'ha de cridar amb el monitor adquirit
+    private void finalitzarDocumentEnMemoria() {
+        if (documentEnMemoria != null) {
+            Document document = documentEnMemoria;
+            documentEnMemoria = null;
+            if (canvisPendents) {
+                canvisPendents = false;
+                guardarDocumentXML(document);
+            }
+            if (cache != null) {
+                // Les escriptures del mode no surten del document de la memòria cau, que ja no coincideix amb el fitxer
+                cache.invalidar(xmlFilePath);
+            }
+        }
+    }
+
+    /**
+     * Sense document en memòria, les consultes llegeixen el fitxer: si ha canviat des de l'últim accés
+     * (i no per una escriptura pròpia), els resultats guardats i l'índex de cerca ja no són vàlids. Amb memòria cau de documents
+     * passa el mateix mentre el document no s'hi ha carregat, perquè fins llavors no se'n reben les recàrregues.
+     */
+    private void comprovarFitxer() {
+        subscriure();
+        if (documentCarregat() || shards != null) {
+            return;
+        }
+        EstatFitxer estat = llegirEstatFitxer();
+        if (!estat.equals(estatFitxer)) {
+            descartarDerivats();
+            estatFitxer = estat;
+        }
+    }
+
+    // Document en mode lot o a la memòria cau de documents
+    private boolean documentCarregat() {
+        return documentEnMemoria != null || (cache != null && cache.conte(xmlFilePath));
+    }
+
+    private EstatFitxer llegirEstatFitxer() {
+        try {
+            BasicFileAttributes atributs = Files.readAttributes(xmlFilePath, BasicFileAttributes.class);
+            return new EstatFitxer(atributs.lastModifiedTime(), atributs.size(), atributs.fileKey());
+        } catch (IOException e) {
+            // Fitxer inexistent o il·legible: no coincideix amb cap estat anterior
+            return new EstatFitxer(null, -1, new Object());
+        }
+    }
+
+    /**
+     * Es subscriu als canvis externs del fitxer a la memòria cau de documents, si n'hi ha: a partir d'aquí,
+     * un canvi extern s'aplica curs a curs al document, a l'índex de cerca i als resultats.
+     */
+    private void subscriure() {
+        if (cache != null && !subscrit) {
+            cache.registrarActualitzador(xmlFilePath, this::actualitzarDocument);
+            cache.subscriure(this::fitxerRecarregat);
+            subscrit = true;
+        }
+    }
+
+    private static List<List<String>> nomesLectura(List<List<String>> files) {
+        return files.stream().map(List::copyOf).toList();
+    }
+
+    /**
+     * Retorna el document sobre el qual s'ha d'operar: la còpia en memòria en mode lot
+     * o una càrrega nova del fitxer en cas contrari.
+     *
+     * @return Document XML de cursos.
+     */
+    private Document obtenirDocument() {
+        if (documentEnMemoria != null) {
+            return documentEnMemoria;
+        }
+        if (cache == null) {
+            return carregarDocumentXML(xmlFilePath);
+        }
+        subscriure();
+        Document doc = cache.obtenir(xmlFilePath);
+        // El model parteix del mateix estat del fitxer que el document
+        obtenirModel();
+        return doc;
+    }
+
+    /**
+     * Avalua una expressió XPath registrant-ne la durada a les mètriques.
+     *
+     * @param xPath Avaluador XPath.
+     * @param expressio Expressió a avaluar.
+     * @param context Node de context.
+     * @param tipus Tipus de retorn esperat.
+     * @return Resultat de l'avaluació.
+     * @throws XPathExpressionException Si l'expressió no és vàlida.
+     */
+    private Object avaluarXPath(XPath xPath, String expressio, Object context, QName tipus) throws XPathExpressionException {
+        return Metriques.temporitzador(Metriques.XML_CONSULTA).mesurar(() -> xPath.evaluate(expressio, context, tipus));
+    }
 
     /**
      * Carrega el document XML des de la ruta especificada.
@@ -344,33 +1668,66 @@ public class PR132Main {
      */
     private Document carregarDocumentXML(Path pathToXml) {
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            return builder.parse(pathToXml.toFile());
+            return Metriques.temporitzador(Metriques.XML_PARSEIG).mesurar(() -> {
+                DocumentBuilder builder = FactoriesXML.nouDocumentBuilder();
+                Document doc;
+                try (InputStream entrada = UtilsFitxers.obrirEntrada(pathToXml)) {
+                    doc = builder.parse(entrada, pathToXml.toUri().toString());
+                }
+                Metriques.comptador(Metriques.BYTES_LLEGITS).afegir(pathToXml.toFile().length());
+                return doc;
+            });
         } catch (Exception e) {
             throw new RuntimeException("Error en carregar el document XML.", e);
         }
     }
 
     /**
-     * Guarda el document XML proporcionat en la ruta del fitxer original.
+     * Guarda el document XML proporcionat en la ruta del fitxer original, substituint-lo atòmicament.
      * 
      * @param document Document XML a guardar.
      */
     private void guardarDocumentXML(Document document) {
+        if (document == documentEnMemoria) {
+            // En mode lot i en escriptura diferida només es marca el document com a modificat
+            canvisPendents = true;
+            if (escriptorDiferit != null && ++canvisSenseGuardar >= maxCanvisPendents) {
+                canvisSenseGuardar = 0;
+                escriptorDiferit.execute(this::buidarCanvis);
+            }
+            return;
+        }
         try {
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            Transformer transformer = transformerFactory.newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-
-            DOMSource source = new DOMSource(document);
-            StreamResult result = new StreamResult(xmlFilePath.toFile());
-            transformer.transform(source, result);
+            // El fitxer se substitueix atòmicament perquè l'observador del directori mai el llegeixi a mig escriure
+            byte[] contingut = serialitzar(document);
+            UtilsFitxers.escriureAtomicament(xmlFilePath, sortida -> sortida.write(contingut));
+            Metriques.comptador(Metriques.BYTES_ESCRITS).afegir(contingut.length);
+            estatFitxer = llegirEstatFitxer();
             System.out.println("El fitxer XML ha estat guardat amb èxit.");
-        } catch (TransformerException e) {
+        } catch (TransformerException | IOException e) {
+            if (cache != null) {
+                // El document de la memòria cau ja no coincideix amb el fitxer
+                cache.invalidar(xmlFilePath);
+            }
             System.out.println("Error en guardar el fitxer XML.");
             e.printStackTrace();
         }
     }
+
+    /**
+     * Serialitza el document en memòria amb el mateix format que {@link #guardarDocumentXML(Document)}.
+     */
+    private static byte[] serialitzar(Document document) throws TransformerException {
+        ByteArrayOutputStream sortida = new ByteArrayOutputStream();
+        Metriques.temporitzador(Metriques.XML_SERIALITZACIO).mesurar(() ->
+                crearTransformer().transform(new DOMSource(document), new StreamResult(sortida)));
+        return sortida.toByteArray();
+    }
+
+    private static Transformer crearTransformer() throws TransformerConfigurationException {
+        Transformer transformer = FactoriesXML.nouTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+        return transformer;
+    }
 }
@@ -0,0 +1,219 @@
+package com.project.pr13;
+
+import com.project.pr13.exportacio.ExportadorDades;
+import com.project.pr13.exportacio.FormatExportacio;
+import com.project.utilitats.UtilsFitxers;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Execució no interactiva de les operacions de PR130Main, PR131Main i PR132Main a partir d'un guió d'ordres.
+ *
+ * Cada línia del guió és una ordre. Totes les ordres sobre cursos treballen amb un únic document
+ * carregat en memòria, que es guarda una sola vegada en acabar. Ordres disponibles:
+ * <pre>
+ * cursos                       Llista els cursos
+ * moduls &lt;idCurs&gt;              Mostra els mòduls d'un curs
+ * alumnes &lt;idCurs&gt;             Llista els alumnes d'un curs
+ * afegir &lt;idCurs&gt; &lt;nom&gt;        Afegeix un alumne a un curs
+ * eliminar &lt;idCurs&gt; &lt;nom&gt;      Elimina un alumne d'un curs
+ * moure &lt;origen&gt; &lt;desti&gt; &lt;nom&gt; Trasllada un alumne d'un curs a un altre (tot o res)
+ * desfer                       Desfà l'última alta, baixa o trasllat
+ * persones [patró]             Mostra el fitxer persones.xml o tots els que coincideixen amb el patró
+ * biblioteca                   Genera el fitxer biblioteca.xml
+ * exportar &lt;format&gt; &lt;dir&gt;      Exporta cursos i persones (csv, csv_gz o jsonl)
+ * cercar &lt;text&gt;                Cerca alumnes i mòduls per paraules o prefixos
+ * # ...                        Comentari
+ * </pre>
+ */
+public class PR13Lot {
+
+    private static final int MIDA_BUFFER_SORTIDA = 64 * 1024;
+
+    private final File dataDir;
+    private final PR132Main cursos;
+    private long ordresExecutades;
+    private long ordresErronies;
+
+    /**
+     * Constructor de la classe PR13Lot.
+     *
+     * @param dataDir Directori on es troben els fitxers de dades.
+     */
+    public PR13Lot(File dataDir) {
+        this.dataDir = dataDir;
+        this.cursos = new PR132Main(UtilsFitxers.variantExistent(dataDir.toPath().resolve("cursos.xml")));
+    }
+
+    /**
+     * Mètode principal. Llegeix el guió del fitxer indicat com a primer argument o, si no n'hi ha
+     * (o és "-"), de l'entrada estàndard.
+     *
+     * @param args Arguments de la línia de comandament.
+     * @throws IOException Si no es pot llegir el guió.
+     */
+    public static void main(String[] args) throws IOException {
+        String userDir = System.getProperty("user.dir");
+        File dataDir = new File(userDir, "data" + File.separator + "pr13");
+
+        PrintStream sortidaOriginal = System.out;
+        PrintStream sortidaBuffer = new PrintStream(
+                new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), MIDA_BUFFER_SORTIDA),
+                false, StandardCharsets.UTF_8);
+        System.setOut(sortidaBuffer);
+        try (BufferedReader entrada = obrirGuio(args)) {
+            new PR13Lot(dataDir).executar(entrada);
+        } finally {
+            sortidaBuffer.flush();
+            System.setOut(sortidaOriginal);
+        }
+    }
+
+    private static BufferedReader obrirGuio(String[] args) throws IOException {
+        if (args.length == 0 || args[0].equals("-")) {
+            return new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        }
+        Path guio = Paths.get(args[0]);
+        return Files.newBufferedReader(guio, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Executa totes les ordres del guió i informa del rendiment per la sortida d'error.
+     *
+     * @param entrada Lector del guió d'ordres.
+     * @throws IOException Si no es pot llegir el guió.
+     */
+    public void executar(BufferedReader entrada) throws IOException {
+        long inici = System.nanoTime();
+        cursos.iniciarLot();
+        try {
+            String linia;
+            int numLinia = 0;
+            while ((linia = entrada.readLine()) != null) {
+                numLinia++;
+                executarOrdre(linia.trim(), numLinia);
+            }
+        } finally {
+            cursos.finalitzarLot();
+        }
+        System.out.flush();
+        double segons = (System.nanoTime() - inici) / 1e9;
+        System.err.printf("%d ordres executades (%d errònies) en %.3f s (%.0f ordres/s)%n",
+                ordresExecutades, ordresErronies, segons, ordresExecutades / Math.max(segons, 1e-9));
+    }
+
+    /**
+     * Interpreta i executa una única ordre del guió.
+     *
+     * @param ordre Línia del guió ja netejada d'espais.
+     * @param numLinia Número de línia (per als missatges d'error).
+     */
+    private void executarOrdre(String ordre, int numLinia) {
+        if (ordre.isEmpty() || ordre.startsWith("#")) {
+            return;
+        }
+        String[] parts = ordre.split("\\s+", 3);
+        try {
+            switch (parts[0]) {
+                case "cursos":
+                    cursos.imprimirTaulaCursos(cursos.llistarCursos());
+                    break;
+                case "moduls":
+                    cursos.imprimirTaulaModuls(cursos.mostrarModuls(argument(parts, 1)));
+                    break;
+                case "alumnes":
+                    cursos.imprimirLlistaAlumnes(cursos.llistarAlumnes(argument(parts, 1)));
+                    break;
+                case "afegir":
+                    cursos.afegirAlumne(argument(parts, 1), argument(parts, 2));
+                    break;
+                case "eliminar":
+                    cursos.eliminarAlumne(argument(parts, 1), argument(parts, 2));
+                    break;
+                case "moure":
+                    String[] desti = argument(parts, 2).split("\\s+", 2);
+                    if (desti.length < 2) {
+                        throw new IllegalArgumentException("falten arguments a l'ordre 'moure'");
+                    }
+                    cursos.moureAlumne(desti[1], argument(parts, 1), desti[0]);
+                    break;
+                case "desfer":
+                    if (!cursos.desfer()) {
+                        throw new IllegalArgumentException("no hi ha cap modificació per desfer");
+                    }
+                    break;
+                case "persones":
+                    if (parts.length > 1) {
+                        new PR130Main(dataDir).processarDirectori(parts[1], Runtime.getRuntime().availableProcessors());
+                    } else {
+                        new PR130Main(dataDir).processarFitxerXML("persones.xml");
+                    }
+                    break;
+                case "biblioteca":
+                    new PR131Main(dataDir).processarFitxerXML("biblioteca.xml");
+                    break;
+                case "cercar":
+                    argument(parts, 1);
+                    cursos.imprimirTaulaCoincidencies(cursos.cercar(ordre.substring(parts[0].length()).trim()));
+                    break;
+                case "exportar":
+                    exportar(argument(parts, 1), argument(parts, 2));
+                    break;
+                default:
+                    throw new IllegalArgumentException("ordre desconeguda '" + parts[0] + "'");
+            }
+            ordresExecutades++;
+        } catch (RuntimeException e) {
+            ordresErronies++;
+            System.err.println("Error a la línia " + numLinia + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Exporta les dades al format indicat. Primer es desen els canvis pendents del lot
+     * perquè l'exportació els inclogui.
+     */
+    private void exportar(String format, String directori) {
+        cursos.finalitzarLot();
+        cursos.iniciarLot();
+        try {
+            FormatExportacio formatExportacio = FormatExportacio.valueOf(format.toUpperCase());
+            new ExportadorDades(dataDir.toPath(), formatExportacio).exportarTot(Paths.get(directori));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String argument(String[] parts, int posicio) {
+        if (parts.length <= posicio) {
+            throw new IllegalArgumentException("falten arguments a l'ordre '" + parts[0] + "'");
+        }
+        return parts[posicio];
+    }
+
+    /**
+     * @return Nombre d'ordres executades correctament.
+     */
+    public long getOrdresExecutades() {
+        return ordresExecutades;
+    }
+
+    /**
+     * @return Nombre d'ordres que han fallat.
+     */
+    public long getOrdresErronies() {
+        return ordresErronies;
+    }
+}
@@ -1,12 +1,29 @@
 package com.project.pr13;
 
+import com.project.pr13.metriques.Metriques;
+
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Scanner;
 
 public class PR13Main {
     private static final Scanner in = new Scanner(System.in);
 
     public static void main(String[] args) throws IOException {
+        // Bolcat periòdic de mètriques si s'indica l'interval (en segons) amb -Dpr13.metriques.interval
+        String intervalMetriques = System.getProperty("pr13.metriques.interval");
+        if (intervalMetriques != null) {
+            Metriques.iniciarBolcatPeriodic(Duration.ofSeconds(Long.parseLong(intervalMetriques)));
+        }
+
+        // Mode no interactiu: "--lot [fitxer]" executa un guió d'ordres (o l'entrada estàndard)
+        if (args.length > 0 && args[0].equals("--lot")) {
+            PR13Lot.main(Arrays.copyOfRange(args, 1, args.length));
+            Metriques.bolcar();
+            return;
+        }
+
         boolean running = true;
         while (running) {
             System.out.println("Escull una opció:");
@@ -39,5 +56,6 @@ public class PR13Main {
             }
         }
         in.close();
+        Metriques.bolcar();
     }
 }
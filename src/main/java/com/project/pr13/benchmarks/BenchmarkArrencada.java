@@ -0,0 +1,115 @@
+package com.project.pr13.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Mesura el temps d'arrencada d'una execució curta en mode lot (PR13Lot) amb diferents opcions de la JVM.
+ *
+ * Cada variant s'executa en un procés nou diverses vegades sobre una còpia de data/pr13 i es mostra la
+ * mediana del temps total (arrencada de la JVM, càrrega de classes, inicialització de JAXP i ordres).
+ * La variant AppCDS només s'executa si existeix l'arxiu generat amb {@code mvn -Pcds package}.
+ * Arguments opcionals: nombre de repeticions (per defecte 5) i ruta de l'arxiu CDS (per defecte target/pr13.jsa).
+ */
+public class BenchmarkArrencada {
+
+    private static final String GUIO = "cursos\nmoduls AMS2\npersones\n";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int repeticions = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Path arxiuCds = Paths.get(args.length > 1 ? args[1] : "target/pr13.jsa").toAbsolutePath();
+
+        Path directori = Files.createTempDirectory("pr13-arrencada");
+        try {
+            copiarDades(Paths.get(System.getProperty("user.dir"), "data", "pr13"), directori.resolve("data").resolve("pr13"));
+            Path guio = directori.resolve("guio.txt");
+            Files.writeString(guio, GUIO, StandardCharsets.UTF_8);
+
+            String classpath = classpath(arxiuCds);
+            mesurar("sense CDS", classpath, List.of("-Xshare:off"), directori, guio, repeticions);
+            mesurar("CDS del JDK (per defecte)", classpath, List.of(), directori, guio, repeticions);
+            mesurar("CDS del JDK + C1", classpath, List.of("-XX:TieredStopAtLevel=1"), directori, guio, repeticions);
+            if (Files.exists(arxiuCds)) {
+                mesurar("AppCDS", classpath, List.of("-XX:SharedArchiveFile=" + arxiuCds), directori, guio, repeticions);
+                mesurar("AppCDS + C1", classpath, List.of("-XX:SharedArchiveFile=" + arxiuCds, "-XX:TieredStopAtLevel=1"),
+                        directori, guio, repeticions);
+            } else {
+                System.out.println("(no s'ha trobat " + arxiuCds + ": genera'l amb mvn -Pcds package)");
+            }
+        } finally {
+            esborrar(directori);
+        }
+    }
+
+    private static void mesurar(String nom, String classpath, List<String> opcions, Path directori, Path guio, int repeticions)
+            throws IOException, InterruptedException {
+        List<String> ordre = new ArrayList<>();
+        ordre.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        ordre.addAll(opcions);
+        ordre.add("-cp");
+        ordre.add(classpath);
+        ordre.add("com.project.pr13.PR13Lot");
+        ordre.add(guio.toString());
+
+        long[] temps = new long[repeticions];
+        for (int i = 0; i < repeticions; i++) {
+            long inici = System.nanoTime();
+            Process proces = new ProcessBuilder(ordre)
+                    .directory(directori.toFile())
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            int codi = proces.waitFor();
+            temps[i] = System.nanoTime() - inici;
+            if (codi != 0) {
+                throw new IllegalStateException("La variant '" + nom + "' ha acabat amb el codi " + codi);
+            }
+        }
+        Arrays.sort(temps);
+        System.out.printf("%-28s mediana %7.1f ms  (mínim %7.1f ms)%n", nom, temps[repeticions / 2] / 1e6, temps[0] / 1e6);
+    }
+
+    /**
+     * Classpath dels processos fills, amb rutes absolutes perquè s'executen en un altre directori.
+     * Si hi ha arxiu CDS es fa servir el mateix classpath amb què es va generar (target/pr13.jar i
+     * target/classpath.txt), ja que la JVM el descarta si no coincideix.
+     */
+    private static String classpath(Path arxiuCds) throws IOException {
+        Path target = arxiuCds.getParent();
+        Path fitxerClasspath = target.resolve("classpath.txt");
+        Path jar = target.resolve("pr13.jar");
+        if (Files.exists(arxiuCds) && Files.exists(fitxerClasspath) && Files.exists(jar)) {
+            return jar + File.pathSeparator + Files.readString(fitxerClasspath).trim();
+        }
+        List<String> entrades = new ArrayList<>();
+        for (String entrada : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            entrades.add(Paths.get(entrada).toAbsolutePath().toString());
+        }
+        return String.join(File.pathSeparator, entrades);
+    }
+
+    private static void copiarDades(Path origen, Path desti) throws IOException {
+        Files.createDirectories(desti);
+        try (Stream<Path> fitxers = Files.list(origen)) {
+            for (Path fitxer : fitxers.filter(Files::isRegularFile).toList()) {
+                Files.copy(fitxer, desti.resolve(fitxer.getFileName()));
+            }
+        }
+    }
+
+    private static void esborrar(Path directori) throws IOException {
+        try (Stream<Path> fitxers = Files.walk(directori)) {
+            for (Path fitxer : fitxers.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.delete(fitxer);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.project.pr13.benchmarks;
+
+import com.project.pr13.xml.VinculadorXML;
+import com.project.utilitats.UtilsFitxers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Compara la lectura d'un fitxer de cursos gran sense comprimir i amb les variants comprimides (.gz i .deflate).
+ *
+ * El mateix document es guarda amb cada extensió i es recorre diverses vegades amb {@link VinculadorXML}.
+ * Per a cada variant es mostra la mida a disc, la mediana del temps de lectura i el rendiment en MB de
+ * XML per segon. Els fitxers són recents i probablement a la memòria cau de pàgines, de manera que la
+ * mesura inclou el cost de descomprimir però no l'estalvi de lectures de disc.
+ * Arguments opcionals: nombre de cursos (per defecte 2.000) i repeticions (per defecte 7).
+ */
+public class BenchmarkCompressio {
+
+    private static final String[] FITXERS = {"cursos.xml", "cursos.xml.gz", "cursos.xml.deflate"};
+
+    // Evita que el JIT elimini el treball com a codi mort
+    private static long control;
+
+    public static void main(String[] args) throws IOException {
+        int cursos = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int repeticions = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+        byte[] document = GeneradorCursos.generar(cursos);
+        Path directori = Files.createTempDirectory("pr13-compressio");
+        try {
+            for (String nom : FITXERS) {
+                Path fitxer = directori.resolve(nom);
+                long inici = System.nanoTime();
+                UtilsFitxers.escriureAtomicament(fitxer, sortida -> sortida.write(document));
+                System.out.printf("%-20s escrit en %7.1f ms%n", nom, (System.nanoTime() - inici) / 1e6);
+            }
+            for (String nom : FITXERS) {
+                mesurar(directori.resolve(nom), document.length, repeticions);
+            }
+            System.out.println("(control " + control + ")");
+        } finally {
+            for (String nom : FITXERS) {
+                Files.deleteIfExists(directori.resolve(nom));
+            }
+            Files.delete(directori);
+        }
+    }
+
+    private static void mesurar(Path fitxer, long midaXml, int repeticions) throws IOException {
+        // Escalfament
+        llegir(fitxer);
+        long[] temps = new long[repeticions];
+        for (int i = 0; i < repeticions; i++) {
+            long inici = System.nanoTime();
+            llegir(fitxer);
+            temps[i] = System.nanoTime() - inici;
+        }
+        Arrays.sort(temps);
+        long mediana = temps[repeticions / 2];
+        System.out.printf("%-20s %7.2f MB a disc  mediana %7.1f ms  %7.1f MB XML/s%n", fitxer.getFileName(),
+                Files.size(fitxer) / 1e6, mediana / 1e6, midaXml / 1e6 / (mediana / 1e9));
+    }
+
+    private static void llegir(Path fitxer) {
+        long[] alumnes = {0};
+        VinculadorXML.recorrerCursos(fitxer, id -> true, curs -> alumnes[0] += curs.alumnes().size());
+        control += alumnes[0];
+    }
+}
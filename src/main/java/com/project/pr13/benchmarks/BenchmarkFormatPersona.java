@@ -0,0 +1,70 @@
+package com.project.pr13.benchmarks;
+
+import com.project.pr13.format.PersonaFormatter;
+import com.project.pr13.model.Persona;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compara el cost per fila de formatar persones amb {@code String.format} i amb el
+ * {@link PersonaFormatter} sobre un StringBuilder reutilitzat.
+ *
+ * Per a cada variant es mesuren els bytes assignats pel fil (via {@code com.sun.management.ThreadMXBean})
+ * i el temps per fila, després d'una fase d'escalfament. Argument opcional: nombre de files (per defecte 1.000.000).
+ */
+public class BenchmarkFormatPersona {
+
+    private static final Persona[] PERSONES = {
+            new Persona("Maria", "López", 36, "Barcelona"),
+            new Persona("Gustavo", "Catadasús", 15, "London"),
+            new Persona("Irene", "Rocheford", 45, "Tokio"),
+            new Persona("Armengol", "Pastor", 72, "Abidjan"),
+    };
+
+    // Evita que el JIT elimini el treball com a codi mort
+    private static long control;
+
+    public static void main(String[] args) {
+        int files = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        // Escalfament perquè les dues variants estiguin compilades abans de mesurar
+        formatarAmbStringFormat(files / 10);
+        formatarAmbSink(files / 10);
+
+        mesurar("String.format", threads, files, () -> formatarAmbStringFormat(files));
+        mesurar("PersonaFormatter (sink)", threads, files, () -> formatarAmbSink(files));
+        System.out.println("(control " + control + ")");
+    }
+
+    private static void mesurar(String nom, com.sun.management.ThreadMXBean threads, int files, Runnable tasca) {
+        long fil = Thread.currentThread().threadId();
+        long bytesInici = threads.getThreadAllocatedBytes(fil);
+        long inici = System.nanoTime();
+        tasca.run();
+        long nanos = System.nanoTime() - inici;
+        long bytes = threads.getThreadAllocatedBytes(fil) - bytesInici;
+        System.out.printf("%-24s %10.1f bytes/fila %10.1f ns/fila%n", nom, (double) bytes / files, (double) nanos / files);
+    }
+
+    private static void formatarAmbStringFormat(int files) {
+        long longitud = 0;
+        for (int i = 0; i < files; i++) {
+            Persona p = PERSONES[i & 3];
+            String fila = String.format("%-8s %-14s %-5s %-9s", p.nom(), p.cognom(), String.valueOf(p.edat()), p.ciutat());
+            longitud += fila.length();
+        }
+        control += longitud;
+    }
+
+    private static void formatarAmbSink(int files) {
+        long longitud = 0;
+        StringBuilder sortida = new StringBuilder(PersonaFormatter.LONGITUD_FILA * 2);
+        for (int i = 0; i < files; i++) {
+            sortida.setLength(0);
+            PersonaFormatter.formatarPersona(sortida, PERSONES[i & 3]);
+            longitud += sortida.length();
+        }
+        control += longitud;
+    }
+}
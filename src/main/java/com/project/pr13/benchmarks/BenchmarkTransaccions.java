@@ -0,0 +1,75 @@
+package com.project.pr13.benchmarks;
+
+import com.project.pr13.PR132Main;
+import com.project.pr13.cursos.TransaccioCursos;
+import com.project.utilitats.UtilsFitxers;
+
+import java.io.PrintStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compara el trasllat d'alumnes entre cursos d'un en un ({@link PR132Main#moureAlumne}, una escriptura per
+ * trasllat) amb el mateix lot de trasllats confirmat en una sola {@link TransaccioCursos}.
+ *
+ * El fitxer es genera amb el format de cursos.xml i es torna a escriure abans de cada variant. Els
+ * trasllats individuals es limiten a una mostra i se n'extrapola el rendiment, perquè cadascun torna
+ * a llegir i escriure el fitxer sencer. Arguments opcionals: nombre de cursos (per defecte 200) i
+ * nombre de trasllats del lot (per defecte 5.000).
+ */
+public class BenchmarkTransaccions {
+
+    private static final int MOSTRA_INDIVIDUALS = 50;
+
+    public static void main(String[] args) throws Exception {
+        int cursos = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int trasllats = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        byte[] document = GeneradorCursos.generar(cursos);
+        Path directori = Files.createTempDirectory("pr13-transaccions");
+        Path fitxer = directori.resolve("cursos.xml");
+        PrintStream sortidaOriginal = System.out;
+        try {
+            System.out.printf("Document: %d cursos, %.1f MB%n", cursos, document.length / 1e6);
+            // PR132Main informa de cada escriptura per consola: se silencia durant les mesures
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+            UtilsFitxers.escriureAtomicament(fitxer, sortida -> sortida.write(document));
+            PR132Main individual = new PR132Main(fitxer);
+            int mostra = Math.min(MOSTRA_INDIVIDUALS, trasllats);
+            long inici = System.nanoTime();
+            for (int i = 0; i < mostra; i++) {
+                individual.moureAlumne(alumne(i, cursos), curs(i, cursos), curs(i + 1, cursos));
+            }
+            double segonsIndividuals = (System.nanoTime() - inici) / 1e9;
+
+            UtilsFitxers.escriureAtomicament(fitxer, sortida -> sortida.write(document));
+            TransaccioCursos transaccio = new TransaccioCursos();
+            for (int i = 0; i < trasllats; i++) {
+                transaccio.moure(alumne(i, cursos), curs(i, cursos), curs(i + 1, cursos));
+            }
+            inici = System.nanoTime();
+            new PR132Main(fitxer).confirmar(transaccio);
+            double segonsTransaccio = (System.nanoTime() - inici) / 1e9;
+
+            System.setOut(sortidaOriginal);
+            System.out.printf("%-22s %8d trasllats %10.0f trasllats/s%n", "D'un en un (mostra)", mostra,
+                    mostra / segonsIndividuals);
+            System.out.printf("%-22s %8d trasllats %10.0f trasllats/s%n", "Una transacció", trasllats,
+                    trasllats / segonsTransaccio);
+        } finally {
+            System.setOut(sortidaOriginal);
+            Files.deleteIfExists(fitxer);
+            Files.deleteIfExists(directori);
+        }
+    }
+
+    // Cada trasllat mou un alumne diferent del curs i al curs següent
+    private static String alumne(int i, int cursos) {
+        return "COGNOM" + (i / cursos % 100) + ", Alumne " + (i % cursos);
+    }
+
+    private static String curs(int i, int cursos) {
+        return "C" + (i % cursos);
+    }
+}
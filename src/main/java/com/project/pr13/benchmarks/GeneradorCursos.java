@@ -0,0 +1,37 @@
+package com.project.pr13.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generador del document sintètic de cursos que fan servir els benchmarks.
+ */
+final class GeneradorCursos {
+
+    private GeneradorCursos() {
+    }
+
+    /**
+     * Genera un document amb el format de cursos.xml: 100 alumnes i 10 mòduls per curs.
+     *
+     * @param cursos Nombre de cursos.
+     * @return Document codificat en UTF-8.
+     */
+    static byte[] generar(int cursos) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<cursos>\n");
+        for (int c = 0; c < cursos; c++) {
+            xml.append("   <curs id=\"C").append(c).append("\">\n");
+            xml.append("       <tutor>TUTOR, Nom ").append(c).append("</tutor>\n       <alumnes>\n");
+            for (int a = 0; a < 100; a++) {
+                xml.append("           <alumne>COGNOM").append(a).append(", Alumne ").append(c).append("</alumne>\n");
+            }
+            xml.append("       </alumnes>\n       <moduls>\n");
+            for (int m = 0; m < 10; m++) {
+                xml.append("           <modul id=\"M").append(m).append("\">\n");
+                xml.append("               <titol>Mòdul ").append(m).append(" del curs ").append(c).append("</titol>\n");
+                xml.append("           </modul>\n");
+            }
+            xml.append("       </moduls>\n   </curs>\n");
+        }
+        return xml.append("</cursos>\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,48 @@
+package com.project.pr13.carrega;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Distribució de Zipf sobre els enters 0..n-1: la probabilitat de l'element k és proporcional a
+ * 1 / (k + 1)^biaix. Amb biaix 0 és uniforme; amb biaix 1 l'element 0 és el doble de probable que l'1.
+ */
+final class DistribucioZipf {
+
+    // Probabilitat acumulada fins a cada element (l'últim val 1)
+    private final double[] acumulada;
+
+    DistribucioZipf(int elements, double biaix) {
+        if (elements < 1) {
+            throw new IllegalArgumentException("La distribució necessita almenys un element: " + elements);
+        }
+        if (biaix < 0) {
+            throw new IllegalArgumentException("El biaix no pot ser negatiu: " + biaix);
+        }
+        acumulada = new double[elements];
+        double suma = 0;
+        for (int i = 0; i < elements; i++) {
+            suma += 1 / Math.pow(i + 1, biaix);
+            acumulada[i] = suma;
+        }
+        for (int i = 0; i < elements; i++) {
+            acumulada[i] /= suma;
+        }
+        acumulada[elements - 1] = 1;
+    }
+
+    /**
+     * @return Probabilitat de l'element indicat.
+     */
+    double probabilitat(int element) {
+        return element == 0 ? acumulada[0] : acumulada[element] - acumulada[element - 1];
+    }
+
+    /**
+     * @return Element aleatori segons la distribució.
+     */
+    int seguent(Random aleatori) {
+        int posicio = Arrays.binarySearch(acumulada, aleatori.nextDouble());
+        return Math.min(posicio >= 0 ? posicio : -posicio - 1, acumulada.length - 1);
+    }
+}
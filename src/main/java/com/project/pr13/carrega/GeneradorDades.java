@@ -0,0 +1,177 @@
+package com.project.pr13.carrega;
+
+import com.project.pr13.cursos.EscriptorCursos;
+import com.project.pr13.cursos.OrdreAlumnes;
+import com.project.pr13.model.Curs;
+import com.project.pr13.model.Modul;
+import com.project.pr13.xml.FactoriesXML;
+import com.project.utilitats.UtilsFitxers;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Genera fitxers cursos.xml i persones.xml sintètics amb el format de data/pr13, de mida configurable.
+ *
+ * Els noms, ciutats i mòduls surten de llistes realistes, i la mida dels cursos segueix una distribució
+ * de Zipf: amb biaix 0 tots els cursos tenen els mateixos alumnes, i com més gran és el biaix més alumnes
+ * es concentren als primers cursos. Amb la mateixa llavor es genera sempre el mateix conjunt de dades.
+ */
+public class GeneradorDades {
+
+    private static final String[] FAMILIES = {"DAM", "DAW", "ASIX", "SMX", "AMS", "AWS"};
+    private static final String[] COGNOMS = {
+            "GARCIA", "MARTINEZ", "LOPEZ", "SANCHEZ", "FERNANDEZ", "GONZALEZ", "RODRIGUEZ", "PEREZ", "GOMEZ",
+            "MARTIN", "JIMENEZ", "RUIZ", "HERNANDEZ", "DIAZ", "MORENO", "ALVAREZ", "ROMERO", "NAVARRO", "TORRES",
+            "DOMINGUEZ", "VAZQUEZ", "RAMOS", "GIL", "SERRANO", "MOLINA", "BLANCO", "CASTRO", "ORTEGA", "PUIG",
+            "FERRER", "VIDAL", "SOLER", "ROCA", "BOSCH", "PUJOL", "CASALS", "FONT", "MAS", "VILA", "SALA",
+            "CAMACHO", "JANSSEN", "DE LA CRUZ", "ÀLVAREZ", "FERRÉ", "GÜELL", "ÇAPELL", "OLIVÉ"};
+    private static final String[] NOMS = {
+            "Marta", "Laia", "Júlia", "Paula", "Aina", "Carla", "Emma", "Irene", "Maria", "Núria", "Anna", "Clara",
+            "Pau", "Marc", "Jan", "Pol", "Arnau", "Joan", "Àlex", "Oriol", "Sergio", "David", "Tomas", "Ruben",
+            "Gerard", "Daniel", "Carlos", "Ivan", "Hugo", "Lucas", "Sara", "Lucía", "Martina", "Nil", "Biel"};
+    private static final String[] CIUTATS = {
+            "Barcelona", "Girona", "Lleida", "Tarragona", "Reus", "Sabadell", "Terrassa", "Manresa", "Vic",
+            "Madrid", "València", "Palma", "London", "Tokio", "Paris", "Berlin"};
+    private static final String[] MODULS = {
+            "Sistemes informàtics", "Bases de dades", "Programació", "Llenguatges de marques",
+            "Entorns de desenvolupament", "Accés a dades", "Desenvolupament d'interfícies",
+            "Programació multimèdia i dispositius mòbils", "Programació de serveis i processos",
+            "Sistemes de gestió empresarial", "Formació i orientació laboral", "Empresa i iniciativa emprenedora"};
+
+    private static final int MIDA_BUFFER = 64 * 1024;
+    private static final int INTENTS_NOM_UNIC = 10;
+
+    private final Random aleatori;
+
+    /**
+     * @param llavor Llavor del generador aleatori.
+     */
+    public GeneradorDades(long llavor) {
+        this.aleatori = new Random(llavor);
+    }
+
+    /**
+     * @param posicio Posició del curs (0 és el curs amb més alumnes).
+     * @return ID del curs generat a aquesta posició, p. ex. "DAM1".
+     */
+    public static String idCurs(int posicio) {
+        return FAMILIES[posicio % FAMILIES.length] + (posicio / FAMILIES.length + 1);
+    }
+
+    /**
+     * @param aleatori Generador aleatori.
+     * @return Un cognom de la llista dels noms generats.
+     */
+    public static String cognom(Random aleatori) {
+        return COGNOMS[aleatori.nextInt(COGNOMS.length)];
+    }
+
+    /**
+     * @param aleatori Generador aleatori.
+     * @return Nom complet en el format dels alumnes, p. ex. "GARCIA PUIG, Marta".
+     */
+    public static String nomAlumne(Random aleatori) {
+        return cognom(aleatori) + " " + cognom(aleatori) + ", " + NOMS[aleatori.nextInt(NOMS.length)];
+    }
+
+    /**
+     * Genera els cursos. Els alumnes de cada curs són únics i estan en ordre alfabètic.
+     *
+     * @param cursos Nombre de cursos.
+     * @param alumnesPerCurs Mitjana d'alumnes per curs.
+     * @param biaix Biaix de la mida dels cursos (0 = tots iguals).
+     * @return Cursos generats, del més gran al més petit.
+     */
+    public List<Curs> cursos(int cursos, int alumnesPerCurs, double biaix) {
+        DistribucioZipf mides = new DistribucioZipf(cursos, biaix);
+        long totalAlumnes = (long) cursos * alumnesPerCurs;
+        List<Curs> resultat = new ArrayList<>(cursos);
+        for (int c = 0; c < cursos; c++) {
+            int mida = (int) Math.max(1, Math.round(totalAlumnes * mides.probabilitat(c)));
+            Set<String> unics = new HashSet<>();
+            List<String> alumnes = new ArrayList<>(mida);
+            for (int a = 0; a < mida; a++) {
+                String nom = nomAlumne(aleatori);
+                for (int intent = 0; !unics.add(nom); intent++) {
+                    nom = intent < INTENTS_NOM_UNIC ? nomAlumne(aleatori) : nomAlumne(aleatori) + " " + (a + 1);
+                }
+                alumnes.add(nom);
+            }
+            alumnes.sort(OrdreAlumnes.COMPARADOR);
+            List<Modul> moduls = new ArrayList<>();
+            int nombreModuls = 5 + aleatori.nextInt(MODULS.length - 4);
+            for (int m = 0; m < nombreModuls; m++) {
+                moduls.add(new Modul(String.format("M%02d", m + 1), MODULS[m]));
+            }
+            String tutor = cognom(aleatori) + ", " + NOMS[aleatori.nextInt(NOMS.length)];
+            resultat.add(new Curs(idCurs(c), tutor, alumnes, moduls));
+        }
+        return resultat;
+    }
+
+    /**
+     * Genera i escriu un fitxer cursos.xml (comprimit si l'extensió ho indica).
+     *
+     * @param fitxer Ruta del fitxer.
+     * @param cursos Nombre de cursos.
+     * @param alumnesPerCurs Mitjana d'alumnes per curs.
+     * @param biaix Biaix de la mida dels cursos (0 = tots iguals).
+     */
+    public void escriureCursos(Path fitxer, int cursos, int alumnesPerCurs, double biaix) {
+        EscriptorCursos.escriureFitxer(fitxer, cursos(cursos, alumnesPerCurs, biaix));
+    }
+
+    /**
+     * Genera i escriu un fitxer persones.xml (comprimit si l'extensió ho indica).
+     *
+     * @param fitxer Ruta del fitxer.
+     * @param persones Nombre de persones.
+     * @throws IOException Si no es pot escriure el fitxer.
+     */
+    public void escriurePersones(Path fitxer, int persones) throws IOException {
+        UtilsFitxers.escriureAtomicament(fitxer, sortida -> {
+            try {
+                BufferedOutputStream buffer = new BufferedOutputStream(sortida, MIDA_BUFFER);
+                XMLStreamWriter writer = FactoriesXML.nouWriterStAX(buffer, StandardCharsets.UTF_8.name());
+                writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+                writer.writeCharacters("\n");
+                writer.writeStartElement("persones");
+                for (int i = 0; i < persones; i++) {
+                    writer.writeCharacters("\n    ");
+                    writer.writeStartElement("persona");
+                    escriureCamp(writer, "nom", NOMS[aleatori.nextInt(NOMS.length)]);
+                    escriureCamp(writer, "cognom", cognom(aleatori));
+                    escriureCamp(writer, "edat", String.valueOf(16 + aleatori.nextInt(50)));
+                    escriureCamp(writer, "ciutat", CIUTATS[aleatori.nextInt(CIUTATS.length)]);
+                    writer.writeCharacters("\n    ");
+                    writer.writeEndElement();
+                }
+                writer.writeCharacters("\n");
+                writer.writeEndElement();
+                writer.writeCharacters("\n");
+                writer.writeEndDocument();
+                writer.close();
+                buffer.flush();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        });
+    }
+
+    private static void escriureCamp(XMLStreamWriter writer, String element, String text) throws XMLStreamException {
+        writer.writeCharacters("\n        ");
+        writer.writeStartElement(element);
+        writer.writeCharacters(text);
+        writer.writeEndElement();
+    }
+}
@@ -0,0 +1,444 @@
+package com.project.pr13.carrega;
+
+import com.project.pr13.PR132Main;
+import com.project.pr13.cursos.TransaccioCursos;
+import com.project.pr13.dades.CacheDocuments;
+import com.project.pr13.format.AsciiTablePrinter;
+import com.project.pr13.metriques.Temporitzador;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Prova de càrrega de la gestió de cursos (PR132Main).
+ *
+ * Genera un conjunt de dades sintètic amb {@link GeneradorDades} i hi executa, des de diversos fils, una
+ * barreja de consultes i modificacions fins que s'acaba el temps indicat. Els cursos de cada operació es
+ * trien amb el mateix biaix que la seva mida, de manera que els cursos grans també són els més consultats.
+ * Les operacions fetes durant l'escalfament no es mesuren. En acabar es mostra, per a cada operació i en
+ * total, el rendiment i els percentils 50, 99 i 99,9 de la latència. Després de la barreja es mesura a part
+ * un lot de trasllats confirmat en una sola transacció.
+ *
+ * Arguments opcionals en format clau=valor (p. ex. {@code cursos=2000 fils=8 mode=lot}); vegeu
+ * {@link Configuracio} per a les claus i els valors per defecte.
+ */
+public class ProvaCarrega {
+
+    /**
+     * Forma de treballar de PR132Main durant la prova.
+     */
+    public enum Mode {
+        // Cada operació llegeix el fitxer i cada modificació l'escriu
+        FITXER,
+        // Document compartit en una memòria cau; cada modificació escriu el fitxer
+        CACHE,
+        // Document en memòria, guardat en acabar
+        LOT,
+        // Document en memòria amb escriptura diferida en segon pla
+        DIFERIT
+    }
+
+    /**
+     * Operacions de la barreja.
+     */
+    public enum Operacio {
+        LLISTAR_CURSOS,
+        LLISTAR_ALUMNES,
+        MOSTRAR_MODULS,
+        RANG_ALUMNES,
+        CERCAR,
+        AFEGIR,
+        ELIMINAR,
+        MOURE
+    }
+
+    /**
+     * Paràmetres de la prova.
+     *
+     * @param cursos Nombre de cursos generats ({@code cursos}, per defecte 500).
+     * @param alumnesPerCurs Mitjana d'alumnes per curs ({@code alumnes}, per defecte 50).
+     * @param biaix Biaix de Zipf de la mida i de l'ús dels cursos ({@code biaix}, per defecte 1).
+     * @param persones Nombre de persones del fitxer persones.xml generat ({@code persones}, per defecte 10.000).
+     * @param fils Nombre de fils que fan operacions ({@code fils}, per defecte 4).
+     * @param escalfament Durada de l'escalfament ({@code escalfament}, en segons, per defecte 3).
+     * @param durada Durada de la mesura ({@code durada}, en segons, per defecte 15).
+     * @param proporcioEscriptures Fracció de les operacions que són modificacions ({@code escriptures}, per defecte 0,1).
+     * @param mode Mode de treball de PR132Main ({@code mode}, per defecte cache).
+     * @param llavor Llavor de les dades i de la barreja d'operacions ({@code llavor}, per defecte 42).
+     * @param trasllatsLot Trasllats de la transacció que es mesura després de la barreja ({@code trasllats},
+     *                     per defecte 5.000; 0 per no mesurar-la).
+     */
+    public record Configuracio(int cursos, int alumnesPerCurs, double biaix, int persones, int fils,
+                               Duration escalfament, Duration durada, double proporcioEscriptures,
+                               Mode mode, long llavor, int trasllatsLot) {
+
+        public Configuracio {
+            if (cursos < 2 || alumnesPerCurs < 1 || persones < 0 || fils < 1 || trasllatsLot < 0) {
+                throw new IllegalArgumentException("Configuració de la prova no vàlida: cursos=" + cursos
+                        + ", alumnes=" + alumnesPerCurs + ", persones=" + persones + ", fils=" + fils
+                        + ", trasllats=" + trasllatsLot);
+            }
+            if (proporcioEscriptures < 0 || proporcioEscriptures > 1) {
+                throw new IllegalArgumentException("La proporció d'escriptures ha de ser entre 0 i 1: " + proporcioEscriptures);
+            }
+        }
+
+        /**
+         * @return Configuració per defecte.
+         */
+        public static Configuracio perDefecte() {
+            return new Configuracio(500, 50, 1, 10_000, 4, Duration.ofSeconds(3), Duration.ofSeconds(15), 0.1,
+                    Mode.CACHE, 42, 5_000);
+        }
+
+        /**
+         * Llegeix la configuració dels arguments clau=valor. Les claus que no hi són prenen el valor per defecte.
+         *
+         * @param args Arguments.
+         * @return Configuració.
+         * @throws IllegalArgumentException Si un argument no és vàlid.
+         */
+        public static Configuracio llegir(String[] args) {
+            Configuracio c = perDefecte();
+            for (String arg : args) {
+                int igual = arg.indexOf('=');
+                if (igual < 1) {
+                    throw new IllegalArgumentException("Argument no vàlid (cal clau=valor): " + arg);
+                }
+                String valor = arg.substring(igual + 1);
+                c = switch (arg.substring(0, igual)) {
+                    case "cursos" -> new Configuracio(Integer.parseInt(valor), c.alumnesPerCurs, c.biaix, c.persones,
+                            c.fils, c.escalfament, c.durada, c.proporcioEscriptures, c.mode, c.llavor, c.trasllatsLot);
+                    case "alumnes" -> new Configuracio(c.cursos, Integer.parseInt(valor), c.biaix, c.persones,
+                            c.fils, c.escalfament, c.durada, c.proporcioEscriptures, c.mode, c.llavor, c.trasllatsLot);
+                    case "biaix" -> new Configuracio(c.cursos, c.alumnesPerCurs, Double.parseDouble(valor), c.persones,
+                            c.fils, c.escalfament, c.durada, c.proporcioEscriptures, c.mode, c.llavor, c.trasllatsLot);
+                    case "persones" -> new Configuracio(c.cursos, c.alumnesPerCurs, c.biaix, Integer.parseInt(valor),
+                            c.fils, c.escalfament, c.durada, c.proporcioEscriptures, c.mode, c.llavor, c.trasllatsLot);
+                    case "fils" -> new Configuracio(c.cursos, c.alumnesPerCurs, c.biaix, c.persones,
+                            Integer.parseInt(valor), c.escalfament, c.durada, c.proporcioEscriptures, c.mode, c.llavor, c.trasllatsLot);
+                    case "escalfament" -> new Configuracio(c.cursos, c.alumnesPerCurs, c.biaix, c.persones, c.fils,
+                            segons(valor), c.durada, c.proporcioEscriptures, c.mode, c.llavor, c.trasllatsLot);
+                    case "durada" -> new Configuracio(c.cursos, c.alumnesPerCurs, c.biaix, c.persones, c.fils,
+                            c.escalfament, segons(valor), c.proporcioEscriptures, c.mode, c.llavor, c.trasllatsLot);
+                    case "escriptures" -> new Configuracio(c.cursos, c.alumnesPerCurs, c.biaix, c.persones, c.fils,
+                            c.escalfament, c.durada, Double.parseDouble(valor), c.mode, c.llavor, c.trasllatsLot);
+                    case "mode" -> new Configuracio(c.cursos, c.alumnesPerCurs, c.biaix, c.persones, c.fils,
+                            c.escalfament, c.durada, c.proporcioEscriptures, Mode.valueOf(valor.toUpperCase(Locale.ROOT)),
+                            c.llavor, c.trasllatsLot);
+                    case "llavor" -> new Configuracio(c.cursos, c.alumnesPerCurs, c.biaix, c.persones, c.fils,
+                            c.escalfament, c.durada, c.proporcioEscriptures, c.mode, Long.parseLong(valor), c.trasllatsLot);
+                    case "trasllats" -> new Configuracio(c.cursos, c.alumnesPerCurs, c.biaix, c.persones, c.fils,
+                            c.escalfament, c.durada, c.proporcioEscriptures, c.mode, c.llavor, Integer.parseInt(valor));
+                    default -> throw new IllegalArgumentException("Clau desconeguda: " + arg.substring(0, igual));
+                };
+            }
+            return c;
+        }
+
+        private static Duration segons(String valor) {
+            return Duration.ofMillis(Math.round(Double.parseDouble(valor) * 1000));
+        }
+    }
+
+    /**
+     * Resultat d'una prova.
+     *
+     * @param latencies Latències mesurades de cada operació que s'ha executat.
+     * @param total Latències de totes les operacions.
+     * @param errors Nombre d'operacions que han llançat una excepció (no es compten a les latències).
+     * @param primerError Missatge del primer error, o null si no n'hi ha hagut cap.
+     * @param segons Durada real de la mesura.
+     * @param trasllatsLot Trasllats de la transacció mesurada a part (0 si no s'ha mesurat).
+     * @param segonsTrasllatsLot Durada de la confirmació d'aquesta transacció.
+     */
+    public record Resultat(Map<Operacio, Temporitzador> latencies, Temporitzador total, long errors,
+                           String primerError, double segons, int trasllatsLot, double segonsTrasllatsLot) {
+
+        /**
+         * @return Operacions mesurades per segon.
+         */
+        public double operacionsPerSegon() {
+            return total.recompte() / Math.max(segons, 1e-9);
+        }
+
+        /**
+         * Imprimeix una taula amb el rendiment i els percentils de cada operació.
+         */
+        public void imprimir() {
+            List<List<String>> files = new ArrayList<>();
+            latencies.forEach((operacio, temporitzador) -> files.add(fila(operacio.name(), temporitzador)));
+            files.add(fila("TOTAL", total));
+            AsciiTablePrinter.imprimirTaula(List.of("Operació", "Nombre", "ops/s", "p50 ms", "p99 ms", "p99,9 ms", "màx ms"), files);
+            System.out.printf("%d operacions en %.1f s (%.0f ops/s), %d errors%n",
+                    total.recompte(), segons, operacionsPerSegon(), errors);
+            if (primerError != null) {
+                System.out.println("Primer error: " + primerError);
+            }
+            if (trasllatsLot > 0) {
+                System.out.printf("Transacció de %d trasllats: %.3f s (%.0f trasllats/s)%n",
+                        trasllatsLot, segonsTrasllatsLot, trasllatsLot / Math.max(segonsTrasllatsLot, 1e-9));
+            }
+        }
+
+        private List<String> fila(String nom, Temporitzador temporitzador) {
+            return List.of(nom, String.valueOf(temporitzador.recompte()),
+                    String.format("%.0f", temporitzador.recompte() / Math.max(segons, 1e-9)),
+                    millis(temporitzador.percentil(50)), millis(temporitzador.percentil(99)),
+                    millis(temporitzador.percentil(99.9)), millis(temporitzador.maxim()));
+        }
+
+        private static String millis(long nanos) {
+            return String.format("%.3f", nanos / 1e6);
+        }
+    }
+
+    private final Configuracio configuracio;
+
+    /**
+     * @param configuracio Paràmetres de la prova.
+     */
+    public ProvaCarrega(Configuracio configuracio) {
+        this.configuracio = configuracio;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Configuracio configuracio = Configuracio.llegir(args);
+        System.out.println(configuracio);
+        Path directori = Files.createTempDirectory("pr13-carrega");
+        try {
+            new ProvaCarrega(configuracio).executar(directori).imprimir();
+        } finally {
+            try (var fitxers = Files.list(directori)) {
+                for (Path fitxer : fitxers.toList()) {
+                    Files.deleteIfExists(fitxer);
+                }
+            }
+            Files.deleteIfExists(directori);
+        }
+    }
+
+    /**
+     * Genera les dades al directori indicat i hi executa la prova. Mentre dura, la sortida estàndard
+     * se silencia perquè els missatges de PR132Main no afectin les mesures.
+     *
+     * @param directori Directori on es generen cursos.xml i persones.xml.
+     * @return Resultat de la prova.
+     * @throws IOException Si no es poden generar les dades.
+     * @throws InterruptedException Si s'interromp l'espera dels fils.
+     */
+    public Resultat executar(Path directori) throws IOException, InterruptedException {
+        GeneradorDades generador = new GeneradorDades(configuracio.llavor());
+        Path fitxer = directori.resolve("cursos.xml");
+        generador.escriureCursos(fitxer, configuracio.cursos(), configuracio.alumnesPerCurs(), configuracio.biaix());
+        generador.escriurePersones(directori.resolve("persones.xml"), configuracio.persones());
+
+        Map<Operacio, Temporitzador> latencies = new EnumMap<>(Operacio.class);
+        for (Operacio operacio : Operacio.values()) {
+            latencies.put(operacio, new Temporitzador());
+        }
+        Temporitzador total = new Temporitzador();
+        AtomicLong errors = new AtomicLong();
+        AtomicReference<String> primerError = new AtomicReference<>();
+
+        PrintStream sortidaOriginal = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        PR132Main cursos = obrir(fitxer);
+        // Fils de plataforma: els mètodes de PR132Main són synchronized i fixarien els fils virtuals
+        ExecutorService executor = Executors.newFixedThreadPool(configuracio.fils());
+        long iniciMesura = System.nanoTime() + configuracio.escalfament().toNanos();
+        long fi = iniciMesura + configuracio.durada().toNanos();
+        double segons;
+        double segonsTrasllatsLot;
+        try {
+            List<Future<?>> tasques = new ArrayList<>();
+            for (int fil = 0; fil < configuracio.fils(); fil++) {
+                Treballador treballador = new Treballador(cursos, fil);
+                tasques.add(executor.submit(() -> {
+                    long ara;
+                    while ((ara = System.nanoTime()) < fi) {
+                        Operacio operacio = treballador.triarOperacio();
+                        try {
+                            treballador.executar(operacio);
+                            long nanos = System.nanoTime() - ara;
+                            if (ara >= iniciMesura) {
+                                latencies.get(operacio).registrar(nanos);
+                                total.registrar(nanos);
+                            }
+                        } catch (RuntimeException e) {
+                            if (ara >= iniciMesura) {
+                                errors.incrementAndGet();
+                                primerError.compareAndSet(null, operacio + ": " + e);
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> tasca : tasques) {
+                try {
+                    tasca.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Un fil de la prova ha fallat", e.getCause());
+                }
+            }
+            // L'escriptura final del mode lot o diferit no forma part de la mesura
+            segons = (System.nanoTime() - iniciMesura) / 1e9;
+            segonsTrasllatsLot = mesurarTrasllatsLot(cursos);
+        } finally {
+            executor.shutdownNow();
+            tancar(cursos);
+            System.setOut(sortidaOriginal);
+        }
+        latencies.values().removeIf(temporitzador -> temporitzador.recompte() == 0);
+        return new Resultat(latencies, total, errors.get(), primerError.get(), segons,
+                configuracio.trasllatsLot(), segonsTrasllatsLot);
+    }
+
+    /**
+     * Dona d'alta alumnes nous al primer curs i després els trasllada tots al segon en una sola transacció,
+     * de la qual es mesura la confirmació.
+     *
+     * @return Durada de la confirmació dels trasllats, en segons.
+     */
+    private double mesurarTrasllatsLot(PR132Main cursos) {
+        if (configuracio.trasllatsLot() == 0) {
+            return 0;
+        }
+        String origen = GeneradorDades.idCurs(0);
+        String desti = GeneradorDades.idCurs(1);
+        TransaccioCursos altes = new TransaccioCursos();
+        TransaccioCursos trasllats = new TransaccioCursos();
+        for (int i = 0; i < configuracio.trasllatsLot(); i++) {
+            String nom = String.format("TRASLLAT%06d, Alumne", i);
+            altes.afegir(origen, nom);
+            trasllats.moure(nom, origen, desti);
+        }
+        cursos.confirmar(altes);
+        long inici = System.nanoTime();
+        cursos.confirmar(trasllats);
+        return (System.nanoTime() - inici) / 1e9;
+    }
+
+    private PR132Main obrir(Path fitxer) {
+        return switch (configuracio.mode()) {
+            case FITXER -> new PR132Main(fitxer);
+            case CACHE -> new PR132Main(fitxer, new CacheDocuments());
+            case LOT -> {
+                PR132Main cursos = new PR132Main(fitxer);
+                cursos.iniciarLot();
+                yield cursos;
+            }
+            case DIFERIT -> {
+                PR132Main cursos = new PR132Main(fitxer);
+                cursos.iniciarEscripturaDiferida(Duration.ofSeconds(1), PR132Main.MAX_CANVIS_PER_DEFECTE);
+                yield cursos;
+            }
+        };
+    }
+
+    private void tancar(PR132Main cursos) {
+        switch (configuracio.mode()) {
+            case LOT -> cursos.finalitzarLot();
+            case DIFERIT -> cursos.finalitzarEscripturaDiferida();
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Estat d'un fil de la prova: el seu generador aleatori i els alumnes que ha donat d'alta, que són
+     * els que després elimina o trasllada (així les modificacions de fils diferents no es trepitgen).
+     */
+    private final class Treballador {
+
+        private final PR132Main cursos;
+        private final int fil;
+        private final Random aleatori;
+        private final DistribucioZipf cursTriat;
+        // Alumnes donats d'alta per aquest fil: {idCurs, nom}
+        private final List<String[]> alta = new ArrayList<>();
+        private int altes;
+
+        Treballador(PR132Main cursos, int fil) {
+            this.cursos = cursos;
+            this.fil = fil;
+            this.aleatori = new Random(configuracio.llavor() + 31L * (fil + 1));
+            this.cursTriat = new DistribucioZipf(configuracio.cursos(), configuracio.biaix());
+        }
+
+        Operacio triarOperacio() {
+            if (aleatori.nextDouble() < configuracio.proporcioEscriptures()) {
+                int tipus = aleatori.nextInt(4);
+                if (alta.isEmpty() || tipus < 2) {
+                    return Operacio.AFEGIR;
+                }
+                return tipus == 2 ? Operacio.ELIMINAR : Operacio.MOURE;
+            }
+            // Consultes: sobretot alumnes d'un curs, com al menú interactiu
+            int tipus = aleatori.nextInt(10);
+            if (tipus < 4) {
+                return Operacio.LLISTAR_ALUMNES;
+            } else if (tipus < 6) {
+                return Operacio.MOSTRAR_MODULS;
+            } else if (tipus < 7) {
+                return Operacio.LLISTAR_CURSOS;
+            } else if (tipus < 9) {
+                return Operacio.RANG_ALUMNES;
+            }
+            return Operacio.CERCAR;
+        }
+
+        void executar(Operacio operacio) {
+            switch (operacio) {
+                case LLISTAR_CURSOS -> cursos.llistarCursos(PR132Main.MIDA_PAGINA, null);
+                case LLISTAR_ALUMNES -> cursos.llistarAlumnes(curs(), PR132Main.MIDA_PAGINA, null);
+                case MOSTRAR_MODULS -> cursos.mostrarModuls(curs());
+                case RANG_ALUMNES -> {
+                    char inici = (char) ('A' + aleatori.nextInt(26));
+                    cursos.llistarAlumnesEntre(curs(), String.valueOf(inici), String.valueOf(inici));
+                }
+                case CERCAR -> cursos.cercar(GeneradorDades.cognom(aleatori).toLowerCase(Locale.ROOT));
+                case AFEGIR -> {
+                    String idCurs = curs();
+                    // Els noms donats d'alta són únics per fil
+                    String nom = GeneradorDades.nomAlumne(aleatori) + " " + fil + "-" + ++altes;
+                    cursos.afegirAlumne(idCurs, nom);
+                    alta.add(new String[]{idCurs, nom});
+                }
+                case ELIMINAR -> {
+                    String[] alumne = alta.remove(aleatori.nextInt(alta.size()));
+                    cursos.eliminarAlumne(alumne[0], alumne[1]);
+                }
+                case MOURE -> {
+                    String[] alumne = alta.get(aleatori.nextInt(alta.size()));
+                    String desti;
+                    do {
+                        desti = curs();
+                    } while (desti.equals(alumne[0]));
+                    cursos.moureAlumne(alumne[1], alumne[0], desti);
+                    alumne[0] = desti;
+                }
+            }
+        }
+
+        private String curs() {
+            return GeneradorDades.idCurs(cursTriat.seguent(aleatori));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.project.pr13.cerca;
+
+/**
+ * Element trobat per una cerca: un alumne o el títol d'un mòdul d'un curs.
+ *
+ * @param tipus Tipus d'element.
+ * @param idCurs ID del curs on és l'element.
+ * @param idModul ID del mòdul (null per als alumnes).
+ * @param text Nom de l'alumne o títol del mòdul, tal com és al fitxer.
+ */
+public record Coincidencia(Tipus tipus, String idCurs, String idModul, String text) {
+
+    /**
+     * Tipus d'element indexat.
+     */
+    public enum Tipus {
+        ALUMNE, MODUL
+    }
+
+    static Coincidencia alumne(String idCurs, String nom) {
+        return new Coincidencia(Tipus.ALUMNE, idCurs, null, nom);
+    }
+
+    static Coincidencia modul(String idCurs, String idModul, String titol) {
+        return new Coincidencia(Tipus.MODUL, idCurs, idModul, titol);
+    }
+}
@@ -0,0 +1,293 @@
+package com.project.pr13.cerca;
+
+import com.project.pr13.cursos.ObservadorCursos;
+import com.project.pr13.metriques.Metriques;
+import com.project.pr13.model.Curs;
+import com.project.pr13.model.Modul;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índex invertit en memòria dels noms d'alumnes i dels títols de mòduls de tots els cursos.
+ *
+ * Els textos es divideixen en paraules normalitzades (minúscules i sense accents), i cada paraula apunta
+ * als elements que la contenen. Les paraules es guarden ordenades, de manera que una cerca per prefix és
+ * un recorregut d'un subrang. La cerca aproximada accepta paraules a una distància d'edició limitada; com que
+ * la distància és com a mínim la diferència de longituds, només es comparen les paraules de longitud propera.
+ * L'índex s'actualitza element a element quan s'afegeixen o s'eliminen alumnes, sense reconstruir-lo.
+ */
+public class IndexCerca implements ObservadorCursos {
+
+    /**
+     * Distància d'edició màxima per defecte de la cerca aproximada.
+     */
+    public static final int DISTANCIA_PER_DEFECTE = 2;
+
+    private static final Comparator<Coincidencia> ORDRE = Comparator
+            .comparing(Coincidencia::idCurs)
+            .thenComparing(Coincidencia::tipus)
+            .thenComparing(Coincidencia::text);
+
+    // Paraula normalitzada -> elements que la contenen
+    private final NavigableMap<String, Set<Coincidencia>> paraules = new TreeMap<>();
+    // Longitud -> paraules de l'índex amb aquesta longitud (candidates de la cerca aproximada)
+    private final Map<Integer, Set<String>> perLongitud = new HashMap<>();
+    // Element -> nombre de vegades que apareix (un mateix alumne pot estar repetit en un curs)
+    private final Map<Coincidencia, Integer> referencies = new HashMap<>();
+    private final Map<String, Set<Coincidencia>> perCurs = new LinkedHashMap<>();
+
+    /**
+     * Construeix l'índex de tots els cursos indicats.
+     *
+     * @param cursos Cursos a indexar.
+     * @return Índex creat.
+     */
+    public static IndexCerca construir(Iterable<Curs> cursos) {
+        IndexCerca index = new IndexCerca();
+        for (Curs curs : cursos) {
+            index.afegirCurs(curs);
+        }
+        return index;
+    }
+
+    /**
+     * Indexa els alumnes i els mòduls d'un curs.
+     *
+     * @param curs Curs a indexar.
+     */
+    public synchronized void afegirCurs(Curs curs) {
+        for (String alumne : curs.alumnes()) {
+            afegir(Coincidencia.alumne(curs.id(), alumne));
+        }
+        for (Modul modul : curs.moduls()) {
+            afegir(Coincidencia.modul(curs.id(), modul.id(), modul.titol()));
+        }
+    }
+
+    /**
+     * Treu de l'índex tots els elements d'un curs.
+     *
+     * @param idCurs ID del curs.
+     */
+    public synchronized void eliminarCurs(String idCurs) {
+        Set<Coincidencia> elements = perCurs.remove(idCurs);
+        if (elements == null) {
+            return;
+        }
+        for (Coincidencia element : elements) {
+            referencies.remove(element);
+            desindexar(element);
+        }
+    }
+
+    @Override
+    public synchronized void alumneAfegit(String idCurs, String nomAlumne) {
+        afegir(Coincidencia.alumne(idCurs, nomAlumne));
+    }
+
+    @Override
+    public synchronized void alumneEliminat(String idCurs, String nomAlumne) {
+        eliminar(Coincidencia.alumne(idCurs, nomAlumne));
+    }
+
+    @Override
+    public synchronized void cursCanviat(String idCurs, Curs anterior, Curs actual) {
+        // També poden haver canviat els mòduls: el curs es torna a indexar sencer
+        eliminarCurs(idCurs);
+        if (actual != null) {
+            afegirCurs(actual);
+        }
+    }
+
+    /**
+     * Cerca els elements que contenen totes les paraules de la consulta, com a paraula sencera
+     * o com a prefix d'una paraula.
+     *
+     * @param consulta Text a cercar (no distingeix majúscules ni accents).
+     * @return Elements trobats, ordenats per curs, tipus i text.
+     */
+    public synchronized List<Coincidencia> cercar(String consulta) {
+        return Metriques.temporitzador(Metriques.CERCA_CONSULTA).mesurar(() -> resoldre(consulta, 0));
+    }
+
+    /**
+     * Com {@link #cercar(String)}, però cada paraula de la consulta també troba les paraules de
+     * l'índex que en són a una distància d'edició com a màxim {@code distancia}.
+     *
+     * @param consulta Text a cercar.
+     * @param distancia Nombre màxim d'insercions, eliminacions o substitucions per paraula.
+     * @return Elements trobats, ordenats per curs, tipus i text.
+     */
+    public synchronized List<Coincidencia> cercarAproximat(String consulta, int distancia) {
+        return Metriques.temporitzador(Metriques.CERCA_CONSULTA).mesurar(() -> resoldre(consulta, distancia));
+    }
+
+    /**
+     * @return Nombre de paraules diferents de l'índex.
+     */
+    public synchronized int mida() {
+        return paraules.size();
+    }
+
+    private List<Coincidencia> resoldre(String consulta, int distancia) {
+        List<String> termes = normalitzar(consulta);
+        if (termes.isEmpty()) {
+            return List.of();
+        }
+        Set<Coincidencia> resultat = null;
+        for (String terme : termes) {
+            Set<Coincidencia> trobats = cercarTerme(terme, distancia);
+            if (resultat == null) {
+                resultat = trobats;
+            } else {
+                resultat.retainAll(trobats);
+            }
+            if (resultat.isEmpty()) {
+                break;
+            }
+        }
+        List<Coincidencia> ordenats = new ArrayList<>(resultat);
+        ordenats.sort(ORDRE);
+        return ordenats;
+    }
+
+    private Set<Coincidencia> cercarTerme(String terme, int distancia) {
+        Set<Coincidencia> trobats = new HashSet<>();
+        // Totes les paraules amb el terme com a prefix formen un subrang contigu
+        for (Set<Coincidencia> elements : paraules.subMap(terme, true, terme + Character.MAX_VALUE, false).values()) {
+            trobats.addAll(elements);
+        }
+        if (distancia > 0) {
+            for (int longitud = terme.length() - distancia; longitud <= terme.length() + distancia; longitud++) {
+                for (String paraula : perLongitud.getOrDefault(longitud, Set.of())) {
+                    if (distanciaEdicio(terme, paraula, distancia) <= distancia) {
+                        trobats.addAll(paraules.get(paraula));
+                    }
+                }
+            }
+        }
+        return trobats;
+    }
+
+    private void afegir(Coincidencia element) {
+        if (referencies.merge(element, 1, Integer::sum) == 1) {
+            perCurs.computeIfAbsent(element.idCurs(), k -> new LinkedHashSet<>()).add(element);
+            for (String paraula : normalitzar(element.text())) {
+                paraules.computeIfAbsent(paraula, k -> {
+                    perLongitud.computeIfAbsent(k.length(), l -> new HashSet<>()).add(k);
+                    return new HashSet<>();
+                }).add(element);
+            }
+        }
+    }
+
+    private void eliminar(Coincidencia element) {
+        Integer comptador = referencies.get(element);
+        if (comptador == null) {
+            return;
+        }
+        if (comptador > 1) {
+            referencies.put(element, comptador - 1);
+            return;
+        }
+        referencies.remove(element);
+        Set<Coincidencia> elements = perCurs.get(element.idCurs());
+        elements.remove(element);
+        if (elements.isEmpty()) {
+            perCurs.remove(element.idCurs());
+        }
+        desindexar(element);
+    }
+
+    private void desindexar(Coincidencia element) {
+        for (String paraula : normalitzar(element.text())) {
+            Set<Coincidencia> elements = paraules.get(paraula);
+            if (elements != null) {
+                elements.remove(element);
+                if (elements.isEmpty()) {
+                    paraules.remove(paraula);
+                    Set<String> mateixaLongitud = perLongitud.get(paraula.length());
+                    mateixaLongitud.remove(paraula);
+                    if (mateixaLongitud.isEmpty()) {
+                        perLongitud.remove(paraula.length());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Divideix un text en paraules en minúscules i sense accents. Qualsevol caràcter que no sigui
+     * lletra ni xifra separa paraules.
+     *
+     * @param text Text a normalitzar.
+     * @return Paraules en l'ordre del text.
+     */
+    static List<String> normalitzar(String text) {
+        List<String> paraules = new ArrayList<>();
+        if (text == null) {
+            return paraules;
+        }
+        String descompost = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder paraula = new StringBuilder();
+        for (int i = 0; i < descompost.length(); i++) {
+            char c = descompost.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                paraula.append(c);
+            } else if (!paraula.isEmpty()) {
+                paraules.add(paraula.toString().toLowerCase(Locale.ROOT));
+                paraula.setLength(0);
+            }
+        }
+        if (!paraula.isEmpty()) {
+            paraules.add(paraula.toString().toLowerCase(Locale.ROOT));
+        }
+        return paraules;
+    }
+
+    /**
+     * Distància de Levenshtein entre dues paraules, limitada: en quant se sap que supera el màxim
+     * es retorna {@code maxim + 1} sense acabar el càlcul.
+     */
+    static int distanciaEdicio(String a, String b, int maxim) {
+        if (Math.abs(a.length() - b.length()) > maxim) {
+            return maxim + 1;
+        }
+        int[] anterior = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            int minimFila = actual[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                actual[j] = Math.min(Math.min(actual[j - 1] + 1, anterior[j] + 1), anterior[j - 1] + cost);
+                minimFila = Math.min(minimFila, actual[j]);
+            }
+            if (minimFila > maxim) {
+                return maxim + 1;
+            }
+            int[] intercanvi = anterior;
+            anterior = actual;
+            actual = intercanvi;
+        }
+        return Math.min(anterior[b.length()], maxim + 1);
+    }
+}
@@ -0,0 +1,476 @@
+package com.project.pr13.cursos;
+
+import com.project.pr13.metriques.Metriques;
+import com.project.pr13.model.Curs;
+import com.project.pr13.model.Modul;
+import com.project.utilitats.UtilsFitxers;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Vista mandrosa del fitxer cursos.xml.
+ *
+ * Una passada inicial sobre els bytes del fitxer (sense parsejar-lo com a XML) anota, per a cada curs,
+ * la posició en bytes de les seccions {@code <alumnes>} i {@code <moduls>}. Cada secció només es parseja
+ * el primer cop que es consulta, de manera que una consulta de mòduls no llegeix mai les llistes d'alumnes.
+ *
+ * Limitacions: el fitxer ha d'estar codificat en UTF-8 (o ASCII) i no pot fer servir entitats definides en
+ * un DTD. Amb {@link #admet(Path)} es pot comprovar abans si un fitxer es pot llegir per seccions.
+ */
+public class CursosMandrosos {
+
+    private static final int MIDA_BUFFER = 64 * 1024;
+    private static final byte[] CURS = "curs".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ALUMNES = "alumnes".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MODULS = "moduls".getBytes(StandardCharsets.US_ASCII);
+    // La declaració XML ha de ser al principi del fitxer i és curta
+    private static final int MIDA_DECLARACIO = 256;
+    private static final Pattern CODIFICACIO = Pattern.compile("^<\\?xml\\s[^>]*?encoding\\s*=\\s*[\"']([^\"']+)[\"']");
+
+    /**
+     * Interval de bytes [inici, fi) d'una secció del fitxer, etiquetes incloses.
+     */
+    record Seccio(long inici, long fi) {
+    }
+
+    /**
+     * Curs amb les seccions carregades sota demanda.
+     */
+    public final class CursMandros {
+        private final String id;
+        private Seccio seccioAlumnes;
+        private Seccio seccioModuls;
+        private List<String> alumnes;
+        private List<Modul> moduls;
+
+        private CursMandros(String id) {
+            this.id = id;
+        }
+
+        /**
+         * @return ID del curs.
+         */
+        public String id() {
+            return id;
+        }
+
+        /**
+         * @return Alumnes del curs; la secció es parseja en el primer accés.
+         */
+        public synchronized List<String> alumnes() {
+            if (alumnes == null) {
+                alumnes = seccioAlumnes == null ? List.of() : parsejarSeccio(seccioAlumnes).alumnes();
+            }
+            return alumnes;
+        }
+
+        /**
+         * @return Mòduls del curs; la secció es parseja en el primer accés.
+         */
+        public synchronized List<Modul> moduls() {
+            if (moduls == null) {
+                moduls = seccioModuls == null ? List.of() : parsejarSeccio(seccioModuls).moduls();
+            }
+            return moduls;
+        }
+
+        /**
+         * @return True si la llista d'alumnes ja s'ha materialitzat.
+         */
+        public synchronized boolean alumnesCarregats() {
+            return alumnes != null;
+        }
+
+        /**
+         * @return True si la llista de mòduls ja s'ha materialitzat.
+         */
+        public synchronized boolean modulsCarregats() {
+            return moduls != null;
+        }
+    }
+
+    private final Path fitxer;
+    private List<CursMandros> cursos = List.of();
+    private FileTime modificacio;
+    private long mida;
+
+    /**
+     * Crea la vista i fa la passada inicial sobre el fitxer.
+     *
+     * @param fitxer Ruta del fitxer cursos.xml.
+     * @throws IllegalArgumentException Si el fitxer és comprimit (no s'hi pot accedir per posicions)
+     *                                  o no és en UTF-8.
+     */
+    public CursosMandrosos(Path fitxer) {
+        if (UtilsFitxers.esComprimit(fitxer)) {
+            throw new IllegalArgumentException("La lectura per seccions no admet fitxers comprimits: " + fitxer);
+        }
+        this.fitxer = fitxer;
+        escanejar();
+    }
+
+    /**
+     * Indica si un fitxer es pot llegir per seccions: ha de ser sense comprimir i, segons la seva declaració
+     * XML, codificat en UTF-8 o en ASCII. La resta de codificacions s'han de llegir amb el document sencer.
+     *
+     * @param fitxer Ruta del fitxer cursos.xml.
+     * @return True si el fitxer es pot llegir per seccions.
+     */
+    public static boolean admet(Path fitxer) {
+        return !UtilsFitxers.esComprimit(fitxer) && esUtf8(fitxer);
+    }
+
+    private static boolean esUtf8(Path fitxer) {
+        byte[] inici;
+        try (InputStream entrada = Files.newInputStream(fitxer)) {
+            inici = entrada.readNBytes(MIDA_DECLARACIO);
+        } catch (IOException e) {
+            throw new RuntimeException("Error en llegir la declaració XML de " + fitxer, e);
+        }
+        int desplacament = 0;
+        if (inici.length >= 3 && (inici[0] & 0xFF) == 0xEF && (inici[1] & 0xFF) == 0xBB && (inici[2] & 0xFF) == 0xBF) {
+            desplacament = 3;
+        }
+        // UTF-16 i UTF-32 (amb marca d'ordre de bytes o sense): el '<' inicial no és un sol byte
+        if (inici.length - desplacament >= 2 && (inici[desplacament] != '<' || inici[desplacament + 1] == 0)) {
+            return false;
+        }
+        // Fins a la codificació, la declaració només conté caràcters ASCII
+        Matcher declaracio = CODIFICACIO.matcher(new String(inici, desplacament, inici.length - desplacament,
+                StandardCharsets.ISO_8859_1));
+        if (!declaracio.find()) {
+            return true;
+        }
+        String codificacio = declaracio.group(1);
+        return codificacio.equalsIgnoreCase("UTF-8") || codificacio.equalsIgnoreCase("US-ASCII")
+                || codificacio.equalsIgnoreCase("ASCII");
+    }
+
+    /**
+     * Torna a fer la passada inicial si el fitxer ha canviat des de l'última vegada
+     * (les posicions anotades ja no serien vàlides).
+     *
+     * @return True si s'ha tornat a escanejar.
+     */
+    public synchronized boolean actualitzarSiCal() {
+        BasicFileAttributes atributs = atributs();
+        if (atributs.lastModifiedTime().equals(modificacio) && atributs.size() == mida) {
+            return false;
+        }
+        escanejar();
+        return true;
+    }
+
+    /**
+     * @return Tots els cursos, en l'ordre del document.
+     */
+    public synchronized List<CursMandros> cursos() {
+        return cursos;
+    }
+
+    /**
+     * Retorna els cursos amb l'ID indicat (normalment un de sol).
+     *
+     * @param id ID del curs.
+     * @return Cursos coincidents, en l'ordre del document.
+     */
+    public synchronized List<CursMandros> cursos(String id) {
+        return cursos.stream().filter(curs -> id.equals(curs.id())).toList();
+    }
+
+    private synchronized void escanejar() {
+        if (!esUtf8(fitxer)) {
+            throw new IllegalArgumentException("La lectura per seccions només admet fitxers en UTF-8: " + fitxer);
+        }
+        BasicFileAttributes atributs = atributs();
+        try (InputStream entrada = new BufferedInputStream(Files.newInputStream(fitxer), MIDA_BUFFER)) {
+            cursos = new Escaner(entrada).escanejar();
+            modificacio = atributs.lastModifiedTime();
+            mida = atributs.size();
+        } catch (IOException e) {
+            throw new RuntimeException("Error en escanejar el fitxer de cursos " + fitxer, e);
+        }
+    }
+
+    private BasicFileAttributes atributs() {
+        try {
+            return Files.readAttributes(fitxer, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Error en llegir els atributs de " + fitxer, e);
+        }
+    }
+
+    /**
+     * Llegeix els bytes d'una secció i la parseja amb StAX.
+     */
+    private Curs parsejarSeccio(Seccio seccio) {
+        return Metriques.temporitzador(Metriques.XML_PARSEIG).mesurar(() -> llegirSeccio(seccio));
+    }
+
+    private Curs llegirSeccio(Seccio seccio) {
+        try (FileChannel canal = FileChannel.open(fitxer, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(seccio.fi() - seccio.inici()));
+            long posicio = seccio.inici();
+            while (buffer.hasRemaining()) {
+                int llegits = canal.read(buffer, posicio);
+                if (llegits < 0) {
+                    throw new IOException("El fitxer ha canviat mentre es llegia.");
+                }
+                posicio += llegits;
+            }
+            Metriques.comptador(Metriques.BYTES_LLEGITS).afegir(buffer.capacity());
+            XMLStreamReader reader = EscanerCursos.crearReader(new ByteArrayInputStream(buffer.array()), "UTF-8");
+            reader.nextTag();
+            // La secció és un fragment XML complet: es reaprofita la lectura de curs per recollir-ne el contingut
+            Curs contingut = EscanerCursos.llegirCurs(reader, null);
+            reader.close();
+            return contingut;
+        } catch (IOException | XMLStreamException e) {
+            throw new RuntimeException("Error en llegir una secció del fitxer de cursos " + fitxer, e);
+        }
+    }
+
+    /**
+     * Escàner de bytes que localitza les etiquetes de curs i de les seves seccions sense parsejar el text.
+     */
+    private final class Escaner {
+        private final InputStream entrada;
+        private final byte[] nom = new byte[64];
+        private int longitudNom;
+        private long posicio;
+
+        Escaner(InputStream entrada) {
+            this.entrada = entrada;
+        }
+
+        List<CursMandros> escanejar() throws IOException {
+            List<CursMandros> resultat = new ArrayList<>();
+            CursMandros actual = null;
+            long iniciSeccio = -1;
+            int profunditat = 0;
+            int b;
+            while ((b = llegir()) != -1) {
+                if (b != '<') {
+                    continue;
+                }
+                long iniciEtiqueta = posicio - 1;
+                b = llegir();
+                if (b == '!') {
+                    saltarDeclaracio();
+                    continue;
+                }
+                if (b == '?') {
+                    saltarFins((byte) '?', (byte) '>');
+                    continue;
+                }
+                boolean tancament = b == '/';
+                if (tancament) {
+                    b = llegir();
+                }
+                b = llegirNom(b);
+                boolean esCurs = mateixNom(CURS);
+                ByteArrayBuilder atributs = !tancament && esCurs && profunditat == 1 ? new ByteArrayBuilder() : null;
+                boolean autotancada = llegirFinsFiEtiqueta(b, atributs);
+
+                if (tancament) {
+                    profunditat--;
+                    if (actual != null && profunditat == 2 && iniciSeccio >= 0) {
+                        assignarSeccio(actual, new Seccio(iniciSeccio, posicio));
+                        iniciSeccio = -1;
+                    } else if (esCurs && profunditat == 1) {
+                        actual = null;
+                    }
+                } else {
+                    if (atributs != null) {
+                        actual = new CursMandros(atribut(atributs, "id"));
+                        resultat.add(actual);
+                    } else if (actual != null && profunditat == 2 && (mateixNom(ALUMNES) || mateixNom(MODULS))) {
+                        if (autotancada) {
+                            assignarSeccio(actual, new Seccio(iniciEtiqueta, posicio));
+                        } else {
+                            iniciSeccio = iniciEtiqueta;
+                        }
+                    }
+                    if (!autotancada) {
+                        profunditat++;
+                    } else if (atributs != null) {
+                        actual = null;
+                    }
+                }
+            }
+            if (profunditat != 0) {
+                // Un fitxer truncat no s'ha de confondre amb un curs sense seccions
+                throw new IOException("El fitxer acaba amb " + profunditat + " etiquetes sense tancar.");
+            }
+            return resultat;
+        }
+
+        // El nom de l'etiqueta ja és a "nom": decideix a quina secció correspon l'interval
+        private void assignarSeccio(CursMandros curs, Seccio seccio) {
+            if (mateixNom(ALUMNES)) {
+                curs.seccioAlumnes = seccio;
+            } else if (mateixNom(MODULS)) {
+                curs.seccioModuls = seccio;
+            }
+        }
+
+        private int llegir() throws IOException {
+            int b = entrada.read();
+            if (b != -1) {
+                posicio++;
+            }
+            return b;
+        }
+
+        private int llegirNom(int b) throws IOException {
+            longitudNom = 0;
+            while (b != -1 && b != '>' && b != '/' && !Character.isWhitespace(b)) {
+                if (longitudNom < nom.length) {
+                    nom[longitudNom] = (byte) b;
+                }
+                longitudNom++;
+                b = llegir();
+            }
+            return b;
+        }
+
+        private boolean mateixNom(byte[] esperat) {
+            return Arrays.equals(nom, 0, Math.min(longitudNom, nom.length), esperat, 0, esperat.length)
+                    && longitudNom == esperat.length;
+        }
+
+        // Avança fins al '>' que tanca l'etiqueta respectant les cometes dels atributs
+        private boolean llegirFinsFiEtiqueta(int b, ByteArrayBuilder atributs) throws IOException {
+            int cometa = 0;
+            int anterior = 0;
+            while (b != -1) {
+                if (cometa != 0) {
+                    if (b == cometa) {
+                        cometa = 0;
+                    }
+                } else if (b == '"' || b == '\'') {
+                    cometa = b;
+                } else if (b == '>') {
+                    return anterior == '/';
+                }
+                if (atributs != null) {
+                    atributs.afegir(b);
+                }
+                if (!Character.isWhitespace(b)) {
+                    anterior = b;
+                }
+                b = llegir();
+            }
+            return false;
+        }
+
+        // Comentaris, CDATA i DOCTYPE
+        private void saltarDeclaracio() throws IOException {
+            int b = llegir();
+            if (b == '-') {
+                if (llegir() != '-') {
+                    throw new IOException("Comentari mal format a la posició " + (posicio - 3));
+                }
+                // El final "-->" es busca just després de l'obertura "<!--", de manera que el comentari buit
+                // "<!---->" acaba al seu propi "-->"
+                saltarFins((byte) '-', (byte) '-', (byte) '>');
+            } else if (b == '[') {
+                saltarFins((byte) ']', (byte) ']', (byte) '>');
+            } else {
+                int nivell = 1;
+                while (nivell > 0 && (b = llegir()) != -1) {
+                    if (b == '<') {
+                        nivell++;
+                    } else if (b == '>') {
+                        nivell--;
+                    }
+                }
+            }
+        }
+
+        private void saltarFins(byte... seq) throws IOException {
+            // Finestra amb els últims bytes llegits, comparada amb la seqüència final
+            int[] finestra = new int[seq.length];
+            Arrays.fill(finestra, -1);
+            int b;
+            while ((b = llegir()) != -1) {
+                System.arraycopy(finestra, 1, finestra, 0, seq.length - 1);
+                finestra[seq.length - 1] = b;
+                boolean coincideix = true;
+                for (int i = 0; i < seq.length && coincideix; i++) {
+                    coincideix = finestra[i] == seq[i];
+                }
+                if (coincideix) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Extreu el valor d'un atribut dels bytes d'una etiqueta d'inici.
+     */
+    private static String atribut(ByteArrayBuilder bytes, String nomAtribut) {
+        String etiqueta = new String(bytes.dades, 0, bytes.mida, StandardCharsets.UTF_8);
+        int i = 0;
+        while (i < etiqueta.length()) {
+            int igual = etiqueta.indexOf('=', i);
+            if (igual < 0) {
+                break;
+            }
+            String nom = etiqueta.substring(i, igual).trim();
+            int inici = igual + 1;
+            while (inici < etiqueta.length() && Character.isWhitespace(etiqueta.charAt(inici))) {
+                inici++;
+            }
+            char cometa = etiqueta.charAt(inici);
+            int fi = etiqueta.indexOf(cometa, inici + 1);
+            if (nom.equals(nomAtribut)) {
+                return desescapar(etiqueta.substring(inici + 1, fi));
+            }
+            i = fi + 1;
+        }
+        return null;
+    }
+
+    private static String desescapar(String valor) {
+        if (valor.indexOf('&') < 0) {
+            return valor;
+        }
+        return valor.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&apos;", "'").replace("&amp;", "&");
+    }
+
+    /**
+     * Acumulador mínim de bytes per als atributs d'una etiqueta.
+     */
+    private static final class ByteArrayBuilder {
+        private byte[] dades = new byte[32];
+        private int mida;
+
+        void afegir(int b) {
+            if (mida == dades.length) {
+                dades = Arrays.copyOf(dades, mida * 2);
+            }
+            dades[mida++] = (byte) b;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.project.pr13.cursos;
+
+import com.project.pr13.model.Curs;
+import com.project.pr13.model.Modul;
+import com.project.pr13.xml.FactoriesXML;
+import com.project.utilitats.UtilsFitxers;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Lectura en streaming (StAX) del fitxer cursos.xml.
+ *
+ * Permet calcular una empremta del contingut de cada {@code <curs>} sense construir-ne cap objecte,
+ * i materialitzar només els cursos que interessen (com a registres o com a nodes DOM) saltant la resta
+ * del document.
+ */
+public class EscanerCursos {
+
+    private static final long FNV_BASE = 0xcbf29ce484222325L;
+    private static final long FNV_PRIMER = 0x100000001b3L;
+
+    // Marques estructurals perquè el mateix text en llocs diferents doni empremtes diferents
+    private static final char MARCA_INICI = '\u0001';
+    private static final char MARCA_FI = '\u0002';
+    private static final char MARCA_TEXT = '\u0003';
+    private static final char MARCA_ATRIBUT = '\u0004';
+
+    private EscanerCursos() {
+    }
+
+    /**
+     * Calcula l'empremta (FNV-1a de 64 bits) de cada curs del fitxer, en l'ordre del document.
+     * Els espais de format (indentació) no formen part de l'empremta.
+     *
+     * @param fitxer Ruta del fitxer cursos.xml.
+     * @return Empremta de cada curs indexada pel seu ID.
+     */
+    public static Map<String, Long> calcularEmpremtes(Path fitxer) {
+        Map<String, Long> empremtes = new LinkedHashMap<>();
+        try (InputStream entrada = UtilsFitxers.obrirEntrada(fitxer)) {
+            XMLStreamReader reader = crearReader(entrada);
+            int profunditat = 0;
+            String idCurs = null;
+            long empremta = FNV_BASE;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        profunditat++;
+                        if (profunditat == 2 && reader.getLocalName().equals("curs")) {
+                            idCurs = reader.getAttributeValue(null, "id");
+                            empremta = FNV_BASE;
+                        }
+                        if (idCurs != null) {
+                            empremta = barrejar(empremta, MARCA_INICI);
+                            empremta = barrejar(empremta, reader.getLocalName());
+                            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                                empremta = barrejar(empremta, MARCA_ATRIBUT);
+                                empremta = barrejar(empremta, reader.getAttributeLocalName(i));
+                                empremta = barrejar(empremta, reader.getAttributeValue(i));
+                            }
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                        if (idCurs != null && !reader.isWhiteSpace()) {
+                            empremta = barrejar(empremta, MARCA_TEXT);
+                            empremta = barrejarText(empremta, reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (idCurs != null) {
+                            empremta = barrejar(empremta, MARCA_FI);
+                            if (profunditat == 2) {
+                                empremtes.put(idCurs, empremta);
+                                idCurs = null;
+                            }
+                        }
+                        profunditat--;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            reader.close();
+        } catch (IOException | XMLStreamException e) {
+            throw new RuntimeException("Error en escanejar el fitxer de cursos " + fitxer, e);
+        }
+        return empremtes;
+    }
+
+    /**
+     * Llegeix tots els cursos del fitxer.
+     *
+     * @param fitxer Ruta del fitxer cursos.xml.
+     * @return Cursos indexats pel seu ID, en l'ordre del document.
+     */
+    public static Map<String, Curs> llegirCursos(Path fitxer) {
+        return llegirCursos(fitxer, id -> true);
+    }
+
+    /**
+     * Llegeix només els cursos que compleixen el filtre; la resta es salten sense materialitzar-los.
+     *
+     * @param fitxer Ruta del fitxer cursos.xml.
+     * @param filtre Condició sobre l'ID del curs.
+     * @return Cursos seleccionats indexats pel seu ID, en l'ordre del document.
+     */
+    public static Map<String, Curs> llegirCursos(Path fitxer, Predicate<String> filtre) {
+        Map<String, Curs> cursos = new LinkedHashMap<>();
+        recorrerCursos(fitxer, filtre, curs -> cursos.put(curs.id(), curs));
+        return cursos;
+    }
+
+    /**
+     * Recorre els cursos del fitxer un a un, sense retenir-los en memòria.
+     *
+     * @param fitxer Ruta del fitxer cursos.xml.
+     * @param filtre Condició sobre l'ID del curs; els cursos que no la compleixen se salten.
+     * @param consumidor Funció que rep cada curs materialitzat, en l'ordre del document.
+     */
+    public static void recorrerCursos(Path fitxer, Predicate<String> filtre, Consumer<Curs> consumidor) {
+        try (InputStream entrada = UtilsFitxers.obrirEntrada(fitxer)) {
+            XMLStreamReader reader = crearReader(entrada);
+            int profunditat = 0;
+            while (reader.hasNext()) {
+                int esdeveniment = reader.next();
+                if (esdeveniment == XMLStreamConstants.START_ELEMENT) {
+                    profunditat++;
+                    if (profunditat == 2 && reader.getLocalName().equals("curs")) {
+                        String id = reader.getAttributeValue(null, "id");
+                        if (filtre.test(id)) {
+                            consumidor.accept(llegirCurs(reader, id));
+                        } else {
+                            saltarElement(reader);
+                        }
+                        profunditat--;
+                    }
+                } else if (esdeveniment == XMLStreamConstants.END_ELEMENT) {
+                    profunditat--;
+                }
+            }
+            reader.close();
+        } catch (IOException | XMLStreamException e) {
+            throw new RuntimeException("Error en llegir el fitxer de cursos " + fitxer, e);
+        }
+    }
+
+    /**
+     * Construeix com a nodes DOM d'un document els cursos que compleixen el filtre, amb tot el seu contingut
+     * (també el que no forma part de {@link Curs}, com els professors i les unitats formatives dels mòduls).
+     * La resta de cursos se salten sense crear-ne cap node. Els elements no s'afegeixen al document.
+     *
+     * @param fitxer Ruta del fitxer cursos.xml.
+     * @param filtre Condició sobre l'ID del curs.
+     * @param document Document propietari dels elements.
+     * @return Elements {@code <curs>} seleccionats indexats pel seu ID, en l'ordre del fitxer.
+     */
+    public static Map<String, Element> llegirElements(Path fitxer, Predicate<String> filtre, Document document) {
+        Map<String, Element> elements = new LinkedHashMap<>();
+        try (InputStream entrada = UtilsFitxers.obrirEntrada(fitxer)) {
+            XMLStreamReader reader = crearReader(entrada);
+            int profunditat = 0;
+            while (reader.hasNext()) {
+                int esdeveniment = reader.next();
+                if (esdeveniment == XMLStreamConstants.START_ELEMENT) {
+                    profunditat++;
+                    if (profunditat == 2 && reader.getLocalName().equals("curs")) {
+                        String id = reader.getAttributeValue(null, "id");
+                        if (filtre.test(id)) {
+                            elements.put(id, construirElement(reader, document));
+                        } else {
+                            saltarElement(reader);
+                        }
+                        profunditat--;
+                    }
+                } else if (esdeveniment == XMLStreamConstants.END_ELEMENT) {
+                    profunditat--;
+                }
+            }
+            reader.close();
+        } catch (IOException | XMLStreamException e) {
+            throw new RuntimeException("Error en llegir el fitxer de cursos " + fitxer, e);
+        }
+        return elements;
+    }
+
+    /**
+     * Construeix un curs a partir del seu element {@code <curs>} d'un document ja carregat.
+     *
+     * @param cursElement Element del curs.
+     * @return Curs amb el mateix contingut que en llegiria {@link #recorrerCursos}.
+     */
+    public static Curs llegirCurs(Element cursElement) {
+        Node tutor = cursElement.getElementsByTagName("tutor").item(0);
+        List<String> alumnes = new ArrayList<>();
+        NodeList nodesAlumnes = cursElement.getElementsByTagName("alumne");
+        for (int i = 0; i < nodesAlumnes.getLength(); i++) {
+            alumnes.add(nodesAlumnes.item(i).getTextContent());
+        }
+        List<Modul> moduls = new ArrayList<>();
+        NodeList nodesModuls = cursElement.getElementsByTagName("modul");
+        for (int i = 0; i < nodesModuls.getLength(); i++) {
+            Element modulElement = (Element) nodesModuls.item(i);
+            Node titol = modulElement.getElementsByTagName("titol").item(0);
+            moduls.add(new Modul(modulElement.getAttribute("id"), titol == null ? "" : titol.getTextContent()));
+        }
+        return new Curs(cursElement.getAttribute("id"), tutor == null ? "" : tutor.getTextContent(), alumnes, moduls);
+    }
+
+    /**
+     * Recorre els alumnes d'un curs un a un, sense materialitzar el curs ni la seva llista d'alumnes.
+     * La lectura del fitxer s'atura tan bon punt el consumidor indica que no en vol més.
+     *
+     * @param fitxer Ruta del fitxer cursos.xml.
+     * @param idCurs ID del curs.
+     * @param consumidor Funció que rep cada alumne, en l'ordre del document, i retorna false per aturar-se.
+     */
+    public static void recorrerAlumnes(Path fitxer, String idCurs, Predicate<String> consumidor) {
+        try (InputStream entrada = UtilsFitxers.obrirEntrada(fitxer)) {
+            XMLStreamReader reader = crearReader(entrada);
+            int profunditat = 0;
+            String cursActual = null;
+            while (reader.hasNext()) {
+                int esdeveniment = reader.next();
+                if (esdeveniment == XMLStreamConstants.START_ELEMENT) {
+                    profunditat++;
+                    if (profunditat == 2 && reader.getLocalName().equals("curs")) {
+                        cursActual = reader.getAttributeValue(null, "id");
+                        if (!idCurs.equals(cursActual)) {
+                            saltarElement(reader);
+                            profunditat--;
+                        }
+                    } else if (idCurs.equals(cursActual) && reader.getLocalName().equals("alumne")) {
+                        profunditat--;
+                        if (!consumidor.test(reader.getElementText())) {
+                            break;
+                        }
+                    }
+                } else if (esdeveniment == XMLStreamConstants.END_ELEMENT) {
+                    profunditat--;
+                }
+            }
+            reader.close();
+        } catch (IOException | XMLStreamException e) {
+            throw new RuntimeException("Error en llegir el fitxer de cursos " + fitxer, e);
+        }
+    }
+
+    /**
+     * Llegeix un fitxer que conté un únic curs com a element arrel (format dels fragments del
+     * magatzem per cursos).
+     *
+     * @param fitxer Ruta del fitxer del curs.
+     * @return Curs llegit.
+     */
+    public static Curs llegirCursUnic(Path fitxer) {
+        try (InputStream entrada = UtilsFitxers.obrirEntrada(fitxer)) {
+            XMLStreamReader reader = crearReader(entrada);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("curs")) {
+                    Curs curs = llegirCurs(reader, reader.getAttributeValue(null, "id"));
+                    reader.close();
+                    return curs;
+                }
+            }
+            throw new RuntimeException("El fitxer " + fitxer + " no conté cap curs.");
+        } catch (IOException | XMLStreamException e) {
+            throw new RuntimeException("Error en llegir el curs " + fitxer, e);
+        }
+    }
+
+    /**
+     * Construeix un curs a partir del reader situat al seu element d'inici. En acabar, el reader
+     * queda situat a l'element de tancament del curs.
+     */
+    static Curs llegirCurs(XMLStreamReader reader, String id) throws XMLStreamException {
+        String tutor = "";
+        String idModul = null;
+        List<String> alumnes = new ArrayList<>();
+        List<Modul> moduls = new ArrayList<>();
+        int profunditat = 1;
+        while (profunditat > 0) {
+            int esdeveniment = reader.next();
+            if (esdeveniment == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "tutor" -> tutor = reader.getElementText();
+                    case "alumne" -> alumnes.add(reader.getElementText());
+                    case "titol" -> moduls.add(new Modul(idModul, reader.getElementText()));
+                    case "modul" -> {
+                        idModul = reader.getAttributeValue(null, "id");
+                        profunditat++;
+                    }
+                    default -> profunditat++;
+                }
+            } else if (esdeveniment == XMLStreamConstants.END_ELEMENT) {
+                profunditat--;
+            }
+        }
+        return new Curs(id, tutor, alumnes, moduls);
+    }
+
+    /**
+     * Construeix l'element on és situat el reader, amb els seus atributs, fills i textos (també els espais
+     * de format). En acabar, el reader queda situat a l'element de tancament.
+     */
+    private static Element construirElement(XMLStreamReader reader, Document document) throws XMLStreamException {
+        Element arrel = nouElement(reader, document);
+        Node actual = arrel;
+        while (actual != null) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> {
+                    Element fill = nouElement(reader, document);
+                    actual.appendChild(fill);
+                    actual = fill;
+                }
+                case XMLStreamConstants.END_ELEMENT -> actual = actual == arrel ? null : actual.getParentNode();
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.SPACE -> actual.appendChild(document.createTextNode(reader.getText()));
+                case XMLStreamConstants.CDATA -> actual.appendChild(document.createCDATASection(reader.getText()));
+                case XMLStreamConstants.COMMENT -> actual.appendChild(document.createComment(reader.getText()));
+                default -> {
+                }
+            }
+        }
+        return arrel;
+    }
+
+    private static Element nouElement(XMLStreamReader reader, Document document) {
+        Element element = document.createElement(reader.getLocalName());
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            element.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+        return element;
+    }
+
+    /**
+     * Avança el reader fins al tancament de l'element actual sense crear cap objecte.
+     */
+    static void saltarElement(XMLStreamReader reader) throws XMLStreamException {
+        int profunditat = 1;
+        while (profunditat > 0) {
+            int esdeveniment = reader.next();
+            if (esdeveniment == XMLStreamConstants.START_ELEMENT) {
+                profunditat++;
+            } else if (esdeveniment == XMLStreamConstants.END_ELEMENT) {
+                profunditat--;
+            }
+        }
+    }
+
+    static XMLStreamReader crearReader(InputStream entrada) throws XMLStreamException {
+        return crearReader(entrada, null);
+    }
+
+    static XMLStreamReader crearReader(InputStream entrada, String codificacio) throws XMLStreamException {
+        return FactoriesXML.nouReaderStAXCoalescent(entrada, codificacio);
+    }
+
+    private static long barrejar(long empremta, char c) {
+        return (empremta ^ c) * FNV_PRIMER;
+    }
+
+    private static long barrejar(long empremta, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            empremta = barrejar(empremta, text.charAt(i));
+        }
+        return empremta;
+    }
+
+    private static long barrejarText(long empremta, char[] text, int inici, int longitud) {
+        // S'ignoren els espais inicials i finals del text
+        int fi = inici + longitud;
+        while (inici < fi && Character.isWhitespace(text[inici])) {
+            inici++;
+        }
+        while (fi > inici && Character.isWhitespace(text[fi - 1])) {
+            fi--;
+        }
+        for (int i = inici; i < fi; i++) {
+            empremta = barrejar(empremta, text[i]);
+        }
+        return empremta;
+    }
+}
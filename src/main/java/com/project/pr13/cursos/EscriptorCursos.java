@@ -0,0 +1,133 @@
+package com.project.pr13.cursos;
+
+import com.project.pr13.model.Curs;
+import com.project.pr13.model.Modul;
+import com.project.pr13.xml.FactoriesXML;
+import com.project.utilitats.UtilsFitxers;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Escriptura en streaming (StAX) de cursos amb el mateix format que el fitxer cursos.xml.
+ */
+public class EscriptorCursos {
+
+    private static final int MIDA_BUFFER = 64 * 1024;
+    private static final String INDENTACIO = "    ";
+
+    private EscriptorCursos() {
+    }
+
+    /**
+     * Escriu un fitxer cursos.xml complet amb els cursos indicats, de manera atòmica.
+     *
+     * @param fitxer Ruta del fitxer de destinació.
+     * @param cursos Cursos a escriure, en ordre.
+     */
+    public static void escriureFitxer(Path fitxer, Iterable<Curs> cursos) {
+        escriure(fitxer, writer -> {
+            writer.writeStartElement("cursos");
+            for (Curs curs : cursos) {
+                salt(writer, 1);
+                escriureCurs(writer, curs, 1);
+            }
+            salt(writer, 0);
+            writer.writeEndElement();
+        });
+    }
+
+    /**
+     * Escriu un fitxer amb un únic curs com a element arrel, de manera atòmica.
+     *
+     * @param fitxer Ruta del fitxer de destinació.
+     * @param curs Curs a escriure.
+     */
+    public static void escriureCursUnic(Path fitxer, Curs curs) {
+        escriure(fitxer, writer -> escriureCurs(writer, curs, 0));
+    }
+
+    /**
+     * Escriu l'element {@code <curs>} amb tot el seu contingut.
+     *
+     * @param writer Writer StAX de destinació.
+     * @param curs Curs a escriure.
+     * @param nivell Nivell d'indentació de l'element.
+     * @throws XMLStreamException Si hi ha un error d'escriptura.
+     */
+    static void escriureCurs(XMLStreamWriter writer, Curs curs, int nivell) throws XMLStreamException {
+        writer.writeStartElement("curs");
+        writer.writeAttribute("id", curs.id());
+        salt(writer, nivell + 1);
+        escriureText(writer, "tutor", curs.tutor());
+        salt(writer, nivell + 1);
+        writer.writeStartElement("alumnes");
+        for (String alumne : curs.alumnes()) {
+            salt(writer, nivell + 2);
+            escriureText(writer, "alumne", alumne);
+        }
+        salt(writer, nivell + 1);
+        writer.writeEndElement();
+        if (!curs.moduls().isEmpty()) {
+            salt(writer, nivell + 1);
+            writer.writeStartElement("moduls");
+            for (Modul modul : curs.moduls()) {
+                salt(writer, nivell + 2);
+                writer.writeStartElement("modul");
+                writer.writeAttribute("id", modul.id());
+                salt(writer, nivell + 3);
+                escriureText(writer, "titol", modul.titol());
+                salt(writer, nivell + 2);
+                writer.writeEndElement();
+            }
+            salt(writer, nivell + 1);
+            writer.writeEndElement();
+        }
+        salt(writer, nivell);
+        writer.writeEndElement();
+    }
+
+    @FunctionalInterface
+    private interface Contingut {
+        void escriure(XMLStreamWriter writer) throws XMLStreamException;
+    }
+
+    private static void escriure(Path fitxer, Contingut contingut) {
+        try {
+            UtilsFitxers.escriureAtomicament(fitxer, sortida -> escriureDocument(sortida, contingut));
+        } catch (IOException e) {
+            throw new RuntimeException("Error en escriure el fitxer de cursos " + fitxer, e);
+        }
+    }
+
+    private static void escriureDocument(OutputStream sortida, Contingut contingut) throws IOException {
+        try {
+            BufferedOutputStream buffer = new BufferedOutputStream(sortida, MIDA_BUFFER);
+            XMLStreamWriter writer = FactoriesXML.nouWriterStAX(buffer, StandardCharsets.UTF_8.name());
+            writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            salt(writer, 0);
+            contingut.escriure(writer);
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.close();
+            buffer.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void escriureText(XMLStreamWriter writer, String element, String text) throws XMLStreamException {
+        writer.writeStartElement(element);
+        writer.writeCharacters(text);
+        writer.writeEndElement();
+    }
+
+    private static void salt(XMLStreamWriter writer, int nivell) throws XMLStreamException {
+        writer.writeCharacters("\n" + INDENTACIO.repeat(nivell));
+    }
+}
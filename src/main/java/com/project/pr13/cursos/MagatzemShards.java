@@ -0,0 +1,302 @@
+package com.project.pr13.cursos;
+
+import com.project.pr13.model.Curs;
+import com.project.pr13.xml.FactoriesXML;
+import com.project.utilitats.UtilsFitxers;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Magatzem de cursos repartit en un fitxer per curs (fragment) més un manifest.
+ *
+ * El manifest ({@value #MANIFEST}) guarda l'ordre dels cursos i el fitxer de cada un. Modificar un curs
+ * només reescriu el seu fragment, de manera que les escriptures sobre cursos diferents no es bloquegen
+ * entre elles. Els fragments es carreguen quan es demanen per primer cop, o tots en paral·lel amb
+ * {@link #carregarTots()}. El format d'un sol fitxer cursos.xml es pot importar i exportar.
+ */
+public class MagatzemShards {
+
+    public static final String MANIFEST = "manifest.xml";
+
+    private final Path directori;
+    // ID del curs -> nom del fitxer del fragment, en l'ordre del document original
+    private final Map<String, String> fragments = new LinkedHashMap<>();
+    private final Map<String, Curs> carregats = new ConcurrentHashMap<>();
+    private final Map<String, Object> bloquejos = new ConcurrentHashMap<>();
+
+    /**
+     * Obre un magatzem existent (o buit si el directori no té manifest).
+     *
+     * @param directori Directori del magatzem.
+     */
+    public MagatzemShards(Path directori) {
+        this.directori = directori;
+        Path manifest = directori.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            llegirManifest(manifest);
+        }
+    }
+
+    /**
+     * Importa un fitxer cursos.xml en un magatzem nou, escrivint un fragment per curs.
+     * El fitxer d'origen es llegeix en streaming, curs a curs.
+     *
+     * @param cursosXml Fitxer cursos.xml d'origen.
+     * @param directori Directori del magatzem.
+     * @return Magatzem creat.
+     */
+    public static MagatzemShards importar(Path cursosXml, Path directori) {
+        MagatzemShards magatzem = new MagatzemShards(directori);
+        EscanerCursos.recorrerCursos(cursosXml, id -> true, curs -> {
+            String nomFitxer = nomFragment(curs.id());
+            EscriptorCursos.escriureCursUnic(directori.resolve(nomFitxer), curs);
+            magatzem.fragments.put(curs.id(), nomFitxer);
+        });
+        magatzem.escriureManifest();
+        return magatzem;
+    }
+
+    /**
+     * Exporta tot el magatzem a un únic fitxer cursos.xml. Els fragments no carregats es llegeixen
+     * d'un en un i no es retenen en memòria.
+     *
+     * @param desti Fitxer de destinació.
+     */
+    public void exportar(Path desti) {
+        List<String> ids = ids();
+        EscriptorCursos.escriureFitxer(desti, () -> ids.stream()
+                .map(id -> carregats.containsKey(id) ? carregats.get(id) : llegirFragment(id))
+                .iterator());
+    }
+
+    /**
+     * @return IDs dels cursos del magatzem, en ordre.
+     */
+    public synchronized List<String> ids() {
+        return new ArrayList<>(fragments.keySet());
+    }
+
+    /**
+     * Retorna un curs, carregant el seu fragment si és el primer accés.
+     *
+     * @param id ID del curs.
+     * @return Curs o null si no existeix.
+     */
+    public Curs curs(String id) {
+        Curs curs = carregats.get(id);
+        if (curs != null) {
+            return curs;
+        }
+        synchronized (bloqueig(id)) {
+            return carregats.computeIfAbsent(id, k -> conte(k) ? llegirFragment(k) : null);
+        }
+    }
+
+    /**
+     * Carrega tots els fragments en paral·lel.
+     *
+     * @return Tots els cursos, en ordre.
+     */
+    public List<Curs> carregarTots() {
+        return ids().parallelStream().map(this::curs).toList();
+    }
+
+    /**
+     * Guarda un curs reescrivint només el seu fragment (i el manifest si el curs és nou).
+     *
+     * @param curs Curs a guardar.
+     */
+    public void guardar(Curs curs) {
+        synchronized (bloqueig(curs.id())) {
+            boolean nou = !conte(curs.id());
+            String nomFitxer = nou ? nomFragment(curs.id()) : nomFitxer(curs.id());
+            EscriptorCursos.escriureCursUnic(directori.resolve(nomFitxer), curs);
+            carregats.put(curs.id(), curs);
+            if (nou) {
+                synchronized (this) {
+                    fragments.put(curs.id(), nomFitxer);
+                    escriureManifest();
+                }
+            }
+        }
+    }
+
+    /**
+     * Elimina un curs i el seu fragment.
+     *
+     * @param id ID del curs.
+     * @return True si el curs existia.
+     */
+    public boolean eliminar(String id) {
+        synchronized (bloqueig(id)) {
+            String nomFitxer;
+            synchronized (this) {
+                nomFitxer = fragments.remove(id);
+                if (nomFitxer == null) {
+                    return false;
+                }
+                escriureManifest();
+            }
+            carregats.remove(id);
+            try {
+                Files.deleteIfExists(directori.resolve(nomFitxer));
+            } catch (IOException e) {
+                throw new RuntimeException("Error en eliminar el fragment del curs " + id, e);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Afegeix un alumne a un curs reescrivint només el fragment d'aquest curs. L'alumne s'insereix en ordre
+     * alfabètic (vegeu {@link OrdreAlumnes}); si la llista del curs no estava ordenada, primer s'ordena.
+     *
+     * @param idCurs ID del curs.
+     * @param nomAlumne Nom complet de l'alumne.
+     * @return True si el curs existeix.
+     */
+    public boolean afegirAlumne(String idCurs, String nomAlumne) {
+        synchronized (bloqueig(idCurs)) {
+            Curs curs = curs(idCurs);
+            if (curs == null) {
+                return false;
+            }
+            List<String> alumnes = new ArrayList<>(curs.alumnes());
+            OrdreAlumnes.ordenar(alumnes);
+            OrdreAlumnes.inserir(alumnes, nomAlumne);
+            guardar(new Curs(curs.id(), curs.tutor(), alumnes, curs.moduls()));
+            return true;
+        }
+    }
+
+    /**
+     * Elimina un alumne d'un curs reescrivint només el fragment d'aquest curs. Com a
+     * {@link #afegirAlumne(String, String)}, la llista es guarda ordenada.
+     *
+     * @param idCurs ID del curs.
+     * @param nomAlumne Nom complet de l'alumne.
+     * @return True si l'alumne s'ha eliminat.
+     */
+    public boolean eliminarAlumne(String idCurs, String nomAlumne) {
+        synchronized (bloqueig(idCurs)) {
+            Curs curs = curs(idCurs);
+            if (curs == null) {
+                return false;
+            }
+            List<String> alumnes = new ArrayList<>(curs.alumnes());
+            OrdreAlumnes.ordenar(alumnes);
+            if (!OrdreAlumnes.eliminar(alumnes, nomAlumne)) {
+                return false;
+            }
+            guardar(new Curs(curs.id(), curs.tutor(), alumnes, curs.moduls()));
+            return true;
+        }
+    }
+
+    /**
+     * @return Ruta del manifest del magatzem.
+     */
+    public Path rutaManifest() {
+        return directori.resolve(MANIFEST);
+    }
+
+    /**
+     * Retorna la ruta del fragment d'un curs.
+     *
+     * @param id ID del curs.
+     * @return Ruta del fitxer, o null si el curs no existeix.
+     */
+    public Path rutaFragment(String id) {
+        String nomFitxer = nomFitxer(id);
+        return nomFitxer == null ? null : directori.resolve(nomFitxer);
+    }
+
+    private synchronized boolean conte(String id) {
+        return fragments.containsKey(id);
+    }
+
+    private synchronized String nomFitxer(String id) {
+        return fragments.get(id);
+    }
+
+    private Object bloqueig(String id) {
+        return bloquejos.computeIfAbsent(id, k -> new Object());
+    }
+
+    private Curs llegirFragment(String id) {
+        return EscanerCursos.llegirCursUnic(directori.resolve(nomFitxer(id)));
+    }
+
+    /**
+     * Nom de fitxer segur per a un ID de curs: es mantenen lletres, xifres i guions, i la resta de
+     * caràcters es codifiquen com a "_" seguit del codi hexadecimal, de manera que no hi ha col·lisions.
+     */
+    static String nomFragment(String id) {
+        StringBuilder nom = new StringBuilder("curs-");
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-') {
+                nom.append(c);
+            } else {
+                nom.append('_').append(String.format("%04x", (int) c));
+            }
+        }
+        return nom.append(".xml").toString();
+    }
+
+    private void llegirManifest(Path manifest) {
+        try (InputStream entrada = Files.newInputStream(manifest)) {
+            XMLStreamReader reader = FactoriesXML.nouReaderStAX(entrada);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("fragment")) {
+                    fragments.put(reader.getAttributeValue(null, "curs"), reader.getAttributeValue(null, "fitxer"));
+                }
+            }
+            reader.close();
+        } catch (IOException | XMLStreamException e) {
+            throw new RuntimeException("Error en llegir el manifest " + manifest, e);
+        }
+    }
+
+    // S'ha de cridar amb el monitor del magatzem adquirit
+    private void escriureManifest() {
+        Path manifest = directori.resolve(MANIFEST);
+        try {
+            UtilsFitxers.escriureAtomicament(manifest, sortida -> {
+                try {
+                    XMLStreamWriter writer = FactoriesXML.nouWriterStAX(sortida, StandardCharsets.UTF_8.name());
+                    writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+                    writer.writeCharacters("\n");
+                    writer.writeStartElement("manifest");
+                    for (Map.Entry<String, String> fragment : fragments.entrySet()) {
+                        writer.writeCharacters("\n    ");
+                        writer.writeEmptyElement("fragment");
+                        writer.writeAttribute("curs", fragment.getKey());
+                        writer.writeAttribute("fitxer", fragment.getValue());
+                    }
+                    writer.writeCharacters("\n");
+                    writer.writeEndElement();
+                    writer.writeEndDocument();
+                    writer.close();
+                } catch (XMLStreamException e) {
+                    throw new IOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Error en escriure el manifest " + manifest, e);
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.project.pr13.cursos;
+
+import com.project.pr13.model.Curs;
+import com.project.utilitats.ArbrePersistent;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Magatzem de cursos en memòria amb historial de versions.
+ *
+ * Cada versió és una {@link Instantania} immutable construïda sobre arbres persistents: una modificació
+ * només crea els nodes del camí afectat i el curs canviat, i comparteix la resta amb la versió anterior.
+ * Els lectors obtenen la versió actual sense bloquejos i la poden consultar sencera mentre els escriptors
+ * en publiquen de noves. Les versions anteriors es poden recuperar, restaurar o comparar entre elles.
+ * Implementa {@link ObservadorCursos}, de manera que pot enregistrar les modificacions fetes amb PR132Main
+ * i els canvis del fitxer detectats en recarregar-lo. Pot contenir tots els cursos o només els que s'hi
+ * incorporen abans de modificar-los (vegeu {@link #incorporar(Iterable)}).
+ */
+public class MagatzemVersionat implements ObservadorCursos {
+
+    /**
+     * Nombre de versions que es conserven per defecte a l'historial.
+     */
+    public static final int MAX_VERSIONS_PER_DEFECTE = 100;
+
+    // Curs amb la seva posició en l'ordre del document i si la seva llista d'alumnes està ordenada
+    private record Entrada(long ordre, Curs curs, boolean ordenat) {
+    }
+
+    /**
+     * Estat complet i immutable del magatzem en una versió.
+     */
+    public static final class Instantania {
+
+        private final long versio;
+        private final ArbrePersistent<String, Entrada> perId;
+        private final ArbrePersistent<Long, String> perOrdre;
+        private final long seguentOrdre;
+
+        private Instantania(long versio, ArbrePersistent<String, Entrada> perId,
+                            ArbrePersistent<Long, String> perOrdre, long seguentOrdre) {
+            this.versio = versio;
+            this.perId = perId;
+            this.perOrdre = perOrdre;
+            this.seguentOrdre = seguentOrdre;
+        }
+
+        /**
+         * @return Número de versió.
+         */
+        public long versio() {
+            return versio;
+        }
+
+        /**
+         * Retorna un curs pel seu ID.
+         *
+         * @param id ID del curs.
+         * @return Curs o null si no existeix en aquesta versió.
+         */
+        public Curs curs(String id) {
+            Entrada entrada = perId.obtenir(id);
+            return entrada == null ? null : entrada.curs();
+        }
+
+        /**
+         * @return Tots els cursos en l'ordre del document.
+         */
+        public List<Curs> cursos() {
+            List<Curs> cursos = new ArrayList<>(perId.mida());
+            for (Map.Entry<Long, String> entrada : perOrdre) {
+                cursos.add(perId.obtenir(entrada.getValue()).curs());
+            }
+            return cursos;
+        }
+
+        /**
+         * @return Nombre de cursos.
+         */
+        public int mida() {
+            return perId.mida();
+        }
+
+        private Instantania guardar(long novaVersio, Curs curs) {
+            return guardar(novaVersio, curs, OrdreAlumnes.esOrdenada(curs.alumnes()));
+        }
+
+        private Instantania guardar(long novaVersio, Curs curs, boolean ordenat) {
+            Entrada existent = perId.obtenir(curs.id());
+            if (existent != null) {
+                return new Instantania(novaVersio, perId.amb(curs.id(), new Entrada(existent.ordre(), curs, ordenat)),
+                        perOrdre, seguentOrdre);
+            }
+            return new Instantania(novaVersio, perId.amb(curs.id(), new Entrada(seguentOrdre, curs, ordenat)),
+                    perOrdre.amb(seguentOrdre, curs.id()), seguentOrdre + 1);
+        }
+
+        private Instantania eliminar(long novaVersio, String id) {
+            Entrada existent = perId.obtenir(id);
+            if (existent == null) {
+                return this;
+            }
+            return new Instantania(novaVersio, perId.sense(id), perOrdre.sense(existent.ordre()), seguentOrdre);
+        }
+
+        private Instantania ambVersio(long novaVersio) {
+            return new Instantania(novaVersio, perId, perOrdre, seguentOrdre);
+        }
+    }
+
+    private final AtomicReference<Instantania> actual;
+    private final int maxVersions;
+    // Versions anteriors, de la més antiga a la més recent (protegit pel monitor del magatzem)
+    private final Deque<Instantania> historial = new ArrayDeque<>();
+
+    /**
+     * Crea un magatzem amb els cursos indicats com a versió 0.
+     *
+     * @param cursos Cursos inicials, en l'ordre del document.
+     */
+    public MagatzemVersionat(Iterable<Curs> cursos) {
+        this(cursos, MAX_VERSIONS_PER_DEFECTE);
+    }
+
+    /**
+     * Crea un magatzem amb els cursos indicats com a versió 0.
+     *
+     * @param cursos Cursos inicials, en l'ordre del document.
+     * @param maxVersions Nombre màxim de versions anteriors que es conserven.
+     */
+    public MagatzemVersionat(Iterable<Curs> cursos, int maxVersions) {
+        this.actual = new AtomicReference<>(inicial(cursos));
+        this.maxVersions = Math.max(1, maxVersions);
+    }
+
+    private static Instantania inicial(Iterable<Curs> cursos) {
+        Instantania inicial = new Instantania(0, ArbrePersistent.buit(), ArbrePersistent.buit(), 0);
+        for (Curs curs : cursos) {
+            inicial = inicial.guardar(0, curs);
+        }
+        return inicial;
+    }
+
+    /**
+     * Crea un magatzem amb els cursos d'un fitxer cursos.xml.
+     *
+     * @param fitxer Ruta del fitxer cursos.xml.
+     * @return Magatzem creat.
+     */
+    public static MagatzemVersionat carregar(Path fitxer) {
+        List<Curs> cursos = new ArrayList<>();
+        EscanerCursos.recorrerCursos(fitxer, id -> true, cursos::add);
+        return new MagatzemVersionat(cursos);
+    }
+
+    /**
+     * Retorna la versió actual sense bloquejar. La instantània no canvia encara que després s'hi facin
+     * modificacions.
+     *
+     * @return Instantània actual.
+     */
+    public Instantania instantania() {
+        return actual.get();
+    }
+
+    /**
+     * Retorna una versió de l'historial.
+     *
+     * @param versio Número de versió.
+     * @return Instantània o null si la versió no existeix o ja s'ha descartat de l'historial.
+     */
+    public synchronized Instantania versio(long versio) {
+        Instantania darrera = instantania();
+        if (darrera.versio() == versio) {
+            return darrera;
+        }
+        for (Instantania anterior : historial) {
+            if (anterior.versio() == versio) {
+                return anterior;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Números de les versions disponibles, de la més antiga a l'actual.
+     */
+    public synchronized List<Long> versions() {
+        List<Long> versions = new ArrayList<>(historial.size() + 1);
+        historial.forEach(instantania -> versions.add(instantania.versio()));
+        versions.add(instantania().versio());
+        return versions;
+    }
+
+    /**
+     * Afegeix o substitueix un curs.
+     *
+     * @param curs Curs a guardar.
+     * @return Número de la versió nova.
+     */
+    public long guardar(Curs curs) {
+        return publicar(instantania -> instantania.guardar(instantania.versio() + 1, curs));
+    }
+
+    /**
+     * Incorpora l'estat actual d'uns cursos just abans de modificar-los: els que el magatzem encara no té
+     * o que han canviat des de l'última versió es guarden en una versió nova. Així el magatzem pot començar
+     * buit i seguir només els cursos que es modifiquen, sense tenir tot el fitxer en memòria.
+     *
+     * @param cursos Cursos tal com són ara.
+     * @return Número de la versió actual, amb els cursos ja incorporats.
+     */
+    public long incorporar(Iterable<Curs> cursos) {
+        return publicar(instantania -> {
+            Instantania resultat = instantania;
+            for (Curs curs : cursos) {
+                if (!curs.equals(resultat.curs(curs.id()))) {
+                    resultat = resultat.guardar(instantania.versio() + 1, curs);
+                }
+            }
+            return resultat;
+        });
+    }
+
+    /**
+     * Elimina un curs.
+     *
+     * @param id ID del curs.
+     * @return Número de la versió nova (o de l'actual si el curs no existia).
+     */
+    public long eliminar(String id) {
+        return publicar(instantania -> instantania.eliminar(instantania.versio() + 1, id));
+    }
+
+    /**
+     * Afegeix un alumne a la llista d'un curs en ordre alfabètic (vegeu {@link OrdreAlumnes}). Com al fitxer,
+     * una llista que no estava ordenada s'ordena primer.
+     *
+     * @param idCurs ID del curs.
+     * @param nomAlumne Nom complet de l'alumne.
+     * @return Número de la versió nova (o de l'actual si el curs no existeix).
+     */
+    public long afegirAlumne(String idCurs, String nomAlumne) {
+        return publicar(instantania -> {
+            Entrada entrada = instantania.perId.obtenir(idCurs);
+            if (entrada == null) {
+                return instantania;
+            }
+            Curs curs = entrada.curs();
+            List<String> alumnes = new ArrayList<>(curs.alumnes());
+            if (!entrada.ordenat()) {
+                alumnes.sort(OrdreAlumnes.COMPARADOR);
+            }
+            OrdreAlumnes.inserir(alumnes, nomAlumne);
+            return instantania.guardar(instantania.versio() + 1,
+                    new Curs(curs.id(), curs.tutor(), alumnes, curs.moduls()), true);
+        });
+    }
+
+    /**
+     * Elimina la primera aparició d'un alumne d'un curs. Com al fitxer, la llista queda ordenada.
+     *
+     * @param idCurs ID del curs.
+     * @param nomAlumne Nom complet de l'alumne.
+     * @return Número de la versió nova (o de l'actual si l'alumne no hi era).
+     */
+    public long eliminarAlumne(String idCurs, String nomAlumne) {
+        return publicar(instantania -> {
+            Entrada entrada = instantania.perId.obtenir(idCurs);
+            if (entrada == null) {
+                return instantania;
+            }
+            Curs curs = entrada.curs();
+            List<String> alumnes = new ArrayList<>(curs.alumnes());
+            if (!entrada.ordenat()) {
+                alumnes.sort(OrdreAlumnes.COMPARADOR);
+            }
+            if (!OrdreAlumnes.eliminar(alumnes, nomAlumne)) {
+                return instantania;
+            }
+            return instantania.guardar(instantania.versio() + 1,
+                    new Curs(curs.id(), curs.tutor(), alumnes, curs.moduls()), true);
+        });
+    }
+
+    @Override
+    public void alumneAfegit(String idCurs, String nomAlumne) {
+        afegirAlumne(idCurs, nomAlumne);
+    }
+
+    @Override
+    public void alumneEliminat(String idCurs, String nomAlumne) {
+        eliminarAlumne(idCurs, nomAlumne);
+    }
+
+    @Override
+    public void cursCanviat(String idCurs, Curs anterior, Curs actual) {
+        if (instantania().curs(idCurs) == null) {
+            // Un curs que el magatzem no segueix s'hi incorporarà abans de la seva primera modificació
+            return;
+        }
+        if (actual == null) {
+            eliminar(idCurs);
+        } else if (!actual.equals(instantania().curs(idCurs))) {
+            guardar(actual);
+        }
+    }
+
+    /**
+     * Torna al contingut d'una versió anterior. La restauració és una versió nova, de manera que
+     * també es pot desfer.
+     *
+     * @param versio Versió a restaurar.
+     * @return Número de la versió nova.
+     * @throws IllegalArgumentException Si la versió no és a l'historial.
+     */
+    public synchronized long restaurar(long versio) {
+        Instantania anterior = versio(versio);
+        if (anterior == null) {
+            throw new IllegalArgumentException("La versió " + versio + " no és a l'historial.");
+        }
+        return publicar(instantania -> anterior.ambVersio(instantania.versio() + 1));
+    }
+
+    /**
+     * Desfà l'última modificació restaurant la versió immediatament anterior a l'actual.
+     *
+     * @return Número de la versió nova, o -1 si no hi ha cap versió anterior.
+     */
+    public synchronized long desfer() {
+        if (historial.isEmpty()) {
+            return -1;
+        }
+        return restaurar(historial.peekLast().versio());
+    }
+
+    /**
+     * Compara dues versions. Només es visiten les parts que no comparteixen.
+     *
+     * @param de Versió d'origen.
+     * @param a Versió de destinació.
+     * @return Cursos afegits, modificats i eliminats per passar de la primera versió a la segona.
+     * @throws IllegalArgumentException Si alguna de les versions no és a l'historial.
+     */
+    public ModelCursos.ResultatRecarrega diferencies(long de, long a) {
+        Instantania origen = versio(de);
+        Instantania desti = versio(a);
+        if (origen == null || desti == null) {
+            throw new IllegalArgumentException("Les versions " + de + " i " + a + " han de ser a l'historial.");
+        }
+        Set<String> afegits = new LinkedHashSet<>();
+        Set<String> modificats = new LinkedHashSet<>();
+        Set<String> eliminats = new LinkedHashSet<>();
+        Map<String, Curs> anteriors = new HashMap<>();
+        Map<String, Curs> actuals = new HashMap<>();
+        desti.perId.diferencies(origen.perId, new ArbrePersistent.Diferencies<>() {
+            @Override
+            public void afegit(String id, Entrada entrada) {
+                afegits.add(id);
+                actuals.put(id, entrada.curs());
+            }
+
+            @Override
+            public void eliminat(String id, Entrada entrada) {
+                eliminats.add(id);
+                anteriors.put(id, entrada.curs());
+            }
+
+            @Override
+            public void modificat(String id, Entrada abans, Entrada despres) {
+                if (!abans.curs().equals(despres.curs())) {
+                    modificats.add(id);
+                    anteriors.put(id, abans.curs());
+                    actuals.put(id, despres.curs());
+                }
+            }
+        });
+        return new ModelCursos.ResultatRecarrega(afegits, modificats, eliminats, anteriors, actuals);
+    }
+
+    /**
+     * Escriu la versió actual en un fitxer amb el format de cursos.xml.
+     *
+     * @param desti Fitxer de destinació.
+     */
+    public void exportar(Path desti) {
+        EscriptorCursos.escriureFitxer(desti, instantania().cursos());
+    }
+
+    /**
+     * Aplica una modificació i publica el resultat com a versió actual. Els escriptors s'executen
+     * d'un en un; els lectors mai no s'esperen.
+     */
+    private synchronized long publicar(UnaryOperator<Instantania> modificacio) {
+        Instantania anterior = instantania();
+        Instantania nova = modificacio.apply(anterior);
+        if (nova == anterior) {
+            return anterior.versio();
+        }
+        historial.addLast(anterior);
+        while (historial.size() > maxVersions) {
+            historial.removeFirst();
+        }
+        actual.set(nova);
+        return nova.versio();
+    }
+}
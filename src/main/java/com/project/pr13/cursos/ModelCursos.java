@@ -0,0 +1,298 @@
+package com.project.pr13.cursos;
+
+import com.project.pr13.model.Curs;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Model en memòria del fitxer cursos.xml.
+ *
+ * El model guarda l'empremta de cada curs. Quan el fitxer canvia, {@link #recarregar()} fa una passada
+ * lleugera calculant les empremtes i només torna a construir els cursos que han canviat; amb
+ * {@link #recarregar(Document)}, a més, només se substitueixen aquests cursos al document DOM carregat.
+ * Com a observador, també aplica les altes i baixes que l'aplicació fa al fitxer, sense tornar-lo a llegir.
+ */
+public class ModelCursos implements ObservadorCursos {
+
+    /**
+     * Resultat d'una recàrrega incremental.
+     *
+     * @param afegits IDs dels cursos nous.
+     * @param modificats IDs dels cursos que han canviat.
+     * @param eliminats IDs dels cursos que ja no hi són.
+     * @param anteriors Cursos modificats i eliminats tal com eren abans de la recàrrega.
+     * @param actuals Cursos afegits i modificats tal com són ara.
+     */
+    public record ResultatRecarrega(Set<String> afegits, Set<String> modificats, Set<String> eliminats,
+                                    Map<String, Curs> anteriors, Map<String, Curs> actuals) {
+
+        /**
+         * @return True si la recàrrega no ha trobat cap canvi.
+         */
+        public boolean senseCanvis() {
+            return afegits.isEmpty() && modificats.isEmpty() && eliminats.isEmpty();
+        }
+
+        /**
+         * Envia a un observador el canvi de cada curs afegit, modificat o eliminat.
+         *
+         * @param observador Observador que rep els canvis.
+         */
+        public void notificar(ObservadorCursos observador) {
+            for (String id : eliminats) {
+                observador.cursCanviat(id, anteriors.get(id), null);
+            }
+            for (String id : modificats) {
+                observador.cursCanviat(id, anteriors.get(id), actuals.get(id));
+            }
+            for (String id : afegits) {
+                observador.cursCanviat(id, null, actuals.get(id));
+            }
+        }
+    }
+
+    private final Path fitxer;
+    private Map<String, Curs> cursos = new LinkedHashMap<>();
+    private Map<String, Long> empremtes = new HashMap<>();
+    // Cursos modificats per l'aplicació: la seva empremta ja no correspon al contingut del model
+    private final Set<String> desfasats = new HashSet<>();
+
+    /**
+     * Crea el model i el carrega des del fitxer.
+     *
+     * @param fitxer Ruta del fitxer cursos.xml.
+     */
+    public ModelCursos(Path fitxer) {
+        this.fitxer = fitxer;
+        sincronitzar(null);
+    }
+
+    /**
+     * Sincronitza el model amb el contingut actual del fitxer reconstruint només els cursos canviats.
+     *
+     * @return Cursos afegits, modificats i eliminats respecte de la càrrega anterior.
+     */
+    public synchronized ResultatRecarrega recarregar() {
+        return sincronitzar(null);
+    }
+
+    /**
+     * Sincronitza el model amb el fitxer i posa al dia un document DOM carregat del mateix fitxer abans del
+     * canvi: els cursos afegits o modificats es llegeixen directament com a elements del document i hi
+     * substitueixen els anteriors, i els eliminats se'n treuen. La resta del document no es torna a llegir.
+     *
+     * @param document Document del fitxer tal com era a l'última sincronització (o amb les modificacions
+     *                 que l'aplicació hi ha fet i ha notificat al model).
+     * @return Cursos afegits, modificats i eliminats respecte de la càrrega anterior.
+     * @throws IllegalStateException Si el document no es pot posar al dia (p. ex. han canviat d'ordre cursos
+     *                               que no s'han modificat); el document queda en un estat indeterminat.
+     */
+    public synchronized ResultatRecarrega recarregar(Document document) {
+        return sincronitzar(document);
+    }
+
+    private ResultatRecarrega sincronitzar(Document document) {
+        Map<String, Long> noves = EscanerCursos.calcularEmpremtes(fitxer);
+
+        Set<String> afegits = new TreeSet<>();
+        Set<String> modificats = new TreeSet<>();
+        Set<String> eliminats = new TreeSet<>(empremtes.keySet());
+        eliminats.removeAll(noves.keySet());
+        noves.forEach((id, empremta) -> {
+            Long anterior = empremtes.get(id);
+            if (anterior == null) {
+                afegits.add(id);
+            } else if (!anterior.equals(empremta) || desfasats.contains(id)) {
+                modificats.add(id);
+            }
+        });
+        desfasats.clear();
+
+        Map<String, Curs> anteriors = new HashMap<>();
+        for (String id : eliminats) {
+            anteriors.put(id, cursos.get(id));
+        }
+        for (String id : modificats) {
+            anteriors.put(id, cursos.get(id));
+        }
+        if (afegits.isEmpty() && modificats.isEmpty() && eliminats.isEmpty() && noves.keySet().equals(cursos.keySet())) {
+            return new ResultatRecarrega(afegits, modificats, eliminats, anteriors, Map.of());
+        }
+
+        // Només es materialitzen els cursos nous o modificats
+        Set<String> perLlegir = new HashSet<>(afegits);
+        perLlegir.addAll(modificats);
+        Map<String, Element> elements = Map.of();
+        Map<String, Curs> llegits;
+        if (perLlegir.isEmpty()) {
+            llegits = Map.of();
+        } else if (document == null) {
+            llegits = EscanerCursos.llegirCursos(fitxer, perLlegir::contains);
+        } else {
+            elements = EscanerCursos.llegirElements(fitxer, perLlegir::contains, document);
+            llegits = new HashMap<>();
+            elements.forEach((id, element) -> llegits.put(id, EscanerCursos.llegirCurs(element)));
+        }
+
+        // Es conserva l'ordre del document; els cursos sense canvis reaprofiten l'objecte existent.
+        // Si el fitxer ha tornat a canviar entre les dues passades, el curs que falti no es registra
+        // i la propera recàrrega el tornarà a detectar.
+        Map<String, Curs> nousCursos = new LinkedHashMap<>();
+        Map<String, Long> novesEmpremtes = new HashMap<>();
+        for (Map.Entry<String, Long> entrada : noves.entrySet()) {
+            String id = entrada.getKey();
+            Curs curs = perLlegir.contains(id) ? llegits.get(id) : cursos.get(id);
+            if (curs != null) {
+                nousCursos.put(id, curs);
+                novesEmpremtes.put(id, entrada.getValue());
+            }
+        }
+        cursos = nousCursos;
+        empremtes = novesEmpremtes;
+        if (document != null) {
+            actualitzarDocument(document, elements);
+        }
+
+        // Un curs modificat que no s'ha pogut tornar a llegir queda fora del model com si s'hagués eliminat
+        Map<String, Curs> actuals = new HashMap<>();
+        for (String id : perLlegir) {
+            Curs curs = nousCursos.get(id);
+            if (curs != null) {
+                actuals.put(id, curs);
+            }
+        }
+        return new ResultatRecarrega(afegits, modificats, eliminats, anteriors, actuals);
+    }
+
+    /**
+     * Retorna un curs pel seu ID.
+     *
+     * @param id ID del curs.
+     * @return Curs o null si no existeix.
+     */
+    public synchronized Curs curs(String id) {
+        return cursos.get(id);
+    }
+
+    /**
+     * @return Tots els cursos en l'ordre del document.
+     */
+    public synchronized List<Curs> cursos() {
+        return new ArrayList<>(cursos.values());
+    }
+
+    @Override
+    public synchronized void alumneAfegit(String idCurs, String nomAlumne) {
+        Curs curs = cursos.get(idCurs);
+        if (curs != null) {
+            List<String> alumnes = new ArrayList<>(curs.alumnes());
+            alumnes.add(nomAlumne);
+            cursos.put(idCurs, new Curs(idCurs, curs.tutor(), alumnes, curs.moduls()));
+            desfasats.add(idCurs);
+        }
+    }
+
+    @Override
+    public synchronized void alumneEliminat(String idCurs, String nomAlumne) {
+        Curs curs = cursos.get(idCurs);
+        if (curs != null) {
+            List<String> alumnes = new ArrayList<>(curs.alumnes());
+            alumnes.remove(nomAlumne);
+            cursos.put(idCurs, new Curs(idCurs, curs.tutor(), alumnes, curs.moduls()));
+            desfasats.add(idCurs);
+        }
+    }
+
+    @Override
+    public void cursCanviat(String idCurs, Curs anterior, Curs actual) {
+        // Els canvis de curs surten de les recàrregues del mateix model
+    }
+
+    /**
+     * Deixa al document els elements {@code <curs>} dels cursos del model, en el seu ordre: se substitueixen
+     * els que s'han tornat a llegir, s'afegeixen els nous i es treuen els que ja no hi són.
+     */
+    private void actualitzarDocument(Document document, Map<String, Element> llegits) {
+        Element arrel = document.getDocumentElement();
+        Map<String, Element> existents = new HashMap<>();
+        Node sagnat = null;
+        for (Node fill = arrel.getFirstChild(); fill != null; fill = fill.getNextSibling()) {
+            if (fill.getNodeType() == Node.ELEMENT_NODE && fill.getNodeName().equals("curs")) {
+                existents.putIfAbsent(((Element) fill).getAttribute("id"), (Element) fill);
+                if (sagnat == null && esSagnat(fill.getPreviousSibling())) {
+                    sagnat = fill.getPreviousSibling();
+                }
+            }
+        }
+        // Cursos que ja no són al model (eliminats, o modificats que no s'han pogut tornar a llegir)
+        for (Map.Entry<String, Element> existent : existents.entrySet()) {
+            if (!cursos.containsKey(existent.getKey())) {
+                treure(arrel, existent.getValue());
+            }
+        }
+        Element anterior = null;
+        for (String id : cursos.keySet()) {
+            Element element = existents.get(id);
+            Element nou = llegits.get(id);
+            if (nou != null && element != null) {
+                arrel.replaceChild(nou, element);
+                element = nou;
+            } else if (nou != null) {
+                // Curs afegit: va just després de l'anterior del document, amb el mateix sagnat
+                Node referencia = anterior != null ? anterior.getNextSibling() : primerCurs(arrel);
+                if (sagnat != null) {
+                    arrel.insertBefore(sagnat.cloneNode(false), referencia);
+                }
+                arrel.insertBefore(nou, referencia);
+                element = nou;
+            } else if (element == null) {
+                throw new IllegalStateException("El curs " + id + " no és al document.");
+            }
+            if (anterior != null && seguentCurs(anterior) != element) {
+                throw new IllegalStateException("L'ordre dels cursos del document no coincideix amb el del fitxer.");
+            }
+            anterior = element;
+        }
+    }
+
+    private static Node primerCurs(Element arrel) {
+        for (Node fill = arrel.getFirstChild(); fill != null; fill = fill.getNextSibling()) {
+            if (fill.getNodeType() == Node.ELEMENT_NODE && fill.getNodeName().equals("curs")) {
+                return esSagnat(fill.getPreviousSibling()) ? fill.getPreviousSibling() : fill;
+            }
+        }
+        return null;
+    }
+
+    private static Node seguentCurs(Node curs) {
+        for (Node fill = curs.getNextSibling(); fill != null; fill = fill.getNextSibling()) {
+            if (fill.getNodeType() == Node.ELEMENT_NODE && fill.getNodeName().equals("curs")) {
+                return fill;
+            }
+        }
+        return null;
+    }
+
+    // Treu un element i el seu sagnat, perquè no quedin línies buides
+    private static void treure(Element arrel, Element element) {
+        if (esSagnat(element.getPreviousSibling())) {
+            arrel.removeChild(element.getPreviousSibling());
+        }
+        arrel.removeChild(element);
+    }
+
+    private static boolean esSagnat(Node node) {
+        return node != null && node.getNodeType() == Node.TEXT_NODE && node.getNodeValue().isBlank();
+    }
+}
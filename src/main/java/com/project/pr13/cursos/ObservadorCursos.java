@@ -0,0 +1,59 @@
+package com.project.pr13.cursos;
+
+import com.project.pr13.model.Curs;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Receptor de les modificacions fetes sobre els alumnes dels cursos.
+ *
+ * Els mètodes es criden just després que la modificació s'hagi aplicat al document. Les modificacions
+ * fetes fora de l'aplicació (p. ex. editant el fitxer) arriben curs a curs a {@link #cursCanviat}.
+ */
+public interface ObservadorCursos {
+
+    /**
+     * S'ha afegit un alumne a un curs.
+     *
+     * @param idCurs ID del curs.
+     * @param nomAlumne Nom complet de l'alumne.
+     */
+    void alumneAfegit(String idCurs, String nomAlumne);
+
+    /**
+     * S'ha eliminat un alumne d'un curs.
+     *
+     * @param idCurs ID del curs.
+     * @param nomAlumne Nom complet de l'alumne.
+     */
+    void alumneEliminat(String idCurs, String nomAlumne);
+
+    /**
+     * Un curs ha canviat fora de l'aplicació i s'ha tornat a llegir del fitxer (vegeu
+     * {@link ModelCursos#recarregar()}). Per defecte es tradueix en les altes i baixes d'alumnes
+     * que hi ha hagut; els observadors que depenen de la resta del curs l'han de sobreescriure.
+     *
+     * @param idCurs ID del curs.
+     * @param anterior Curs abans del canvi, o null si és nou.
+     * @param actual Curs després del canvi, o null si s'ha eliminat.
+     */
+    default void cursCanviat(String idCurs, Curs anterior, Curs actual) {
+        Set<String> abans = anterior == null ? Set.of() : new HashSet<>(anterior.alumnes());
+        Set<String> despres = actual == null ? Set.of() : new HashSet<>(actual.alumnes());
+        if (anterior != null) {
+            for (String alumne : anterior.alumnes()) {
+                if (!despres.contains(alumne)) {
+                    alumneEliminat(idCurs, alumne);
+                }
+            }
+        }
+        if (actual != null) {
+            for (String alumne : actual.alumnes()) {
+                if (!abans.contains(alumne)) {
+                    alumneAfegit(idCurs, alumne);
+                }
+            }
+        }
+    }
+}
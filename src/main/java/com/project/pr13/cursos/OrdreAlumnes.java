@@ -0,0 +1,185 @@
+package com.project.pr13.cursos;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Ordre alfabètic de les llistes d'alumnes i operacions de cerca binària sobre llistes ja ordenades.
+ *
+ * L'ordre segueix les regles de col·lació del català (accents, majúscules i signes com "DE LA CRUZ" es
+ * comparen com a un diccionari, no per codi de caràcter). Dos noms que el Collator considera iguals
+ * es desempaten per codi de caràcter, de manera que l'ordre és total i estable. Les consultes per rang
+ * ignoren majúscules i accents: el rang "d"–"f" inclou tots els noms que comencen per D, E o F.
+ */
+public final class OrdreAlumnes {
+
+    private static final Locale CATALA = Locale.forLanguageTag("ca");
+
+    // Les implementacions del JDK de Collator.compare són segures entre fils
+    private static final Collator COLLATOR = Collator.getInstance(CATALA);
+    private static final Collator COLLATOR_RANG = crearCollatorRang();
+
+    /**
+     * Ordre dels alumnes dins de cada curs.
+     */
+    public static final Comparator<String> COMPARADOR = (a, b) -> {
+        int resultat = COLLATOR.compare(a, b);
+        return resultat != 0 ? resultat : a.compareTo(b);
+    };
+
+    private OrdreAlumnes() {
+    }
+
+    private static Collator crearCollatorRang() {
+        Collator collator = Collator.getInstance(CATALA);
+        collator.setStrength(Collator.PRIMARY);
+        return collator;
+    }
+
+    /**
+     * @param alumnes Llista de noms.
+     * @return True si la llista ja segueix l'ordre de {@link #COMPARADOR}.
+     */
+    public static boolean esOrdenada(List<String> alumnes) {
+        for (int i = 1; i < alumnes.size(); i++) {
+            if (COMPARADOR.compare(alumnes.get(i - 1), alumnes.get(i)) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retorna la posició on s'ha d'inserir un nom per mantenir l'ordre (després dels noms iguals).
+     *
+     * @param ordenada Llista ordenada.
+     * @param nom Nom a inserir.
+     * @return Posició d'inserció.
+     */
+    public static int posicioInsercio(List<String> ordenada, String nom) {
+        int baix = 0;
+        int dalt = ordenada.size();
+        while (baix < dalt) {
+            int mig = (baix + dalt) >>> 1;
+            if (COMPARADOR.compare(ordenada.get(mig), nom) <= 0) {
+                baix = mig + 1;
+            } else {
+                dalt = mig;
+            }
+        }
+        return baix;
+    }
+
+    /**
+     * Cerca un nom en una llista ordenada.
+     *
+     * @param ordenada Llista ordenada.
+     * @param nom Nom a cercar.
+     * @return Posició de la primera aparició, o -1 si no hi és.
+     */
+    public static int posicio(List<String> ordenada, String nom) {
+        int baix = 0;
+        int dalt = ordenada.size();
+        while (baix < dalt) {
+            int mig = (baix + dalt) >>> 1;
+            if (COMPARADOR.compare(ordenada.get(mig), nom) < 0) {
+                baix = mig + 1;
+            } else {
+                dalt = mig;
+            }
+        }
+        return baix < ordenada.size() && ordenada.get(baix).equals(nom) ? baix : -1;
+    }
+
+    /**
+     * Insereix un nom en una llista ordenada mantenint-ne l'ordre.
+     *
+     * @param ordenada Llista ordenada i modificable.
+     * @param nom Nom a inserir.
+     */
+    public static void inserir(List<String> ordenada, String nom) {
+        ordenada.add(posicioInsercio(ordenada, nom), nom);
+    }
+
+    /**
+     * Elimina la primera aparició d'un nom d'una llista ordenada.
+     *
+     * @param ordenada Llista ordenada i modificable.
+     * @param nom Nom a eliminar.
+     * @return True si el nom hi era.
+     */
+    public static boolean eliminar(List<String> ordenada, String nom) {
+        int posicio = posicio(ordenada, nom);
+        if (posicio < 0) {
+            return false;
+        }
+        ordenada.remove(posicio);
+        return true;
+    }
+
+    /**
+     * Ordena una llista que encara no segueix l'ordre de {@link #COMPARADOR} (p. ex. un fitxer editat a mà).
+     * Si ja és ordenada, només es recorre una vegada.
+     *
+     * @param alumnes Llista modificable.
+     * @return True si s'ha hagut de reordenar.
+     */
+    public static boolean ordenar(List<String> alumnes) {
+        if (esOrdenada(alumnes)) {
+            return false;
+        }
+        alumnes.sort(COMPARADOR);
+        return true;
+    }
+
+    /**
+     * Retorna els noms d'una llista ordenada compresos en un rang alfabètic. Els dos extrems s'inclouen
+     * i el final es compara com a prefix: el rang "D"–"F" inclou "FERRANDIZ, Carlos".
+     *
+     * @param ordenada Llista ordenada.
+     * @param desde Inici del rang.
+     * @param fins Final del rang (prefix).
+     * @return Noms del rang, en ordre.
+     */
+    public static List<String> rang(List<String> ordenada, String desde, String fins) {
+        int baix = 0;
+        int dalt = ordenada.size();
+        while (baix < dalt) {
+            int mig = (baix + dalt) >>> 1;
+            if (abansDelRang(ordenada.get(mig), desde)) {
+                baix = mig + 1;
+            } else {
+                dalt = mig;
+            }
+        }
+        int inici = baix;
+        dalt = ordenada.size();
+        while (baix < dalt) {
+            int mig = (baix + dalt) >>> 1;
+            if (!despresDelRang(ordenada.get(mig), fins)) {
+                baix = mig + 1;
+            } else {
+                dalt = mig;
+            }
+        }
+        return new ArrayList<>(ordenada.subList(inici, baix));
+    }
+
+    /**
+     * @return True si el nom és anterior a l'inici del rang.
+     */
+    public static boolean abansDelRang(String nom, String desde) {
+        return COLLATOR_RANG.compare(nom, desde) < 0;
+    }
+
+    /**
+     * @return True si el nom és posterior al final del rang (comparat com a prefix).
+     */
+    public static boolean despresDelRang(String nom, String fins) {
+        String prefix = nom.length() > fins.length() ? nom.substring(0, fins.length()) : nom;
+        return COLLATOR_RANG.compare(prefix, fins) > 0;
+    }
+}
@@ -0,0 +1,62 @@
+package com.project.pr13.cursos;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Pàgina d'una consulta paginada.
+ *
+ * El cursor és opac per a qui el rep: només s'ha de tornar a passar per obtenir la pàgina següent.
+ * Internament guarda la posició i la clau de l'últim element retornat (vegeu {@link Paginador}).
+ *
+ * @param elements Elements de la pàgina, en l'ordre de la consulta.
+ * @param seguentCursor Cursor per demanar la pàgina següent, o null si aquesta és l'última.
+ * @param <T> Tipus dels elements.
+ */
+public record Pagina<T>(List<T> elements, String seguentCursor) {
+
+    public Pagina {
+        elements = List.copyOf(elements);
+    }
+
+    /**
+     * @return True si hi ha més elements després d'aquesta pàgina.
+     */
+    public boolean teMes() {
+        return seguentCursor != null;
+    }
+
+    /**
+     * Posició desxifrada d'un cursor.
+     *
+     * @param posicio Nombre d'elements anteriors a la pàgina.
+     * @param darreraClau Clau de l'últim element de la pàgina anterior (null a la primera pàgina).
+     */
+    record Cursor(int posicio, String darreraClau) {
+
+        static final Cursor INICI = new Cursor(0, null);
+
+        String codificar() {
+            String contingut = posicio + ":" + darreraClau;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(contingut.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor llegir(String cursor) {
+            if (cursor == null || cursor.isEmpty()) {
+                return INICI;
+            }
+            try {
+                String contingut = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separador = contingut.indexOf(':');
+                int posicio = Integer.parseInt(contingut.substring(0, separador));
+                if (posicio < 1) {
+                    throw new IllegalArgumentException("Cursor de paginació no vàlid: " + cursor);
+                }
+                return new Cursor(posicio, contingut.substring(separador + 1));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Cursor de paginació no vàlid: " + cursor, e);
+            }
+        }
+    }
+}
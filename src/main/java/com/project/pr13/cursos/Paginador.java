@@ -0,0 +1,109 @@
+package com.project.pr13.cursos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Construeix una {@link Pagina} a partir dels elements d'una consulta rebuts un a un, en un ordre estable.
+ *
+ * Només es retenen els elements de la pàgina (més un, per saber si n'hi ha més), sigui quina sigui la mida
+ * de la consulta. El cursor guarda la posició i la clau de l'últim element retornat; la pàgina següent
+ * comença just després de l'aparició d'aquesta clau més propera a la posició (la darrera fins a la posició o,
+ * si no n'hi ha, la primera després). Així, les altes i baixes entre pàgina i pàgina no fan repetir ni saltar
+ * elements. Si l'element ja no existeix, es continua des de la posició que ocupava.
+ *
+ * @param <T> Tipus dels elements.
+ */
+public final class Paginador<T> {
+
+    private final Pagina.Cursor cursor;
+    private final int limit;
+    private final Function<T, String> clau;
+    // Com a màxim limit + 1 elements
+    private final List<T> recollits = new ArrayList<>();
+    private int index;
+    private int iniciRecollits;
+    private boolean clauTrobada;
+    private boolean definitiu;
+
+    /**
+     * @param cursor Cursor rebut de la pàgina anterior, o null per a la primera pàgina.
+     * @param limit Nombre màxim d'elements de la pàgina.
+     * @param clau Funció que dona la clau d'un element (p. ex. l'ID del curs o el nom de l'alumne).
+     * @throws IllegalArgumentException Si el límit no és positiu o el cursor no és vàlid.
+     */
+    public Paginador(String cursor, int limit, Function<T, String> clau) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("El límit de la pàgina ha de ser positiu: " + limit);
+        }
+        this.cursor = Pagina.Cursor.llegir(cursor);
+        this.limit = limit;
+        this.clau = clau;
+        this.definitiu = this.cursor == Pagina.Cursor.INICI;
+    }
+
+    /**
+     * @return True si la pàgina ja és completa i no cal llegir més elements.
+     */
+    public boolean complet() {
+        return definitiu && recollits.size() > limit;
+    }
+
+    /**
+     * Rep el següent element de la consulta.
+     *
+     * @param element Element.
+     */
+    public void afegir(T element) {
+        int i = index++;
+        if (complet()) {
+            return;
+        }
+        if (definitiu) {
+            recollir(element, i);
+            return;
+        }
+        int anterior = cursor.posicio() - 1;
+        boolean esClau = cursor.darreraClau().equals(clau.apply(element));
+        if (esClau && (i <= anterior || !clauTrobada)) {
+            // Es comença (o es torna a començar) just després d'aquesta aparició
+            recollits.clear();
+            clauTrobada = true;
+            definitiu = i >= anterior;
+            return;
+        }
+        if (i == anterior && !clauTrobada) {
+            // L'element ja no hi és: es continua provisionalment des de la seva posició
+            recollits.clear();
+        }
+        if (clauTrobada || i >= anterior) {
+            recollir(element, i);
+        }
+        if (i == anterior && clauTrobada) {
+            definitiu = true;
+        }
+    }
+
+    private void recollir(T element, int i) {
+        if (recollits.size() > limit) {
+            return;
+        }
+        if (recollits.isEmpty()) {
+            iniciRecollits = i;
+        }
+        recollits.add(element);
+    }
+
+    /**
+     * @return Pàgina amb els elements rebuts.
+     */
+    public Pagina<T> pagina() {
+        if (recollits.size() <= limit) {
+            return new Pagina<>(recollits, null);
+        }
+        List<T> elements = recollits.subList(0, limit);
+        String seguent = new Pagina.Cursor(iniciRecollits + limit, clau.apply(elements.get(limit - 1))).codificar();
+        return new Pagina<>(elements, seguent);
+    }
+}
@@ -0,0 +1,138 @@
+package com.project.pr13.cursos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Grup d'altes, baixes i trasllats d'alumnes entre cursos que s'han d'aplicar tots o cap.
+ *
+ * Les operacions s'enregistren en ordre i no toquen cap document fins que es confirmen amb
+ * {@link com.project.pr13.PR132Main#confirmar(TransaccioCursos)}. Abans d'aplicar-ne cap, totes es
+ * validen sobre una còpia de les llistes ordenades dels cursos afectats (cerca binària, vegeu
+ * {@link OrdreAlumnes}): si n'hi ha una que no és vàlida, la transacció es rebutja sencera.
+ */
+public class TransaccioCursos {
+
+    /**
+     * Tipus d'operació elemental.
+     */
+    public enum Tipus {
+        AFEGIR,
+        ELIMINAR
+    }
+
+    /**
+     * Operació elemental sobre la llista d'alumnes d'un curs. Un trasllat són dues operacions.
+     *
+     * @param tipus Tipus d'operació.
+     * @param idCurs ID del curs.
+     * @param nomAlumne Nom complet de l'alumne.
+     */
+    public record Operacio(Tipus tipus, String idCurs, String nomAlumne) {
+    }
+
+    private final List<Operacio> operacions = new ArrayList<>();
+
+    /**
+     * Afegeix un alumne a un curs. L'alumne no hi pot ser ja.
+     *
+     * @param idCurs ID del curs.
+     * @param nomAlumne Nom de l'alumne.
+     * @return Aquesta transacció.
+     */
+    public TransaccioCursos afegir(String idCurs, String nomAlumne) {
+        operacions.add(new Operacio(Tipus.AFEGIR, idCurs, nomAlumne));
+        return this;
+    }
+
+    /**
+     * Elimina un alumne d'un curs. L'alumne hi ha de ser.
+     *
+     * @param idCurs ID del curs.
+     * @param nomAlumne Nom de l'alumne.
+     * @return Aquesta transacció.
+     */
+    public TransaccioCursos eliminar(String idCurs, String nomAlumne) {
+        operacions.add(new Operacio(Tipus.ELIMINAR, idCurs, nomAlumne));
+        return this;
+    }
+
+    /**
+     * Trasllada un alumne d'un curs a un altre.
+     *
+     * @param nomAlumne Nom de l'alumne.
+     * @param idOrigen ID del curs on és l'alumne.
+     * @param idDesti ID del curs on ha d'anar.
+     * @return Aquesta transacció.
+     */
+    public TransaccioCursos moure(String nomAlumne, String idOrigen, String idDesti) {
+        return eliminar(idOrigen, nomAlumne).afegir(idDesti, nomAlumne);
+    }
+
+    /**
+     * @return Operacions elementals, en l'ordre en què s'aplicaran.
+     */
+    public List<Operacio> operacions() {
+        return List.copyOf(operacions);
+    }
+
+    /**
+     * @return True si no s'ha enregistrat cap operació.
+     */
+    public boolean esBuida() {
+        return operacions.isEmpty();
+    }
+
+    /**
+     * @return IDs dels cursos afectats, en ordre d'aparició.
+     */
+    public Set<String> cursosAfectats() {
+        Set<String> cursos = new LinkedHashSet<>();
+        for (Operacio operacio : operacions) {
+            cursos.add(operacio.idCurs());
+        }
+        return cursos;
+    }
+
+    /**
+     * Comprova que totes les operacions es poden aplicar en ordre sobre l'estat actual dels cursos.
+     *
+     * @param alumnesDelCurs Dona la llista ordenada d'alumnes d'un curs, o null si el curs no existeix.
+     *                       Només es consulta una vegada per curs i la llista no es modifica.
+     * @return Llistes ordenades resultants de cada curs afectat.
+     * @throws IllegalArgumentException Amb el motiu de la primera operació que no és vàlida.
+     */
+    public Map<String, List<String>> validar(Function<String, List<String>> alumnesDelCurs) {
+        Map<String, List<String>> estat = new HashMap<>();
+        for (int i = 0; i < operacions.size(); i++) {
+            Operacio operacio = operacions.get(i);
+            List<String> alumnes = estat.get(operacio.idCurs());
+            if (alumnes == null && !estat.containsKey(operacio.idCurs())) {
+                List<String> actuals = alumnesDelCurs.apply(operacio.idCurs());
+                alumnes = actuals == null ? null : new ArrayList<>(actuals);
+                estat.put(operacio.idCurs(), alumnes);
+            }
+            if (alumnes == null) {
+                throw rebutjar(i, "el curs " + operacio.idCurs() + " no existeix");
+            }
+            if (operacio.tipus() == Tipus.AFEGIR) {
+                if (OrdreAlumnes.posicio(alumnes, operacio.nomAlumne()) >= 0) {
+                    throw rebutjar(i, operacio.nomAlumne() + " ja és al curs " + operacio.idCurs());
+                }
+                OrdreAlumnes.inserir(alumnes, operacio.nomAlumne());
+            } else if (!OrdreAlumnes.eliminar(alumnes, operacio.nomAlumne())) {
+                throw rebutjar(i, operacio.nomAlumne() + " no és al curs " + operacio.idCurs());
+            }
+        }
+        return estat;
+    }
+
+    private static IllegalArgumentException rebutjar(int operacio, String motiu) {
+        return new IllegalArgumentException("Transacció rebutjada a l'operació " + (operacio + 1) + ": " + motiu);
+    }
+}
@@ -0,0 +1,194 @@
+package com.project.pr13.dades;
+
+import com.project.pr13.metriques.Metriques;
+import com.project.pr13.xml.FactoriesXML;
+import com.project.utilitats.UtilsFitxers;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Memòria cau de documents XML carregats, indexada per ruta de fitxer.
+ *
+ * Cada entrada guarda la data de modificació i la mida del fitxer en el moment de carregar-lo, de manera
+ * que una recàrrega només torna a parsejar el fitxer si realment ha canviat. Si el fitxer té un
+ * {@link Actualitzador} registrat, primer s'intenta posar al dia el document carregat sense parsejar-lo
+ * sencer. Els subscriptors reben la ruta de cada fitxer que s'ha recarregat o eliminat.
+ */
+public class CacheDocuments {
+
+    /**
+     * Posa al dia un document de la memòria cau amb els canvis del seu fitxer sense tornar-lo a parsejar sencer.
+     */
+    @FunctionalInterface
+    public interface Actualitzador {
+        /**
+         * @param document Document carregat abans del canvi; es pot modificar.
+         * @return True si el document ja correspon al contingut actual del fitxer; false si s'ha de tornar a carregar.
+         */
+        boolean actualitzar(Document document);
+    }
+
+    private record Entrada(Document document, FileTime modificacio, long mida) {
+    }
+
+    private final Map<Path, Entrada> documents = new ConcurrentHashMap<>();
+    private final Map<Path, Actualitzador> actualitzadors = new ConcurrentHashMap<>();
+    private final List<Consumer<Path>> subscriptors = new CopyOnWriteArrayList<>();
+
+    /**
+     * Retorna el document del fitxer indicat, carregant-lo si encara no és a la memòria cau.
+     *
+     * @param fitxer Ruta del fitxer XML.
+     * @return Document XML carregat.
+     */
+    public Document obtenir(Path fitxer) {
+        return documents.computeIfAbsent(normalitzar(fitxer), CacheDocuments::carregar).document();
+    }
+
+    /**
+     * Indica si el fitxer ja és a la memòria cau.
+     *
+     * @param fitxer Ruta del fitxer XML.
+     * @return True si el fitxer està carregat.
+     */
+    public boolean conte(Path fitxer) {
+        return documents.containsKey(normalitzar(fitxer));
+    }
+
+    /**
+     * Torna a carregar un fitxer que ja és a la memòria cau si ha canviat des de l'última càrrega,
+     * o l'elimina si el fitxer ja no existeix. Els fitxers que no són a la memòria cau s'ignoren.
+     * Si el fitxer té un actualitzador i aquest posa al dia el document, no es torna a parsejar.
+     *
+     * @param fitxer Ruta del fitxer XML.
+     * @return True si s'ha recarregat o eliminat l'entrada.
+     */
+    public boolean recarregar(Path fitxer) {
+        Path ruta = normalitzar(fitxer);
+        Entrada actual = documents.get(ruta);
+        if (actual == null) {
+            return false;
+        }
+        if (!Files.exists(ruta)) {
+            documents.remove(ruta, actual);
+            notificar(ruta);
+            return true;
+        }
+        BasicFileAttributes atributs = atributs(ruta);
+        if (atributs.lastModifiedTime().equals(actual.modificacio()) && atributs.size() == actual.mida()) {
+            return false;
+        }
+        Actualitzador actualitzador = actualitzadors.get(ruta);
+        if (actualitzador == null || !actualitzador.actualitzar(actual.document())) {
+            documents.put(ruta, carregar(ruta));
+        } else {
+            // Si mentrestant s'ha descartat l'entrada, el document actualitzat no s'hi torna a posar
+            documents.replace(ruta, actual, new Entrada(actual.document(), atributs.lastModifiedTime(), atributs.size()));
+        }
+        notificar(ruta);
+        return true;
+    }
+
+    /**
+     * Torna a comprovar tots els fitxers de la memòria cau que pertanyen a un directori.
+     *
+     * @param directori Directori de dades.
+     */
+    public void recarregarDirectori(Path directori) {
+        Path dir = normalitzar(directori);
+        documents.keySet().stream()
+                .filter(ruta -> dir.equals(ruta.getParent()))
+                .forEach(this::recarregar);
+    }
+
+    /**
+     * Descarta l'entrada d'un fitxer perquè es torni a carregar al següent accés.
+     *
+     * @param fitxer Ruta del fitxer XML.
+     */
+    public void invalidar(Path fitxer) {
+        documents.remove(normalitzar(fitxer));
+    }
+
+    /**
+     * Registra la funció que posarà al dia el document d'un fitxer quan canviï, en lloc de tornar-lo
+     * a parsejar sencer. Substitueix l'actualitzador anterior del mateix fitxer.
+     *
+     * @param fitxer Ruta del fitxer XML.
+     * @param actualitzador Funció d'actualització.
+     */
+    public void registrarActualitzador(Path fitxer, Actualitzador actualitzador) {
+        actualitzadors.put(normalitzar(fitxer), actualitzador);
+    }
+
+    /**
+     * Registra un subscriptor que rebrà la ruta de cada fitxer recarregat.
+     *
+     * @param subscriptor Funció a cridar després de cada recàrrega.
+     */
+    public void subscriure(Consumer<Path> subscriptor) {
+        subscriptors.add(subscriptor);
+    }
+
+    /**
+     * Dona de baixa un subscriptor.
+     *
+     * @param subscriptor Subscriptor registrat prèviament.
+     */
+    public void cancellarSubscripcio(Consumer<Path> subscriptor) {
+        subscriptors.remove(subscriptor);
+    }
+
+    private void notificar(Path ruta) {
+        for (Consumer<Path> subscriptor : subscriptors) {
+            try {
+                subscriptor.accept(ruta);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static Path normalitzar(Path fitxer) {
+        return fitxer.toAbsolutePath().normalize();
+    }
+
+    private static BasicFileAttributes atributs(Path ruta) {
+        try {
+            return Files.readAttributes(ruta, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Error en llegir els atributs de " + ruta, e);
+        }
+    }
+
+    private static Entrada carregar(Path ruta) {
+        // Els atributs es llegeixen abans de parsejar: si el fitxer canvia durant la lectura, la següent
+        // recàrrega el tornarà a detectar com a modificat
+        BasicFileAttributes atributs = atributs(ruta);
+        try {
+            return Metriques.temporitzador(Metriques.XML_PARSEIG).mesurar(() -> {
+                DocumentBuilder builder = FactoriesXML.nouDocumentBuilder();
+                Document doc;
+                try (InputStream entrada = UtilsFitxers.obrirEntrada(ruta)) {
+                    doc = builder.parse(entrada, ruta.toUri().toString());
+                }
+                Metriques.comptador(Metriques.BYTES_LLEGITS).afegir(atributs.size());
+                return new Entrada(doc, atributs.lastModifiedTime(), atributs.size());
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Error en carregar el document XML " + ruta, e);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.project.pr13.dades;
+
+import com.project.pr13.cursos.ObservadorCursos;
+import com.project.pr13.cursos.Pagina;
+import com.project.pr13.metriques.Metriques;
+import com.project.pr13.model.Curs;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Memòria cau acotada dels resultats de les consultes de cursos i de les seves taules ja formatades.
+ *
+ * Cada resultat es guarda amb la consulta, el curs i la versió de les dades de què depèn. Com a observador
+ * de les altes i baixes d'alumnes, una modificació d'un curs n'incrementa la versió: deixen de servir els
+ * resultats que depenen dels alumnes d'aquest curs i els que depenen dels alumnes de tots els cursos, però
+ * no els de la resta de cursos ni els que no depenen dels alumnes (p. ex. els mòduls). Un curs que canvia
+ * fora de l'aplicació invalida tots els resultats d'aquest curs. Els resultats d'una versió antiga ja no
+ * es poden trobar i surten de la memòria cau a mesura que en desplacen d'altres.
+ *
+ * La mida es limita pel pes estimat en bytes dels resultats i les taules; quan se supera, s'expulsen els
+ * resultats utilitzats fa més temps. Els encerts, les fallades i les expulsions es compten a {@link Metriques}.
+ * Els resultats es comparteixen entre crides i no s'han de modificar.
+ */
+public class CacheResultats implements ObservadorCursos {
+
+    /**
+     * Pes màxim per defecte (8 MB).
+     */
+    public static final long PES_MAXIM_PER_DEFECTE = 8L * 1024 * 1024;
+
+    /**
+     * Dades de què depèn el resultat d'una consulta.
+     */
+    public enum Dependencia {
+        // Només del fitxer: no canvia amb les altes i baixes d'alumnes, només si el curs canvia
+        // fora de l'aplicació (p. ex. els mòduls d'un curs)
+        FITXER,
+        // Dels alumnes del curs de la consulta
+        ALUMNES_DEL_CURS,
+        // Dels alumnes de tots els cursos (p. ex. el nombre d'alumnes de cada curs)
+        ALUMNES_DE_TOTS
+    }
+
+    private record Clau(String consulta, String idCurs, long epoca, long versio) {
+    }
+
+    private static final class Entrada {
+        private final Object valor;
+        private long pes;
+        private String taula;
+
+        private Entrada(Object valor, long pes) {
+            this.valor = valor;
+            this.pes = pes;
+        }
+    }
+
+    // Cost fix aproximat d'una entrada (clau, entrada i nodes dels mapes)
+    private static final long PES_ENTRADA = 160;
+
+    private final long pesMaxim;
+    // En ordre d'accés: el primer és el que fa més temps que no s'utilitza
+    private final LinkedHashMap<Clau, Entrada> entrades = new LinkedHashMap<>(16, 0.75f, true);
+    // Clau de cada resultat guardat, per trobar-ne la taula a partir del resultat
+    private final Map<Object, Clau> perResultat = new IdentityHashMap<>();
+    private final Map<String, Long> versionsCurs = new HashMap<>();
+    private final Map<String, Long> versionsFitxerCurs = new HashMap<>();
+    private long versioTots;
+    private long ultimaVersio;
+    // Canvia en invalidar-ho tot: els càlculs en curs d'abans no es guarden
+    private long epoca;
+    private long pesTotal;
+
+    public CacheResultats() {
+        this(PES_MAXIM_PER_DEFECTE);
+    }
+
+    /**
+     * @param pesMaxim Pes màxim estimat, en bytes, dels resultats guardats (0 la desactiva).
+     */
+    public CacheResultats(long pesMaxim) {
+        this.pesMaxim = Math.max(0, pesMaxim);
+    }
+
+    /**
+     * Retorna el resultat d'una consulta, calculant-lo i guardant-lo si no hi és per a la versió actual.
+     * El càlcul es fa fora del bloqueig; si les dades canvien mentre es calcula, el resultat es retorna
+     * però no es guarda.
+     *
+     * @param consulta Consulta amb tots els seus paràmetres excepte el curs (p. ex. "alumnes:20:cursor").
+     * @param idCurs ID del curs de la consulta, o null si no és d'un curs concret.
+     * @param dependencia Dades de què depèn el resultat.
+     * @param calcul Càlcul del resultat. Si llança una excepció, no es guarda res.
+     * @return Resultat de la consulta.
+     */
+    public <T> T obtenir(String consulta, String idCurs, Dependencia dependencia, Supplier<T> calcul) {
+        Clau clau;
+        synchronized (this) {
+            clau = new Clau(consulta, idCurs, epoca, versio(idCurs, dependencia));
+            Entrada entrada = entrades.get(clau);
+            if (entrada != null) {
+                Metriques.comptador(Metriques.CACHE_RESULTATS_ENCERTS).incrementar();
+                @SuppressWarnings("unchecked")
+                T valor = (T) entrada.valor;
+                return valor;
+            }
+        }
+        Metriques.comptador(Metriques.CACHE_RESULTATS_FALLADES).incrementar();
+        T valor = calcul.get();
+        synchronized (this) {
+            long pes = PES_ENTRADA + pes(consulta) + pes(valor);
+            if (clau.epoca() == epoca && clau.versio() == versio(idCurs, dependencia)
+                    && pes <= pesMaxim && !entrades.containsKey(clau)) {
+                entrades.put(clau, new Entrada(valor, pes));
+                registrar(valor, clau);
+                if (valor instanceof Pagina<?> pagina) {
+                    // La taula d'una pàgina es demana a partir dels seus elements
+                    registrar(pagina.elements(), clau);
+                }
+                pesTotal += pes;
+                expulsar();
+            }
+        }
+        return valor;
+    }
+
+    /**
+     * Retorna la taula formatada d'un resultat. Si el resultat (o la llista d'elements d'una pàgina) és
+     * a la memòria cau, la taula s'hi guarda amb ell i es reutilitza mentre el resultat sigui vàlid.
+     *
+     * @param resultat Resultat retornat per {@link #obtenir}.
+     * @param format Format del resultat com a taula.
+     * @return Taula formatada.
+     */
+    public String taula(Object resultat, Supplier<String> format) {
+        synchronized (this) {
+            Clau clau = perResultat.get(resultat);
+            Entrada entrada = clau == null ? null : entrades.get(clau);
+            if (entrada != null && entrada.taula != null) {
+                Metriques.comptador(Metriques.CACHE_RESULTATS_ENCERTS).incrementar();
+                return entrada.taula;
+            }
+            if (entrada == null) {
+                return format.get();
+            }
+        }
+        Metriques.comptador(Metriques.CACHE_RESULTATS_FALLADES).incrementar();
+        String taula = format.get();
+        synchronized (this) {
+            Clau clau = perResultat.get(resultat);
+            Entrada entrada = clau == null ? null : entrades.get(clau);
+            long pes = pes(taula);
+            if (entrada != null && entrada.taula == null && entrada.pes + pes <= pesMaxim) {
+                entrada.taula = taula;
+                entrada.pes += pes;
+                pesTotal += pes;
+                expulsar();
+            }
+        }
+        return taula;
+    }
+
+    /**
+     * Descarta tots els resultats, p. ex. quan el fitxer ha canviat fora de l'aplicació.
+     */
+    public synchronized void invalidarTot() {
+        epoca++;
+        entrades.clear();
+        perResultat.clear();
+        pesTotal = 0;
+    }
+
+    /**
+     * @return Nombre de resultats guardats.
+     */
+    public synchronized int mida() {
+        return entrades.size();
+    }
+
+    /**
+     * @return Pes estimat, en bytes, dels resultats i taules guardats.
+     */
+    public synchronized long pes() {
+        return pesTotal;
+    }
+
+    @Override
+    public synchronized void alumneAfegit(String idCurs, String nomAlumne) {
+        novaVersio(idCurs);
+    }
+
+    @Override
+    public synchronized void alumneEliminat(String idCurs, String nomAlumne) {
+        novaVersio(idCurs);
+    }
+
+    @Override
+    public synchronized void cursCanviat(String idCurs, Curs anterior, Curs actual) {
+        novaVersio(idCurs);
+        versionsFitxerCurs.put(idCurs, ultimaVersio);
+    }
+
+    // S'han de cridar amb el monitor adquirit
+
+    private void novaVersio(String idCurs) {
+        ultimaVersio++;
+        versionsCurs.put(idCurs, ultimaVersio);
+        versioTots = ultimaVersio;
+    }
+
+    private long versio(String idCurs, Dependencia dependencia) {
+        return switch (dependencia) {
+            case FITXER -> versionsFitxerCurs.getOrDefault(idCurs, 0L);
+            case ALUMNES_DEL_CURS -> versionsCurs.getOrDefault(idCurs, 0L);
+            case ALUMNES_DE_TOTS -> versioTots;
+        };
+    }
+
+    // Les col·leccions buides immutables poden ser una mateixa instància per a consultes diferents
+    // (p. ex. List.of()): no s'hi associa cap resultat perquè no se'n confongui la taula
+    private void registrar(Object resultat, Clau clau) {
+        if (!(resultat instanceof Collection<?> elements && elements.isEmpty())) {
+            perResultat.putIfAbsent(resultat, clau);
+        }
+    }
+
+    private void expulsar() {
+        Iterator<Map.Entry<Clau, Entrada>> iterador = entrades.entrySet().iterator();
+        while (pesTotal > pesMaxim && iterador.hasNext()) {
+            Map.Entry<Clau, Entrada> expulsada = iterador.next();
+            Entrada entrada = expulsada.getValue();
+            iterador.remove();
+            perResultat.remove(entrada.valor, expulsada.getKey());
+            if (entrada.valor instanceof Pagina<?> pagina) {
+                perResultat.remove(pagina.elements(), expulsada.getKey());
+            }
+            pesTotal -= entrada.pes;
+            Metriques.comptador(Metriques.CACHE_RESULTATS_EXPULSIONS).incrementar();
+        }
+    }
+
+    /**
+     * Estima la memòria ocupada per un resultat: textos, col·leccions i pàgines.
+     */
+    static long pes(Object valor) {
+        if (valor == null) {
+            return 0;
+        }
+        if (valor instanceof CharSequence text) {
+            return 40 + 2L * text.length();
+        }
+        if (valor instanceof Collection<?> elements) {
+            long pes = 24 + 8L * elements.size();
+            for (Object element : elements) {
+                pes += pes(element);
+            }
+            return pes;
+        }
+        if (valor instanceof Pagina<?> pagina) {
+            return 24 + pes(pagina.elements()) + pes(pagina.seguentCursor());
+        }
+        return 16;
+    }
+}
@@ -0,0 +1,110 @@
+package com.project.pr13.dades;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Observa el directori de dades amb un {@link WatchService} i manté actualitzada una {@link CacheDocuments}.
+ *
+ * Quan un fitxer canvia, només es recarrega aquell fitxer (i només si ja era a la memòria cau),
+ * i s'avisa els gestors registrats amb {@link #afegirGestor}.
+ * Si el sistema perd esdeveniments (OVERFLOW) es comproven tots els fitxers del directori.
+ */
+public class ObservadorDades implements AutoCloseable {
+
+    private final Path directori;
+    private final CacheDocuments cache;
+    private final WatchService watchService;
+    private final Thread fil;
+    private final List<Consumer<Path>> gestors = new CopyOnWriteArrayList<>();
+
+    /**
+     * Crea l'observador i comença a vigilar el directori en un fil dimoni.
+     *
+     * @param directori Directori de dades a observar.
+     * @param cache Memòria cau de documents a mantenir actualitzada.
+     * @throws IOException Si no es pot registrar el directori.
+     */
+    public ObservadorDades(Path directori, CacheDocuments cache) throws IOException {
+        this.directori = directori.toAbsolutePath().normalize();
+        this.cache = cache;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.directori.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        this.fil = new Thread(this::observar, "observador-" + this.directori.getFileName());
+        this.fil.setDaemon(true);
+        this.fil.start();
+    }
+
+    /**
+     * Afegeix un gestor que rebrà la ruta de cada fitxer creat, modificat o eliminat al directori,
+     * per als models que no es guarden a la memòria cau de documents.
+     *
+     * @param gestor Funció a cridar amb la ruta absoluta del fitxer canviat.
+     */
+    public void afegirGestor(Consumer<Path> gestor) {
+        gestors.add(gestor);
+    }
+
+    /**
+     * Bucle del fil observador: espera esdeveniments i recarrega els fitxers afectats.
+     */
+    private void observar() {
+        try {
+            while (true) {
+                WatchKey clau = watchService.take();
+                for (WatchEvent<?> esdeveniment : clau.pollEvents()) {
+                    if (esdeveniment.kind() == OVERFLOW) {
+                        recarregar(() -> cache.recarregarDirectori(directori));
+                    } else {
+                        Path fitxer = directori.resolve((Path) esdeveniment.context());
+                        recarregar(() -> cache.recarregar(fitxer));
+                        for (Consumer<Path> gestor : gestors) {
+                            recarregar(() -> gestor.accept(fitxer));
+                        }
+                    }
+                }
+                if (!clau.reset()) {
+                    break; // El directori ja no és accessible
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Tancament de l'observador
+        }
+    }
+
+    /**
+     * Executa una recàrrega sense aturar el fil si el fitxer encara s'està escrivint
+     * o és invàlid: el següent esdeveniment de modificació el tornarà a intentar.
+     */
+    private static void recarregar(Runnable recarrega) {
+        try {
+            recarrega.run();
+        } catch (RuntimeException e) {
+            System.err.println("No s'ha pogut recarregar el fitxer: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Atura l'observació del directori.
+     *
+     * @throws IOException Si hi ha un error en tancar el WatchService.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        fil.interrupt();
+    }
+}
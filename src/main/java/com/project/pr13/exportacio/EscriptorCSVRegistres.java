@@ -0,0 +1,28 @@
+package com.project.pr13.exportacio;
+
+import com.project.utilitats.EscriptorCSV;
+
+import java.io.IOException;
+
+/**
+ * Escriptor CSV amb capçalera, sobre l'{@link EscriptorCSV} en streaming.
+ */
+class EscriptorCSVRegistres implements EscriptorRegistres {
+
+    private final EscriptorCSV escriptor;
+
+    EscriptorCSVRegistres(EscriptorCSV escriptor, String... camps) throws IOException {
+        this.escriptor = escriptor;
+        registre(camps);
+    }
+
+    @Override
+    public void registre(String... valors) throws IOException {
+        escriptor.fila(valors);
+    }
+
+    @Override
+    public void close() throws IOException {
+        escriptor.close();
+    }
+}
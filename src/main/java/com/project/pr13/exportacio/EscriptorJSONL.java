@@ -0,0 +1,47 @@
+package com.project.pr13.exportacio;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escriptor JSON Lines: un objecte JSON per línia amb els camps declarats com a claus.
+ * Cada valor s'escapa directament al writer, sense construir cap objecte intermedi.
+ */
+class EscriptorJSONL implements EscriptorRegistres {
+
+    private final Writer writer;
+    private final String[] clausEscapades;
+
+    EscriptorJSONL(Writer writer, String... camps) {
+        this.writer = writer;
+        this.clausEscapades = new String[camps.length];
+        for (int i = 0; i < camps.length; i++) {
+            clausEscapades[i] = JSONObject.quote(camps[i]);
+        }
+    }
+
+    @Override
+    public void registre(String... valors) throws IOException {
+        writer.write('{');
+        for (int i = 0; i < clausEscapades.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(clausEscapades[i]);
+            writer.write(':');
+            if (valors[i] == null) {
+                writer.write("null");
+            } else {
+                JSONObject.quote(valors[i], writer);
+            }
+        }
+        writer.write("}\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,20 @@
+package com.project.pr13.exportacio;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destí d'exportació que rep els registres d'un en un i els escriu de seguida,
+ * sense acumular la sortida en memòria.
+ */
+public interface EscriptorRegistres extends Closeable {
+
+    /**
+     * Escriu un registre. Els valors han de seguir l'ordre dels camps declarats en obrir l'escriptor.
+     * Un valor null és un camp absent: en CSV queda buit i en JSON s'escriu {@code null}.
+     *
+     * @param valors Valors dels camps.
+     * @throws IOException Si hi ha un error d'escriptura.
+     */
+    void registre(String... valors) throws IOException;
+}
@@ -0,0 +1,137 @@
+package com.project.pr13.exportacio;
+
+import com.project.pr13.cursos.EscanerCursos;
+import com.project.pr13.metriques.Metriques;
+import com.project.pr13.model.Curs;
+import com.project.pr13.model.Modul;
+import com.project.pr13.xml.VinculadorXML;
+import com.project.utilitats.UtilsFitxers;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Exporta les dades de cursos.xml i persones.xml a CSV o JSON Lines.
+ *
+ * Els fitxers XML es llegeixen en streaming i cada registre s'escriu tan bon punt es llegeix,
+ * de manera que la memòria no depèn de la mida de la sortida. Es generen els fitxers
+ * cursos, moduls, alumnes i persones amb l'extensió del format escollit.
+ */
+public class ExportadorDades {
+
+    private final Path dataDir;
+    private final FormatExportacio format;
+
+    /**
+     * Constructor de la classe ExportadorDades.
+     *
+     * @param dataDir Directori on es troben els fitxers XML.
+     * @param format Format dels fitxers de sortida.
+     */
+    public ExportadorDades(Path dataDir, FormatExportacio format) {
+        this.dataDir = dataDir;
+        this.format = format;
+    }
+
+    /**
+     * Mètode principal. Arguments: format (csv, csv_gz o jsonl, per defecte csv) i directori de sortida
+     * (per defecte data/pr13/exportacio).
+     *
+     * @param args Arguments de la línia de comandament.
+     * @throws IOException Si hi ha un error d'escriptura.
+     */
+    public static void main(String[] args) throws IOException {
+        String userDir = System.getProperty("user.dir");
+        Path dataDir = Paths.get(userDir, "data", "pr13");
+        FormatExportacio format = args.length > 0 ? FormatExportacio.valueOf(args[0].toUpperCase()) : FormatExportacio.CSV;
+        Path sortida = args.length > 1 ? Paths.get(args[1]) : dataDir.resolve("exportacio");
+
+        long inici = System.nanoTime();
+        long registres = new ExportadorDades(dataDir, format).exportarTot(sortida);
+        double segons = (System.nanoTime() - inici) / 1e9;
+        System.out.printf("%d registres exportats a %s en %.3f s%n", registres, sortida + File.separator, segons);
+    }
+
+    /**
+     * Exporta cursos (amb mòduls i alumnes) i persones.
+     *
+     * @param sortida Directori de sortida.
+     * @return Nombre total de registres escrits.
+     * @throws IOException Si hi ha un error d'escriptura.
+     */
+    public long exportarTot(Path sortida) throws IOException {
+        long total = exportarCursos(sortida);
+        Path persones = UtilsFitxers.variantExistent(dataDir.resolve("persones.xml"));
+        if (Files.exists(persones)) {
+            total += exportarPersones(sortida);
+        }
+        return total;
+    }
+
+    /**
+     * Exporta els cursos de cursos.xml a tres fitxers: cursos, moduls i alumnes.
+     *
+     * @param sortida Directori de sortida.
+     * @return Nombre de registres escrits.
+     * @throws IOException Si hi ha un error d'escriptura.
+     */
+    public long exportarCursos(Path sortida) throws IOException {
+        long[] registres = {0};
+        try (EscriptorRegistres cursos = format.obrir(sortida, "cursos", "curs", "tutor", "total_alumnes");
+             EscriptorRegistres moduls = format.obrir(sortida, "moduls", "curs", "modul", "titol");
+             EscriptorRegistres alumnes = format.obrir(sortida, "alumnes", "curs", "alumne")) {
+            EscanerCursos.recorrerCursos(UtilsFitxers.variantExistent(dataDir.resolve("cursos.xml")), id -> true, curs -> {
+                try {
+                    registres[0] += escriureCurs(curs, cursos, moduls, alumnes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Metriques.comptador(Metriques.REGISTRES_PROCESSATS).afegir(registres[0]);
+        return registres[0];
+    }
+
+    private static long escriureCurs(Curs curs, EscriptorRegistres cursos, EscriptorRegistres moduls,
+                                     EscriptorRegistres alumnes) throws IOException {
+        cursos.registre(curs.id(), curs.tutor(), String.valueOf(curs.alumnes().size()));
+        for (Modul modul : curs.moduls()) {
+            moduls.registre(curs.id(), modul.id(), modul.titol());
+        }
+        for (String alumne : curs.alumnes()) {
+            alumnes.registre(curs.id(), alumne);
+        }
+        return 1L + curs.moduls().size() + curs.alumnes().size();
+    }
+
+    /**
+     * Exporta les persones de persones.xml.
+     *
+     * @param sortida Directori de sortida.
+     * @return Nombre de registres escrits.
+     * @throws IOException Si hi ha un error de lectura o escriptura.
+     */
+    public long exportarPersones(Path sortida) throws IOException {
+        long[] registres = {0};
+        try (EscriptorRegistres persones = format.obrir(sortida, "persones", "nom", "cognom", "edat", "ciutat")) {
+            VinculadorXML.recorrerPersones(UtilsFitxers.variantExistent(dataDir.resolve("persones.xml")), persona -> {
+                try {
+                    String edat = persona.edat() == null ? null : persona.edat().toString();
+                    persones.registre(persona.nom(), persona.cognom(), edat, persona.ciutat());
+                    registres[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Metriques.comptador(Metriques.REGISTRES_PROCESSATS).afegir(registres[0]);
+        return registres[0];
+    }
+}
@@ -0,0 +1,54 @@
+package com.project.pr13.exportacio;
+
+import com.project.utilitats.EscriptorCSV;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Formats de sortida de l'exportació.
+ */
+public enum FormatExportacio {
+    CSV("csv"),
+    CSV_GZ("csv.gz"),
+    JSONL("jsonl");
+
+    static final int MIDA_BUFFER = 256 * 1024;
+
+    private final String extensio;
+
+    FormatExportacio(String extensio) {
+        this.extensio = extensio;
+    }
+
+    /**
+     * @return Extensió dels fitxers d'aquest format (sense punt).
+     */
+    public String getExtensio() {
+        return extensio;
+    }
+
+    /**
+     * Obre un escriptor d'aquest format sobre un fitxer nou.
+     *
+     * @param directori Directori de sortida.
+     * @param nom Nom base del fitxer (sense extensió).
+     * @param camps Noms dels camps de cada registre.
+     * @return Escriptor obert.
+     * @throws IOException Si no es pot crear el fitxer.
+     */
+    public EscriptorRegistres obrir(Path directori, String nom, String... camps) throws IOException {
+        Files.createDirectories(directori);
+        Path fitxer = directori.resolve(nom + "." + extensio);
+        return switch (this) {
+            case CSV -> new EscriptorCSVRegistres(new EscriptorCSV(fitxer), camps);
+            case CSV_GZ -> new EscriptorCSVRegistres(new EscriptorCSV(fitxer, true), camps);
+            case JSONL -> new EscriptorJSONL(new BufferedWriter(
+                    new OutputStreamWriter(Files.newOutputStream(fitxer), StandardCharsets.UTF_8), MIDA_BUFFER), camps);
+        };
+    }
+}
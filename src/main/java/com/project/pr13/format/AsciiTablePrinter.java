@@ -7,12 +7,19 @@ import java.util.stream.IntStream;
 public class AsciiTablePrinter {
 
     public static void imprimirTaula(List<String> capçaleres, List<List<String>> dades) {
+        System.out.print(formatarTaula(capçaleres, dades));
+    }
+
+    // Retorna la taula com a text, amb el mateix format que imprimirTaula (permet reutilitzar-la)
+    public static String formatarTaula(List<String> capçaleres, List<List<String>> dades) {
         List<Integer> amplades = calcularAmpladesDeColumnes(capçaleres, dades);
-        imprimirSeparador(amplades);
-        imprimirFila(capçaleres, amplades);
-        imprimirSeparador(amplades);
-        dades.forEach(fila -> imprimirFila(fila, amplades));
-        imprimirSeparador(amplades);
+        StringBuilder taula = new StringBuilder();
+        afegirSeparador(taula, amplades);
+        afegirFila(taula, capçaleres, amplades);
+        afegirSeparador(taula, amplades);
+        dades.forEach(fila -> afegirFila(taula, fila, amplades));
+        afegirSeparador(taula, amplades);
+        return taula.toString();
     }
 
     private static List<Integer> calcularAmpladesDeColumnes(List<String> capçaleres, List<List<String>> dades) {
@@ -25,14 +32,14 @@ public class AsciiTablePrinter {
                 .collect(Collectors.toList());
     }
 
-    private static void imprimirSeparador(List<Integer> amplades) {
-        amplades.forEach(amplada -> System.out.print("+" + "-".repeat(amplada)));
-        System.out.println("+");
+    private static void afegirSeparador(StringBuilder taula, List<Integer> amplades) {
+        amplades.forEach(amplada -> taula.append("+").append("-".repeat(amplada)));
+        taula.append("+").append(System.lineSeparator());
     }
 
-    private static void imprimirFila(List<String> fila, List<Integer> amplades) {
+    private static void afegirFila(StringBuilder taula, List<String> fila, List<Integer> amplades) {
         IntStream.range(0, fila.size())
-                .forEach(i -> System.out.printf("| %-" + (amplades.get(i) - 2) + "s ", fila.get(i))); // -2 per espai abans i després del text
-        System.out.println("|");
+                .forEach(i -> taula.append(String.format("| %-" + (amplades.get(i) - 2) + "s ", fila.get(i)))); // -2 per espai abans i després del text
+        taula.append("|").append(System.lineSeparator());
     }
 }
@@ -1,12 +1,136 @@
 package com.project.pr13.format;
 
+import com.project.pr13.model.Persona;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Format de taula de columnes fixes per a les persones.
+ *
+ * Les files s'escriuen directament sobre qualsevol {@link Appendable} (un {@link StringBuilder}
+ * reutilitzat, un {@link java.nio.CharBuffer}...) amb les amplades precalculades, sense interpretar
+ * cap cadena de format ni crear Strings intermedis. El resultat és idèntic al de
+ * {@code String.format("%-8s %-14s %-5s %-9s", ...)}.
+ */
 public class PersonaFormatter {
 
+    private static final int AMPLADA_NOM = 8;
+    private static final int AMPLADA_COGNOM = 14;
+    private static final int AMPLADA_EDAT = 5;
+    private static final int AMPLADA_CIUTAT = 9;
+
+    /**
+     * Longitud mínima d'una fila formatada (sense salt de línia).
+     */
+    public static final int LONGITUD_FILA = AMPLADA_NOM + AMPLADA_COGNOM + AMPLADA_EDAT + AMPLADA_CIUTAT + 3;
+
     public static String getCapçaleres() {
         return "Nom      Cognom        Edat  Ciutat\n-------- -------------- ----- ---------";
     }
 
     public static String formatarPersona(String nom, String cognom, String edat, String ciutat) {
-        return String.format("%-8s %-14s %-5s %-9s", nom, cognom, edat, ciutat);
+        StringBuilder fila = new StringBuilder(LONGITUD_FILA);
+        formatarPersona(fila, nom, cognom, edat, ciutat);
+        return fila.toString();
+    }
+
+    /**
+     * Escriu una fila amb els camps de text indicats al final del StringBuilder.
+     *
+     * @param sortida StringBuilder de destinació.
+     */
+    public static void formatarPersona(StringBuilder sortida, CharSequence nom, CharSequence cognom,
+                                       CharSequence edat, CharSequence ciutat) {
+        try {
+            formatarPersona((Appendable) sortida, nom, cognom, edat, ciutat);
+        } catch (IOException e) {
+            // Un StringBuilder no llança mai IOException
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Escriu la fila d'una persona al final del StringBuilder.
+     *
+     * @param sortida StringBuilder de destinació.
+     * @param persona Persona a formatar.
+     */
+    public static void formatarPersona(StringBuilder sortida, Persona persona) {
+        try {
+            formatarPersona((Appendable) sortida, persona);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Escriu una fila amb els camps de text indicats a la sortida.
+     *
+     * @param sortida Destinació de la fila.
+     * @throws IOException Si la sortida no es pot escriure.
+     */
+    public static void formatarPersona(Appendable sortida, CharSequence nom, CharSequence cognom,
+                                       CharSequence edat, CharSequence ciutat) throws IOException {
+        columna(sortida, nom, AMPLADA_NOM);
+        sortida.append(' ');
+        columna(sortida, cognom, AMPLADA_COGNOM);
+        sortida.append(' ');
+        columna(sortida, edat, AMPLADA_EDAT);
+        sortida.append(' ');
+        columna(sortida, ciutat, AMPLADA_CIUTAT);
+    }
+
+    /**
+     * Escriu la fila d'una persona a la sortida. L'edat s'escriu xifra a xifra; si no en té, la columna queda en blanc.
+     *
+     * @param sortida Destinació de la fila.
+     * @param persona Persona a formatar.
+     * @throws IOException Si la sortida no es pot escriure.
+     */
+    public static void formatarPersona(Appendable sortida, Persona persona) throws IOException {
+        columna(sortida, persona.nom(), AMPLADA_NOM);
+        sortida.append(' ');
+        columna(sortida, persona.cognom(), AMPLADA_COGNOM);
+        sortida.append(' ');
+        if (persona.edat() == null) {
+            espais(sortida, AMPLADA_EDAT);
+        } else {
+            columna(sortida, persona.edat(), AMPLADA_EDAT);
+        }
+        sortida.append(' ');
+        columna(sortida, persona.ciutat(), AMPLADA_CIUTAT);
+    }
+
+    private static void columna(Appendable sortida, CharSequence valor, int amplada) throws IOException {
+        CharSequence text = valor == null ? "null" : valor;
+        sortida.append(text);
+        espais(sortida, amplada - text.length());
+    }
+
+    private static void columna(Appendable sortida, int valor, int amplada) throws IOException {
+        // Es treballa amb negatius per cobrir també Integer.MIN_VALUE
+        int negatiu = valor < 0 ? valor : -valor;
+        int xifres = 1;
+        for (int i = negatiu; i <= -10; i /= 10) {
+            xifres++;
+        }
+        if (valor < 0) {
+            sortida.append('-');
+        }
+        int divisor = 1;
+        for (int i = 1; i < xifres; i++) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            sortida.append((char) ('0' - (negatiu / divisor) % 10));
+        }
+        espais(sortida, amplada - xifres - (valor < 0 ? 1 : 0));
+    }
+
+    private static void espais(Appendable sortida, int quantitat) throws IOException {
+        for (int i = 0; i < quantitat; i++) {
+            sortida.append(' ');
+        }
     }
 }
@@ -0,0 +1,40 @@
+package com.project.pr13.metriques;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Comptador monòton i segur entre fils (bytes llegits, registres processats, etc.).
+ */
+public class Comptador {
+
+    private final LongAdder valor = new LongAdder();
+
+    /**
+     * Incrementa el comptador en una unitat.
+     */
+    public void incrementar() {
+        valor.increment();
+    }
+
+    /**
+     * Suma una quantitat al comptador.
+     *
+     * @param quantitat Quantitat a sumar.
+     */
+    public void afegir(long quantitat) {
+        valor.add(quantitat);
+    }
+
+    /**
+     * Retorna el valor acumulat.
+     *
+     * @return Valor actual del comptador.
+     */
+    public long valor() {
+        return valor.sum();
+    }
+
+    void reiniciar() {
+        valor.reset();
+    }
+}
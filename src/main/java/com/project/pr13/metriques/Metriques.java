@@ -0,0 +1,121 @@
+package com.project.pr13.metriques;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registre global de mètriques de l'aplicació.
+ *
+ * Els temporitzadors mesuren les fases de parseig, consulta i serialització dels documents XML,
+ * i els comptadors acumulen bytes llegits/escrits i registres processats. El contingut del registre
+ * es pot exportar com a JSON o bolcar periòdicament al log amb SLF4J.
+ */
+public class Metriques {
+
+    public static final String XML_PARSEIG = "xml.parseig";
+    public static final String XML_CONSULTA = "xml.consulta";
+    public static final String XML_SERIALITZACIO = "xml.serialitzacio";
+    public static final String CERCA_CONSULTA = "cerca.consulta";
+    public static final String BYTES_LLEGITS = "bytes.llegits";
+    public static final String BYTES_ESCRITS = "bytes.escrits";
+    public static final String REGISTRES_PROCESSATS = "registres.processats";
+    public static final String CACHE_RESULTATS_ENCERTS = "cache.resultats.encerts";
+    public static final String CACHE_RESULTATS_FALLADES = "cache.resultats.fallades";
+    public static final String CACHE_RESULTATS_EXPULSIONS = "cache.resultats.expulsions";
+
+    private static final Logger logger = LoggerFactory.getLogger(Metriques.class);
+
+    private static final Map<String, Temporitzador> temporitzadors = new ConcurrentHashMap<>();
+    private static final Map<String, Comptador> comptadors = new ConcurrentHashMap<>();
+
+    private Metriques() {
+    }
+
+    /**
+     * Retorna (creant-lo si cal) el temporitzador amb el nom indicat.
+     *
+     * @param nom Nom de la mètrica.
+     * @return Temporitzador registrat.
+     */
+    public static Temporitzador temporitzador(String nom) {
+        return temporitzadors.computeIfAbsent(nom, k -> new Temporitzador());
+    }
+
+    /**
+     * Retorna (creant-lo si cal) el comptador amb el nom indicat.
+     *
+     * @param nom Nom de la mètrica.
+     * @return Comptador registrat.
+     */
+    public static Comptador comptador(String nom) {
+        return comptadors.computeIfAbsent(nom, k -> new Comptador());
+    }
+
+    /**
+     * Exporta totes les mètriques com a JSON. Les durades s'expressen en microsegons.
+     *
+     * @return Objecte JSON amb els temporitzadors i els comptadors.
+     */
+    public static JSONObject aJSON() {
+        JSONObject jsonTemporitzadors = new JSONObject();
+        new TreeMap<>(temporitzadors).forEach((nom, t) -> {
+            JSONObject json = new JSONObject();
+            json.put("recompte", t.recompte());
+            json.put("mitjana_us", t.mitjana() / 1_000.0);
+            json.put("p50_us", t.percentil(50) / 1_000.0);
+            json.put("p99_us", t.percentil(99) / 1_000.0);
+            json.put("p999_us", t.percentil(99.9) / 1_000.0);
+            json.put("max_us", t.maxim() / 1_000.0);
+            jsonTemporitzadors.put(nom, json);
+        });
+
+        JSONObject jsonComptadors = new JSONObject();
+        new TreeMap<>(comptadors).forEach((nom, c) -> jsonComptadors.put(nom, c.valor()));
+
+        JSONObject resultat = new JSONObject();
+        resultat.put("temporitzadors", jsonTemporitzadors);
+        resultat.put("comptadors", jsonComptadors);
+        return resultat;
+    }
+
+    /**
+     * Bolca les mètriques actuals al log.
+     */
+    public static void bolcar() {
+        logger.info("Mètriques: {}", aJSON());
+    }
+
+    /**
+     * Inicia un bolcat periòdic de les mètriques al log en un fil dimoni.
+     *
+     * @param interval Temps entre bolcats.
+     * @return Recurs que atura el bolcat periòdic en tancar-lo.
+     */
+    public static AutoCloseable iniciarBolcatPeriodic(Duration interval) {
+        ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread fil = new Thread(r, "bolcat-metriques");
+            fil.setDaemon(true);
+            return fil;
+        });
+        long millis = interval.toMillis();
+        planificador.scheduleAtFixedRate(Metriques::bolcar, millis, millis, TimeUnit.MILLISECONDS);
+        return planificador::shutdownNow;
+    }
+
+    /**
+     * Posa a zero totes les mètriques registrades.
+     */
+    public static void reiniciar() {
+        temporitzadors.values().forEach(Temporitzador::reiniciar);
+        comptadors.values().forEach(Comptador::reiniciar);
+    }
+}
@@ -0,0 +1,189 @@
+package com.project.pr13.metriques;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Temporitzador amb histograma de latències en nanosegons.
+ *
+ * L'histograma és log-lineal: cada potència de dos es divideix en 8 subintervals, de manera que
+ * l'error dels percentils és com a molt d'un 12,5% i la memòria és fixa (no es guarden mostres).
+ */
+public class Temporitzador {
+
+    private static final int BITS_SUBINTERVAL = 3;
+    private static final int SUBINTERVALS = 1 << BITS_SUBINTERVAL;
+    private static final int NOMBRE_INTERVALS = (64 - BITS_SUBINTERVAL + 1) << BITS_SUBINTERVAL;
+
+    private final AtomicLongArray intervals = new AtomicLongArray(NOMBRE_INTERVALS);
+    private final LongAdder recompte = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator maxim = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Mesura en curs d'un temporitzador. Pensada per fer-se servir amb try-with-resources.
+     */
+    public final class Mesura implements AutoCloseable {
+        private final long inici = System.nanoTime();
+
+        @Override
+        public void close() {
+            registrar(System.nanoTime() - inici);
+        }
+    }
+
+    /**
+     * Càlcul mesurable amb {@link #mesurar(Calcul)}.
+     */
+    @FunctionalInterface
+    public interface Calcul<T, E extends Exception> {
+        T calcular() throws E;
+    }
+
+    /**
+     * Acció mesurable amb {@link #mesurar(Accio)}.
+     */
+    @FunctionalInterface
+    public interface Accio<E extends Exception> {
+        void executar() throws E;
+    }
+
+    /**
+     * Inicia una mesura que es registrarà en tancar-la.
+     *
+     * @return Mesura en curs.
+     */
+    public Mesura iniciar() {
+        return new Mesura();
+    }
+
+    /**
+     * Executa un càlcul i en registra la durada, tant si acaba bé com si llança una excepció.
+     *
+     * @param calcul Càlcul a mesurar.
+     * @return Resultat del càlcul.
+     * @throws E L'excepció del càlcul.
+     */
+    public <T, E extends Exception> T mesurar(Calcul<T, E> calcul) throws E {
+        Mesura mesura = iniciar();
+        try {
+            return calcul.calcular();
+        } finally {
+            mesura.close();
+        }
+    }
+
+    /**
+     * Executa una acció i en registra la durada, tant si acaba bé com si llança una excepció.
+     *
+     * @param accio Acció a mesurar.
+     * @throws E L'excepció de l'acció.
+     */
+    public <E extends Exception> void mesurar(Accio<E> accio) throws E {
+        Mesura mesura = iniciar();
+        try {
+            accio.executar();
+        } finally {
+            mesura.close();
+        }
+    }
+
+    /**
+     * Registra una durada.
+     *
+     * @param nanos Durada en nanosegons.
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        intervals.incrementAndGet(index(valor));
+        recompte.increment();
+        total.add(valor);
+        maxim.accumulate(valor);
+    }
+
+    /**
+     * @return Nombre de mesures registrades.
+     */
+    public long recompte() {
+        return recompte.sum();
+    }
+
+    /**
+     * @return Suma de totes les durades registrades, en nanosegons.
+     */
+    public long total() {
+        return total.sum();
+    }
+
+    /**
+     * @return Durada màxima registrada, en nanosegons.
+     */
+    public long maxim() {
+        return maxim.get();
+    }
+
+    /**
+     * @return Durada mitjana en nanosegons, o 0 si no hi ha mesures.
+     */
+    public double mitjana() {
+        long n = recompte();
+        return n == 0 ? 0 : (double) total() / n;
+    }
+
+    /**
+     * Calcula un percentil aproximat de les durades registrades.
+     *
+     * @param percentil Percentil entre 0 i 100 (p. ex. 99.9).
+     * @return Durada aproximada en nanosegons, o 0 si no hi ha mesures.
+     */
+    public long percentil(double percentil) {
+        long n = 0;
+        long[] copia = new long[NOMBRE_INTERVALS];
+        for (int i = 0; i < NOMBRE_INTERVALS; i++) {
+            copia[i] = intervals.get(i);
+            n += copia[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long objectiu = Math.max(1, (long) Math.ceil(n * percentil / 100.0));
+        long acumulat = 0;
+        for (int i = 0; i < NOMBRE_INTERVALS; i++) {
+            acumulat += copia[i];
+            if (acumulat >= objectiu) {
+                return Math.min(puntMig(i), maxim());
+            }
+        }
+        return maxim();
+    }
+
+    void reiniciar() {
+        for (int i = 0; i < NOMBRE_INTERVALS; i++) {
+            intervals.set(i, 0);
+        }
+        recompte.reset();
+        total.reset();
+        maxim.reset();
+    }
+
+    // Posició de l'interval que conté el valor
+    static int index(long valor) {
+        if (valor < SUBINTERVALS) {
+            return (int) valor;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(valor);
+        int desplacament = exponent - BITS_SUBINTERVAL;
+        return ((desplacament + 1) << BITS_SUBINTERVAL) + (int) ((valor >>> desplacament) & (SUBINTERVALS - 1));
+    }
+
+    // Valor representatiu (punt mig) d'un interval
+    private static long puntMig(int index) {
+        if (index < SUBINTERVALS) {
+            return index;
+        }
+        int desplacament = (index >> BITS_SUBINTERVAL) - 1;
+        long inferior = (long) (SUBINTERVALS + (index & (SUBINTERVALS - 1))) << desplacament;
+        return inferior + ((1L << desplacament) >> 1);
+    }
+}
@@ -0,0 +1,19 @@
+package com.project.pr13.model;
+
+import java.util.List;
+
+/**
+ * Curs amb el seu tutor, la llista d'alumnes i els mòduls, en l'ordre del document XML.
+ *
+ * @param id Identificador del curs (p. ex. "AMS2").
+ * @param tutor Nom del tutor.
+ * @param alumnes Noms complets dels alumnes.
+ * @param moduls Mòduls del curs.
+ */
+public record Curs(String id, String tutor, List<String> alumnes, List<Modul> moduls) {
+
+    public Curs {
+        alumnes = List.copyOf(alumnes);
+        moduls = List.copyOf(moduls);
+    }
+}
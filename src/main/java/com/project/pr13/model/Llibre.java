@@ -0,0 +1,17 @@
+package com.project.pr13.model;
+
+/**
+ * Llibre del fitxer biblioteca.xml.
+ *
+ * @param id Identificador del llibre.
+ * @param titol Títol.
+ * @param autor Autor.
+ * @param anyPublicacio Any de publicació, o null si el registre no en té.
+ * @param editorial Editorial.
+ * @param genere Gènere.
+ * @param pagines Nombre de pàgines, o null si el registre no en té.
+ * @param disponible Si el llibre està disponible per a préstec.
+ */
+public record Llibre(String id, String titol, String autor, Integer anyPublicacio, String editorial,
+                     String genere, Integer pagines, boolean disponible) {
+}
@@ -0,0 +1,10 @@
+package com.project.pr13.model;
+
+/**
+ * Mòdul d'un curs.
+ *
+ * @param id Identificador del mòdul (p. ex. "M06").
+ * @param titol Títol del mòdul.
+ */
+public record Modul(String id, String titol) {
+}
@@ -0,0 +1,12 @@
+package com.project.pr13.model;
+
+/**
+ * Persona del fitxer persones.xml.
+ *
+ * @param nom Nom.
+ * @param cognom Cognom.
+ * @param edat Edat en anys, o null si el registre no en té.
+ * @param ciutat Ciutat de residència.
+ */
+public record Persona(String nom, String cognom, Integer edat, String ciutat) {
+}
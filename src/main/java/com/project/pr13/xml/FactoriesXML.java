@@ -0,0 +1,129 @@
+package com.project.pr13.xml;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathFactory;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Factories JAXP compartides per tota l'aplicació.
+ *
+ * Cada factoria es crea amb la implementació integrada del JDK ({@code newDefaultInstance}), sense la
+ * cerca de proveïdors per propietats del sistema, fitxers de configuració i ServiceLoader que fa
+ * {@code newInstance}. A més, cada una es crea només la primera vegada que es fa servir (classe interna
+ * com a contenidor), de manera que una execució que només necessita StAX no carrega ni DOM, ni XPath
+ * ni XSLT. Les factories no es reconfiguren mai després de crear-se, i no es fan servir mai fora
+ * d'aquesta classe: cada constructor, lector o escriptor es crea sincronitzant la seva factoria.
+ */
+public class FactoriesXML {
+
+    private FactoriesXML() {
+    }
+
+    private static final class Dom {
+        static final DocumentBuilderFactory FACTORY = DocumentBuilderFactory.newDefaultInstance();
+    }
+
+    private static final class XPaths {
+        static final XPathFactory FACTORY = XPathFactory.newDefaultInstance();
+    }
+
+    private static final class Transformacions {
+        static final TransformerFactory FACTORY = TransformerFactory.newDefaultInstance();
+    }
+
+    private static final class EntradaStAX {
+        static final XMLInputFactory FACTORY = XMLInputFactory.newDefaultFactory();
+        static final XMLInputFactory COALESCENT = crearCoalescent();
+
+        private static XMLInputFactory crearCoalescent() {
+            XMLInputFactory factory = XMLInputFactory.newDefaultFactory();
+            // Un sol esdeveniment per node de text, independentment dels límits del buffer intern
+            factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+            return factory;
+        }
+    }
+
+    private static final class SortidaStAX {
+        static final XMLOutputFactory FACTORY = XMLOutputFactory.newDefaultFactory();
+    }
+
+    /**
+     * @return Constructor de documents DOM nou.
+     * @throws ParserConfigurationException Si no es pot crear el constructor.
+     */
+    public static DocumentBuilder nouDocumentBuilder() throws ParserConfigurationException {
+        // Les factories JAXP no garanteixen ser segures entre fils
+        synchronized (Dom.FACTORY) {
+            return Dom.FACTORY.newDocumentBuilder();
+        }
+    }
+
+    /**
+     * @return Avaluador XPath nou.
+     */
+    public static XPath novaXPath() {
+        synchronized (XPaths.FACTORY) {
+            return XPaths.FACTORY.newXPath();
+        }
+    }
+
+    /**
+     * @return Transformador identitat nou (per serialitzar documents DOM).
+     * @throws TransformerConfigurationException Si no es pot crear el transformador.
+     */
+    public static Transformer nouTransformer() throws TransformerConfigurationException {
+        synchronized (Transformacions.FACTORY) {
+            return Transformacions.FACTORY.newTransformer();
+        }
+    }
+
+    /**
+     * @param entrada Flux del document.
+     * @return Lector StAX nou amb la configuració per defecte.
+     * @throws XMLStreamException Si no es pot crear el lector.
+     */
+    public static XMLStreamReader nouReaderStAX(InputStream entrada) throws XMLStreamException {
+        // La implementació del JDK reaprofita l'últim lector creat per la mateixa factoria
+        synchronized (EntradaStAX.FACTORY) {
+            return EntradaStAX.FACTORY.createXMLStreamReader(entrada);
+        }
+    }
+
+    /**
+     * @param entrada Flux del document.
+     * @param codificacio Codificació del flux, o null per deduir-la del document.
+     * @return Lector StAX nou que agrupa cada node de text en un sol esdeveniment.
+     * @throws XMLStreamException Si no es pot crear el lector.
+     */
+    public static XMLStreamReader nouReaderStAXCoalescent(InputStream entrada, String codificacio) throws XMLStreamException {
+        synchronized (EntradaStAX.COALESCENT) {
+            return codificacio == null
+                    ? EntradaStAX.COALESCENT.createXMLStreamReader(entrada)
+                    : EntradaStAX.COALESCENT.createXMLStreamReader(entrada, codificacio);
+        }
+    }
+
+    /**
+     * @param sortida Flux on s'escriu el document.
+     * @param codificacio Codificació del document.
+     * @return Escriptor StAX nou.
+     * @throws XMLStreamException Si no es pot crear l'escriptor.
+     */
+    public static XMLStreamWriter nouWriterStAX(OutputStream sortida, String codificacio) throws XMLStreamException {
+        synchronized (SortidaStAX.FACTORY) {
+            return SortidaStAX.FACTORY.createXMLStreamWriter(sortida, codificacio);
+        }
+    }
+}
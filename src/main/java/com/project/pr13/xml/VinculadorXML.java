@@ -0,0 +1,279 @@
+package com.project.pr13.xml;
+
+import com.project.pr13.cursos.EscanerCursos;
+import com.project.pr13.metriques.Metriques;
+import com.project.pr13.model.Curs;
+import com.project.pr13.model.Llibre;
+import com.project.pr13.model.Modul;
+import com.project.pr13.model.Persona;
+import com.project.utilitats.UtilsFitxers;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Vinculació directa dels fitxers XML de dades als registres del model.
+ *
+ * Cada fitxer es llegeix en una sola passada (StAX) i els esdeveniments es converteixen directament
+ * en {@link Persona}, {@link Curs} o {@link Llibre}, sense construir cap arbre DOM. Els camps numèrics
+ * es converteixen a enters a partir del buffer de caràcters del parser, sense crear cap String intermedi.
+ * Els elements desconeguts s'ignoren. Un registre amb un camp numèric no vàlid no atura la lectura: se salta
+ * i es notifica com a {@link RegistreErroni}, amb el fitxer, l'element i la línia on comença.
+ */
+public class VinculadorXML {
+
+    /**
+     * Converteix l'element on és situat el reader en un registre. En acabar, el reader ha de quedar
+     * situat a l'element de tancament.
+     */
+    @FunctionalInterface
+    interface Vinculacio<T> {
+        T vincular(XMLStreamReader reader) throws XMLStreamException;
+    }
+
+    /**
+     * Registre que no s'ha pogut vincular i s'ha saltat.
+     *
+     * @param fitxer Fitxer llegit.
+     * @param element Nom de l'element del registre (p. ex. "persona").
+     * @param linia Línia on comença el registre.
+     * @param motiu Motiu de l'error.
+     */
+    public record RegistreErroni(Path fitxer, String element, int linia, String motiu) {
+
+        @Override
+        public String toString() {
+            return "Registre erroni a " + fitxer + " (<" + element + "> a la línia " + linia + "): " + motiu;
+        }
+    }
+
+    private VinculadorXML() {
+    }
+
+    /**
+     * Recorre les persones del fitxer una a una, sense retenir-les en memòria. Els registres erronis
+     * s'escriuen per la sortida d'error.
+     *
+     * @param fitxer Ruta del fitxer persones.xml.
+     * @param consumidor Funció que rep cada persona, en l'ordre del document.
+     */
+    public static void recorrerPersones(Path fitxer, Consumer<Persona> consumidor) {
+        recorrerPersones(fitxer, consumidor, VinculadorXML::informar);
+    }
+
+    /**
+     * Recorre les persones del fitxer una a una, sense retenir-les en memòria.
+     *
+     * @param fitxer Ruta del fitxer persones.xml.
+     * @param consumidor Funció que rep cada persona, en l'ordre del document.
+     * @param errors Funció que rep cada registre que s'ha saltat perquè no es pot vincular.
+     */
+    public static void recorrerPersones(Path fitxer, Consumer<Persona> consumidor, Consumer<RegistreErroni> errors) {
+        recorrer(fitxer, "persona", VinculadorXML::vincularPersona, consumidor, errors);
+    }
+
+    /**
+     * Llegeix totes les persones del fitxer. Els registres erronis s'escriuen per la sortida d'error.
+     *
+     * @param fitxer Ruta del fitxer persones.xml.
+     * @return Persones en l'ordre del document.
+     */
+    public static List<Persona> llegirPersones(Path fitxer) {
+        List<Persona> persones = new ArrayList<>();
+        recorrerPersones(fitxer, persones::add);
+        return persones;
+    }
+
+    /**
+     * Recorre els llibres del fitxer un a un, sense retenir-los en memòria. Els registres erronis
+     * s'escriuen per la sortida d'error.
+     *
+     * @param fitxer Ruta del fitxer biblioteca.xml.
+     * @param consumidor Funció que rep cada llibre, en l'ordre del document.
+     */
+    public static void recorrerLlibres(Path fitxer, Consumer<Llibre> consumidor) {
+        recorrer(fitxer, "llibre", VinculadorXML::vincularLlibre, consumidor, VinculadorXML::informar);
+    }
+
+    /**
+     * Llegeix tots els llibres del fitxer.
+     *
+     * @param fitxer Ruta del fitxer biblioteca.xml.
+     * @return Llibres en l'ordre del document.
+     */
+    public static List<Llibre> llegirLlibres(Path fitxer) {
+        List<Llibre> llibres = new ArrayList<>();
+        recorrerLlibres(fitxer, llibres::add);
+        return llibres;
+    }
+
+    /**
+     * Recorre els cursos del fitxer que compleixen el filtre, un a un.
+     *
+     * @param fitxer Ruta del fitxer cursos.xml.
+     * @param filtre Condició sobre l'ID del curs; els cursos que no la compleixen se salten.
+     * @param consumidor Funció que rep cada curs, en l'ordre del document.
+     */
+    public static void recorrerCursos(Path fitxer, Predicate<String> filtre, Consumer<Curs> consumidor) {
+        Metriques.temporitzador(Metriques.XML_PARSEIG).mesurar(() -> EscanerCursos.recorrerCursos(fitxer, filtre, consumidor));
+        Metriques.comptador(Metriques.BYTES_LLEGITS).afegir(fitxer.toFile().length());
+    }
+
+    /**
+     * Llegeix tots els cursos del fitxer.
+     *
+     * @param fitxer Ruta del fitxer cursos.xml.
+     * @return Cursos en l'ordre del document.
+     */
+    public static List<Curs> llegirCursos(Path fitxer) {
+        List<Curs> cursos = new ArrayList<>();
+        recorrerCursos(fitxer, id -> true, cursos::add);
+        return cursos;
+    }
+
+    /**
+     * Recorre el fitxer i vincula cada element amb el nom indicat, sigui quina sigui la seva profunditat.
+     * Si un camp numèric no és vàlid, se salta la resta del registre i es notifica a {@code errors}.
+     */
+    static <T> void recorrer(Path fitxer, String element, Vinculacio<T> vinculacio, Consumer<T> consumidor,
+                             Consumer<RegistreErroni> errors) {
+        Metriques.temporitzador(Metriques.XML_PARSEIG).mesurar(() -> {
+            try (InputStream entrada = UtilsFitxers.obrirEntrada(fitxer)) {
+                XMLStreamReader reader = FactoriesXML.nouReaderStAXCoalescent(entrada, null);
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals(element)) {
+                        int linia = reader.getLocation().getLineNumber();
+                        T registre;
+                        try {
+                            registre = vinculacio.vincular(reader);
+                        } catch (NumberFormatException e) {
+                            // El camp erroni ja s'ha llegit fins al seu tancament: es continua pel registre següent
+                            saltar(reader);
+                            errors.accept(new RegistreErroni(fitxer, element, linia, e.getMessage()));
+                            continue;
+                        }
+                        consumidor.accept(registre);
+                    }
+                }
+                reader.close();
+            } catch (IOException | XMLStreamException e) {
+                throw new RuntimeException("Error en llegir el fitxer " + fitxer, e);
+            }
+        });
+        Metriques.comptador(Metriques.BYTES_LLEGITS).afegir(fitxer.toFile().length());
+    }
+
+    private static void informar(RegistreErroni error) {
+        System.err.println(error);
+    }
+
+    static Persona vincularPersona(XMLStreamReader reader) throws XMLStreamException {
+        String nom = "";
+        String cognom = "";
+        Integer edat = null;
+        String ciutat = "";
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "nom" -> nom = reader.getElementText();
+                case "cognom" -> cognom = reader.getElementText();
+                case "edat" -> edat = llegirEnter(reader);
+                case "ciutat" -> ciutat = reader.getElementText();
+                default -> saltar(reader);
+            }
+        }
+        return new Persona(nom, cognom, edat, ciutat);
+    }
+
+    static Llibre vincularLlibre(XMLStreamReader reader) throws XMLStreamException {
+        String id = reader.getAttributeValue(null, "id");
+        String titol = "";
+        String autor = "";
+        Integer anyPublicacio = null;
+        String editorial = "";
+        String genere = "";
+        Integer pagines = null;
+        boolean disponible = false;
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "titol", "Titol" -> titol = reader.getElementText();
+                case "autor", "Autor" -> autor = reader.getElementText();
+                case "anyPublicacio", "AnyPublicacio" -> anyPublicacio = llegirEnter(reader);
+                case "editorial", "Editorial" -> editorial = reader.getElementText();
+                case "genere", "Genere" -> genere = reader.getElementText();
+                case "pagines", "Pagines" -> pagines = llegirEnter(reader);
+                case "disponible", "Disponible" -> disponible = Boolean.parseBoolean(reader.getElementText().trim());
+                default -> saltar(reader);
+            }
+        }
+        return new Llibre(id, titol, autor, anyPublicacio, editorial, genere, pagines, disponible);
+    }
+
+    /**
+     * Llegeix el contingut de l'element actual com a enter directament del buffer del parser.
+     * En acabar, el reader queda situat al tancament de l'element, també si el contingut no és vàlid.
+     *
+     * @throws NumberFormatException Si el contingut no és un enter.
+     */
+    static int llegirEnter(XMLStreamReader reader) throws XMLStreamException {
+        String element = reader.getLocalName();
+        long valor = 0;
+        int xifres = 0;
+        boolean negatiu = false;
+        boolean fiNombre = false;
+        String error = null;
+        int esdeveniment;
+        while ((esdeveniment = reader.next()) != XMLStreamConstants.END_ELEMENT) {
+            if (esdeveniment == XMLStreamConstants.START_ELEMENT) {
+                throw new XMLStreamException("L'element " + element + " no pot contenir elements", reader.getLocation());
+            }
+            if (error != null || (esdeveniment != XMLStreamConstants.CHARACTERS && esdeveniment != XMLStreamConstants.CDATA)) {
+                continue;
+            }
+            char[] text = reader.getTextCharacters();
+            int fi = reader.getTextStart() + reader.getTextLength();
+            for (int i = reader.getTextStart(); i < fi && error == null; i++) {
+                char c = text[i];
+                if (c >= '0' && c <= '9' && !fiNombre) {
+                    valor = valor * 10 + (c - '0');
+                    xifres++;
+                    if (valor > Integer.MAX_VALUE + 1L) {
+                        error = "Valor fora de rang a l'element " + element;
+                    }
+                } else if (c == '-' && xifres == 0 && !negatiu) {
+                    negatiu = true;
+                } else if (Character.isWhitespace(c)) {
+                    fiNombre = xifres > 0 || negatiu;
+                } else {
+                    error = "Valor no numèric a l'element " + element;
+                }
+            }
+        }
+        if (error == null && (xifres == 0 || (!negatiu && valor > Integer.MAX_VALUE))) {
+            error = "Valor no numèric a l'element " + element;
+        }
+        if (error != null) {
+            throw new NumberFormatException(error);
+        }
+        return (int) (negatiu ? -valor : valor);
+    }
+
+    private static void saltar(XMLStreamReader reader) throws XMLStreamException {
+        int profunditat = 1;
+        while (profunditat > 0) {
+            int esdeveniment = reader.next();
+            if (esdeveniment == XMLStreamConstants.START_ELEMENT) {
+                profunditat++;
+            } else if (esdeveniment == XMLStreamConstants.END_ELEMENT) {
+                profunditat--;
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.project.utilitats;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+// Mapa ordenat immutable (persistent): cada modificació retorna un arbre nou que comparteix amb l'anterior
+// tots els nodes que no són al camí modificat, de manera que una alta, baixa o canvi costa O(log n)
+// nodes nous i les versions anteriors continuen sent vàlides. Internament és un treap amb la prioritat
+// derivada de la clau: la forma de l'arbre només depèn del conjunt de claus, i això permet comparar
+// dues versions saltant els subarbres compartits.
+public final class ArbrePersistent<K extends Comparable<K>, V> implements Iterable<Map.Entry<K, V>> {
+
+    // Rep les diferències entre dues versions
+    public interface Diferencies<K, V> {
+        default void afegit(K clau, V valor) {
+        }
+
+        default void eliminat(K clau, V valor) {
+        }
+
+        default void modificat(K clau, V abans, V despres) {
+        }
+    }
+
+    private record Node<K, V>(K clau, V valor, int prioritat, Node<K, V> esquerre, Node<K, V> dret, int mida) {
+
+        Node<K, V> amb(Node<K, V> nouEsquerre, Node<K, V> nouDret) {
+            return new Node<>(clau, valor, prioritat, nouEsquerre, nouDret, 1 + midaDe(nouEsquerre) + midaDe(nouDret));
+        }
+
+        Node<K, V> ambValor(V nouValor) {
+            return new Node<>(clau, nouValor, prioritat, esquerre, dret, mida);
+        }
+    }
+
+    // Resultat de partir un arbre per una clau
+    private record Particio<K, V>(Node<K, V> menors, Node<K, V> igual, Node<K, V> majors) {
+    }
+
+    private static final ArbrePersistent<?, ?> BUIT = new ArbrePersistent<>(null);
+
+    private final Node<K, V> arrel;
+
+    private ArbrePersistent(Node<K, V> arrel) {
+        this.arrel = arrel;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<K>, V> ArbrePersistent<K, V> buit() {
+        return (ArbrePersistent<K, V>) BUIT;
+    }
+
+    public int mida() {
+        return midaDe(arrel);
+    }
+
+    public boolean esBuit() {
+        return arrel == null;
+    }
+
+    public V obtenir(K clau) {
+        Node<K, V> node = arrel;
+        while (node != null) {
+            int comparacio = clau.compareTo(node.clau);
+            if (comparacio == 0) {
+                return node.valor;
+            }
+            node = comparacio < 0 ? node.esquerre : node.dret;
+        }
+        return null;
+    }
+
+    public boolean conte(K clau) {
+        return obtenir(clau) != null;
+    }
+
+    // Retorna un arbre amb la clau associada al valor (els valors null no estan permesos)
+    public ArbrePersistent<K, V> amb(K clau, V valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("El valor no pot ser null");
+        }
+        Node<K, V> nou = inserir(arrel, clau, valor);
+        return nou == arrel ? this : new ArbrePersistent<>(nou);
+    }
+
+    // Retorna un arbre sense la clau (el mateix arbre si no hi era)
+    public ArbrePersistent<K, V> sense(K clau) {
+        Node<K, V> nou = eliminar(arrel, clau);
+        return nou == arrel ? this : new ArbrePersistent<>(nou);
+    }
+
+    // Recorre les diferències d'aquest arbre respecte d'una versió anterior. Els subarbres compartits
+    // entre les dues versions se salten sense visitar-los.
+    public void diferencies(ArbrePersistent<K, V> anterior, Diferencies<K, V> receptor) {
+        comparar(anterior.arrel, arrel, receptor);
+    }
+
+    // Recorregut en ordre de clau
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        Deque<Node<K, V>> pila = new ArrayDeque<>();
+        baixarEsquerra(pila, arrel);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !pila.isEmpty();
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                if (pila.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node<K, V> node = pila.pop();
+                baixarEsquerra(pila, node.dret);
+                return Map.entry(node.clau, node.valor);
+            }
+        };
+    }
+
+    private static <K, V> void baixarEsquerra(Deque<Node<K, V>> pila, Node<K, V> node) {
+        for (; node != null; node = node.esquerre) {
+            pila.push(node);
+        }
+    }
+
+    private static int midaDe(Node<?, ?> node) {
+        return node == null ? 0 : node.mida;
+    }
+
+    // Prioritat pseudoaleatòria però determinista a partir del hash de la clau (finalitzador de MurmurHash3)
+    private static int prioritat(Object clau) {
+        int h = clau.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    // Ordre total de prioritats: amb empat decideix la clau, perquè la forma sigui única
+    private static <K extends Comparable<K>> boolean mesPrioritari(int prioritatA, K clauA, int prioritatB, K clauB) {
+        return prioritatA > prioritatB || (prioritatA == prioritatB && clauA.compareTo(clauB) < 0);
+    }
+
+    private static <K extends Comparable<K>, V> Node<K, V> inserir(Node<K, V> node, K clau, V valor) {
+        if (node == null) {
+            return new Node<>(clau, valor, prioritat(clau), null, null, 1);
+        }
+        int comparacio = clau.compareTo(node.clau);
+        if (comparacio == 0) {
+            return node.valor == valor ? node : node.ambValor(valor);
+        }
+        if (comparacio < 0) {
+            Node<K, V> esquerre = inserir(node.esquerre, clau, valor);
+            if (esquerre == node.esquerre) {
+                return node;
+            }
+            if (mesPrioritari(esquerre.prioritat, esquerre.clau, node.prioritat, node.clau)) {
+                // Rotació a la dreta
+                return esquerre.amb(esquerre.esquerre, node.amb(esquerre.dret, node.dret));
+            }
+            return node.amb(esquerre, node.dret);
+        }
+        Node<K, V> dret = inserir(node.dret, clau, valor);
+        if (dret == node.dret) {
+            return node;
+        }
+        if (mesPrioritari(dret.prioritat, dret.clau, node.prioritat, node.clau)) {
+            // Rotació a l'esquerra
+            return dret.amb(node.amb(node.esquerre, dret.esquerre), dret.dret);
+        }
+        return node.amb(node.esquerre, dret);
+    }
+
+    private static <K extends Comparable<K>, V> Node<K, V> eliminar(Node<K, V> node, K clau) {
+        if (node == null) {
+            return null;
+        }
+        int comparacio = clau.compareTo(node.clau);
+        if (comparacio == 0) {
+            return unir(node.esquerre, node.dret);
+        }
+        if (comparacio < 0) {
+            Node<K, V> esquerre = eliminar(node.esquerre, clau);
+            return esquerre == node.esquerre ? node : node.amb(esquerre, node.dret);
+        }
+        Node<K, V> dret = eliminar(node.dret, clau);
+        return dret == node.dret ? node : node.amb(node.esquerre, dret);
+    }
+
+    // Uneix dos arbres on totes les claus del primer són menors que les del segon
+    private static <K extends Comparable<K>, V> Node<K, V> unir(Node<K, V> menors, Node<K, V> majors) {
+        if (menors == null) {
+            return majors;
+        }
+        if (majors == null) {
+            return menors;
+        }
+        if (mesPrioritari(menors.prioritat, menors.clau, majors.prioritat, majors.clau)) {
+            return menors.amb(menors.esquerre, unir(menors.dret, majors));
+        }
+        return majors.amb(unir(menors, majors.esquerre), majors.dret);
+    }
+
+    private static <K extends Comparable<K>, V> Particio<K, V> partir(Node<K, V> node, K clau) {
+        if (node == null) {
+            return new Particio<>(null, null, null);
+        }
+        int comparacio = clau.compareTo(node.clau);
+        if (comparacio == 0) {
+            return new Particio<>(node.esquerre, node, node.dret);
+        }
+        if (comparacio < 0) {
+            Particio<K, V> particio = partir(node.esquerre, clau);
+            return new Particio<>(particio.menors, particio.igual, node.amb(particio.majors, node.dret));
+        }
+        Particio<K, V> particio = partir(node.dret, clau);
+        return new Particio<>(node.amb(node.esquerre, particio.menors), particio.igual, particio.majors);
+    }
+
+    private static <K extends Comparable<K>, V> void comparar(Node<K, V> abans, Node<K, V> despres,
+                                                              Diferencies<K, V> receptor) {
+        if (abans == despres) {
+            return;
+        }
+        if (abans == null) {
+            recorrer(despres, node -> receptor.afegit(node.clau, node.valor));
+            return;
+        }
+        if (despres == null) {
+            recorrer(abans, node -> receptor.eliminat(node.clau, node.valor));
+            return;
+        }
+        // Es parteix la versió nova per la clau de l'arrel de l'antiga; com que la forma només depèn
+        // de les claus, els subarbres que no han canviat continuen sent el mateix objecte
+        Particio<K, V> particio = abans.clau.compareTo(despres.clau) == 0
+                ? new Particio<>(despres.esquerre, despres, despres.dret)
+                : partir(despres, abans.clau);
+        comparar(abans.esquerre, particio.menors, receptor);
+        if (particio.igual == null) {
+            receptor.eliminat(abans.clau, abans.valor);
+        } else if (particio.igual.valor != abans.valor && !particio.igual.valor.equals(abans.valor)) {
+            receptor.modificat(abans.clau, abans.valor, particio.igual.valor);
+        }
+        comparar(abans.dret, particio.majors, receptor);
+    }
+
+    private static <K, V> void recorrer(Node<K, V> node, Consumer<Node<K, V>> accio) {
+        if (node == null) {
+            return;
+        }
+        recorrer(node.esquerre, accio);
+        accio.accept(node);
+        recorrer(node.dret, accio);
+    }
+}
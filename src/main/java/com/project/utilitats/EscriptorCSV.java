@@ -0,0 +1,209 @@
+package com.project.utilitats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+// Escriptor CSV en streaming: les files s'escriuen camp a camp i es codifiquen en UTF-8 directament
+// sobre un buffer directe gran, que es buida al canal quan s'omple. La memòria és constant sigui quina
+// sigui la mida del fitxer. Els camps amb comes, cometes o salts de línia es tanquen entre cometes
+// (RFC 4180) i les files acaben amb '\n'. Opcionalment la sortida es comprimeix amb gzip.
+public class EscriptorCSV implements Closeable {
+
+    public static final int MIDA_BUFFER_PER_DEFECTE = 1024 * 1024;
+    private static final int MIDA_BUFFER_CARACTERS = 8 * 1024;
+    private static final int MIDA_BUFFER_GZIP = 64 * 1024;
+
+    private final WritableByteChannel canal;
+    private final CharsetEncoder codificador = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer caracters = CharBuffer.allocate(MIDA_BUFFER_CARACTERS);
+    private final ByteBuffer bytes;
+    private final char separador;
+    private final char[] xifres = new char[20];
+    private boolean primerCamp = true;
+
+    // Obre un fitxer CSV nou (sense comprimir)
+    public EscriptorCSV(Path fitxer) throws IOException {
+        this(fitxer, false);
+    }
+
+    // Obre un fitxer CSV nou, comprimit amb gzip si s'indica
+    public EscriptorCSV(Path fitxer, boolean gzip) throws IOException {
+        this(obrirCanal(fitxer, gzip), ',', MIDA_BUFFER_PER_DEFECTE);
+    }
+
+    // Escriu sobre un canal qualsevol amb el separador i la mida de buffer indicats
+    public EscriptorCSV(WritableByteChannel canal, char separador, int midaBuffer) {
+        this.canal = canal;
+        this.separador = separador;
+        this.bytes = ByteBuffer.allocateDirect(midaBuffer);
+    }
+
+    private static WritableByteChannel obrirCanal(Path fitxer, boolean gzip) throws IOException {
+        if (gzip) {
+            return Channels.newChannel(new GZIPOutputStream(Files.newOutputStream(fitxer), MIDA_BUFFER_GZIP));
+        }
+        return FileChannel.open(fitxer, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    // Afegeix un camp de text a la fila actual
+    public EscriptorCSV camp(CharSequence valor) throws IOException {
+        separar();
+        if (valor == null) {
+            return this;
+        }
+        if (!calCometes(valor)) {
+            escriure(valor);
+            return this;
+        }
+        escriure('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                escriure('"');
+            }
+            escriure(c);
+        }
+        escriure('"');
+        return this;
+    }
+
+    // Afegeix un camp numèric a la fila actual (sense crear cap String)
+    public EscriptorCSV camp(long valor) throws IOException {
+        separar();
+        if (valor < 0) {
+            escriure('-');
+        } else {
+            valor = -valor;
+        }
+        // Es treballa amb negatius per cobrir també Long.MIN_VALUE
+        int pos = xifres.length;
+        do {
+            xifres[--pos] = (char) ('0' - (valor % 10));
+            valor /= 10;
+        } while (valor != 0);
+        for (int i = pos; i < xifres.length; i++) {
+            escriure(xifres[i]);
+        }
+        return this;
+    }
+
+    // Tanca la fila actual
+    public void fiFila() throws IOException {
+        escriure('\n');
+        primerCamp = true;
+    }
+
+    // Escriu una fila sencera
+    public void fila(CharSequence... valors) throws IOException {
+        for (CharSequence valor : valors) {
+            camp(valor);
+        }
+        fiFila();
+    }
+
+    // Escriu una línia ja formatada, tal qual
+    public void linia(CharSequence linia) throws IOException {
+        escriure(linia);
+        fiFila();
+    }
+
+    // Codifica els caràcters pendents i escriu tots els bytes al canal
+    public void buidar() throws IOException {
+        codificar(false);
+        escriureBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            codificar(true);
+            while (codificador.flush(bytes) == CoderResult.OVERFLOW) {
+                escriureBytes();
+            }
+            escriureBytes();
+        } finally {
+            canal.close();
+        }
+    }
+
+    private void separar() throws IOException {
+        if (!primerCamp) {
+            escriure(separador);
+        }
+        primerCamp = false;
+    }
+
+    private boolean calCometes(CharSequence valor) {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == separador || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void escriure(char c) throws IOException {
+        if (!caracters.hasRemaining()) {
+            codificar(false);
+        }
+        caracters.put(c);
+    }
+
+    private void escriure(CharSequence text) throws IOException {
+        int pos = 0;
+        while (pos < text.length()) {
+            if (!caracters.hasRemaining()) {
+                codificar(false);
+            }
+            int quantitat = Math.min(caracters.remaining(), text.length() - pos);
+            if (text instanceof String cadena) {
+                caracters.put(cadena, pos, pos + quantitat);
+            } else {
+                for (int i = pos; i < pos + quantitat; i++) {
+                    caracters.put(text.charAt(i));
+                }
+            }
+            pos += quantitat;
+        }
+    }
+
+    // Passa els caràcters acumulats al buffer de bytes, buidant-lo al canal quan s'omple
+    private void codificar(boolean fiEntrada) throws IOException {
+        caracters.flip();
+        while (true) {
+            CoderResult resultat = codificador.encode(caracters, bytes, fiEntrada);
+            if (resultat.isOverflow()) {
+                escriureBytes();
+            } else {
+                break;
+            }
+        }
+        // Si queda mig parell subrogat, es conserva per a la següent codificació
+        caracters.compact();
+    }
+
+    private void escriureBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            canal.write(bytes);
+        }
+        bytes.clear();
+    }
+}
@@ -24,6 +24,13 @@ public class UtilsCSV {
 
     // Escriu una llista de línies en un fitxer CSV
     public static void escriure(String camiFitxer, List<String> csvLinies) {
+        escriure(camiFitxer, (Iterable<String>) csvLinies);
+    }
+
+    // Escriu les línies a mesura que es recorren, sense necessitat de tenir-les totes en memòria.
+    // Com sempre, amb el joc de caràcters i el separador de línies de la plataforma; les exportacions
+    // que necessiten un format fix (UTF-8 i '\n') fan servir EscriptorCSV directament
+    public static void escriure(String camiFitxer, Iterable<String> csvLinies) {
         Path sortida = Paths.get(camiFitxer);
         try {
             Files.write(sortida, csvLinies, Charset.defaultCharset());
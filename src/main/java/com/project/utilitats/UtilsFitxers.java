@@ -0,0 +1,149 @@
+package com.project.utilitats;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+public class UtilsFitxers {
+
+    // Extensions dels fitxers comprimits: gzip i deflate amb capçalera zlib
+    public static final String EXTENSIO_GZIP = ".gz";
+    public static final String EXTENSIO_DEFLATE = ".deflate";
+
+    // Els còdecs llegeixen i escriuen el fitxer en blocs grans: menys crides al sistema per byte descomprimit
+    private static final int MIDA_BUFFER_COMPRESSIO = 64 * 1024;
+
+    // Operació d'escriptura sobre un flux de sortida
+    @FunctionalInterface
+    public interface Escriptura {
+        void escriure(OutputStream sortida) throws IOException;
+    }
+
+    // Escriu un fitxer de manera atòmica: primer en un temporal del mateix directori (sincronitzat a disc)
+    // i després el mou sobre el destí, de manera que mai queda un fitxer a mig escriure
+    public static void escriureAtomicament(Path desti, Escriptura escriptura) throws IOException {
+        Path directori = desti.toAbsolutePath().getParent();
+        Files.createDirectories(directori);
+        Path temporal = Files.createTempFile(directori, "." + desti.getFileName(), ".tmp");
+        try {
+            try (FileOutputStream sortida = new FileOutputStream(temporal.toFile())) {
+                // Si el destí té extensió de fitxer comprimit, el contingut es comprimeix abans de sincronitzar
+                DeflaterOutputStream compressor = comprimir(sortida, desti);
+                try {
+                    escriptura.escriure(compressor != null ? compressor : sortida);
+                    if (compressor != null) {
+                        compressor.finish();
+                    }
+                    sortida.flush();
+                    sortida.getChannel().force(true);
+                } finally {
+                    if (compressor != null) {
+                        compressor.close();
+                    }
+                }
+            }
+            try {
+                Files.move(temporal, desti, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, desti, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    // Indica si el fitxer es guarda comprimit, segons la seva extensió
+    public static boolean esComprimit(Path fitxer) {
+        String nom = fitxer.getFileName().toString();
+        return nom.endsWith(EXTENSIO_GZIP) || nom.endsWith(EXTENSIO_DEFLATE);
+    }
+
+    // Retorna el fitxer si existeix o, si no, la seva variant comprimida (p. ex. cursos.xml.gz) si n'hi ha.
+    // Si no existeix cap de les dues, retorna el fitxer original
+    public static Path variantExistent(Path fitxer) {
+        if (Files.exists(fitxer)) {
+            return fitxer;
+        }
+        for (String extensio : new String[]{EXTENSIO_GZIP, EXTENSIO_DEFLATE}) {
+            Path comprimit = fitxer.resolveSibling(fitxer.getFileName() + extensio);
+            if (Files.exists(comprimit)) {
+                return comprimit;
+            }
+        }
+        return fitxer;
+    }
+
+    // Obre un fitxer per llegir-lo; si és comprimit, el flux retorna el contingut ja descomprimit
+    public static InputStream obrirEntrada(Path fitxer) throws IOException {
+        InputStream entrada = Files.newInputStream(fitxer);
+        try {
+            String nom = fitxer.getFileName().toString();
+            if (nom.endsWith(EXTENSIO_GZIP)) {
+                return new GZIPInputStream(entrada, MIDA_BUFFER_COMPRESSIO);
+            }
+            if (nom.endsWith(EXTENSIO_DEFLATE)) {
+                // L'Inflater propi no l'allibera el flux en tancar-se
+                return new InflaterInputStream(entrada, new Inflater(), MIDA_BUFFER_COMPRESSIO) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inf.end();
+                        }
+                    }
+                };
+            }
+            return entrada;
+        } catch (IOException e) {
+            entrada.close();
+            throw e;
+        }
+    }
+
+    // Obre un fitxer per escriure'l (el crea o el buida); si té extensió de fitxer comprimit, el que
+    // s'hi escriu es comprimeix
+    public static OutputStream obrirSortida(Path fitxer) throws IOException {
+        OutputStream sortida = Files.newOutputStream(fitxer);
+        try {
+            // El compressor gzip ja escriu la capçalera en crear-se
+            DeflaterOutputStream compressor = comprimir(sortida, fitxer);
+            return compressor != null ? compressor : sortida;
+        } catch (IOException e) {
+            sortida.close();
+            throw e;
+        }
+    }
+
+    // Compressor per al fitxer segons l'extensió, o null si el fitxer no és comprimit
+    private static DeflaterOutputStream comprimir(OutputStream sortida, Path fitxer) throws IOException {
+        String nom = fitxer.getFileName().toString();
+        if (nom.endsWith(EXTENSIO_GZIP)) {
+            return new GZIPOutputStream(sortida, MIDA_BUFFER_COMPRESSIO);
+        }
+        if (nom.endsWith(EXTENSIO_DEFLATE)) {
+            return new DeflaterOutputStream(sortida, new Deflater(), MIDA_BUFFER_COMPRESSIO) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+        }
+        return null;
+    }
+}
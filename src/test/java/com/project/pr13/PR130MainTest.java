@@ -7,10 +7,17 @@ import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
 
 import com.project.pr13.format.PersonaFormatter;
+import com.project.pr13.model.Persona;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -81,9 +88,64 @@ class PR130MainTest {
         assertEquals(expected, resultat, "El format de la persona no és correcte.");
     }
 
+    @Test
+    void testFormatarPersonaSobreSink() throws IOException {
+        Persona[] persones = {
+                new Persona("Maria", "López", 36, "Barcelona"),
+                new Persona("Bartomeu-Andreu", "Catadasús i Ferrer", -7, "Sant Cugat del Vallès"),
+                new Persona("", "", Integer.MIN_VALUE, ""),
+        };
+        StringBuilder sortida = new StringBuilder("prefix|");
+        CharBuffer buffer = CharBuffer.allocate(256);
+        for (Persona persona : persones) {
+            String esperat = String.format("%-8s %-14s %-5s %-9s",
+                    persona.nom(), persona.cognom(), persona.edat(), persona.ciutat());
+
+            sortida.setLength("prefix|".length());
+            PersonaFormatter.formatarPersona(sortida, persona);
+            assertEquals("prefix|" + esperat, sortida.toString(), "La fila s'hauria d'afegir al final del StringBuilder.");
+
+            buffer.clear();
+            PersonaFormatter.formatarPersona(buffer, persona);
+            assertEquals(esperat, buffer.flip().toString(), "El CharBuffer hauria de rebre la mateixa fila.");
+        }
+    }
+
     @Test
     void testProcessFile() {
         // Comprova que el programa llegeix correctament el fitxer i processa les persones
         app.processarFitxerXML("persones.xml");
     }
+
+    @Test
+    void testProcessarDirectori() throws IOException {
+        // Fitxers creats en ordre invers i amb mides diferents: la sortida ha de seguir l'ordre dels noms
+        for (int regio = 9; regio >= 0; regio--) {
+            StringBuilder xml = new StringBuilder("<persones>");
+            for (int i = 0; i <= regio * 20; i++) {
+                xml.append("<persona><nom>N").append(regio).append("</nom><cognom>C").append(i)
+                        .append("</cognom><edat>").append(i).append("</edat><ciutat>R").append(regio).append("</ciutat></persona>");
+            }
+            Files.writeString(tempDir.toPath().resolve("persones-" + regio + ".xml"), xml.append("</persones>"));
+        }
+        Files.writeString(tempDir.toPath().resolve("persones-trencat.xml"), "<persones><persona>");
+
+        PrintStream sortidaOriginal = System.out;
+        ByteArrayOutputStream sortida = new ByteArrayOutputStream();
+        PR130Main.ResumDirectori resum;
+        try {
+            System.setOut(new PrintStream(sortida, true, StandardCharsets.UTF_8));
+            resum = app.processarDirectori("persones-*.xml", 3);
+        } finally {
+            System.setOut(sortidaOriginal);
+        }
+
+        assertEquals(10, resum.fitxers(), "S'haurien de processar els deu fitxers correctes.");
+        assertEquals(1, resum.errors(), "El fitxer trencat s'hauria de comptar com a error.");
+        assertEquals(10 + 20 * 45, resum.persones(), "S'haurien d'imprimir totes les persones.");
+        List<String> ciutats = sortida.toString(StandardCharsets.UTF_8).lines().skip(2)
+                .map(String::strip).map(linia -> linia.substring(linia.lastIndexOf(' ') + 1)).distinct().toList();
+        assertEquals(List.of("R0", "R1", "R2", "R3", "R4", "R5", "R6", "R7", "R8", "R9"), ciutats,
+                "Les persones s'haurien d'imprimir agrupades en l'ordre dels fitxers.");
+    }
 }
@@ -1,16 +1,33 @@
 package com.project.pr13;
 
+import com.project.pr13.cursos.MagatzemShards;
+import com.project.pr13.cursos.OrdreAlumnes;
+import com.project.pr13.cursos.Pagina;
+import com.project.pr13.cursos.TransaccioCursos;
+import com.project.pr13.dades.CacheDocuments;
+import com.project.pr13.metriques.Metriques;
+import com.project.utilitats.UtilsFitxers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class PR132MainTest {
@@ -107,4 +124,341 @@ class PR132MainTest {
         List<String> alumnes = app.llistarAlumnes("AMS2");
         assertTrue(!alumnes.contains("CAMACHO, David"), "L'alumne CAMACHO, David hauria d'haver estat eliminat.");
     }
+
+    @Test
+    void testNomsAmbEspais() {
+        app.afegirAlumne("AWS1", "  PUIG, Laia ");
+        assertTrue(app.llistarAlumnes("AWS1").contains("PUIG, Laia"), "El nom s'hauria de guardar sense espais als extrems.");
+        assertEquals("PUIG, Laia", app.cercar("laia").get(0).text(), "L'índex hauria de rebre el mateix nom que el document.");
+
+        app.eliminarAlumne("AWS1", " PUIG, Laia");
+        assertTrue(app.cercar("laia").isEmpty(), "La baixa amb espais també s'hauria de notificar a l'índex.");
+    }
+
+    @Test
+    void testCercar() throws IOException {
+        assertEquals(1, app.cercar("camacho").size(), "Hauria de trobar l'alumne CAMACHO.");
+
+        // L'índex s'actualitza amb les altes i baixes sense tornar a llegir el fitxer
+        app.afegirAlumne("AWS1", "CAMACHO, Laia");
+        assertEquals(2, app.cercar("camacho").size(), "L'alumne afegit s'hauria de trobar.");
+        app.eliminarAlumne("AMS2", "CAMACHO, David");
+        assertEquals("AWS1", app.cercar("camacho").get(0).idCurs(), "Només hauria de quedar l'alumne d'AWS1.");
+        assertEquals("M06", app.cercar("acces dades").get(0).idModul(), "Hauria de trobar el mòdul per títol.");
+
+        // Un canvi extern al fitxer obliga a tornar a construir l'índex
+        Files.writeString(tempFilePath, Files.readString(tempFilePath).replace("FERNANDEZ, Ruben", "FERNANDEZ, Rubens"));
+        assertEquals("FERNANDEZ, Rubens", app.cercar("rubens").get(0).text(), "L'índex hauria de veure el canvi extern.");
+    }
+
+    @Test
+    void testEscripturaDiferida() throws Exception {
+        app.iniciarEscripturaDiferida(Duration.ofHours(1), 2);
+        try {
+            app.afegirAlumne("AWS1", "PUIG, Anna");
+            assertTrue(app.llistarAlumnes("AWS1").contains("PUIG, Anna"), "El canvi s'hauria de veure immediatament.");
+            assertFalse(Files.readString(tempFilePath).contains("PUIG, Anna"), "El fitxer encara no s'hauria d'haver escrit.");
+
+            // En arribar al llindar de canvis, el fil de fons escriu sense esperar l'interval
+            app.afegirAlumne("AWS1", "PUIG, Bernat");
+            long limit = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!Files.readString(tempFilePath).contains("PUIG, Bernat") && System.nanoTime() < limit) {
+                Thread.sleep(10);
+            }
+            assertTrue(Files.readString(tempFilePath).contains("PUIG, Anna"), "El llindar hauria de provocar una escriptura.");
+
+            app.eliminarAlumne("AMS2", "CAMACHO, David");
+        } finally {
+            app.finalitzarEscripturaDiferida();
+        }
+        String contingut = Files.readString(tempFilePath);
+        assertFalse(contingut.contains("CAMACHO, David"), "En finalitzar s'haurien de guardar els canvis pendents.");
+        assertTrue(contingut.contains("PUIG, Bernat"), "Els canvis anteriors s'haurien de conservar.");
+    }
+
+    @Test
+    void testFitxerComprimit() throws IOException {
+        Path comprimit = tempFilePath.resolveSibling("cursos.xml.gz");
+        UtilsFitxers.escriureAtomicament(comprimit, sortida -> Files.copy(tempFilePath, sortida));
+        Files.delete(tempFilePath);
+        PR132Main appComprimit = new PR132Main(UtilsFitxers.variantExistent(tempFilePath));
+
+        assertEquals(1, appComprimit.mostrarModuls("AMS2").size(), "Els mòduls s'haurien de llegir del fitxer comprimit.");
+        appComprimit.afegirAlumne("AWS1", "NOU, Alumne");
+
+        assertFalse(Files.exists(tempFilePath), "No s'hauria de crear el fitxer sense comprimir.");
+        try (InputStream entrada = new GZIPInputStream(Files.newInputStream(comprimit))) {
+            String contingut = new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(contingut.contains("NOU, Alumne"), "El fitxer s'hauria de guardar comprimit amb el canvi.");
+        }
+        assertTrue(appComprimit.llistarAlumnes("AWS1").contains("NOU, Alumne"), "L'alumne afegit s'hauria de llegir.");
+    }
+
+    @Test
+    void testPaginacio() {
+        for (int i = 0; i < 5; i++) {
+            app.afegirAlumne("AMS2", "NOU" + i + ", Alumne");
+        }
+        app.iniciarLot();
+        try {
+            for (PR132Main consulta : List.of(new PR132Main(tempFilePath), app)) {
+                Pagina<String> primera = consulta.llistarAlumnes("AMS2", 3, null);
+                assertEquals(List.of("ALVAREZ, Tomas", "CAMACHO, David", "NOU0, Alumne"), primera.elements(),
+                        "La primera pàgina hauria de tenir tres alumnes.");
+                Pagina<String> segona = consulta.llistarAlumnes("AMS2", 3, primera.seguentCursor());
+                assertEquals(List.of("NOU1, Alumne", "NOU2, Alumne", "NOU3, Alumne"), segona.elements(),
+                        "La segona pàgina hauria de continuar on acaba la primera.");
+                Pagina<String> tercera = consulta.llistarAlumnes("AMS2", 3, segona.seguentCursor());
+                assertEquals(List.of("NOU4, Alumne"), tercera.elements(), "La darrera pàgina hauria de tenir un alumne.");
+                assertFalse(tercera.teMes(), "No hi hauria d'haver més pàgines.");
+
+                Pagina<List<String>> cursos = consulta.llistarCursos(1, null);
+                assertEquals("AMS2", cursos.elements().get(0).get(0), "El primer curs hauria de ser AMS2.");
+                assertEquals("AWS1", consulta.llistarCursos(1, cursos.seguentCursor()).elements().get(0).get(0),
+                        "La segona pàgina hauria de tenir AWS1.");
+            }
+        } finally {
+            app.finalitzarLot();
+        }
+    }
+
+    @Test
+    void testAlumnesOrdenats() throws IOException {
+        app.afegirAlumne("AWS1", "BOSCH, Laia");
+        app.afegirAlumne("AWS1", "GARCIA, Pau");
+        app.afegirAlumne("AWS1", "ÀVILA, Marc");
+
+        assertEquals(List.of("ÀVILA, Marc", "BOSCH, Laia", "FERNANDEZ, Ruben", "GARCIA, Pau", "JANSSEN, Gerard"),
+                app.llistarAlumnes("AWS1"), "Els alumnes s'haurien de guardar en ordre alfabètic.");
+        assertEquals(List.of("FERNANDEZ, Ruben", "GARCIA, Pau"), app.llistarAlumnesEntre("AWS1", "d", "g"),
+                "El rang D–G hauria de tornar els alumnes que hi comencen.");
+
+        app.eliminarAlumne("AWS1", "BOSCH, Laia");
+        String contingut = Files.readString(tempFilePath);
+        assertFalse(contingut.contains("BOSCH, Laia"), "L'alumne eliminat no hauria de ser al fitxer.");
+        assertTrue(contingut.indexOf("ÀVILA, Marc") < contingut.indexOf("FERNANDEZ, Ruben"),
+                "El fitxer hauria de quedar ordenat.");
+
+        app.iniciarLot();
+        try {
+            assertEquals(List.of("FERNANDEZ, Ruben", "GARCIA, Pau"), app.llistarAlumnesEntre("AWS1", "D", "G"),
+                    "El rang sobre el document en memòria hauria de coincidir.");
+        } finally {
+            app.finalitzarLot();
+        }
+    }
+
+    @Test
+    void testOrdenaLaLlistaALaPrimeraEscriptura() throws IOException {
+        // AWS1 amb els alumnes desordenats, com un fitxer editat a mà
+        String desordenat = XML_CONTENT.replace("FERNANDEZ, Ruben", "#")
+                .replace("JANSSEN, Gerard", "FERNANDEZ, Ruben").replace("#", "JANSSEN, Gerard");
+        Files.writeString(tempFilePath, desordenat);
+
+        assertEquals(List.of("FERNANDEZ, Ruben", "JANSSEN, Gerard"), app.llistarAlumnesEntre("AWS1", "d", "j"),
+                "El rang hauria de tornar els alumnes ordenats encara que el fitxer no ho estigui.");
+        assertThrows(IllegalArgumentException.class, () -> app.confirmar(new TransaccioCursos()
+                        .afegir("AWS1", "BOSCH, Laia")
+                        .eliminar("AWS1", "GARCIA, Pau")),
+                "Una transacció amb un alumne inexistent s'hauria de rebutjar.");
+        assertEquals(desordenat, Files.readString(tempFilePath), "Una transacció rebutjada no hauria d'ordenar el fitxer.");
+
+        app.afegirAlumne("AWS1", "BOSCH, Laia");
+        assertEquals(List.of("BOSCH, Laia", "FERNANDEZ, Ruben", "JANSSEN, Gerard"),
+                new PR132Main(tempFilePath).llistarAlumnes("AWS1"), "La primera alta hauria de guardar la llista ordenada.");
+
+        app.moureAlumne("ALVAREZ, Tomas", "AMS2", "AWS1");
+        app.eliminarAlumne("AWS1", "FERNANDEZ, Ruben");
+        assertEquals(List.of("ALVAREZ, Tomas", "BOSCH, Laia", "JANSSEN, Gerard"), app.llistarAlumnes("AWS1"),
+                "Les modificacions següents haurien de mantenir l'ordre.");
+    }
+
+    @Test
+    void testMoureAlumne() throws IOException {
+        String original = Files.readString(tempFilePath);
+
+        assertThrows(IllegalArgumentException.class, () -> app.confirmar(new TransaccioCursos()
+                        .moure("ALVAREZ, Tomas", "AMS2", "AWS1")
+                        .moure("CAMACHO, David", "AMS2", "DAM1")),
+                "Una transacció amb un curs inexistent s'hauria de rebutjar.");
+        assertEquals(original, Files.readString(tempFilePath), "Una transacció rebutjada no hauria de modificar el fitxer.");
+
+        app.moureAlumne("ALVAREZ, Tomas", "AMS2", "AWS1");
+        assertEquals(List.of("CAMACHO, David"), app.llistarAlumnes("AMS2"), "L'alumne hauria de sortir del curs d'origen.");
+        assertEquals(List.of("ALVAREZ, Tomas", "FERNANDEZ, Ruben", "JANSSEN, Gerard"), app.llistarAlumnes("AWS1"),
+                "L'alumne hauria d'entrar al curs de destí en ordre.");
+    }
+
+    @Test
+    void testDesfer() throws IOException {
+        assertFalse(app.desfer(), "Sense modificacions no hi hauria d'haver res per desfer.");
+
+        app.afegirAlumne("AMS2", "BOSCH, Anna");
+        app.moureAlumne("FERNANDEZ, Ruben", "AWS1", "AMS2");
+        assertTrue(app.desfer(), "El trasllat s'hauria de poder desfer.");
+        assertEquals(List.of("ALVAREZ, Tomas", "BOSCH, Anna", "CAMACHO, David"),
+                new PR132Main(tempFilePath).llistarAlumnes("AMS2"), "El fitxer hauria de tornar a l'estat d'abans del trasllat.");
+        assertEquals(List.of("FERNANDEZ, Ruben", "JANSSEN, Gerard"), app.llistarAlumnes("AWS1"),
+                "L'alumne traslladat hauria de tornar al curs d'origen.");
+
+        assertTrue(app.desfer(), "L'alta s'hauria de poder desfer.");
+        assertEquals(List.of("ALVAREZ, Tomas", "CAMACHO, David"), new PR132Main(tempFilePath).llistarAlumnes("AMS2"),
+                "El fitxer hauria de quedar com al principi.");
+        assertFalse(app.desfer(), "Les modificacions desfetes no s'haurien de tornar a desfer.");
+    }
+
+    @Test
+    void testTransaccioDesfetaSiFallaLaPersistencia() throws IOException {
+        CacheDocuments cache = new CacheDocuments();
+        PR132Main ambCache = new PR132Main(tempFilePath, cache);
+        ambCache.llistarAlumnes("AMS2");
+        // Un directori no buit al lloc del fitxer fa fallar l'escriptura atòmica
+        Files.delete(tempFilePath);
+        Files.createDirectories(tempFilePath.resolve("bloqueig"));
+
+        assertThrows(RuntimeException.class, () -> ambCache.moureAlumne("ALVAREZ, Tomas", "AMS2", "AWS1"),
+                "L'error d'escriptura s'hauria de propagar.");
+        assertEquals(List.of("ALVAREZ, Tomas", "CAMACHO, David"), ambCache.llistarAlumnes("AMS2"),
+                "El document de la memòria cau hauria de tornar a l'estat anterior.");
+        assertEquals(List.of("FERNANDEZ, Ruben", "JANSSEN, Gerard"), ambCache.llistarAlumnes("AWS1"),
+                "El curs de destí no hauria de conservar l'alumne.");
+    }
+
+    @Test
+    void testMagatzemPerCursos() throws IOException {
+        MagatzemShards shards = MagatzemShards.importar(tempFilePath, tempDir.toPath().resolve("fragments"));
+        PR132Main perCursos = new PR132Main(shards);
+        Path fragmentAws1 = shards.rutaFragment("AWS1");
+        String aws1 = Files.readString(fragmentAws1);
+
+        perCursos.afegirAlumne("AMS2", "BOSCH, Anna");
+        assertEquals(List.of("ALVAREZ, Tomas", "BOSCH, Anna", "CAMACHO, David"), perCursos.llistarAlumnes("AMS2"),
+                "L'alumne s'hauria d'afegir en ordre.");
+        assertEquals(aws1, Files.readString(fragmentAws1), "Una alta a AMS2 no hauria de reescriure el fragment d'AWS1.");
+        assertTrue(Files.readString(shards.rutaFragment("AMS2")).contains("BOSCH, Anna"),
+                "L'alta s'hauria de guardar al fragment d'AMS2.");
+
+        assertThrows(IllegalArgumentException.class, () -> perCursos.moureAlumne("ALVAREZ, Tomas", "AMS2", "DAM1"),
+                "Un trasllat a un curs inexistent s'hauria de rebutjar.");
+        perCursos.moureAlumne("ALVAREZ, Tomas", "AMS2", "AWS1");
+        assertEquals(List.of("ALVAREZ, Tomas", "FERNANDEZ, Ruben", "JANSSEN, Gerard"),
+                new PR132Main(new MagatzemShards(shards.rutaManifest().getParent())).llistarAlumnes("AWS1"),
+                "El trasllat s'hauria de guardar als fragments.");
+        assertEquals(1, perCursos.cercar("Alvarez").size(), "L'índex hauria de seguir el trasllat.");
+        assertThrows(IllegalStateException.class, perCursos::iniciarLot, "El mode lot no s'hauria de poder iniciar.");
+    }
+
+    @Test
+    void testModulsAmbCacheSenseCarregarElDocument() throws IOException {
+        CacheDocuments cache = new CacheDocuments();
+        PR132Main ambCache = new PR132Main(tempFilePath, cache);
+        assertEquals(List.of(List.of("M06", "Accés a dades")), ambCache.mostrarModuls("AMS2"));
+        assertFalse(cache.conte(tempFilePath), "Consultar els mòduls no hauria de carregar el document sencer.");
+
+        // Fins que el document és a la memòria cau, els canvis del fitxer es detecten a cada consulta
+        Files.writeString(tempFilePath, XML_CONTENT.replace("Accés a dades", "Accés a dades i persistència"));
+        assertEquals(List.of(List.of("M06", "Accés a dades i persistència")), ambCache.mostrarModuls("AMS2"),
+                "El canvi del fitxer s'hauria de veure als mòduls.");
+    }
+
+    @Test
+    void testModulsDUnFitxerEnLatin1() throws IOException {
+        Files.writeString(tempFilePath, XML_CONTENT.replace("UTF-8", "ISO-8859-1"), StandardCharsets.ISO_8859_1);
+        assertEquals("Accés a dades", app.mostrarModuls("AMS2").get(0).get(1),
+                "Un fitxer que no és en UTF-8 s'hauria de llegir amb la seva codificació.");
+    }
+
+    @Test
+    void testRecarregaIncrementalAmbCache() throws IOException {
+        CacheDocuments cache = new CacheDocuments();
+        PR132Main ambCache = new PR132Main(tempFilePath, cache);
+        assertEquals(1, ambCache.cercar("Camacho").size(), "L'índex hauria de trobar l'alumne inicial.");
+        List<String> alumnesAws1 = ambCache.llistarAlumnes("AWS1");
+        Document document = cache.obtenir(tempFilePath);
+
+        // Canvi extern a un sol curs; la recàrrega de la memòria cau fa el paper de l'observador del directori
+        Files.writeString(tempFilePath, XML_CONTENT.replace("CAMACHO, David", "PUIG, Marta"));
+        assertTrue(cache.recarregar(tempFilePath), "La memòria cau hauria de detectar el canvi.");
+        assertSame(document, cache.obtenir(tempFilePath),
+                "El document en memòria s'hauria d'actualitzar sense tornar-lo a analitzar.");
+
+        assertEquals(1, ambCache.cercar("Puig").size(), "L'índex hauria d'incloure l'alumne del curs canviat.");
+        assertEquals(List.of("ALVAREZ, Tomas", "PUIG, Marta"), ambCache.llistarAlumnes("AMS2"),
+                "Els alumnes del curs canviat s'haurien de tornar a llegir.");
+        assertSame(alumnesAws1, ambCache.llistarAlumnes("AWS1"),
+                "Els resultats del curs sense canvis s'haurien de conservar.");
+    }
+
+    @Test
+    void testTransaccioGranEnUnaEscriptura() throws IOException {
+        int alumnes = 5_000;
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<cursos>\n");
+        for (String idCurs : List.of("ORIGEN", "DESTI")) {
+            xml.append("  <curs id=\"").append(idCurs).append("\">\n    <tutor>TUTOR</tutor>\n    <alumnes>\n");
+            for (int i = 0; i < alumnes; i++) {
+                xml.append("      <alumne>").append(idCurs).append(String.format("%05d", i)).append(", Nom</alumne>\n");
+            }
+            xml.append("    </alumnes>\n  </curs>\n");
+        }
+        Files.writeString(tempFilePath, xml.append("</cursos>\n"));
+
+        TransaccioCursos transaccio = new TransaccioCursos();
+        for (int i = 0; i < alumnes; i += 2) {
+            transaccio.moure(String.format("ORIGEN%05d, Nom", i), "ORIGEN", "DESTI");
+        }
+        long bytesAbans = Metriques.comptador(Metriques.BYTES_ESCRITS).valor();
+        app.confirmar(transaccio);
+
+        assertEquals(Files.size(tempFilePath), Metriques.comptador(Metriques.BYTES_ESCRITS).valor() - bytesAbans,
+                "Tota la transacció s'hauria de guardar amb una sola escriptura.");
+        assertEquals(alumnes / 2, app.llistarAlumnes("ORIGEN").size(), "Alumnes que queden al curs d'origen.");
+        List<String> desti = app.llistarAlumnes("DESTI");
+        assertEquals(alumnes + alumnes / 2, desti.size(), "Alumnes del curs de destí.");
+        assertTrue(OrdreAlumnes.esOrdenada(desti), "El curs de destí hauria de quedar ordenat.");
+    }
+
+    @Test
+    void testEscripturesPropiesAmbCache() {
+        CacheDocuments cache = new CacheDocuments();
+        PR132Main ambCache = new PR132Main(tempFilePath, cache);
+        ambCache.afegirAlumne("AMS2", "BOSCH, Laia");
+        List<String> alumnesAms2 = ambCache.llistarAlumnes("AMS2");
+        assertEquals(List.of("ALVAREZ, Tomas", "BOSCH, Laia", "CAMACHO, David"), alumnesAms2, "L'alta hauria de ser visible.");
+
+        // La recàrrega fa el paper de l'observador del directori, que veu l'escriptura pròpia com un canvi
+        assertTrue(cache.recarregar(tempFilePath), "La memòria cau hauria de veure el fitxer modificat.");
+        assertSame(alumnesAms2, ambCache.llistarAlumnes("AMS2"),
+                "Una escriptura de la mateixa aplicació no hauria d'invalidar els resultats del curs.");
+    }
+
+    @Test
+    void testConsultaFallidaNoRetornaUnaLlistaBuida() throws IOException {
+        Files.writeString(tempFilePath, "<cursos><curs id=\"AMS2\"><moduls>");
+        assertThrows(RuntimeException.class, () -> app.llistarCursos(), "Un fitxer trencat no hauria de semblar buit.");
+        assertThrows(RuntimeException.class, () -> app.mostrarModuls("AMS2"), "Un fitxer trencat no hauria de semblar buit.");
+        assertThrows(RuntimeException.class, () -> app.llistarAlumnes("AMS2"), "Un fitxer trencat no hauria de semblar buit.");
+
+        Files.writeString(tempFilePath, XML_CONTENT);
+        assertEquals(2, app.llistarCursos().size(), "Amb el fitxer reparat la consulta s'hauria de tornar a calcular.");
+    }
+
+    @Test
+    void testCacheResultats() throws IOException {
+        List<List<String>> cursos = app.llistarCursos();
+        List<List<String>> moduls = app.mostrarModuls("AMS2");
+        long encerts = Metriques.comptador(Metriques.CACHE_RESULTATS_ENCERTS).valor();
+
+        assertSame(cursos, app.llistarCursos(), "La llista de cursos repetida hauria de sortir de la memòria cau.");
+        assertSame(moduls, app.mostrarModuls("AMS2"), "Els mòduls repetits haurien de sortir de la memòria cau.");
+        assertEquals(2, Metriques.comptador(Metriques.CACHE_RESULTATS_ENCERTS).valor() - encerts, "Encerts comptats.");
+
+        app.afegirAlumne("AWS1", "BOSCH, Laia");
+        assertEquals("3", app.llistarCursos().get(1).get(2), "El nombre d'alumnes hauria de reflectir l'alta.");
+        assertSame(moduls, app.mostrarModuls("AMS2"), "Una alta d'alumne no hauria d'invalidar els mòduls.");
+
+        // Un canvi extern al fitxer invalida tots els resultats
+        Files.writeString(tempFilePath, Files.readString(tempFilePath).replace("Accés a dades", "Accés a dades i XML"));
+        assertEquals("Accés a dades i XML", app.mostrarModuls("AMS2").get(0).get(1),
+                "Els mòduls s'haurien de tornar a llegir després d'un canvi extern.");
+    }
 }
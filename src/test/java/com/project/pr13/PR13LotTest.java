@@ -0,0 +1,81 @@
+package com.project.pr13;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PR13LotTest {
+
+    private static final String XML_CONTENT = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <cursos>
+                <curs id="AMS2">
+                    <tutor>LARA, Francesc</tutor>
+                    <alumnes>
+                        <alumne>ALVAREZ, Tomas</alumne>
+                        <alumne>CAMACHO, David</alumne>
+                    </alumnes>
+                </curs>
+                <curs id="AWS1">
+                    <tutor>Julian Fuentes</tutor>
+                    <alumnes>
+                        <alumne>FERNANDEZ, Ruben</alumne>
+                    </alumnes>
+                </curs>
+            </cursos>
+            """;
+
+    @TempDir
+    File tempDir;  // Directori temporal proporcionat per JUnit
+
+    @BeforeEach
+    void setup() throws IOException {
+        try (FileWriter writer = new FileWriter(new File(tempDir, "cursos.xml"))) {
+            writer.write(XML_CONTENT);
+        }
+    }
+
+    @Test
+    void testExecutarGuio() throws IOException {
+        // Mou un alumne d'un curs a un altre i afegeix-ne un de nou amb un sol guió
+        String guio = """
+                # Guió de prova
+                cursos
+                eliminar AMS2 CAMACHO, David
+                afegir AWS1 CAMACHO, David
+                afegir AWS1 NOU, Alumne
+                alumnes AWS1
+                """;
+        PR13Lot lot = new PR13Lot(tempDir);
+        lot.executar(new BufferedReader(new StringReader(guio)));
+        assertEquals(5, lot.getOrdresExecutades(), "S'haurien d'haver executat cinc ordres.");
+
+        // Comprova que els canvis s'han persistit en acabar el lot
+        PR132Main app = new PR132Main(tempDir.toPath().resolve("cursos.xml"));
+        List<String> alumnesAMS2 = app.llistarAlumnes("AMS2");
+        List<String> alumnesAWS1 = app.llistarAlumnes("AWS1");
+        assertFalse(alumnesAMS2.contains("CAMACHO, David"), "L'alumne hauria d'haver sortit d'AMS2.");
+        assertTrue(alumnesAWS1.contains("CAMACHO, David"), "L'alumne hauria d'haver entrat a AWS1.");
+        assertTrue(alumnesAWS1.contains("NOU, Alumne"), "L'alumne nou hauria de ser a AWS1.");
+    }
+
+    @Test
+    void testOrdreDesconeguda() throws IOException {
+        // Una ordre errònia no atura el lot
+        PR13Lot lot = new PR13Lot(tempDir);
+        lot.executar(new BufferedReader(new StringReader("inventada\nmoduls\ncursos\n")));
+        assertEquals(1, lot.getOrdresExecutades(), "Només l'ordre 'cursos' és vàlida.");
+        assertEquals(2, lot.getOrdresErronies(), "Hi hauria d'haver dues ordres errònies.");
+    }
+}
@@ -0,0 +1,87 @@
+package com.project.pr13.carrega;
+
+import com.project.pr13.cursos.OrdreAlumnes;
+import com.project.pr13.model.Curs;
+import com.project.pr13.xml.VinculadorXML;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProvaCarregaTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testGeneradorDades() throws IOException {
+        Path fitxer = tempDir.resolve("cursos.xml");
+        new GeneradorDades(7).escriureCursos(fitxer, 30, 40, 1.2);
+
+        List<Curs> cursos = VinculadorXML.llegirCursos(fitxer);
+        assertEquals(30, cursos.size(), "Nombre de cursos generats");
+        int alumnes = cursos.stream().mapToInt(curs -> curs.alumnes().size()).sum();
+        assertTrue(Math.abs(alumnes - 30 * 40) <= 30, "El total d'alumnes hauria de ser proper a la mitjana: " + alumnes);
+        assertTrue(cursos.get(0).alumnes().size() > 5 * cursos.get(29).alumnes().size(),
+                "Amb biaix, el primer curs hauria de ser molt més gran que l'últim");
+        for (Curs curs : cursos) {
+            assertTrue(OrdreAlumnes.esOrdenada(curs.alumnes()), "Els alumnes de " + curs.id() + " haurien d'estar ordenats");
+            assertEquals(curs.alumnes().size(), new HashSet<>(curs.alumnes()).size(),
+                    "Els alumnes de " + curs.id() + " haurien de ser únics");
+        }
+
+        Path repeticio = tempDir.resolve("repeticio.xml");
+        new GeneradorDades(7).escriureCursos(repeticio, 30, 40, 1.2);
+        assertArrayEquals(Files.readAllBytes(fitxer), Files.readAllBytes(repeticio),
+                "La mateixa llavor hauria de generar les mateixes dades");
+
+        Path persones = tempDir.resolve("persones.xml");
+        new GeneradorDades(7).escriurePersones(persones, 250);
+        assertEquals(250, VinculadorXML.llegirPersones(persones).size(), "Nombre de persones generades");
+    }
+
+    @Test
+    void testProvaCurta() throws IOException, InterruptedException {
+        ProvaCarrega.Configuracio configuracio = new ProvaCarrega.Configuracio(20, 10, 1, 10, 2,
+                Duration.ZERO, Duration.ofMillis(500), 0.3, ProvaCarrega.Mode.LOT, 1, 200);
+
+        ProvaCarrega.Resultat resultat = new ProvaCarrega(configuracio).executar(tempDir);
+
+        assertEquals(0, resultat.errors(), "La prova no hauria de tenir errors: " + resultat.primerError());
+        assertNull(resultat.primerError(), "No hi hauria d'haver cap error");
+        assertTrue(resultat.total().recompte() > 0, "S'haurien d'haver mesurat operacions");
+        assertTrue(resultat.latencies().containsKey(ProvaCarrega.Operacio.AFEGIR), "La barreja hauria d'incloure altes");
+        assertTrue(resultat.total().percentil(50) <= resultat.total().percentil(99)
+                        && resultat.total().percentil(99) <= resultat.total().percentil(99.9),
+                "Els percentils haurien de ser creixents");
+        List<Curs> cursos = VinculadorXML.llegirCursos(tempDir.resolve("cursos.xml"));
+        assertEquals(20, cursos.size(), "El fitxer de cursos s'hauria de poder llegir després de la prova");
+        assertEquals(200, resultat.trasllatsLot(), "S'hauria de mesurar la transacció de trasllats");
+        assertEquals(200, cursos.get(1).alumnes().stream().filter(alumne -> alumne.startsWith("TRASLLAT")).count(),
+                "Els trasllats de la transacció haurien de ser al curs de destí");
+    }
+
+    @Test
+    void testConfiguracio() {
+        ProvaCarrega.Configuracio configuracio = ProvaCarrega.Configuracio.llegir(
+                new String[]{"cursos=2000", "fils=8", "mode=lot", "durada=2.5", "trasllats=0"});
+
+        assertEquals(2000, configuracio.cursos(), "Nombre de cursos");
+        assertEquals(8, configuracio.fils(), "Nombre de fils");
+        assertEquals(ProvaCarrega.Mode.LOT, configuracio.mode(), "Mode");
+        assertEquals(Duration.ofMillis(2500), configuracio.durada(), "Durada");
+        assertEquals(0, configuracio.trasllatsLot(), "Trasllats del lot");
+        assertEquals(ProvaCarrega.Configuracio.perDefecte().alumnesPerCurs(), configuracio.alumnesPerCurs(),
+                "Les claus absents haurien de prendre el valor per defecte");
+    }
+}
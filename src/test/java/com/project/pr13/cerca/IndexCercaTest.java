@@ -0,0 +1,69 @@
+package com.project.pr13.cerca;
+
+import com.project.pr13.model.Curs;
+import com.project.pr13.model.Modul;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexCercaTest {
+
+    private static final List<Curs> CURSOS = List.of(
+            new Curs("AMS2", "LARA, Francesc",
+                    List.of("ALVAREZ, Tomas", "GARCIA, Daniel", "GÓMEZ, Adrián"),
+                    List.of(new Modul("M06", "Accés a dades"), new Modul("M07", "Desenvolupament d'interfícies"))),
+            new Curs("AWS1", "Julian Fuentes",
+                    List.of("GARCIA, Marta", "JANSSEN, Gerard"),
+                    List.of()));
+
+    @Test
+    void testCercaPerPrefixSenseAccents() {
+        IndexCerca index = IndexCerca.construir(CURSOS);
+
+        assertEquals(List.of(Coincidencia.alumne("AMS2", "GÓMEZ, Adrián")), index.cercar("gomez adri"),
+                "La cerca no hauria de distingir majúscules ni accents i ha d'acceptar prefixos");
+        assertEquals(List.of(Coincidencia.modul("AMS2", "M06", "Accés a dades")), index.cercar("ACCES"),
+                "Els títols dels mòduls també s'haurien d'indexar");
+        assertEquals(List.of(Coincidencia.alumne("AMS2", "GARCIA, Daniel"), Coincidencia.alumne("AWS1", "GARCIA, Marta")),
+                index.cercar("garcia"), "La cerca hauria de cobrir tots els cursos");
+        assertTrue(index.cercar("garcia tomas").isEmpty(), "Totes les paraules de la consulta han de coincidir");
+    }
+
+    @Test
+    void testCercaAproximada() {
+        IndexCerca index = IndexCerca.construir(CURSOS);
+
+        assertTrue(index.cercar("jansen").isEmpty(), "Sense tolerància no hi hauria d'haver coincidència");
+        assertEquals(List.of(Coincidencia.alumne("AWS1", "JANSSEN, Gerard")), index.cercarAproximat("jansen", 1),
+                "Una lletra de menys hauria d'estar dins la distància d'edició");
+        assertEquals(3, IndexCerca.distanciaEdicio("abc", "xyzabc", 2), "La distància limitada no hauria de superar màxim + 1");
+        assertEquals(2, IndexCerca.distanciaEdicio("gacria", "garcia", 2), "Un intercanvi de lletres són dues operacions");
+        assertEquals(List.of(Coincidencia.alumne("AMS2", "ALVAREZ, Tomas")), index.cercarAproximat("tomasso", 2),
+                "Dues lletres de més haurien d'estar dins la distància d'edició");
+
+        index.alumneEliminat("AWS1", "JANSSEN, Gerard");
+        assertTrue(index.cercarAproximat("jansen", 1).isEmpty(), "Les paraules eliminades no haurien de ser candidates");
+    }
+
+    @Test
+    void testActualitzacioIncremental() {
+        IndexCerca index = IndexCerca.construir(CURSOS);
+
+        index.alumneAfegit("AWS1", "PUIG, Núria");
+        index.alumneAfegit("AWS1", "PUIG, Núria");
+        assertEquals(List.of(Coincidencia.alumne("AWS1", "PUIG, Núria")), index.cercar("nuria"),
+                "L'alumne afegit s'hauria de trobar");
+
+        index.alumneEliminat("AWS1", "PUIG, Núria");
+        assertEquals(1, index.cercar("puig").size(), "L'alumne repetit encara hi és una vegada");
+        index.alumneEliminat("AWS1", "PUIG, Núria");
+        assertTrue(index.cercar("puig").isEmpty(), "Després de la segona baixa no s'hauria de trobar");
+
+        index.eliminarCurs("AMS2");
+        assertEquals(List.of(Coincidencia.alumne("AWS1", "GARCIA, Marta")), index.cercar("garcia"),
+                "Els elements del curs eliminat no s'haurien de trobar");
+    }
+}
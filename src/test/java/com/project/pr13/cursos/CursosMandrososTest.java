@@ -0,0 +1,114 @@
+package com.project.pr13.cursos;
+
+import com.project.pr13.model.Modul;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CursosMandrososTest {
+
+    private static final String XML_CONTENT = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <!-- Cursos <curs id="FALS"> dins d'un comentari -->
+            <cursos>
+                <curs id="AMS2">
+                    <tutor>LARA, Francesc</tutor>
+                    <alumnes>
+                        <alumne>ALVAREZ, Tomàs</alumne>
+                        <alumne><![CDATA[CAMACHO, David </alumnes>]]></alumne>
+                    </alumnes>
+                    <moduls>
+                        <modul id="M06">
+                            <titol>Accés a dades</titol>
+                        </modul>
+                        <modul id="M09">
+                            <titol>Serveis &amp; processos</titol>
+                        </modul>
+                    </moduls>
+                </curs>
+                <curs id="A&amp;B">
+                    <tutor>Julian Fuentes</tutor>
+                    <alumnes/>
+                </curs>
+            </cursos>
+            """;
+
+    @TempDir
+    Path tempDir;  // Directori temporal proporcionat per JUnit
+
+    private Path fitxer;
+
+    @BeforeEach
+    void setup() throws IOException {
+        fitxer = tempDir.resolve("cursos.xml");
+        Files.writeString(fitxer, XML_CONTENT, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testModulsSenseCarregarAlumnes() {
+        CursosMandrosos cursos = new CursosMandrosos(fitxer);
+        assertEquals(2, cursos.cursos().size(), "Hi hauria d'haver dos cursos.");
+
+        CursosMandrosos.CursMandros ams2 = cursos.cursos("AMS2").get(0);
+        assertEquals(List.of(new Modul("M06", "Accés a dades"), new Modul("M09", "Serveis & processos")), ams2.moduls());
+        assertTrue(ams2.modulsCarregats());
+        assertFalse(ams2.alumnesCarregats(), "Consultar els mòduls no hauria de carregar els alumnes.");
+
+        assertEquals(List.of("ALVAREZ, Tomàs", "CAMACHO, David </alumnes>"), ams2.alumnes());
+    }
+
+    @Test
+    void testSeccionsBuidesIIdsEscapats() {
+        CursosMandrosos cursos = new CursosMandrosos(fitxer);
+        CursosMandrosos.CursMandros ab = cursos.cursos("A&B").get(0);
+        assertTrue(ab.alumnes().isEmpty());
+        assertTrue(ab.moduls().isEmpty());
+    }
+
+    @Test
+    void testComentarisBuits() throws IOException {
+        Files.writeString(fitxer, XML_CONTENT
+                .replace("<cursos>", "<cursos><!---->")
+                .replace("<alumnes/>", "<!----><alumnes><!----><alumne>PUIG, Marta</alumne></alumnes><!---->"),
+                StandardCharsets.UTF_8);
+        CursosMandrosos cursos = new CursosMandrosos(fitxer);
+        assertEquals(2, cursos.cursos().size(), "Els comentaris buits no haurien d'amagar cap curs.");
+        assertEquals(List.of("PUIG, Marta"), cursos.cursos("A&B").get(0).alumnes(),
+                "La secció que segueix un comentari buit s'hauria de localitzar.");
+    }
+
+    @Test
+    void testNomesAdmetUtf8() throws IOException {
+        assertTrue(CursosMandrosos.admet(fitxer), "Un fitxer en UTF-8 s'hauria de poder llegir per seccions.");
+        Files.writeString(fitxer, XML_CONTENT.substring(XML_CONTENT.indexOf("<cursos>")), StandardCharsets.UTF_8);
+        assertTrue(CursosMandrosos.admet(fitxer), "Sense declaració XML el fitxer és en UTF-8.");
+
+        Files.writeString(fitxer, XML_CONTENT.replace("UTF-8", "ISO-8859-1"), StandardCharsets.ISO_8859_1);
+        assertFalse(CursosMandrosos.admet(fitxer), "Un fitxer en Latin-1 no s'hauria de llegir per seccions.");
+        assertThrows(IllegalArgumentException.class, () -> new CursosMandrosos(fitxer));
+
+        Files.writeString(fitxer, XML_CONTENT.replace("UTF-8", "UTF-16"), StandardCharsets.UTF_16);
+        assertFalse(CursosMandrosos.admet(fitxer), "Un fitxer en UTF-16 no s'hauria de llegir per seccions.");
+    }
+
+    @Test
+    void testActualitzarDespresDeCanvis() throws IOException {
+        CursosMandrosos cursos = new CursosMandrosos(fitxer);
+        assertFalse(cursos.actualitzarSiCal(), "Sense canvis no cal tornar a escanejar.");
+
+        Files.writeString(fitxer, XML_CONTENT.replace("Accés a dades", "Accés a dades i persistència"), StandardCharsets.UTF_8);
+        assertTrue(cursos.actualitzarSiCal(), "Amb canvis s'hauria de tornar a escanejar.");
+        assertEquals("Accés a dades i persistència", cursos.cursos("AMS2").get(0).moduls().get(0).titol());
+    }
+}
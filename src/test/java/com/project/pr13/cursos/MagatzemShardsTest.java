@@ -0,0 +1,103 @@
+package com.project.pr13.cursos;
+
+import com.project.pr13.model.Curs;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MagatzemShardsTest {
+
+    private static final String XML_CONTENT = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <cursos>
+                <curs id="AMS2">
+                    <tutor>LARA, Francesc</tutor>
+                    <alumnes>
+                        <alumne>ALVAREZ, Tomas</alumne>
+                        <alumne>CAMACHO, David</alumne>
+                    </alumnes>
+                    <moduls>
+                        <modul id="M06">
+                            <titol>Accés a dades</titol>
+                        </modul>
+                    </moduls>
+                </curs>
+                <curs id="AWS1">
+                    <tutor>Julian Fuentes</tutor>
+                    <alumnes>
+                        <alumne>FERNANDEZ, Ruben</alumne>
+                    </alumnes>
+                </curs>
+            </cursos>
+            """;
+
+    @TempDir
+    Path tempDir;  // Directori temporal proporcionat per JUnit
+
+    private Path cursosXml;
+    private Path dirMagatzem;
+
+    @BeforeEach
+    void setup() throws IOException {
+        cursosXml = tempDir.resolve("cursos.xml");
+        dirMagatzem = tempDir.resolve("shards");
+        Files.writeString(cursosXml, XML_CONTENT, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testImportarIExportar() {
+        MagatzemShards.importar(cursosXml, dirMagatzem);
+
+        // Un magatzem obert de nou llegeix el manifest i carrega els fragments en paral·lel
+        MagatzemShards magatzem = new MagatzemShards(dirMagatzem);
+        assertEquals(List.of("AMS2", "AWS1"), magatzem.ids());
+        List<Curs> cursos = magatzem.carregarTots();
+        assertEquals(EscanerCursos.llegirCursos(cursosXml).values().stream().toList(), cursos);
+
+        Path exportat = tempDir.resolve("exportat.xml");
+        magatzem.exportar(exportat);
+        assertEquals(EscanerCursos.calcularEmpremtes(cursosXml), EscanerCursos.calcularEmpremtes(exportat),
+                "El fitxer exportat hauria de tenir el mateix contingut que l'original.");
+    }
+
+    @Test
+    void testEscripturaNomesTocaElFragmentAfectat() throws IOException {
+        MagatzemShards magatzem = MagatzemShards.importar(cursosXml, dirMagatzem);
+        Path fragmentAms2 = magatzem.rutaFragment("AMS2");
+        Path fragmentAws1 = magatzem.rutaFragment("AWS1");
+        FileTime antic = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(fragmentAms2, antic);
+        Files.setLastModifiedTime(fragmentAws1, antic);
+
+        assertTrue(magatzem.afegirAlumne("AWS1", "NOU, Alumne"));
+        assertEquals(antic, Files.getLastModifiedTime(fragmentAms2), "El fragment d'AMS2 no s'hauria d'haver reescrit.");
+        assertNotEquals(antic, Files.getLastModifiedTime(fragmentAws1), "El fragment d'AWS1 s'hauria d'haver reescrit.");
+
+        MagatzemShards reobert = new MagatzemShards(dirMagatzem);
+        assertTrue(reobert.curs("AWS1").alumnes().contains("NOU, Alumne"));
+    }
+
+    @Test
+    void testCursNouIEliminat() {
+        MagatzemShards magatzem = MagatzemShards.importar(cursosXml, dirMagatzem);
+        magatzem.guardar(new Curs("DAM 1", "GARCIA, Anna", List.of(), List.of()));
+        assertTrue(magatzem.eliminar("AMS2"));
+
+        MagatzemShards reobert = new MagatzemShards(dirMagatzem);
+        assertEquals(List.of("AWS1", "DAM 1"), reobert.ids());
+        assertEquals("GARCIA, Anna", reobert.curs("DAM 1").tutor());
+        assertNull(reobert.curs("AMS2"));
+    }
+}
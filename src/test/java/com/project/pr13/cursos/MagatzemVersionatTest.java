@@ -0,0 +1,70 @@
+package com.project.pr13.cursos;
+
+import com.project.pr13.model.Curs;
+import com.project.pr13.model.Modul;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MagatzemVersionatTest {
+
+    private static final List<Curs> CURSOS = List.of(
+            new Curs("AWS1", "Julian Fuentes", List.of("FERNANDEZ, Ruben"), List.of()),
+            new Curs("AMS2", "LARA, Francesc", List.of("ALVAREZ, Tomas"), List.of(new Modul("M06", "Accés a dades"))));
+
+    @Test
+    void testInstantaniesImmutables() {
+        MagatzemVersionat magatzem = new MagatzemVersionat(CURSOS);
+        MagatzemVersionat.Instantania inicial = magatzem.instantania();
+
+        long versio = magatzem.afegirAlumne("AMS2", "CAMACHO, David");
+        magatzem.guardar(new Curs("DAM1", "PUIG, Anna", List.of(), List.of()));
+
+        assertEquals(1, versio, "Cada modificació hauria de crear una versió nova");
+        assertEquals(List.of("ALVAREZ, Tomas"), inicial.curs("AMS2").alumnes(), "La instantània inicial no hauria de canviar");
+        assertEquals(List.of("AWS1", "AMS2", "DAM1"), magatzem.instantania().cursos().stream().map(Curs::id).toList(),
+                "Els cursos haurien de mantenir l'ordre d'inserció");
+        assertSame(inicial.curs("AWS1"), magatzem.instantania().curs("AWS1"), "Els cursos no modificats s'haurien de compartir");
+    }
+
+    @Test
+    void testDiferenciesIRestauracio() {
+        MagatzemVersionat magatzem = new MagatzemVersionat(CURSOS);
+        magatzem.afegirAlumne("AMS2", "CAMACHO, David");
+        magatzem.eliminar("AWS1");
+        long versio = magatzem.guardar(new Curs("DAM1", "PUIG, Anna", List.of(), List.of()));
+
+        ModelCursos.ResultatRecarrega diferencies = magatzem.diferencies(0, versio);
+        assertEquals(Set.of("DAM1"), diferencies.afegits(), "DAM1 s'hauria d'haver afegit");
+        assertEquals(Set.of("AMS2"), diferencies.modificats(), "AMS2 s'hauria d'haver modificat");
+        assertEquals(Set.of("AWS1"), diferencies.eliminats(), "AWS1 s'hauria d'haver eliminat");
+
+        long restaurada = magatzem.restaurar(0);
+        assertEquals(CURSOS, magatzem.instantania().cursos(), "La restauració hauria de tornar al contingut inicial");
+        assertEquals(versio + 1, restaurada, "La restauració hauria de ser una versió nova");
+
+        magatzem.desfer();
+        assertEquals(List.of("AMS2", "DAM1"), magatzem.instantania().cursos().stream().map(Curs::id).toList(),
+                "Desfer hauria de tornar a la versió anterior a la restauració");
+    }
+
+    @Test
+    void testIncorporarNomesElsCursosModificats() {
+        MagatzemVersionat magatzem = new MagatzemVersionat(List.of());
+        long abans = magatzem.incorporar(List.of(CURSOS.get(1)));
+        magatzem.afegirAlumne("AMS2", "CAMACHO, David");
+
+        assertEquals(List.of("AMS2"), magatzem.instantania().cursos().stream().map(Curs::id).toList(),
+                "Només hi hauria de ser el curs incorporat");
+        assertEquals(magatzem.instantania().versio(), magatzem.incorporar(magatzem.instantania().cursos()),
+                "Un curs sense canvis no hauria de crear cap versió");
+        magatzem.cursCanviat("AWS1", null, CURSOS.get(0));
+        assertEquals(1, magatzem.instantania().mida(), "Els canvis externs d'un curs no incorporat s'haurien d'ignorar");
+        assertEquals(Set.of("AMS2"), magatzem.diferencies(abans, magatzem.instantania().versio()).modificats(),
+                "La diferència hauria de contenir la modificació");
+    }
+}
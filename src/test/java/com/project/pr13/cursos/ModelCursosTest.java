@@ -0,0 +1,127 @@
+package com.project.pr13.cursos;
+
+import com.project.pr13.model.Curs;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModelCursosTest {
+
+    private static final String XML_CONTENT = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <cursos>
+                <curs id="AMS2">
+                    <tutor>LARA, Francesc</tutor>
+                    <alumnes>
+                        <alumne>ALVAREZ, Tomas</alumne>
+                        <alumne>CAMACHO, David</alumne>
+                    </alumnes>
+                    <moduls>
+                        <modul id="M06">
+                            <titol>Accés a dades</titol>
+                        </modul>
+                    </moduls>
+                </curs>
+                <curs id="AWS1">
+                    <tutor>Julian Fuentes</tutor>
+                    <alumnes>
+                        <alumne>FERNANDEZ, Ruben</alumne>
+                    </alumnes>
+                </curs>
+            </cursos>
+            """;
+
+    @TempDir
+    Path tempDir;  // Directori temporal proporcionat per JUnit
+
+    private Path fitxer;
+    private ModelCursos model;
+
+    @BeforeEach
+    void setup() throws IOException {
+        fitxer = tempDir.resolve("cursos.xml");
+        Files.writeString(fitxer, XML_CONTENT, StandardCharsets.UTF_8);
+        model = new ModelCursos(fitxer);
+    }
+
+    @Test
+    void testCarregaInicial() {
+        assertEquals(2, model.cursos().size(), "Hi hauria d'haver dos cursos.");
+        Curs ams2 = model.curs("AMS2");
+        assertEquals("LARA, Francesc", ams2.tutor());
+        assertEquals(List.of("ALVAREZ, Tomas", "CAMACHO, David"), ams2.alumnes());
+        assertEquals("M06", ams2.moduls().get(0).id());
+    }
+
+    @Test
+    void testNomesEsReconstrueixElCursModificat() throws IOException {
+        Curs aws1 = model.curs("AWS1");
+        Files.writeString(fitxer, XML_CONTENT.replace("CAMACHO, David", "NOU, Alumne"), StandardCharsets.UTF_8);
+
+        ModelCursos.ResultatRecarrega resultat = model.recarregar();
+        assertEquals(Set.of("AMS2"), resultat.modificats(), "Només AMS2 hauria d'haver canviat.");
+        assertTrue(resultat.afegits().isEmpty() && resultat.eliminats().isEmpty());
+        assertSame(aws1, model.curs("AWS1"), "El curs sense canvis no s'hauria de reconstruir.");
+        assertEquals(List.of("ALVAREZ, Tomas", "NOU, Alumne"), model.curs("AMS2").alumnes(),
+                "El curs modificat hauria de tenir els alumnes nous.");
+    }
+
+    @Test
+    void testCanvisDeFormatNoSonCanvis() throws IOException {
+        Files.writeString(fitxer, XML_CONTENT.replace("    ", "  "), StandardCharsets.UTF_8);
+        assertTrue(model.recarregar().senseCanvis(), "La reindentació no hauria de comptar com a canvi.");
+    }
+
+    @Test
+    void testCursEliminat() throws IOException {
+        String senseAws1 = XML_CONTENT.substring(0, XML_CONTENT.indexOf("    <curs id=\"AWS1\">")) + "</cursos>\n";
+        Files.writeString(fitxer, senseAws1, StandardCharsets.UTF_8);
+
+        ModelCursos.ResultatRecarrega resultat = model.recarregar();
+        assertEquals(Set.of("AWS1"), resultat.eliminats());
+        assertNull(model.curs("AWS1"), "El curs eliminat no hauria de ser al model.");
+    }
+
+    @Test
+    void testActualitzaNomesElsCursosModificatsDelDocument() throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(fitxer.toFile());
+        Element aws1 = (Element) document.getElementsByTagName("curs").item(1);
+
+        String nouCurs = """
+                    <curs id="DAM1">
+                        <tutor>PUIG, Anna</tutor>
+                    </curs>
+                </cursos>
+                """;
+        Files.writeString(fitxer, XML_CONTENT.replace("CAMACHO, David", "NOU, Alumne")
+                .replace("</cursos>\n", nouCurs), StandardCharsets.UTF_8);
+
+        ModelCursos.ResultatRecarrega resultat = model.recarregar(document);
+        assertEquals(Set.of("AMS2"), resultat.modificats());
+        assertEquals(Set.of("DAM1"), resultat.afegits());
+
+        NodeList cursos = document.getElementsByTagName("curs");
+        assertEquals(3, cursos.getLength(), "El document hauria de tenir el curs afegit.");
+        assertSame(aws1, cursos.item(1), "El curs sense canvis no s'hauria de substituir al document.");
+        assertEquals("DAM1", ((Element) cursos.item(2)).getAttribute("id"), "El curs afegit hauria d'anar al final.");
+        assertTrue(((Element) cursos.item(0)).getTextContent().contains("NOU, Alumne"),
+                "El curs modificat hauria de reflectir el fitxer.");
+    }
+}
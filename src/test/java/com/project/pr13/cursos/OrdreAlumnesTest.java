@@ -0,0 +1,61 @@
+package com.project.pr13.cursos;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrdreAlumnesTest {
+
+    @Test
+    void testOrdreICercaBinaria() {
+        List<String> alumnes = new ArrayList<>();
+        for (String nom : List.of("GARCIA, Daniel", "àlvarez, Tomàs", "DE LA CRUZ, Sergio", "Díaz, Jose",
+                "ALVAREZ, Tomas", "DIAZ, Salvador", "ÇAPELL, Pere", "CAMACHO, David")) {
+            OrdreAlumnes.inserir(alumnes, nom);
+        }
+
+        List<String> esperat = new ArrayList<>(alumnes);
+        esperat.sort(OrdreAlumnes.COMPARADOR);
+        assertEquals(esperat, alumnes, "Les insercions haurien de mantenir l'ordre");
+        assertTrue(alumnes.indexOf("CAMACHO, David") < alumnes.indexOf("ÇAPELL, Pere")
+                && alumnes.indexOf("ÇAPELL, Pere") < alumnes.indexOf("DE LA CRUZ, Sergio"),
+                "La Ç s'hauria d'ordenar amb la C i no després de la Z");
+        assertTrue(alumnes.indexOf("Díaz, Jose") < alumnes.indexOf("DIAZ, Salvador"),
+                "Els accents i les majúscules no haurien de separar els cognoms iguals");
+
+        assertEquals(alumnes.indexOf("GARCIA, Daniel"), OrdreAlumnes.posicio(alumnes, "GARCIA, Daniel"), "Cerca d'un alumne");
+        assertEquals(-1, OrdreAlumnes.posicio(alumnes, "GARCIA, Laia"), "Un alumne inexistent no s'hauria de trobar");
+        assertTrue(OrdreAlumnes.eliminar(alumnes, "DE LA CRUZ, Sergio"), "L'alumne s'hauria d'eliminar");
+        assertFalse(alumnes.contains("DE LA CRUZ, Sergio"), "L'alumne ja no hauria de ser a la llista");
+    }
+
+    @Test
+    void testRang() {
+        List<String> alumnes = new ArrayList<>(List.of("ALVAREZ, Tomas", "CAMACHO, David", "DE LA CRUZ, Sergio",
+                "DIAZ, Jose", "Éric, Sánchez", "FERRANDIZ, Carlos", "FÈRRIZ, Anna", "GALLEGO, Ivan"));
+        alumnes.sort(OrdreAlumnes.COMPARADOR);
+
+        assertEquals(List.of("DE LA CRUZ, Sergio", "DIAZ, Jose", "Éric, Sánchez", "FERRANDIZ, Carlos", "FÈRRIZ, Anna"),
+                OrdreAlumnes.rang(alumnes, "d", "f"), "El rang D–F hauria d'incloure els noms que comencen per F");
+        assertEquals(List.of("FERRANDIZ, Carlos"), OrdreAlumnes.rang(alumnes, "FERRA", "ferra"),
+                "Un rang amb el mateix prefix hauria de trobar els noms que hi comencen");
+        assertTrue(OrdreAlumnes.rang(alumnes, "H", "Z").isEmpty(), "Un rang sense noms hauria de ser buit");
+
+        // El rang per cerca binària ha de coincidir amb un filtre lineal
+        Random aleatori = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            String desde = String.valueOf((char) ('A' + aleatori.nextInt(8)));
+            String fins = String.valueOf((char) ('A' + aleatori.nextInt(8)));
+            List<String> filtrats = alumnes.stream()
+                    .filter(nom -> !OrdreAlumnes.abansDelRang(nom, desde) && !OrdreAlumnes.despresDelRang(nom, fins))
+                    .toList();
+            assertEquals(filtrats, OrdreAlumnes.rang(alumnes, desde, fins), "Rang " + desde + "–" + fins);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.project.pr13.cursos;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PaginadorTest {
+
+    private static Pagina<String> pagina(List<String> elements, int limit, String cursor) {
+        Paginador<String> paginador = new Paginador<>(cursor, limit, Function.identity());
+        for (String element : elements) {
+            paginador.afegir(element);
+        }
+        return paginador.pagina();
+    }
+
+    @Test
+    void testRecorregutComplet() {
+        List<String> elements = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            elements.add("A" + i);
+        }
+        List<String> vistos = new ArrayList<>();
+        String cursor = null;
+        int pagines = 0;
+        do {
+            Pagina<String> pagina = pagina(elements, 5, cursor);
+            vistos.addAll(pagina.elements());
+            cursor = pagina.seguentCursor();
+            pagines++;
+        } while (cursor != null);
+
+        assertEquals(elements, vistos, "Les pàgines haurien de cobrir tots els elements en ordre");
+        assertEquals(5, pagines, "Hi hauria d'haver cinc pàgines de com a màxim cinc elements");
+        assertNull(pagina(elements.subList(0, 5), 5, null).seguentCursor(), "Una pàgina exacta no hauria de tenir cursor");
+    }
+
+    @Test
+    void testCanvisEntrePagines() {
+        List<String> elements = new ArrayList<>(List.of("a", "b", "c", "d", "e", "f"));
+        Pagina<String> primera = pagina(elements, 2, null);
+        assertEquals(List.of("a", "b"), primera.elements(), "Primera pàgina");
+
+        // Una inserció abans del cursor no fa repetir elements
+        elements.add(0, "0");
+        assertEquals(List.of("c", "d"), pagina(elements, 2, primera.seguentCursor()).elements(),
+                "La pàgina hauria de continuar després de l'últim element retornat");
+
+        // Si l'últim element retornat s'elimina, es continua des de la seva posició
+        elements.remove("b");
+        elements.remove("0");
+        assertEquals(List.of("c", "d"), pagina(elements, 2, primera.seguentCursor()).elements(),
+                "Sense l'últim element, la pàgina hauria de començar al seu successor");
+    }
+
+    @Test
+    void testDuplicatsIErrors() {
+        List<String> elements = List.of("x", "x", "x", "x", "y");
+        Pagina<String> primera = pagina(elements, 2, null);
+        Pagina<String> segona = pagina(elements, 2, primera.seguentCursor());
+        assertEquals(List.of("x", "x"), segona.elements(), "Els duplicats s'haurien de situar per posició");
+        assertEquals(List.of("y"), pagina(elements, 2, segona.seguentCursor()).elements(), "Última pàgina");
+        assertFalse(pagina(elements, 2, segona.seguentCursor()).teMes(), "L'última pàgina no hauria de tenir més");
+
+        assertThrows(IllegalArgumentException.class, () -> pagina(elements, 0, null), "El límit ha de ser positiu");
+        assertThrows(IllegalArgumentException.class, () -> pagina(elements, 2, "no és un cursor"),
+                "Un cursor mal format s'hauria de rebutjar");
+    }
+}
@@ -0,0 +1,51 @@
+package com.project.pr13.cursos;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransaccioCursosTest {
+
+    private static final Map<String, List<String>> CURSOS = Map.of(
+            "AMS2", List.of("ALVAREZ, Tomas", "CAMACHO, David"),
+            "AWS1", List.of("FERNANDEZ, Ruben", "JANSSEN, Gerard"));
+
+    @Test
+    void testValidacio() {
+        TransaccioCursos transaccio = new TransaccioCursos()
+                .moure("ALVAREZ, Tomas", "AMS2", "AWS1")
+                .moure("JANSSEN, Gerard", "AWS1", "AMS2")
+                .afegir("AMS2", "BOSCH, Laia");
+
+        Map<String, List<String>> resultat = transaccio.validar(CURSOS::get);
+
+        assertEquals(List.of("BOSCH, Laia", "CAMACHO, David", "JANSSEN, Gerard"), resultat.get("AMS2"),
+                "El curs d'origen hauria de quedar sense l'alumne traslladat i ordenat");
+        assertEquals(List.of("ALVAREZ, Tomas", "FERNANDEZ, Ruben"), resultat.get("AWS1"),
+                "El curs de destí hauria de tenir l'alumne traslladat");
+        assertEquals(List.of("AMS2", "AWS1"), List.copyOf(transaccio.cursosAfectats()), "Cursos afectats");
+        assertEquals(List.of("ALVAREZ, Tomas", "CAMACHO, David"), CURSOS.get("AMS2"),
+                "La validació no hauria de modificar les llistes rebudes");
+    }
+
+    @Test
+    void testOperacionsNoValides() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> new TransaccioCursos().moure("ALVAREZ, Tomas", "AMS2", "AWS1")
+                        .moure("ALVAREZ, Tomas", "AMS2", "AWS1")
+                        .validar(CURSOS::get));
+        assertTrue(error.getMessage().contains("operació 3"), "L'error hauria d'indicar l'operació: " + error.getMessage());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransaccioCursos().moure("ALVAREZ, Tomas", "AMS2", "DAM1").validar(CURSOS::get),
+                "Un curs inexistent hauria de rebutjar la transacció");
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransaccioCursos().afegir("AWS1", "JANSSEN, Gerard").validar(CURSOS::get),
+                "Un alumne que ja és al curs hauria de rebutjar la transacció");
+    }
+}
@@ -0,0 +1,81 @@
+package com.project.pr13.dades;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheDocumentsTest {
+
+    @TempDir
+    Path tempDir;  // Directori temporal proporcionat per JUnit
+
+    private Path persones;
+    private Path cursos;
+    private CacheDocuments cache;
+
+    @BeforeEach
+    void setup() throws IOException {
+        persones = tempDir.resolve("persones.xml");
+        cursos = tempDir.resolve("cursos.xml");
+        Files.writeString(persones, "<persones><persona><nom>Maria</nom></persona></persones>", StandardCharsets.UTF_8);
+        Files.writeString(cursos, "<cursos><curs id=\"AMS2\"/></cursos>", StandardCharsets.UTF_8);
+        cache = new CacheDocuments();
+    }
+
+    @Test
+    void testNomesRecarregaElFitxerModificat() throws IOException {
+        Document docPersones = cache.obtenir(persones);
+        Document docCursos = cache.obtenir(cursos);
+        assertSame(docPersones, cache.obtenir(persones), "El segon accés hauria de venir de la memòria cau.");
+
+        // Sense canvis no es recarrega res
+        assertFalse(cache.recarregar(persones), "Un fitxer sense canvis no s'hauria de recarregar.");
+
+        escriure(persones, "<persones><persona><nom>Maria</nom></persona><persona><nom>Irene</nom></persona></persones>");
+        assertTrue(cache.recarregar(persones), "El fitxer modificat s'hauria de recarregar.");
+        assertEquals(2, cache.obtenir(persones).getElementsByTagName("persona").getLength());
+        assertSame(docCursos, cache.obtenir(cursos), "El fitxer no modificat no s'hauria de recarregar.");
+    }
+
+    @Test
+    void testObservadorNotificaCanvis() throws Exception {
+        cache.obtenir(persones);
+        CountDownLatch recarregat = new CountDownLatch(1);
+        cache.subscriure(ruta -> {
+            if (ruta.getFileName().toString().equals("persones.xml")) {
+                recarregat.countDown();
+            }
+        });
+
+        Document anterior = cache.obtenir(persones);
+        try (ObservadorDades observador = new ObservadorDades(tempDir, cache)) {
+            escriure(persones, "<persones><persona><nom>Irene</nom></persona></persones>");
+            assertTrue(recarregat.await(30, TimeUnit.SECONDS), "L'observador hauria d'haver recarregat el fitxer.");
+        }
+        Document actual = cache.obtenir(persones);
+        assertNotSame(anterior, actual, "El document hauria d'haver estat substituït.");
+        assertEquals("Irene", actual.getElementsByTagName("nom").item(0).getTextContent());
+    }
+
+    // Escriu el contingut i avança la data de modificació perquè el canvi sigui detectable
+    private static void escriure(Path fitxer, String contingut) throws IOException {
+        FileTime anterior = Files.getLastModifiedTime(fitxer);
+        Files.writeString(fitxer, contingut, StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(fitxer, FileTime.fromMillis(anterior.toMillis() + 2_000));
+    }
+}
@@ -0,0 +1,96 @@
+package com.project.pr13.dades;
+
+import com.project.pr13.metriques.Metriques;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheResultatsTest {
+
+    @Test
+    void testInvalidacioPerCurs() {
+        CacheResultats resultats = new CacheResultats();
+        AtomicInteger calculs = new AtomicInteger();
+
+        List<String> ams2 = resultats.obtenir("alumnes", "AMS2", CacheResultats.Dependencia.ALUMNES_DEL_CURS,
+                () -> List.of("ALVAREZ, Tomas", "n" + calculs.incrementAndGet()));
+        resultats.obtenir("alumnes", "AWS1", CacheResultats.Dependencia.ALUMNES_DEL_CURS,
+                () -> List.of("FERNANDEZ, Ruben", "n" + calculs.incrementAndGet()));
+        resultats.obtenir("moduls", "AMS2", CacheResultats.Dependencia.FITXER,
+                () -> List.of("M06", "n" + calculs.incrementAndGet()));
+        resultats.obtenir("cursos", null, CacheResultats.Dependencia.ALUMNES_DE_TOTS,
+                () -> List.of("AMS2", "n" + calculs.incrementAndGet()));
+        assertSame(ams2, resultats.obtenir("alumnes", "AMS2", CacheResultats.Dependencia.ALUMNES_DEL_CURS,
+                () -> List.of("n" + calculs.incrementAndGet())), "Una consulta repetida hauria de reutilitzar el resultat");
+        assertEquals(4, calculs.get(), "Cada consulta s'hauria de calcular una sola vegada");
+
+        resultats.alumneAfegit("AMS2", "BOSCH, Laia");
+
+        resultats.obtenir("alumnes", "AMS2", CacheResultats.Dependencia.ALUMNES_DEL_CURS,
+                () -> List.of("n" + calculs.incrementAndGet()));
+        resultats.obtenir("cursos", null, CacheResultats.Dependencia.ALUMNES_DE_TOTS,
+                () -> List.of("n" + calculs.incrementAndGet()));
+        assertEquals(6, calculs.get(), "Els alumnes del curs modificat i la llista de cursos s'haurien de recalcular");
+        resultats.obtenir("alumnes", "AWS1", CacheResultats.Dependencia.ALUMNES_DEL_CURS,
+                () -> List.of("n" + calculs.incrementAndGet()));
+        resultats.obtenir("moduls", "AMS2", CacheResultats.Dependencia.FITXER,
+                () -> List.of("n" + calculs.incrementAndGet()));
+        assertEquals(6, calculs.get(), "Els altres cursos i els mòduls no s'haurien de recalcular");
+
+        resultats.invalidarTot();
+        assertEquals(0, resultats.mida(), "Invalidar-ho tot hauria de buidar la memòria cau");
+    }
+
+    @Test
+    void testCalculFallitNoEsGuarda() {
+        CacheResultats resultats = new CacheResultats();
+        assertThrows(IllegalStateException.class, () -> resultats.obtenir("moduls", "AMS2",
+                CacheResultats.Dependencia.FITXER, () -> {
+                    throw new IllegalStateException("fitxer il·legible");
+                }), "L'excepció del càlcul s'hauria de propagar");
+        assertEquals(0, resultats.mida(), "Un càlcul fallit no s'hauria de guardar");
+        assertEquals(List.of("M06"), resultats.obtenir("moduls", "AMS2", CacheResultats.Dependencia.FITXER,
+                () -> List.of("M06")), "La consulta següent s'hauria de tornar a calcular");
+    }
+
+    @Test
+    void testExpulsioPerPesITaules() {
+        List<String> fila = List.of("x".repeat(1000));
+        long pesResultat = 160 + CacheResultats.pes("q0") + CacheResultats.pes(fila);
+        CacheResultats resultats = new CacheResultats(3 * pesResultat);
+        long expulsions = Metriques.comptador(Metriques.CACHE_RESULTATS_EXPULSIONS).valor();
+
+        for (int i = 0; i < 3; i++) {
+            resultats.obtenir("q" + i, null, CacheResultats.Dependencia.FITXER, () -> List.copyOf(fila));
+        }
+        // La consulta 0 passa a ser la més recent: l'expulsada ha de ser la 1
+        resultats.obtenir("q0", null, CacheResultats.Dependencia.FITXER, () -> List.copyOf(fila));
+        resultats.obtenir("q3", null, CacheResultats.Dependencia.FITXER, () -> List.copyOf(fila));
+
+        assertEquals(3, resultats.mida(), "El pes màxim hauria de limitar els resultats guardats");
+        assertTrue(resultats.pes() <= 3 * pesResultat, "El pes no hauria de superar el màxim");
+        assertEquals(1, Metriques.comptador(Metriques.CACHE_RESULTATS_EXPULSIONS).valor() - expulsions, "Expulsions");
+        AtomicInteger calculs = new AtomicInteger();
+        resultats.obtenir("q0", null, CacheResultats.Dependencia.FITXER, () -> fila);
+        resultats.obtenir("q1", null, CacheResultats.Dependencia.FITXER, () -> {
+            calculs.incrementAndGet();
+            return fila;
+        });
+        assertEquals(1, calculs.get(), "S'hauria d'haver expulsat la consulta menys utilitzada recentment");
+
+        CacheResultats ambTaules = new CacheResultats();
+        List<String> resultat = ambTaules.obtenir("q", null, CacheResultats.Dependencia.FITXER, () -> List.of("a"));
+        AtomicInteger formats = new AtomicInteger();
+        String taula = ambTaules.taula(resultat, () -> "taula " + formats.incrementAndGet());
+        assertSame(taula, ambTaules.taula(resultat, () -> "taula " + formats.incrementAndGet()),
+                "La taula d'un resultat guardat s'hauria de reutilitzar");
+        assertEquals("taula 2", ambTaules.taula(List.of("a"), () -> "taula " + formats.incrementAndGet()),
+                "Un resultat que no és a la memòria cau s'hauria de formatar cada vegada");
+    }
+}
@@ -0,0 +1,98 @@
+package com.project.pr13.exportacio;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportadorDadesTest {
+
+    private static final String CURSOS_XML = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <cursos>
+                <curs id="AMS2">
+                    <tutor>LARA, Francesc</tutor>
+                    <alumnes>
+                        <alumne>ALVAREZ, Tomas</alumne>
+                        <alumne>O"BRIEN, Sean</alumne>
+                    </alumnes>
+                    <moduls>
+                        <modul id="M06">
+                            <titol>Accés a dades</titol>
+                        </modul>
+                    </moduls>
+                </curs>
+            </cursos>
+            """;
+
+    private static final String PERSONES_XML = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <persones>
+                <persona>
+                    <nom>Maria</nom>
+                    <cognom>López</cognom>
+                    <edat>36</edat>
+                    <ciutat>Barcelona</ciutat>
+                </persona>
+                <persona>
+                    <nom>Joan</nom>
+                    <cognom>Puig</cognom>
+                    <ciutat>Girona</ciutat>
+                </persona>
+            </persones>
+            """;
+
+    @TempDir
+    Path tempDir;  // Directori temporal proporcionat per JUnit
+
+    private Path dataDir;
+    private Path sortida;
+
+    @BeforeEach
+    void setup() throws IOException {
+        dataDir = Files.createDirectories(tempDir.resolve("dades"));
+        sortida = tempDir.resolve("sortida");
+        Files.writeString(dataDir.resolve("cursos.xml"), CURSOS_XML, StandardCharsets.UTF_8);
+        Files.writeString(dataDir.resolve("persones.xml"), PERSONES_XML, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testExportacioCSV() throws IOException {
+        long registres = new ExportadorDades(dataDir, FormatExportacio.CSV).exportarTot(sortida);
+        assertEquals(6, registres, "1 curs + 1 mòdul + 2 alumnes + 2 persones.");
+        assertEquals(List.of("nom,cognom,edat,ciutat", "Maria,López,36,Barcelona", "Joan,Puig,,Girona"),
+                Files.readAllLines(sortida.resolve("persones.csv"), StandardCharsets.UTF_8),
+                "Una edat absent s'hauria d'exportar buida, no com a 0.");
+
+        List<String> alumnes = Files.readAllLines(sortida.resolve("alumnes.csv"), StandardCharsets.UTF_8);
+        assertEquals(List.of("curs,alumne", "AMS2,\"ALVAREZ, Tomas\"", "AMS2,\"O\"\"BRIEN, Sean\""), alumnes);
+
+        List<String> cursos = Files.readAllLines(sortida.resolve("cursos.csv"), StandardCharsets.UTF_8);
+        assertEquals("AMS2,\"LARA, Francesc\",2", cursos.get(1));
+        assertEquals("M06", Files.readAllLines(sortida.resolve("moduls.csv"), StandardCharsets.UTF_8).get(1).split(",")[1]);
+    }
+
+    @Test
+    void testExportacioJSONL() throws IOException {
+        new ExportadorDades(dataDir, FormatExportacio.JSONL).exportarTot(sortida);
+
+        List<String> persones = Files.readAllLines(sortida.resolve("persones.jsonl"), StandardCharsets.UTF_8);
+        assertEquals(2, persones.size());
+        JSONObject persona = new JSONObject(persones.get(0));
+        assertEquals("López", persona.getString("cognom"));
+        assertEquals("Barcelona", persona.getString("ciutat"));
+        assertTrue(new JSONObject(persones.get(1)).isNull("edat"), "Una edat absent s'hauria d'exportar com a null.");
+
+        List<String> alumnes = Files.readAllLines(sortida.resolve("alumnes.jsonl"), StandardCharsets.UTF_8);
+        assertEquals("O\"BRIEN, Sean", new JSONObject(alumnes.get(1)).getString("alumne"));
+    }
+}
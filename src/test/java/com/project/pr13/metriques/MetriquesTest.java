@@ -0,0 +1,62 @@
+package com.project.pr13.metriques;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetriquesTest {
+
+    @BeforeEach
+    void setup() {
+        Metriques.reiniciar();
+    }
+
+    @Test
+    void testPercentilsAproximats() {
+        // Registra les durades 1..10000 ns i comprova que els percentils tenen un error < 12,5%
+        Temporitzador temporitzador = new Temporitzador();
+        for (int i = 1; i <= 10_000; i++) {
+            temporitzador.registrar(i);
+        }
+        assertEquals(10_000, temporitzador.recompte(), "Hi hauria d'haver 10000 mesures.");
+        assertEquals(10_000, temporitzador.maxim(), "El màxim hauria de ser 10000 ns.");
+        assertTrue(Math.abs(temporitzador.percentil(50) - 5_000) <= 625, "El p50 hauria de ser proper a 5000 ns.");
+        assertTrue(Math.abs(temporitzador.percentil(99) - 9_900) <= 1_240, "El p99 hauria de ser proper a 9900 ns.");
+    }
+
+    @Test
+    void testIndexosContinus() {
+        // Els intervals han de ser monòtons i sense salts
+        int anterior = Temporitzador.index(0);
+        for (long v = 1; v < 100_000; v++) {
+            int actual = Temporitzador.index(v);
+            assertTrue(actual == anterior || actual == anterior + 1, "Salt d'interval al valor " + v);
+            anterior = actual;
+        }
+    }
+
+    @Test
+    void testExportacioJSON() {
+        Metriques.comptador(Metriques.BYTES_LLEGITS).afegir(42);
+        Metriques.temporitzador(Metriques.XML_PARSEIG).registrar(1_000);
+        JSONObject json = Metriques.aJSON();
+        assertEquals(42, json.getJSONObject("comptadors").getLong(Metriques.BYTES_LLEGITS));
+        assertEquals(1, json.getJSONObject("temporitzadors").getJSONObject(Metriques.XML_PARSEIG).getLong("recompte"));
+    }
+
+    @Test
+    void testMesurarRegistraTambeLesExcepcions() throws IOException {
+        Temporitzador temporitzador = new Temporitzador();
+        assertEquals(3, temporitzador.mesurar(() -> 1 + 2), "Hauria de retornar el resultat del càlcul.");
+        assertThrows(IOException.class, () -> temporitzador.mesurar(() -> {
+            throw new IOException("error de prova");
+        }));
+        assertEquals(2, temporitzador.recompte(), "Hauria de registrar el càlcul i l'acció que ha fallat.");
+    }
+}
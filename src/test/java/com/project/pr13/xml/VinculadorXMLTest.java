@@ -0,0 +1,128 @@
+package com.project.pr13.xml;
+
+import com.project.pr13.model.Curs;
+import com.project.pr13.model.Llibre;
+import com.project.pr13.model.Modul;
+import com.project.pr13.model.Persona;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VinculadorXMLTest {
+
+    @TempDir
+    Path directoriTemporal;
+
+    @Test
+    void testLlegirPersones() throws IOException {
+        Path fitxer = escriure("persones.xml", """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <persones>
+                    <persona>
+                        <nom>Maria</nom>
+                        <cognom>López</cognom>
+                        <edat> 36 </edat>
+                        <ciutat>Barcelona</ciutat>
+                    </persona>
+                    <!-- comentari -->
+                    <persona>
+                        <nom>Irene</nom>
+                        <desconegut><a>x</a></desconegut>
+                        <cognom>Rocheford</cognom>
+                        <edat>45</edat>
+                        <ciutat>Tokio</ciutat>
+                    </persona>
+                </persones>
+                """);
+
+        List<Persona> persones = VinculadorXML.llegirPersones(fitxer);
+
+        assertEquals(List.of(new Persona("Maria", "López", 36, "Barcelona"),
+                new Persona("Irene", "Rocheford", 45, "Tokio")), persones,
+                "Les persones i les seves edats s'haurien de vincular en l'ordre del document");
+    }
+
+    @Test
+    void testEdatNoNumericaIAbsent() throws IOException {
+        Path fitxer = escriure("persones.xml", """
+                <persones>
+                    <persona><nom>A</nom><edat>3x</edat><ciutat>Reus</ciutat></persona>
+                    <persona><nom>B</nom><ciutat>Vic</ciutat></persona>
+                    <persona><nom>C</nom><edat>99999999999</edat></persona>
+                    <persona><nom>D</nom><edat>0</edat></persona>
+                </persones>
+                """);
+
+        List<Persona> persones = new ArrayList<>();
+        List<VinculadorXML.RegistreErroni> errors = new ArrayList<>();
+        VinculadorXML.recorrerPersones(fitxer, persones::add, errors::add);
+
+        assertEquals(List.of(new Persona("B", "", null, "Vic"), new Persona("D", "", 0, "")), persones,
+                "Els registres correctes s'haurien de llegir i una edat absent no és 0");
+        assertEquals(List.of(2, 4), errors.stream().map(VinculadorXML.RegistreErroni::linia).toList(),
+                "Cada registre erroni s'hauria de notificar amb la seva línia");
+        assertEquals(fitxer, errors.get(0).fitxer());
+        assertEquals("persona", errors.get(0).element());
+        assertEquals("Valor no numèric a l'element edat", errors.get(0).motiu());
+    }
+
+    @Test
+    void testLlegirLlibres() throws IOException {
+        Path fitxer = escriure("biblioteca.xml", """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <biblioteca>
+                    <llibre id="001">
+                        <Titol>El viatge dels venturons</Titol>
+                        <Autor>Joan Pla</Autor>
+                        <anyPublicacio>1998</anyPublicacio>
+                        <Editorial>Edicions Mar</Editorial>
+                        <Genere>Aventura</Genere>
+                        <Pagines>320</Pagines>
+                        <disponible>true</disponible>
+                    </llibre>
+                    <llibre id="002">
+                        <titol>Sense data</titol>
+                    </llibre>
+                </biblioteca>
+                """);
+
+        List<Llibre> llibres = VinculadorXML.llegirLlibres(fitxer);
+
+        assertEquals(List.of(new Llibre("001", "El viatge dels venturons", "Joan Pla", 1998,
+                "Edicions Mar", "Aventura", 320, true), new Llibre("002", "Sense data", "", null, "", "", null, false)),
+                llibres, "El llibre s'hauria de vincular amb els camps tipats, i un any o unes pàgines absents no són 0");
+    }
+
+    @Test
+    void testLlegirCursos() throws IOException {
+        Path fitxer = escriure("cursos.xml", """
+                <cursos>
+                    <curs id="AMS2">
+                        <tutor>LARA,Francesc</tutor>
+                        <alumnes><alumne>ALVAREZ, Tomas</alumne></alumnes>
+                        <moduls><modul id="M06"><titol>Accés a dades</titol></modul></moduls>
+                    </curs>
+                </cursos>
+                """);
+
+        List<Curs> cursos = VinculadorXML.llegirCursos(fitxer);
+
+        assertEquals(List.of(new Curs("AMS2", "LARA,Francesc", List.of("ALVAREZ, Tomas"),
+                List.of(new Modul("M06", "Accés a dades")))), cursos,
+                "El curs s'hauria de vincular amb els seus alumnes i mòduls");
+    }
+
+    private Path escriure(String nom, String contingut) throws IOException {
+        Path fitxer = directoriTemporal.resolve(nom);
+        Files.writeString(fitxer, contingut, StandardCharsets.UTF_8);
+        return fitxer;
+    }
+}
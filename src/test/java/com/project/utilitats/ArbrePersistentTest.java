@@ -0,0 +1,92 @@
+package com.project.utilitats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ArbrePersistentTest {
+
+    @Test
+    void testVersionsIndependents() {
+        ArbrePersistent<String, Integer> v1 = ArbrePersistent.<String, Integer>buit().amb("b", 2).amb("a", 1);
+        ArbrePersistent<String, Integer> v2 = v1.amb("c", 3).sense("a");
+
+        assertEquals(List.of("a", "b"), claus(v1), "La versió anterior no hauria de canviar");
+        assertEquals(List.of("b", "c"), claus(v2), "La versió nova hauria de reflectir els canvis");
+        assertNull(v2.obtenir("a"), "La clau eliminada no hauria de ser a la versió nova");
+        assertEquals(1, v1.obtenir("a"), "La clau eliminada encara hauria de ser a la versió anterior");
+    }
+
+    @Test
+    void testDiferenciesAleatories() {
+        Random aleatori = new Random(42);
+        TreeMap<Integer, Integer> referencia = new TreeMap<>();
+        ArbrePersistent<Integer, Integer> arbre = ArbrePersistent.buit();
+        for (int ronda = 0; ronda < 50; ronda++) {
+            TreeMap<Integer, Integer> referenciaAnterior = new TreeMap<>(referencia);
+            ArbrePersistent<Integer, Integer> anterior = arbre;
+            for (int i = 0; i < 20; i++) {
+                int clau = aleatori.nextInt(200);
+                if (aleatori.nextInt(3) == 0) {
+                    referencia.remove(clau);
+                    arbre = arbre.sense(clau);
+                } else {
+                    int valor = aleatori.nextInt(5);
+                    referencia.put(clau, valor);
+                    arbre = arbre.amb(clau, valor);
+                }
+            }
+            assertEquals(new ArrayList<>(referencia.entrySet()), entrades(arbre), "El contingut hauria de coincidir amb un TreeMap");
+            assertEquals(referencia.size(), arbre.mida(), "La mida hauria de coincidir");
+
+            Set<Integer> esperades = new HashSet<>();
+            Set<Integer> claus = new HashSet<>(referencia.keySet());
+            claus.addAll(referenciaAnterior.keySet());
+            for (Integer clau : claus) {
+                if (!Objects.equals(referencia.get(clau), referenciaAnterior.get(clau))) {
+                    esperades.add(clau);
+                }
+            }
+            Set<Integer> trobades = new HashSet<>();
+            arbre.diferencies(anterior, new ArbrePersistent.Diferencies<>() {
+                @Override
+                public void afegit(Integer clau, Integer valor) {
+                    trobades.add(clau);
+                }
+
+                @Override
+                public void eliminat(Integer clau, Integer valor) {
+                    trobades.add(clau);
+                }
+
+                @Override
+                public void modificat(Integer clau, Integer abans, Integer despres) {
+                    trobades.add(clau);
+                }
+            });
+            assertEquals(esperades, trobades, "Les diferències haurien de ser exactament les claus canviades");
+        }
+    }
+
+    private static List<String> claus(ArbrePersistent<String, Integer> arbre) {
+        List<String> claus = new ArrayList<>();
+        arbre.forEach(entrada -> claus.add(entrada.getKey()));
+        return claus;
+    }
+
+    private static List<Map.Entry<Integer, Integer>> entrades(ArbrePersistent<Integer, Integer> arbre) {
+        List<Map.Entry<Integer, Integer>> entrades = new ArrayList<>();
+        arbre.forEach(entrades::add);
+        return entrades;
+    }
+}
@@ -0,0 +1,72 @@
+package com.project.utilitats;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EscriptorCSVTest {
+
+    @TempDir
+    Path tempDir;  // Directori temporal proporcionat per JUnit
+
+    @Test
+    void testCometesIEscapament() throws IOException {
+        Path fitxer = tempDir.resolve("prova.csv");
+        try (EscriptorCSV escriptor = new EscriptorCSV(fitxer)) {
+            escriptor.fila("nom", "ciutat");
+            escriptor.camp("López, Maria").camp("Diu \"hola\"").fiFila();
+            escriptor.camp("Joan").camp(-42).camp(Long.MIN_VALUE).fiFila();
+        }
+        List<String> linies = Files.readAllLines(fitxer, StandardCharsets.UTF_8);
+        assertEquals(List.of("nom,ciutat", "\"López, Maria\",\"Diu \"\"hola\"\"\"",
+                "Joan,-42," + Long.MIN_VALUE), linies);
+    }
+
+    @Test
+    void testBuffersPetitsICaractersMultibyte() throws IOException {
+        // Amb un buffer de 16 bytes, els caràcters de 2, 3 i 4 bytes queden partits entre buidats
+        ByteArrayOutputStream sortida = new ByteArrayOutputStream();
+        StringBuilder esperat = new StringBuilder();
+        try (EscriptorCSV escriptor = new EscriptorCSV(Channels.newChannel(sortida), ';', 16)) {
+            for (int i = 0; i < 5_000; i++) {
+                String valor = "àé€😀" + i;
+                escriptor.camp(valor).camp(i).fiFila();
+                esperat.append(valor).append(';').append(i).append('\n');
+            }
+        }
+        assertEquals(esperat.toString(), sortida.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testUtilsCSVConservaElFormatDeLaPlataforma() throws IOException {
+        Path fitxer = tempDir.resolve("utils.csv");
+        UtilsCSV.escriure(fitxer.toString(), List.of("nom,cognom", "Gustavo,Catadasús"));
+        String salt = System.lineSeparator();
+        assertEquals("nom,cognom" + salt + "Gustavo,Catadasús" + salt, Files.readString(fitxer, Charset.defaultCharset()),
+                "UtilsCSV hauria d'escriure amb el joc de caràcters i el separador de línies de la plataforma.");
+    }
+
+    @Test
+    void testSortidaGzip() throws IOException {
+        Path fitxer = tempDir.resolve("prova.csv.gz");
+        try (EscriptorCSV escriptor = new EscriptorCSV(fitxer, true)) {
+            escriptor.fila("a", "b");
+            escriptor.fila("Ñandú", "2");
+        }
+        try (InputStream entrada = new GZIPInputStream(Files.newInputStream(fitxer))) {
+            assertEquals("a,b\nÑandú,2\n", new String(entrada.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
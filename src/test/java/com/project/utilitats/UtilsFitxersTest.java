@@ -0,0 +1,61 @@
+package com.project.utilitats;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilsFitxersTest {
+
+    @TempDir
+    Path tempDir;  // Directori temporal proporcionat per JUnit
+
+    private static final byte[] CONTINGUT = "<cursos><curs id=\"AMS2\"/></cursos>\n".repeat(1000)
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testCompressioPerExtensio() throws IOException {
+        for (String nom : new String[]{"cursos.xml", "cursos.xml.gz", "cursos.xml.deflate"}) {
+            Path fitxer = tempDir.resolve(nom);
+            UtilsFitxers.escriureAtomicament(fitxer, sortida -> sortida.write(CONTINGUT));
+            try (InputStream entrada = UtilsFitxers.obrirEntrada(fitxer)) {
+                assertArrayEquals(CONTINGUT, entrada.readAllBytes(), "El contingut de " + nom + " no hauria de canviar");
+            }
+            assertEquals(UtilsFitxers.esComprimit(fitxer), Files.size(fitxer) < CONTINGUT.length / 10,
+                    "Només les variants comprimides haurien d'ocupar menys");
+        }
+
+        // El format gzip ha de ser llegible per qualsevol eina estàndard
+        Path gzip = tempDir.resolve("persones.xml.gz");
+        try (OutputStream sortida = UtilsFitxers.obrirSortida(gzip)) {
+            sortida.write(CONTINGUT);
+        }
+        try (InputStream entrada = new GZIPInputStream(Files.newInputStream(gzip))) {
+            assertArrayEquals(CONTINGUT, entrada.readAllBytes(), "El fitxer .gz hauria de ser gzip estàndard");
+        }
+    }
+
+    @Test
+    void testVariantExistent() throws IOException {
+        Path fitxer = tempDir.resolve("cursos.xml");
+        assertEquals(fitxer, UtilsFitxers.variantExistent(fitxer), "Sense cap fitxer s'hauria de retornar l'original");
+
+        Path comprimit = tempDir.resolve("cursos.xml.gz");
+        Files.createFile(comprimit);
+        assertEquals(comprimit, UtilsFitxers.variantExistent(fitxer), "S'hauria de trobar la variant comprimida");
+
+        Files.createFile(fitxer);
+        assertEquals(fitxer, UtilsFitxers.variantExistent(fitxer), "El fitxer sense comprimir hauria de tenir preferència");
+        assertTrue(UtilsFitxers.esComprimit(comprimit), "L'extensió .gz indica un fitxer comprimit");
+    }
+}